@@ -17,7 +17,7 @@ if not exist "lib\junit-platform-console-standalone-1.9.3.jar" (
 )
 
 echo [1/3] Compilando codigo fuente...
-javac -d out -encoding UTF-8 src\Main.java src\model\*.java src\exception\*.java src\validator\*.java src\util\*.java src\repository\*.java src\service\*.java src\ui\*.java
+javac -d out -encoding UTF-8 src\Main.java src\model\*.java src\exception\*.java src\validator\*.java src\util\*.java src\repository\*.java src\service\*.java src\query\*.java src\ui\*.java
 
 if %errorlevel% neq 0 (
     echo [ERROR] Error al compilar codigo fuente
@@ -26,7 +26,7 @@ if %errorlevel% neq 0 (
 )
 
 echo [2/3] Compilando pruebas unitarias...
-javac -d out -cp "out;lib\junit-platform-console-standalone-1.9.3.jar" -encoding UTF-8 test\repository\*.java test\service\*.java test\validator\*.java
+javac -d out -cp "out;lib\junit-platform-console-standalone-1.9.3.jar" -encoding UTF-8 test\repository\*.java test\service\*.java test\validator\*.java test\util\*.java test\query\*.java test\ui\*.java
 
 if %errorlevel% neq 0 (
     echo [ERROR] Error al compilar pruebas
@@ -2,9 +2,12 @@ import model.*;
 import repository.*;
 import service.*;
 import ui.ConsoleUI;
+import ui.ServidorHttp;
 import util.*;
 import validator.*;
 
+import java.util.concurrent.TimeUnit;
+
 public class Main {
     
     public static void main(String[] args) {
@@ -18,10 +21,28 @@ public class Main {
             // 1. CAPA UTIL - Crear utilidades
             System.out.println("✓ Creando FileManager...");
             FileManager fileManager = new FileManager();
+            // Agrupación opcional de fsync al agregar líneas con
+            // -Dvehiculos.agrupacion.ms=<latencia> y -Dvehiculos.agrupacion.lote=<líneas>
+            long latenciaAgrupacion = Long.getLong("vehiculos.agrupacion.ms", -1L);
+            if (latenciaAgrupacion >= 0) {
+                fileManager.configurarAgrupacion(latenciaAgrupacion,
+                        Integer.getInteger("vehiculos.agrupacion.lote", 256));
+            }
+            // Espera máxima por el bloqueo de archivos compartidos con otros procesos (-Dvehiculos.bloqueo.espera=<ms>)
+            fileManager.configurarEsperaBloqueo(Long.getLong("vehiculos.bloqueo.espera", 10_000));
             
             // 2. CAPA REPOSITORY - Crear repositorio con inyección de dependencias
+            // Modo seleccionable con -Dvehiculos.repositorio=archivo|indexado|log|binario
             System.out.println("✓ Creando Repository...");
-            IVehiculoRepository repository = new VehiculoFileRepository(fileManager);
+            IVehiculoRepository repository = crearRepositorio(fileManager);
+            
+            // Caché de lectura opcional con -Dvehiculos.cache=<entradas> y -Dvehiculos.cache.ttl=<segundos>
+            int entradasCache = Integer.getInteger("vehiculos.cache", 0);
+            if (entradasCache > 0) {
+                System.out.println("✓ Activando caché de " + entradasCache + " vehículos...");
+                repository = new CachingVehiculoRepository(repository, entradasCache,
+                        Long.getLong("vehiculos.cache.ttl", 0L), TimeUnit.SECONDS);
+            }
             
             // 3. CAPA VALIDATOR - Crear validadores
             System.out.println("✓ Creando Validadores...");
@@ -35,10 +56,44 @@ public class Main {
                 repository,
                 autoValidator,
                 motoValidator,
-                camionValidator
+                camionValidator,
+                new SecuenciaIds(repository, fileManager, SecuenciaIds.TAMANO_BLOQUE_DEFECTO)
             );
             
+            // Escritor único por tipo y lecturas sobre instantáneas en memoria (-Dvehiculos.motor=true)
+            if (Boolean.getBoolean("vehiculos.motor")) {
+                System.out.println("✓ Activando motor con un escritor por tipo...");
+                service = new MotorVehiculos(service);
+            }
+            
             // 5. CAPA UI - Crear interfaz de usuario con inyección de dependencias
+            // API HTTP/JSON opcional con -Dvehiculos.http.puerto=<puerto>;
+            // con -Dvehiculos.http.solo=true se atiende solo la API, sin la consola
+            ServidorHttp servidorHttp = null;
+            int puertoHttp = Integer.getInteger("vehiculos.http.puerto", 0);
+            if (puertoHttp > 0) {
+                System.out.println("✓ Iniciando API HTTP...");
+                // Sin TCP_NODELAY cada respuesta keep-alive espera ~40 ms (ver ServidorHttp);
+                // se lee al crear el primer servidor, así que va antes
+                if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                    System.setProperty("sun.net.httpserver.nodelay", "true");
+                }
+                servidorHttp = new ServidorHttp(service, puertoHttp);
+                servidorHttp.iniciar();
+                System.out.println("  Escuchando en http://localhost:" + servidorHttp.getPuerto() + "/vehiculos/");
+            }
+            
+            if (servidorHttp != null && Boolean.getBoolean("vehiculos.http.solo")) {
+                System.out.println("✓ Sistema inicializado correctamente (Ctrl+C para terminar)\n");
+                ServidorHttp servidor = servidorHttp;
+                IVehiculoService servicio = service;
+                IVehiculoRepository repositorio = repository;
+                Runtime.getRuntime().addShutdownHook(new Thread(
+                        () -> cerrar(servidor, servicio, repositorio, fileManager)));
+                Thread.currentThread().join();
+                return;
+            }
+            
             System.out.println("✓ Creando Interfaz de Usuario...");
             ConsoleUI ui = new ConsoleUI(service);
             
@@ -50,6 +105,8 @@ public class Main {
             
             ui.iniciar();
             
+            cerrar(servidorHttp, service, repository, fileManager);
+            
         } catch (Exception e) {
             System.err.println("╔════════════════════════════════════════╗");
             System.err.println("║   ERROR CRÍTICO AL INICIAR SISTEMA     ║");
@@ -58,4 +115,48 @@ public class Main {
             e.printStackTrace();
         }
     }
+    
+    /**
+     * Cierra todo al terminar, de afuera hacia adentro: el servidor deja de
+     * recibir pedidos, el motor aplica lo encolado y el repositorio guarda lo
+     * pendiente (ej: el modo log exporta sus cambios al CSV)
+     */
+    private static void cerrar(ServidorHttp servidorHttp, IVehiculoService service,
+                               IVehiculoRepository repository, FileManager fileManager) {
+        if (servidorHttp != null) {
+            servidorHttp.close();
+        }
+        for (Object recurso : new Object[] { service, repository }) {
+            if (recurso instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) recurso).close();
+                } catch (Exception e) {
+                    System.err.println("Advertencia: Error al cerrar " + recurso.getClass().getSimpleName()
+                            + ": " + e.getMessage());
+                }
+            }
+        }
+        fileManager.cerrarCanalesAgregado();
+    }
+    
+    /**
+     * Crea el repositorio según el modo configurado.
+     * Por defecto se usa el repositorio de archivo, que no carga los datos en memoria.
+     */
+    private static IVehiculoRepository crearRepositorio(FileManager fileManager) {
+        String modo = System.getProperty("vehiculos.repositorio", "archivo");
+        
+        switch (modo.toLowerCase().trim()) {
+            case "archivo":
+                return new VehiculoFileRepository(fileManager);
+            case "indexado":
+                return new VehiculoIndexedRepository(fileManager);
+            case "log":
+                return new VehiculoLogRepository(fileManager);
+            case "binario":
+                return new VehiculoBinaryRepository(fileManager);
+            default:
+                throw new IllegalArgumentException("Modo de repositorio no válido: " + modo);
+        }
+    }
 }
\ No newline at end of file
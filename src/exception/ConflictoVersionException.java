@@ -0,0 +1,34 @@
+package exception;
+
+/**
+ * Se lanza cuando se intenta actualizar un vehículo a partir de una versión
+ * que ya no es la guardada (otro usuario lo modificó después de leerlo)
+ */
+public class ConflictoVersionException extends VehiculoException {
+
+    private final int id;
+    private final long versionEsperada;
+    private final long versionActual;
+
+    public ConflictoVersionException(int id, long versionEsperada, long versionActual) {
+        super("El vehículo con ID " + id + " fue modificado por otro usuario (versión leída: "
+                + versionEsperada + ", versión actual: " + versionActual + ")");
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+        this.versionActual = versionActual;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // Versión con la que se leyó el vehículo
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    // Versión guardada al momento de actualizar
+    public long getVersionActual() {
+        return versionActual;
+    }
+}
@@ -0,0 +1,18 @@
+package exception;
+
+/**
+ * Se lanza cuando se intenta crear un vehículo con un ID que ya existe
+ */
+public class VehiculoDuplicadoException extends VehiculoException {
+
+    private final int id;
+
+    public VehiculoDuplicadoException(int id) {
+        super("Ya existe un vehículo con ID: " + id);
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,22 @@
+package exception;
+
+/**
+ * Se lanza cuando el vehículo pedido no existe
+ */
+public class VehiculoNoEncontradoException extends VehiculoException {
+
+    private final int id;
+
+    public VehiculoNoEncontradoException(int id) {
+        this(id, "No se encontró vehículo con ID: " + id);
+    }
+
+    public VehiculoNoEncontradoException(int id, String mensaje) {
+        super(mensaje);
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import util.CsvSerializer;
+import util.CsvTokenizer;
+
 public class Auto extends Vehiculo {
     private int numeroPuertas;
     private  String tipoTransmision;
@@ -45,69 +48,62 @@ public class Auto extends Vehiculo {
         return "Auto";
     }
 
+    @Override
+    public Auto copiar(){
+        return conVersion(new Auto(id, marca, modelo, anio, precio, color, numeroPuertas, tipoTransmision, esSedan), version);
+    }
+
     @Override
     public String toCSV(){
 
-        // Formato: id,marca,modelo,año,precio,color,numeroPuertas,tipoTransmision,esSedan
-        return String.format("%d,%s,%s,%d,%.2f,%s,%d,%s,%b",
-            id, marca, modelo, anio, precio, color, numeroPuertas, tipoTransmision, esSedan);
+        // Formato: id,marca,modelo,año,precio,color,numeroPuertas,tipoTransmision,esSedan[,v<version>]
+        return CsvSerializer.linea()
+            .entero(id).texto(marca).texto(modelo).entero(anio).decimal(precio).texto(color)
+            .entero(numeroPuertas).texto(tipoTransmision).booleano(esSedan)
+            .version(version)
+            .construir();
     }
 
-    public static Auto fromCSV(String linea){
-        // Limpiar la línea de espacios en blanco y saltos de línea
-        linea = linea.trim();
+    public static Auto fromCSV(CharSequence linea){
+        CsvTokenizer campos = new CsvTokenizer(linea);
         
         // Validar que la línea no esté vacía
-        if (linea.isEmpty()) {
+        if (campos.estaVacia()) {
             throw new IllegalArgumentException("La línea CSV está vacía");
         }
         
-        String[] datos = linea.split(",");
+        // La versión va al final con prefijo propio ("...,true,v3")
+        long version = campos.quitarVersion();
         
         // Si hay más de 9 campos, el precio probablemente tiene coma decimal
-        // Reconstruir el precio correctamente
-        if (datos.length > 9) {
-            // El precio está dividido (ej: "2000000" y "00")
-            // Reconstruir: datos[4] + "." + datos[5] = precio completo
-            String precioCompleto = datos[4].trim() + "." + datos[5].trim();
-            // Reconstruir el array con el precio correcto
-            String[] datosCorregidos = new String[9];
-            datosCorregidos[0] = datos[0].trim();  // id
-            datosCorregidos[1] = datos[1].trim();  // marca
-            datosCorregidos[2] = datos[2].trim();  // modelo
-            datosCorregidos[3] = datos[3].trim();  // año
-            datosCorregidos[4] = precioCompleto;   // precio (reconstruido)
-            datosCorregidos[5] = datos[6].trim();  // color (desplazado)
-            datosCorregidos[6] = datos[7].trim();  // numeroPuertas (desplazado)
-            datosCorregidos[7] = datos[8].trim();  // tipoTransmision (desplazado)
-            datosCorregidos[8] = datos[9].trim();  // esSedan (desplazado)
-            datos = datosCorregidos;
-        }
+        // (ej: "2000000" y "00"), como en archivos escritos con String.format
+        // en una configuración regional con coma; se lee uniendo ambos campos
+        int cantidadCampos = campos.contarCampos();
+        boolean precioConComa = cantidadCampos > 9;
         
         // Verificar que tenemos suficientes datos
-        if (datos.length < 9) {
-            throw new IllegalArgumentException("Formato CSV inválido. Se esperaban 9 campos, se encontraron: " + datos.length + ". Línea: " + linea);
+        if (cantidadCampos < 9) {
+            throw new IllegalArgumentException("Formato CSV inválido. Se esperaban 9 campos, se encontraron: " + cantidadCampos + ". Línea: " + linea.toString().trim());
         }
         
         try {
-            // Normalizar el precio (reemplazar coma por punto si es necesario)
-            String precioStr = datos[4].trim().replace(",", ".");
-            
-            return new Auto(
-                Integer.parseInt(datos[0].trim()),  // id
-                datos[1].trim(),                     // marca
-                datos[2].trim(),                     // modelo
-                Integer.parseInt(datos[3].trim()),  // año
-                Double.parseDouble(precioStr),       // precio (normalizado)
-                datos[5].trim(),                     // color
-                Integer.parseInt(datos[6].trim()),  // numeroPuertas
-                datos[7].trim(),                     // tipoTransmision
-                Boolean.parseBoolean(datos[8].trim()) // esSedan
-            );
+            return conVersion(new Auto(
+                campos.siguienteEntero(),            // id
+                campos.siguienteTexto(),             // marca
+                campos.siguienteTexto(),             // modelo
+                campos.siguienteEntero(),            // año
+                precioConComa
+                    ? campos.siguienteDoubleConComaDecimal()
+                    : campos.siguienteDouble(),      // precio
+                campos.siguienteTexto(),             // color
+                campos.siguienteEntero(),            // numeroPuertas
+                campos.siguienteTexto(),             // tipoTransmision
+                campos.siguienteBoolean()            // esSedan
+            ), version);
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Error al parsear valores numéricos en línea CSV: " + linea + ". Error: " + e.getMessage(), e);
+            throw new IllegalArgumentException("Error al parsear valores numéricos en línea CSV: " + linea.toString().trim() + ". Error: " + e.getMessage(), e);
         } catch (Exception e) {
-            throw new IllegalArgumentException("Error al crear Auto desde CSV: " + linea + ". Error: " + e.getMessage(), e);
+            throw new IllegalArgumentException("Error al crear Auto desde CSV: " + linea.toString().trim() + ". Error: " + e.getMessage(), e);
         }
     }
 
@@ -1,5 +1,8 @@
 package model;
 
+import util.CsvSerializer;
+import util.CsvTokenizer;
+
 public class Camion extends Vehiculo {
     // Atributos específicos de Camión
     private double capacidadCarga; // En toneladas
@@ -40,34 +43,42 @@ public class Camion extends Vehiculo {
         return "Camion";
     }
     
+    @Override
+    public Camion copiar() {
+        return conVersion(new Camion(id, marca, modelo, anio, precio, color, capacidadCarga, numeroEjes), version);
+    }
+    
     @Override
     public String toCSV() {
-        // Formato: id,marca,modelo,año,precio,color,capacidadCarga,numeroEjes
-        return String.format("%d,%s,%s,%d,%.2f,%s,%.2f,%d",
-                id, marca, modelo, anio, precio, color, capacidadCarga, numeroEjes);
+        // Formato: id,marca,modelo,año,precio,color,capacidadCarga,numeroEjes[,v<version>]
+        return CsvSerializer.linea()
+                .entero(id).texto(marca).texto(modelo).entero(anio).decimal(precio).texto(color)
+                .decimal(capacidadCarga).entero(numeroEjes)
+                .version(version)
+                .construir();
     }
     
     // Método para crear Camion desde línea CSV
-    public static Camion fromCSV(String linea) {
-        // Limpiar la línea de espacios en blanco y saltos de línea
-        linea = linea.trim();
-        String[] datos = linea.split(",");
+    public static Camion fromCSV(CharSequence linea) {
+        CsvTokenizer campos = new CsvTokenizer(linea);
+        long version = campos.quitarVersion();
         
         // Verificar que tenemos suficientes datos
-        if (datos.length < 8) {
-            throw new IllegalArgumentException("Formato CSV inválido. Se esperaban 8 campos, se encontraron: " + datos.length);
+        int cantidadCampos = campos.contarCampos();
+        if (cantidadCampos < 8) {
+            throw new IllegalArgumentException("Formato CSV inválido. Se esperaban 8 campos, se encontraron: " + cantidadCampos);
         }
         
-        return new Camion(
-                Integer.parseInt(datos[0].trim()),  // id
-                datos[1].trim(),                     // marca
-                datos[2].trim(),                     // modelo
-                Integer.parseInt(datos[3].trim()),  // año
-                Double.parseDouble(datos[4].trim()), // precio
-                datos[5].trim(),                     // color
-                Double.parseDouble(datos[6].trim()), // capacidadCarga
-                Integer.parseInt(datos[7].trim())   // numeroEjes
-        );
+        return conVersion(new Camion(
+                campos.siguienteEntero(),            // id
+                campos.siguienteTexto(),             // marca
+                campos.siguienteTexto(),             // modelo
+                campos.siguienteEntero(),            // año
+                campos.siguienteDouble(),            // precio
+                campos.siguienteTexto(),             // color
+                campos.siguienteDouble(),            // capacidadCarga
+                campos.siguienteEntero()             // numeroEjes
+        ), version);
     }
     
     @Override
@@ -0,0 +1,64 @@
+package model;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Campos numéricos de los vehículos que se pueden consultar por rango.
+ * Los campos comunes aplican a todos los tipos; los específicos solo al suyo.
+ */
+public enum CampoNumerico {
+
+    ANIO("anio", null, Vehiculo::getAnio),
+    PRECIO("precio", null, Vehiculo::getPrecio),
+    NUMERO_PUERTAS("puertas", Auto.class, v -> ((Auto) v).getNumeroPuertas()),
+    CILINDRADA("cilindrada", Moto.class, v -> ((Moto) v).getCilindrada()),
+    CAPACIDAD_CARGA("capacidad", Camion.class, v -> ((Camion) v).getCapacidadCarga()),
+    NUMERO_EJES("ejes", Camion.class, v -> ((Camion) v).getNumeroEjes());
+
+    private final String nombre;
+    private final Class<? extends Vehiculo> clase;
+    private final ToDoubleFunction<Vehiculo> extractor;
+
+    CampoNumerico(String nombre, Class<? extends Vehiculo> clase, ToDoubleFunction<Vehiculo> extractor) {
+        this.nombre = nombre;
+        this.clase = clase;
+        this.extractor = extractor;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Indica si el campo existe en los vehículos de la clase dada
+     */
+    public boolean aplicaA(Class<? extends Vehiculo> claseVehiculo) {
+        return clase == null || clase.isAssignableFrom(claseVehiculo);
+    }
+
+    /**
+     * Obtiene el valor del campo en un vehículo
+     *
+     * @throws IllegalArgumentException Si el campo no aplica al vehículo
+     */
+    public double valor(Vehiculo vehiculo) {
+        if (!aplicaA(vehiculo.getClass())) {
+            throw new IllegalArgumentException("El campo " + nombre + " no aplica a " + vehiculo.getTipo());
+        }
+        return extractor.applyAsDouble(vehiculo);
+    }
+
+    /**
+     * Busca un campo por su nombre (ej: "precio"), sin distinguir mayúsculas
+     *
+     * @return El campo, o null si no existe
+     */
+    public static CampoNumerico desdeNombre(String nombre) {
+        for (CampoNumerico campo : values()) {
+            if (campo.nombre.equalsIgnoreCase(nombre.trim())) {
+                return campo;
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import util.CsvSerializer;
+import util.CsvTokenizer;
+
 public class Moto extends Vehiculo{
     //atributos especificos de la moto
     private int cilindrada;
@@ -33,31 +36,38 @@ public class Moto extends Vehiculo{
         return "Moto";
     }
     @Override
+    public Moto copiar(){
+        return conVersion(new Moto(id, marca, modelo, anio, precio, color, cilindrada, tieneCarenado), version);
+    }
+    @Override
     public String toCSV(){
-        return String.format("%d,%s,%s,%d,%.2f,%s,%d,%b",
-            id, marca, modelo, anio, precio, color, cilindrada, tieneCarenado);
+        return CsvSerializer.linea()
+            .entero(id).texto(marca).texto(modelo).entero(anio).decimal(precio).texto(color)
+            .entero(cilindrada).booleano(tieneCarenado)
+            .version(version)
+            .construir();
     }
 
-    public static Moto fromCSV(String linea){
-        // Limpiar la línea de espacios en blanco y saltos de línea
-        linea = linea.trim();
-        String[] datos = linea.split(",");
+    public static Moto fromCSV(CharSequence linea){
+        CsvTokenizer campos = new CsvTokenizer(linea);
+        long version = campos.quitarVersion();
         
         // Verificar que tenemos suficientes datos
-        if (datos.length < 8) {
-            throw new IllegalArgumentException("Formato CSV inválido. Se esperaban 8 campos, se encontraron: " + datos.length);
+        int cantidadCampos = campos.contarCampos();
+        if (cantidadCampos < 8) {
+            throw new IllegalArgumentException("Formato CSV inválido. Se esperaban 8 campos, se encontraron: " + cantidadCampos);
         }
         
-        return new Moto(
-            Integer.parseInt(datos[0].trim()),  // id
-            datos[1].trim(),                     // marca
-            datos[2].trim(),                     // modelo
-            Integer.parseInt(datos[3].trim()),  // año
-            Double.parseDouble(datos[4].trim()), // precio
-            datos[5].trim(),                     // color
-            Integer.parseInt(datos[6].trim()),  // cilindrada
-            Boolean.parseBoolean(datos[7].trim()) // tieneCarenado
-        );
+        return conVersion(new Moto(
+            campos.siguienteEntero(),            // id
+            campos.siguienteTexto(),             // marca
+            campos.siguienteTexto(),             // modelo
+            campos.siguienteEntero(),            // año
+            campos.siguienteDouble(),            // precio
+            campos.siguienteTexto(),             // color
+            campos.siguienteEntero(),            // cilindrada
+            campos.siguienteBoolean()            // tieneCarenado
+        ), version);
     }
 
     @Override
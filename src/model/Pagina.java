@@ -0,0 +1,58 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una página de vehículos ordenados por ID, obtenida con un cursor por clave:
+ * la página siguiente se pide con el último ID de esta (getSiguienteId).
+ */
+public class Pagina {
+
+    private final List<Vehiculo> vehiculos;
+    private final Integer siguienteId;
+
+    /**
+     * @param vehiculos Vehículos de la página, en orden de ID
+     * @param siguienteId ID a partir del cual pedir la página siguiente, o null si es la última
+     */
+    public Pagina(List<Vehiculo> vehiculos, Integer siguienteId) {
+        this.vehiculos = Collections.unmodifiableList(vehiculos);
+        this.siguienteId = siguienteId;
+    }
+
+    /**
+     * Arma una página a partir de hasta tamano + 1 candidatos en orden de ID:
+     * si sobra uno, hay página siguiente
+     *
+     * @param candidatos Vehículos siguientes al cursor, en orden de ID
+     * @param tamano Tamaño de página
+     * @return La página
+     */
+    public static Pagina desdeCandidatos(List<Vehiculo> candidatos, int tamano) {
+        if (candidatos.size() <= tamano) {
+            return new Pagina(candidatos, null);
+        }
+        List<Vehiculo> vehiculos = candidatos.subList(0, tamano);
+        return new Pagina(vehiculos, vehiculos.get(tamano - 1).getId());
+    }
+
+    public List<Vehiculo> getVehiculos() {
+        return vehiculos;
+    }
+
+    /**
+     * @return Cursor para la página siguiente, o null si no hay más vehículos
+     */
+    public Integer getSiguienteId() {
+        return siguienteId;
+    }
+
+    public boolean hayMas() {
+        return siguienteId != null;
+    }
+
+    public boolean estaVacia() {
+        return vehiculos.isEmpty();
+    }
+}
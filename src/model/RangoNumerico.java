@@ -0,0 +1,48 @@
+package model;
+
+/**
+ * Rango cerrado [minimo, maximo] para consultas sobre un campo numérico.
+ * Un extremo infinito deja el rango abierto de ese lado.
+ */
+public class RangoNumerico {
+
+    private final double minimo;
+    private final double maximo;
+
+    public RangoNumerico(double minimo, double maximo) {
+        if (Double.isNaN(minimo) || Double.isNaN(maximo) || minimo > maximo) {
+            throw new IllegalArgumentException("Rango inválido: [" + minimo + ", " + maximo + "]");
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+    }
+
+    public static RangoNumerico entre(double minimo, double maximo) {
+        return new RangoNumerico(minimo, maximo);
+    }
+
+    public static RangoNumerico desde(double minimo) {
+        return new RangoNumerico(minimo, Double.POSITIVE_INFINITY);
+    }
+
+    public static RangoNumerico hasta(double maximo) {
+        return new RangoNumerico(Double.NEGATIVE_INFINITY, maximo);
+    }
+
+    public double getMinimo() {
+        return minimo;
+    }
+
+    public double getMaximo() {
+        return maximo;
+    }
+
+    public boolean contiene(double valor) {
+        return valor >= minimo && valor <= maximo;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + minimo + ", " + maximo + "]";
+    }
+}
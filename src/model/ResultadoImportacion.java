@@ -0,0 +1,87 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva: cuántas líneas se leyeron, cuántos
+ * vehículos se guardaron y el detalle de las líneas rechazadas.
+ */
+public class ResultadoImportacion {
+
+    private final long lineasLeidas;
+    private final long importados;
+    private final long rechazados;
+    private final List<ErrorLinea> errores;
+
+    /**
+     * @param lineasLeidas Líneas no vacías del archivo
+     * @param importados Vehículos guardados
+     * @param rechazados Líneas rechazadas (puede superar errores.size() si se limitó el detalle)
+     * @param errores Detalle de las líneas rechazadas, en orden de línea
+     */
+    public ResultadoImportacion(long lineasLeidas, long importados, long rechazados, List<ErrorLinea> errores) {
+        this.lineasLeidas = lineasLeidas;
+        this.importados = importados;
+        this.rechazados = rechazados;
+        this.errores = Collections.unmodifiableList(errores);
+    }
+
+    public long getLineasLeidas() {
+        return lineasLeidas;
+    }
+
+    public long getImportados() {
+        return importados;
+    }
+
+    public long getRechazados() {
+        return rechazados;
+    }
+
+    public List<ErrorLinea> getErrores() {
+        return errores;
+    }
+
+    public boolean tieneErrores() {
+        return rechazados > 0;
+    }
+
+    /**
+     * Una línea rechazada del archivo importado
+     */
+    public static class ErrorLinea {
+
+        private final long numeroLinea;
+        private final String linea;
+        private final List<String> errores;
+
+        /**
+         * @param numeroLinea Número de línea en el archivo (la primera es 1)
+         * @param linea Contenido de la línea
+         * @param errores Motivos del rechazo
+         */
+        public ErrorLinea(long numeroLinea, String linea, List<String> errores) {
+            this.numeroLinea = numeroLinea;
+            this.linea = linea;
+            this.errores = Collections.unmodifiableList(errores);
+        }
+
+        public long getNumeroLinea() {
+            return numeroLinea;
+        }
+
+        public String getLinea() {
+            return linea;
+        }
+
+        public List<String> getErrores() {
+            return errores;
+        }
+
+        @Override
+        public String toString() {
+            return "Línea " + numeroLinea + ": " + String.join("; ", errores);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de un elemento de una operación por lotes (crear, actualizar o
+ * eliminar varios vehículos a la vez)
+ */
+public class ResultadoOperacion {
+
+    private final int id;
+    private final List<String> errores;
+
+    private ResultadoOperacion(int id, List<String> errores) {
+        this.id = id;
+        this.errores = Collections.unmodifiableList(errores);
+    }
+
+    public static ResultadoOperacion exito(int id) {
+        return new ResultadoOperacion(id, List.of());
+    }
+
+    public static ResultadoOperacion fallo(int id, List<String> errores) {
+        return new ResultadoOperacion(id, errores);
+    }
+
+    public static ResultadoOperacion fallo(int id, String error) {
+        return new ResultadoOperacion(id, List.of(error));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isExitoso() {
+        return errores.isEmpty();
+    }
+
+    /**
+     * @return Motivos del fallo (vacía si la operación se aplicó)
+     */
+    public List<String> getErrores() {
+        return errores;
+    }
+
+    @Override
+    public String toString() {
+        return "ID " + id + ": " + (isExitoso() ? "OK" : String.join("; ", errores));
+    }
+}
@@ -10,6 +10,14 @@ public abstract class Vehiculo {
     protected double precio;
     protected String color;
 
+    // Versión que se indica para actualizar sin control de concurrencia
+    // optimista: solo para usos internos que lo eligen a propósito
+    public static final long SIN_CONTROL_DE_VERSION = -1;
+
+    // Versión del registro guardado, para el control de concurrencia optimista:
+    // 0 si el vehículo no se leyó del repositorio (o es de un archivo anterior)
+    protected long version;
+
     //constructor vacio
     public Vehiculo(){}
 
@@ -62,6 +70,18 @@ public abstract class Vehiculo {
     public void setColor(String color){
         this.color = color;
     }
+    public long getVersion(){
+        return version;
+    }
+    public void setVersion(long version){
+        this.version = version;
+    }
+
+    // Asigna la versión (leída del CSV o copiada) y devuelve el mismo vehículo
+    protected static <T extends Vehiculo> T conVersion(T vehiculo, long version){
+        vehiculo.version = version;
+        return vehiculo;
+    }
 
   // Método abstracto que cada tipo debe implementar
     public abstract String getTipo();
@@ -69,6 +89,9 @@ public abstract class Vehiculo {
     // Método abstracto para convertir a formato CSV
     public abstract String toCSV();
 
+    // Método abstracto para obtener una copia independiente (ej: para cachés)
+    public abstract Vehiculo copiar();
+
      // Método para calcular impuesto (puede ser sobreescrito)
     public  double  calcularImpuesto(){
         return precio * 0.15;
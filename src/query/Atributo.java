@@ -0,0 +1,113 @@
+package query;
+
+import model.*;
+import util.TextIndex;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Atributos de los vehículos que se pueden usar en una consulta.
+ * Los atributos comunes aplican a todos los tipos; los específicos solo al suyo.
+ */
+public enum Atributo {
+
+    ID("id", null, TipoValor.NUMERO, v -> (double) v.getId(), null),
+    MARCA("marca", null, TipoValor.TEXTO, Vehiculo::getMarca, null),
+    MODELO("modelo", null, TipoValor.TEXTO, Vehiculo::getModelo, null),
+    ANIO("anio", null, TipoValor.NUMERO, v -> (double) v.getAnio(), CampoNumerico.ANIO),
+    PRECIO("precio", null, TipoValor.NUMERO, Vehiculo::getPrecio, CampoNumerico.PRECIO),
+    COLOR("color", null, TipoValor.TEXTO, Vehiculo::getColor, null),
+    NUMERO_PUERTAS("numeroPuertas", Auto.class, TipoValor.NUMERO,
+            v -> (double) ((Auto) v).getNumeroPuertas(), CampoNumerico.NUMERO_PUERTAS),
+    TIPO_TRANSMISION("tipoTransmision", Auto.class, TipoValor.TEXTO, v -> ((Auto) v).getTipoTransmision(), null),
+    ES_SEDAN("esSedan", Auto.class, TipoValor.BOOLEANO, v -> ((Auto) v).isEsSedan(), null),
+    CILINDRADA("cilindrada", Moto.class, TipoValor.NUMERO,
+            v -> (double) ((Moto) v).getCilindrada(), CampoNumerico.CILINDRADA),
+    TIENE_CARENADO("tieneCarenado", Moto.class, TipoValor.BOOLEANO, v -> ((Moto) v).isTieneCarenado(), null),
+    CAPACIDAD_CARGA("capacidadCarga", Camion.class, TipoValor.NUMERO,
+            v -> ((Camion) v).getCapacidadCarga(), CampoNumerico.CAPACIDAD_CARGA),
+    NUMERO_EJES("numeroEjes", Camion.class, TipoValor.NUMERO,
+            v -> (double) ((Camion) v).getNumeroEjes(), CampoNumerico.NUMERO_EJES);
+
+    /**
+     * Tipo de los valores de un atributo
+     */
+    public enum TipoValor { NUMERO, TEXTO, BOOLEANO }
+
+    private final String nombre;
+    private final Class<? extends Vehiculo> clase;
+    private final TipoValor tipoValor;
+    private final Function<Vehiculo, Object> extractor;
+    private final CampoNumerico campoNumerico;
+
+    Atributo(String nombre, Class<? extends Vehiculo> clase, TipoValor tipoValor,
+             Function<Vehiculo, Object> extractor, CampoNumerico campoNumerico) {
+        this.nombre = nombre;
+        this.clase = clase;
+        this.tipoValor = tipoValor;
+        this.extractor = extractor;
+        this.campoNumerico = campoNumerico;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public TipoValor getTipoValor() {
+        return tipoValor;
+    }
+
+    /**
+     * @return El campo con índice de rango equivalente, o null si no tiene
+     */
+    public CampoNumerico getCampoNumerico() {
+        return campoNumerico;
+    }
+
+    /**
+     * Indica si el atributo existe en los vehículos de la clase dada
+     */
+    public boolean aplicaA(Class<? extends Vehiculo> claseVehiculo) {
+        return clase == null || clase.isAssignableFrom(claseVehiculo);
+    }
+
+    /**
+     * Obtiene el valor del atributo: Double, String o Boolean según el tipo
+     */
+    public Object valor(Vehiculo vehiculo) {
+        return extractor.apply(vehiculo);
+    }
+
+    /**
+     * Comparador de vehículos por este atributo (los textos sin distinguir mayúsculas)
+     */
+    public Comparator<Vehiculo> comparador() {
+        switch (tipoValor) {
+            case NUMERO:
+                return Comparator.comparingDouble(v -> (Double) valor(v));
+            case BOOLEANO:
+                return Comparator.comparing(v -> (Boolean) valor(v));
+            default:
+                return Comparator.comparing(v -> normalizar(valor(v)));
+        }
+    }
+
+    /**
+     * Busca un atributo por su nombre (ej: "numeroPuertas"), sin distinguir mayúsculas
+     *
+     * @return El atributo, o null si no existe
+     */
+    public static Atributo desdeNombre(String nombre) {
+        for (Atributo atributo : values()) {
+            if (atributo.nombre.equalsIgnoreCase(nombre.trim())) {
+                return atributo;
+            }
+        }
+        return null;
+    }
+
+    static String normalizar(Object texto) {
+        return texto == null ? "" : TextIndex.normalizar(texto.toString());
+    }
+}
@@ -0,0 +1,85 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consulta sobre los vehículos de un tipo: predicados unidos con AND,
+ * orden opcional por un atributo y límite opcional de resultados.
+ *
+ * Ejemplo: new Consulta("auto").donde(...).ordenarPor(Atributo.PRECIO, false).limitar(10)
+ */
+public class Consulta {
+
+    /** Límite máximo de resultados: los resultados se arman en memoria */
+    public static final int LIMITE_MAXIMO = 100_000;
+
+    private final String tipo;
+    private final List<Predicado> predicados = new ArrayList<>();
+    private Atributo orden;
+    private boolean descendente;
+    private int limite;
+
+    public Consulta(String tipo) {
+        this.tipo = tipo;
+    }
+
+    /**
+     * Agrega un predicado que deben cumplir todos los resultados
+     */
+    public Consulta donde(Predicado predicado) {
+        predicados.add(predicado);
+        return this;
+    }
+
+    public Consulta donde(Atributo atributo, Operador operador, Object valor) {
+        return donde(new Predicado(atributo, operador, valor));
+    }
+
+    /**
+     * Ordena los resultados por un atributo (a igualdad, por ID)
+     */
+    public Consulta ordenarPor(Atributo atributo, boolean descendente) {
+        this.orden = atributo;
+        this.descendente = descendente;
+        return this;
+    }
+
+    /**
+     * Limita la cantidad de resultados (0 = sin límite)
+     */
+    public Consulta limitar(int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo");
+        }
+        if (limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite no puede superar " + LIMITE_MAXIMO);
+        }
+        this.limite = limite;
+        return this;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public List<Predicado> getPredicados() {
+        return Collections.unmodifiableList(predicados);
+    }
+
+    /**
+     * @return Atributo de orden, o null si no se pidió orden
+     */
+    public Atributo getOrden() {
+        return orden;
+    }
+
+    public boolean isDescendente() {
+        return descendente;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+}
@@ -0,0 +1,194 @@
+package query;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Interpreta consultas escritas como texto, por ejemplo:
+ *
+ *   numeroPuertas=4 AND tipoTransmision=Automática AND precio&lt;30000 ORDER BY precio DESC LIMIT 10
+ *
+ * Los valores de texto pueden ir entre comillas dobles si contienen espacios
+ * seguidos de AND, ORDER BY o LIMIT. Las palabras clave no distinguen mayúsculas.
+ */
+public final class ConsultaParser {
+
+    private static final Pattern FIN_VALOR = Pattern.compile("\\s+(AND|ORDER\\s+BY|LIMIT)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AND = Pattern.compile("AND\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("ORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIMIT = Pattern.compile("LIMIT\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DIRECCION = Pattern.compile("(ASC|DESC)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOMBRE = Pattern.compile("[A-Za-z]+");
+    private static final Pattern ENTERO = Pattern.compile("\\d+");
+
+    private final String texto;
+    private int posicion;
+
+    private ConsultaParser(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Interpreta una consulta sobre los vehículos de un tipo
+     *
+     * @param tipo Tipo de vehículo
+     * @param texto Consulta; vacía para obtener todos los vehículos
+     * @return La consulta interpretada
+     * @throws IllegalArgumentException Si la consulta no es válida
+     */
+    public static Consulta parsear(String tipo, String texto) {
+        return new ConsultaParser(texto == null ? "" : texto).parsear(tipo);
+    }
+
+    private Consulta parsear(String tipo) {
+        Consulta consulta = new Consulta(tipo);
+        saltarEspacios();
+
+        if (!alFinal() && !mira(ORDER_BY) && !mira(LIMIT)) {
+            do {
+                consulta.donde(leerPredicado());
+                saltarEspacios();
+            } while (consumir(AND));
+        }
+
+        if (consumir(ORDER_BY)) {
+            Atributo atributo = leerAtributo();
+            saltarEspacios();
+            boolean descendente = false;
+            Matcher direccion = DIRECCION.matcher(texto).region(posicion, texto.length());
+            if (direccion.lookingAt()) {
+                descendente = direccion.group(1).equalsIgnoreCase("DESC");
+                posicion = direccion.end();
+                saltarEspacios();
+            }
+            consulta.ordenarPor(atributo, descendente);
+        }
+
+        if (consumir(LIMIT)) {
+            consulta.limitar(Integer.parseInt(leer(ENTERO, "un número después de LIMIT")));
+            saltarEspacios();
+        }
+
+        if (!alFinal()) {
+            throw error("texto inesperado");
+        }
+        return consulta;
+    }
+
+    private Predicado leerPredicado() {
+        Atributo atributo = leerAtributo();
+        saltarEspacios();
+        Operador operador = leerOperador();
+        saltarEspacios();
+        String valor = leerValor();
+
+        try {
+            return new Predicado(atributo, operador, convertirValor(atributo, valor));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Consulta inválida: " + e.getMessage(), e);
+        }
+    }
+
+    private Atributo leerAtributo() {
+        saltarEspacios();
+        String nombre = leer(NOMBRE, "un atributo");
+        Atributo atributo = Atributo.desdeNombre(nombre);
+        if (atributo == null) {
+            throw new IllegalArgumentException("Consulta inválida: atributo desconocido '" + nombre + "'");
+        }
+        return atributo;
+    }
+
+    private Operador leerOperador() {
+        for (Operador operador : Operador.values()) {
+            if (texto.startsWith(operador.getSimbolo(), posicion)) {
+                posicion += operador.getSimbolo().length();
+                return operador;
+            }
+        }
+        throw error("se esperaba un operador (=, !=, <, <=, >, >=, ~)");
+    }
+
+    /**
+     * Lee un valor entre comillas, o hasta la siguiente palabra clave
+     */
+    private String leerValor() {
+        if (!alFinal() && texto.charAt(posicion) == '"') {
+            int cierre = texto.indexOf('"', posicion + 1);
+            if (cierre < 0) {
+                throw error("faltan las comillas de cierre");
+            }
+            String valor = texto.substring(posicion + 1, cierre);
+            posicion = cierre + 1;
+            return valor;
+        }
+
+        Matcher fin = FIN_VALOR.matcher(texto);
+        int hasta = fin.find(posicion) ? fin.start() : texto.length();
+        String valor = texto.substring(posicion, hasta).trim();
+        if (valor.isEmpty()) {
+            throw error("falta el valor");
+        }
+        posicion = hasta;
+        return valor;
+    }
+
+    private static Object convertirValor(Atributo atributo, String valor) {
+        switch (atributo.getTipoValor()) {
+            case NUMERO:
+                try {
+                    return Double.parseDouble(valor);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("'" + valor + "' no es un número válido para " + atributo.getNombre());
+                }
+            case BOOLEANO:
+                String respuesta = valor.toLowerCase();
+                if (respuesta.equals("true") || respuesta.equals("si") || respuesta.equals("sí")) {
+                    return true;
+                }
+                if (respuesta.equals("false") || respuesta.equals("no")) {
+                    return false;
+                }
+                throw new IllegalArgumentException("'" + valor + "' no es un valor válido para " + atributo.getNombre());
+            default:
+                return valor;
+        }
+    }
+
+    private String leer(Pattern patron, String esperado) {
+        Matcher matcher = patron.matcher(texto).region(posicion, texto.length());
+        if (!matcher.lookingAt()) {
+            throw error("se esperaba " + esperado);
+        }
+        posicion = matcher.end();
+        return matcher.group();
+    }
+
+    private boolean mira(Pattern palabraClave) {
+        return palabraClave.matcher(texto).region(posicion, texto.length()).lookingAt();
+    }
+
+    private boolean consumir(Pattern palabraClave) {
+        Matcher matcher = palabraClave.matcher(texto).region(posicion, texto.length());
+        if (!matcher.lookingAt()) {
+            return false;
+        }
+        posicion = matcher.end();
+        saltarEspacios();
+        return true;
+    }
+
+    private void saltarEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+
+    private boolean alFinal() {
+        return posicion >= texto.length();
+    }
+
+    private IllegalArgumentException error(String detalle) {
+        return new IllegalArgumentException("Consulta inválida en la posición " + (posicion + 1) + ": " + detalle);
+    }
+}
@@ -0,0 +1,33 @@
+package query;
+
+/**
+ * Operadores de comparación de un predicado
+ */
+public enum Operador {
+
+    // Los símbolos de dos caracteres van primero para que el parser los reconozca antes
+    DISTINTO("!="),
+    MENOR_IGUAL("<="),
+    MAYOR_IGUAL(">="),
+    IGUAL("="),
+    MENOR("<"),
+    MAYOR(">"),
+    CONTIENE("~");
+
+    private final String simbolo;
+
+    Operador(String simbolo) {
+        this.simbolo = simbolo;
+    }
+
+    public String getSimbolo() {
+        return simbolo;
+    }
+
+    /**
+     * Indica si el operador compara por orden (<, <=, >, >=)
+     */
+    public boolean esDeOrden() {
+        return this == MENOR || this == MENOR_IGUAL || this == MAYOR || this == MAYOR_IGUAL;
+    }
+}
@@ -0,0 +1,234 @@
+package query;
+
+import model.CampoNumerico;
+import model.RangoNumerico;
+import model.Vehiculo;
+import repository.IVehiculoRepository;
+import exception.VehiculoException;
+import util.VehiculoFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Planifica y ejecuta consultas sobre un repositorio.
+ *
+ * Entre los predicados que puede resolver un índice del repositorio (rangos
+ * numéricos y marca) elige el que devuelve menos candidatos, según la cuenta
+ * que da el propio índice. Los candidatos se recorren como Stream evaluando
+ * todos los predicados; si no hay índice aplicable se recorre el tipo completo.
+ * Con orden y límite se conservan solo los K mejores en un heap.
+ */
+public class PlanificadorConsultas {
+
+    private static final int CAPACIDAD_INICIAL_HEAP = 1024;
+
+    private final IVehiculoRepository repository;
+
+    // Constructor con inyección de dependencias
+    public PlanificadorConsultas(IVehiculoRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Elige cómo obtener los candidatos de la consulta
+     *
+     * @param consulta Consulta a planificar
+     * @return El plan, listo para ejecutar
+     * @throws VehiculoException Si el tipo no es válido, un atributo no aplica al tipo o hay error al leer
+     */
+    public Plan planificar(Consulta consulta) throws VehiculoException {
+        String tipo = consulta.getTipo();
+        validar(consulta);
+
+        // Un solo rango por campo: la intersección de sus predicados
+        Map<CampoNumerico, RangoNumerico> rangos = new EnumMap<>(CampoNumerico.class);
+        for (Predicado predicado : consulta.getPredicados()) {
+            RangoNumerico rango = predicado.comoRango();
+            if (rango == null) {
+                continue;
+            }
+            CampoNumerico campo = predicado.getAtributo().getCampoNumerico();
+            RangoNumerico anterior = rangos.get(campo);
+            if (anterior != null) {
+                double minimo = Math.max(anterior.getMinimo(), rango.getMinimo());
+                double maximo = Math.min(anterior.getMaximo(), rango.getMaximo());
+                if (minimo > maximo) {
+                    return new Plan(consulta, "Rangos sin valores en común sobre " + campo.getNombre(), 0, null);
+                }
+                rango = RangoNumerico.entre(minimo, maximo);
+            }
+            rangos.put(campo, rango);
+        }
+
+        Plan mejor = null;
+        for (Map.Entry<CampoNumerico, RangoNumerico> rango : rangos.entrySet()) {
+            long cantidad = repository.contarPorRango(tipo, rango.getKey(), rango.getValue());
+            if (cantidad >= 0 && (mejor == null || cantidad < mejor.candidatosEstimados)) {
+                Map<CampoNumerico, RangoNumerico> uno = Map.of(rango.getKey(), rango.getValue());
+                mejor = new Plan(consulta, "Índice de rango sobre " + rango.getKey().getNombre() + " " + rango.getValue(),
+                        cantidad, () -> repository.streamByRangos(tipo, uno));
+            }
+        }
+
+        for (Predicado predicado : consulta.getPredicados()) {
+            boolean porMarca = predicado.getAtributo() == Atributo.MARCA
+                    && (predicado.getOperador() == Operador.IGUAL || predicado.getOperador() == Operador.CONTIENE);
+            if (!porMarca) {
+                continue;
+            }
+            String marca = (String) predicado.getValor();
+            long cantidad = repository.contarPorMarca(marca, tipo);
+            if (cantidad >= 0 && (mejor == null || cantidad < mejor.candidatosEstimados)) {
+                mejor = new Plan(consulta, "Índice de marca \"" + marca + "\"",
+                        cantidad, () -> repository.streamByMarca(marca, tipo));
+            }
+        }
+
+        if (mejor == null) {
+            mejor = new Plan(consulta, "Recorrido completo", -1, () -> repository.streamAll(tipo));
+        }
+        return mejor;
+    }
+
+    /**
+     * Planifica y ejecuta la consulta
+     *
+     * @return Los vehículos que cumplen la consulta, ordenados y limitados según se pidió
+     * @throws VehiculoException Si la consulta no es válida o hay error al leer
+     */
+    public List<Vehiculo> ejecutar(Consulta consulta) throws VehiculoException {
+        return planificar(consulta).ejecutar();
+    }
+
+    private static void validar(Consulta consulta) throws VehiculoException {
+        Class<? extends Vehiculo> clase;
+        try {
+            clase = VehiculoFactory.crearVehiculo(consulta.getTipo()).getClass();
+        } catch (IllegalArgumentException e) {
+            throw new VehiculoException(e.getMessage());
+        }
+
+        List<Atributo> usados = new ArrayList<>();
+        for (Predicado predicado : consulta.getPredicados()) {
+            usados.add(predicado.getAtributo());
+        }
+        if (consulta.getOrden() != null) {
+            usados.add(consulta.getOrden());
+        }
+        for (Atributo atributo : usados) {
+            if (!atributo.aplicaA(clase)) {
+                throw new VehiculoException("El atributo " + atributo.getNombre()
+                        + " no aplica al tipo " + consulta.getTipo());
+            }
+        }
+    }
+
+    /**
+     * Origen de los candidatos de un plan
+     */
+    @FunctionalInterface
+    private interface FuenteCandidatos {
+        Stream<Vehiculo> abrir() throws VehiculoException;
+    }
+
+    /**
+     * Plan elegido para una consulta
+     */
+    public static class Plan {
+        private final Consulta consulta;
+        private final String descripcion;
+        private final long candidatosEstimados;
+        private final FuenteCandidatos fuente;
+
+        private Plan(Consulta consulta, String descripcion, long candidatosEstimados, FuenteCandidatos fuente) {
+            this.consulta = consulta;
+            this.descripcion = descripcion;
+            this.candidatosEstimados = candidatosEstimados;
+            this.fuente = fuente;
+        }
+
+        /**
+         * @return Descripción del acceso elegido (ej: "Índice de rango sobre precio")
+         */
+        public String getDescripcion() {
+            return descripcion;
+        }
+
+        /**
+         * @return Candidatos que devuelve el índice elegido, o -1 si se recorre todo
+         */
+        public long getCandidatosEstimados() {
+            return candidatosEstimados;
+        }
+
+        /**
+         * Ejecuta el plan
+         *
+         * @return Los vehículos que cumplen la consulta, ordenados y limitados según se pidió
+         * @throws VehiculoException Si hay error al leer
+         */
+        public List<Vehiculo> ejecutar() throws VehiculoException {
+            if (fuente == null) {
+                return new ArrayList<>();
+            }
+
+            try (Stream<Vehiculo> candidatos = fuente.abrir()) {
+                Stream<Vehiculo> resultado = candidatos.filter(this::cumplePredicados);
+                int limite = consulta.getLimite();
+
+                if (consulta.getOrden() == null) {
+                    return (limite > 0 ? resultado.limit(limite) : resultado).collect(Collectors.toList());
+                }
+
+                Comparator<Vehiculo> orden = consulta.getOrden().comparador();
+                if (consulta.isDescendente()) {
+                    orden = orden.reversed();
+                }
+                orden = orden.thenComparingInt(Vehiculo::getId);
+
+                if (limite > 0) {
+                    return mejores(resultado, orden, limite);
+                }
+                return resultado.sorted(orden).collect(Collectors.toList());
+            }
+        }
+
+        private boolean cumplePredicados(Vehiculo vehiculo) {
+            for (Predicado predicado : consulta.getPredicados()) {
+                if (!predicado.test(vehiculo)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Los K primeros según el orden, con un heap de tamaño K: el tope
+         * del heap es el peor de los conservados. El heap crece a medida que
+         * llegan resultados, así un K grande no reserva memoria de más.
+         */
+        private static List<Vehiculo> mejores(Stream<Vehiculo> vehiculos, Comparator<Vehiculo> orden, int k) {
+            PriorityQueue<Vehiculo> heap = new PriorityQueue<>(Math.min(k, CAPACIDAD_INICIAL_HEAP),
+                    orden.reversed());
+            vehiculos.forEach(v -> {
+                if (heap.size() < k) {
+                    heap.add(v);
+                } else if (orden.compare(v, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(v);
+                }
+            });
+
+            List<Vehiculo> resultado = new ArrayList<>(heap);
+            resultado.sort(orden);
+            return resultado;
+        }
+    }
+}
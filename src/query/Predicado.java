@@ -0,0 +1,121 @@
+package query;
+
+import model.RangoNumerico;
+import model.Vehiculo;
+
+import java.util.function.Predicate;
+
+/**
+ * Condición "atributo operador valor" sobre un vehículo (ej: precio &lt; 30000).
+ *
+ * Los textos se comparan sin distinguir mayúsculas; "~" busca una subcadena.
+ * Un vehículo al que no le aplica el atributo no cumple el predicado.
+ */
+public final class Predicado implements Predicate<Vehiculo> {
+
+    private final Atributo atributo;
+    private final Operador operador;
+    private final Object valor;
+
+    /**
+     * @param atributo Atributo a comparar
+     * @param operador Operador de comparación
+     * @param valor Valor de comparación: número, texto o booleano según el atributo
+     * @throws IllegalArgumentException Si el valor o el operador no corresponden al atributo
+     */
+    public Predicado(Atributo atributo, Operador operador, Object valor) {
+        this.atributo = atributo;
+        this.operador = operador;
+        this.valor = validarValor(atributo, operador, valor);
+    }
+
+    private static Object validarValor(Atributo atributo, Operador operador, Object valor) {
+        switch (atributo.getTipoValor()) {
+            case NUMERO:
+                if (!(valor instanceof Number) || operador == Operador.CONTIENE) {
+                    throw new IllegalArgumentException("El atributo " + atributo.getNombre()
+                            + " requiere un número y un operador de comparación");
+                }
+                return ((Number) valor).doubleValue();
+            case BOOLEANO:
+                if (!(valor instanceof Boolean) || (operador != Operador.IGUAL && operador != Operador.DISTINTO)) {
+                    throw new IllegalArgumentException("El atributo " + atributo.getNombre()
+                            + " requiere true/false con = o !=");
+                }
+                return valor;
+            default:
+                if (!(valor instanceof String) || operador.esDeOrden()) {
+                    throw new IllegalArgumentException("El atributo " + atributo.getNombre()
+                            + " requiere un texto con =, != o ~");
+                }
+                return Atributo.normalizar(valor);
+        }
+    }
+
+    public Atributo getAtributo() {
+        return atributo;
+    }
+
+    public Operador getOperador() {
+        return operador;
+    }
+
+    public Object getValor() {
+        return valor;
+    }
+
+    @Override
+    public boolean test(Vehiculo vehiculo) {
+        if (!atributo.aplicaA(vehiculo.getClass())) {
+            return false;
+        }
+        Object actual = atributo.valor(vehiculo);
+
+        switch (atributo.getTipoValor()) {
+            case NUMERO:
+                int comparacion = Double.compare((Double) actual, (Double) valor);
+                switch (operador) {
+                    case IGUAL: return comparacion == 0;
+                    case DISTINTO: return comparacion != 0;
+                    case MENOR: return comparacion < 0;
+                    case MENOR_IGUAL: return comparacion <= 0;
+                    case MAYOR: return comparacion > 0;
+                    default: return comparacion >= 0;
+                }
+            case BOOLEANO:
+                return actual.equals(valor) == (operador == Operador.IGUAL);
+            default:
+                String texto = Atributo.normalizar(actual);
+                switch (operador) {
+                    case IGUAL: return texto.equals(valor);
+                    case DISTINTO: return !texto.equals(valor);
+                    default: return texto.contains((String) valor);
+                }
+        }
+    }
+
+    /**
+     * Traduce el predicado a un rango cerrado para usar un índice de rango
+     *
+     * @return El rango, o null si el predicado no se puede expresar así
+     */
+    public RangoNumerico comoRango() {
+        if (atributo.getCampoNumerico() == null) {
+            return null;
+        }
+        double numero = (Double) valor;
+        switch (operador) {
+            case IGUAL: return RangoNumerico.entre(numero, numero);
+            case MENOR: return RangoNumerico.hasta(Math.nextDown(numero));
+            case MENOR_IGUAL: return RangoNumerico.hasta(numero);
+            case MAYOR: return RangoNumerico.desde(Math.nextUp(numero));
+            case MAYOR_IGUAL: return RangoNumerico.desde(numero);
+            default: return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return atributo.getNombre() + operador.getSimbolo() + valor;
+    }
+}
@@ -0,0 +1,482 @@
+package repository;
+
+import model.*;
+import exception.VehiculoException;
+import util.VehiculoFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Decorador que agrega una caché de lectura a cualquier IVehiculoRepository.
+ *
+ * Guarda los resultados de read (hasta una cantidad máxima, desalojando el
+ * usado hace más tiempo) y la lista completa de findAll por tipo. Las
+ * entradas pueden vencer tras un TTL, y create/update/delete invalidan las
+ * de los IDs escritos y el listado de su tipo.
+ *
+ * Para ver los cambios hechos por otros procesos (u otros repositorios)
+ * sobre los mismos archivos aunque no haya TTL, se consulta la generación de
+ * los datos de cada tipo ({@link IVehiculoRepository#generacion(String)}) a
+ * lo sumo una vez cada {@link #INTERVALO_VERIFICACION_MS} ms, no en cada
+ * acierto. Si avanzó más que las escrituras hechas a través de esta caché,
+ * alguien más escribió y se descartan todas las entradas del tipo. Se
+ * guardan y devuelven copias, así que modificar un vehículo leído no altera
+ * la caché.
+ *
+ * Las búsquedas por índice (marca, rangos, páginas) se delegan sin caché
+ * para no perder los índices del repositorio decorado.
+ */
+public class CachingVehiculoRepository implements IVehiculoRepository, AutoCloseable {
+
+    /** Cada cuánto se consulta como máximo la generación de los datos de un tipo */
+    static final long INTERVALO_VERIFICACION_MS = 100;
+
+    private final IVehiculoRepository delegado;
+    private final int maxEntradas;
+    private final long ttlNanos;
+    private final LongSupplier reloj;
+
+    // "autos:5" → vehículo, en orden de acceso (LRU)
+    private final LinkedHashMap<String, Entrada<Vehiculo>> lecturas;
+    // "autos" → resultado de findAll
+    private final Map<String, Entrada<List<Vehiculo>>> listados = new HashMap<>();
+    // "autos" → generación de los datos vista en la última verificación
+    private final Map<String, Verificacion> verificaciones = new HashMap<>();
+
+    // Aumenta con cada invalidación: una lectura que empezó antes no se guarda
+    private long generacion = 0;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+
+    /**
+     * @param delegado Repositorio al que se delegan las operaciones
+     * @param maxEntradas Cantidad máxima de vehículos en caché
+     * @param ttl Tiempo de vida de cada entrada (0 = sin vencimiento)
+     * @param unidad Unidad del TTL
+     */
+    public CachingVehiculoRepository(IVehiculoRepository delegado, int maxEntradas, long ttl, TimeUnit unidad) {
+        this(delegado, maxEntradas, unidad.toNanos(ttl), System::nanoTime);
+    }
+
+    // Constructor con reloj inyectable (para pruebas)
+    CachingVehiculoRepository(IVehiculoRepository delegado, int maxEntradas, long ttlNanos, LongSupplier reloj) {
+        if (maxEntradas < 1) {
+            throw new IllegalArgumentException("La caché debe admitir al menos una entrada");
+        }
+        this.delegado = delegado;
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = ttlNanos;
+        this.reloj = reloj;
+        this.lecturas = new LinkedHashMap<String, Entrada<Vehiculo>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada<Vehiculo>> mayor) {
+                if (size() > CachingVehiculoRepository.this.maxEntradas) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void create(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            delegado.create(vehiculo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(vehiculo), List.of(vehiculo.getId()));
+        }
+    }
+
+    @Override
+    public Vehiculo read(int id, String tipo) throws VehiculoException {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        String clave = clave(nombreArchivo, id);
+        verificarCambiosAjenos(tipo, nombreArchivo);
+        long generacionLectura;
+
+        synchronized (this) {
+            Vehiculo guardado = obtenerVigente(lecturas, clave);
+            if (guardado != null) {
+                aciertos.incrementAndGet();
+                return guardado.copiar();
+            }
+            fallos.incrementAndGet();
+            generacionLectura = generacion;
+        }
+
+        Vehiculo vehiculo = delegado.read(id, tipo);
+
+        synchronized (this) {
+            if (generacionLectura == generacion) {
+                lecturas.put(clave, new Entrada<>(vehiculo.copiar(), vencimiento()));
+            }
+        }
+        return vehiculo;
+    }
+
+    @Override
+    public void update(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            delegado.update(vehiculo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(vehiculo), List.of(vehiculo.getId()));
+        }
+    }
+
+    @Override
+    public void delete(int id, String tipo) throws VehiculoException {
+        try {
+            delegado.delete(id, tipo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(tipo), List.of(id));
+        }
+    }
+
+    @Override
+    public boolean createIfAbsent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            return delegado.createIfAbsent(vehiculo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(vehiculo), List.of(vehiculo.getId()));
+        }
+    }
+
+    @Override
+    public boolean updateIfPresent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            return delegado.updateIfPresent(vehiculo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(vehiculo), List.of(vehiculo.getId()));
+        }
+    }
+
+    @Override
+    public boolean deleteIfPresent(int id, String tipo) throws VehiculoException {
+        try {
+            return delegado.deleteIfPresent(id, tipo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(tipo), List.of(id));
+        }
+    }
+
+    @Override
+    public List<Vehiculo> createAllIfAbsent(List<Vehiculo> vehiculos) throws VehiculoException {
+        try {
+            return delegado.createAllIfAbsent(vehiculos);
+        } finally {
+            invalidar(vehiculos);
+        }
+    }
+
+    @Override
+    public Map<Vehiculo, VehiculoException> updateAllIfPresent(List<Vehiculo> vehiculos)
+            throws VehiculoException {
+        try {
+            return delegado.updateAllIfPresent(vehiculos);
+        } finally {
+            invalidar(vehiculos);
+        }
+    }
+
+    @Override
+    public List<Integer> deleteAllIfPresent(Collection<Integer> ids, String tipo) throws VehiculoException {
+        try {
+            return delegado.deleteAllIfPresent(ids, tipo);
+        } finally {
+            invalidar(VehiculoFactory.obtenerNombreArchivo(tipo), ids);
+        }
+    }
+
+    @Override
+    public List<Vehiculo> findAll(String tipo) throws VehiculoException {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        verificarCambiosAjenos(tipo, nombreArchivo);
+        long generacionLectura;
+
+        synchronized (this) {
+            List<Vehiculo> guardados = obtenerVigente(listados, nombreArchivo);
+            if (guardados != null) {
+                aciertos.incrementAndGet();
+                return copiar(guardados);
+            }
+            fallos.incrementAndGet();
+            generacionLectura = generacion;
+        }
+
+        List<Vehiculo> vehiculos = delegado.findAll(tipo);
+
+        synchronized (this) {
+            if (generacionLectura == generacion) {
+                listados.put(nombreArchivo, new Entrada<>(copiar(vehiculos), vencimiento()));
+            }
+        }
+        return vehiculos;
+    }
+
+    /**
+     * Usa la lista en caché si la hay; si no, recorre el repositorio decorado
+     * sin guardar nada (un recorrido no arma la lista completa)
+     */
+    @Override
+    public Stream<Vehiculo> streamAll(String tipo) throws VehiculoException {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        verificarCambiosAjenos(tipo, nombreArchivo);
+        synchronized (this) {
+            List<Vehiculo> guardados = obtenerVigente(listados, nombreArchivo);
+            if (guardados != null) {
+                aciertos.incrementAndGet();
+                return guardados.stream().map(Vehiculo::copiar);
+            }
+            fallos.incrementAndGet();
+        }
+        return delegado.streamAll(tipo);
+    }
+
+    @Override
+    public boolean existsById(int id, String tipo) {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        try {
+            verificarCambiosAjenos(tipo, nombreArchivo);
+        } catch (VehiculoException e) {
+            return delegado.existsById(id, tipo);
+        }
+        synchronized (this) {
+            if (obtenerVigente(lecturas, clave(nombreArchivo, id)) != null) {
+                aciertos.incrementAndGet();
+                return true;
+            }
+            fallos.incrementAndGet();
+        }
+        return delegado.existsById(id, tipo);
+    }
+
+    @Override
+    public long generacion(String tipo) throws VehiculoException {
+        return delegado.generacion(tipo);
+    }
+
+    @Override
+    public int getNextId(String tipo) {
+        return delegado.getNextId(tipo);
+    }
+
+    @Override
+    public Stream<Vehiculo> streamByMarca(String marca, String tipo) throws VehiculoException {
+        return delegado.streamByMarca(marca, tipo);
+    }
+
+    @Override
+    public Stream<Vehiculo> streamByRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos)
+            throws VehiculoException {
+        return delegado.streamByRangos(tipo, rangos);
+    }
+
+    @Override
+    public long contarPorMarca(String marca, String tipo) throws VehiculoException {
+        return delegado.contarPorMarca(marca, tipo);
+    }
+
+    @Override
+    public long contarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango) throws VehiculoException {
+        return delegado.contarPorRango(tipo, campo, rango);
+    }
+
+    @Override
+    public Pagina findPage(String tipo, int despuesDeId, int tamano) throws VehiculoException {
+        return delegado.findPage(tipo, despuesDeId, tamano);
+    }
+
+    /**
+     * Vacía la caché (ej: si los archivos se modificaron fuera de la aplicación)
+     */
+    public synchronized void limpiar() {
+        generacion++;
+        lecturas.clear();
+        listados.clear();
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public long getDesalojos() {
+        return desalojos.get();
+    }
+
+    /**
+     * @return Proporción de consultas resueltas desde la caché (0 si no hubo consultas)
+     */
+    public double getTasaAciertos() {
+        long total = aciertos.get() + fallos.get();
+        return total == 0 ? 0 : (double) aciertos.get() / total;
+    }
+
+    public synchronized int getCantidadEntradas() {
+        return lecturas.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegado instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegado).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Error al cerrar el repositorio", e);
+            }
+        }
+    }
+
+    /**
+     * Descarta las entradas de los IDs escritos y el listado de su tipo, y
+     * cuenta la escritura como propia: avanza la generación de los datos una vez
+     */
+    private synchronized void invalidar(String nombreArchivo, Collection<Integer> ids) {
+        generacion++;
+        for (int id : ids) {
+            lecturas.remove(clave(nombreArchivo, id));
+        }
+        listados.remove(nombreArchivo);
+        verificaciones.computeIfAbsent(nombreArchivo, n -> new Verificacion()).escriturasPropias++;
+    }
+
+    /**
+     * Invalida un lote: una escritura por cada archivo que toca
+     */
+    private void invalidar(List<Vehiculo> vehiculos) {
+        Map<String, List<Integer>> porArchivo = new LinkedHashMap<>();
+        for (Vehiculo vehiculo : vehiculos) {
+            porArchivo.computeIfAbsent(VehiculoFactory.obtenerNombreArchivo(vehiculo), n -> new ArrayList<>())
+                    .add(vehiculo.getId());
+        }
+        porArchivo.forEach(this::invalidar);
+    }
+
+    /**
+     * Si pasó el intervalo desde la última verificación del tipo, consulta la
+     * generación de sus datos. Si avanzó más que las escrituras propias,
+     * otro proceso (u otro repositorio) escribió y se descartan las entradas
+     * del tipo.
+     */
+    private void verificarCambiosAjenos(String tipo, String nombreArchivo) throws VehiculoException {
+        Verificacion verificacion;
+        synchronized (this) {
+            verificacion = verificaciones.computeIfAbsent(nombreArchivo, n -> new Verificacion());
+            long ahora = reloj.getAsLong();
+            if (verificacion.programada && ahora - verificacion.proxima < 0) {
+                return;
+            }
+            // Los demás hilos no vuelven a consultar mientras dura esta verificación
+            verificacion.proxima = ahora + TimeUnit.MILLISECONDS.toNanos(INTERVALO_VERIFICACION_MS);
+            verificacion.programada = true;
+        }
+
+        long actual;
+        try {
+            actual = delegado.generacion(tipo);
+        } catch (VehiculoException | RuntimeException e) {
+            synchronized (this) {
+                verificacion.programada = false;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            long avance = actual - verificacion.generacionDatos;
+            if (verificacion.leida && avance != 0 && avance != verificacion.escriturasPropias) {
+                descartarArchivo(nombreArchivo);
+            }
+            verificacion.generacionDatos = actual;
+            verificacion.escriturasPropias = 0;
+            verificacion.leida = true;
+        }
+    }
+
+    private void descartarArchivo(String nombreArchivo) {
+        generacion++;
+        String prefijo = nombreArchivo + ":";
+        lecturas.keySet().removeIf(clave -> clave.startsWith(prefijo));
+        listados.remove(nombreArchivo);
+    }
+
+    /**
+     * Obtiene el valor de una entrada, descartándola si venció
+     *
+     * @return El valor, o null si no está o ya no es vigente
+     */
+    private <T> T obtenerVigente(Map<String, Entrada<T>> mapa, String clave) {
+        Entrada<T> entrada = mapa.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        if (ttlNanos > 0 && reloj.getAsLong() - entrada.vencimiento > 0) {
+            mapa.remove(clave);
+            return null;
+        }
+        return entrada.valor;
+    }
+
+    private long vencimiento() {
+        return reloj.getAsLong() + ttlNanos;
+    }
+
+    private static String clave(String nombreArchivo, int id) {
+        return nombreArchivo + ":" + id;
+    }
+
+    private static List<Vehiculo> copiar(List<Vehiculo> vehiculos) {
+        List<Vehiculo> copias = new ArrayList<>(vehiculos.size());
+        for (Vehiculo vehiculo : vehiculos) {
+            copias.add(vehiculo.copiar());
+        }
+        return copias;
+    }
+
+    /**
+     * Valor guardado junto con su vencimiento (según el reloj)
+     */
+    private static class Entrada<T> {
+        private final T valor;
+        private final long vencimiento;
+
+        Entrada(T valor, long vencimiento) {
+            this.valor = valor;
+            this.vencimiento = vencimiento;
+        }
+    }
+
+    /**
+     * Estado de la verificación de cambios ajenos de un archivo, protegido
+     * por el monitor de la caché
+     */
+    private static class Verificacion {
+        // Generación vista en la última consulta (válida si leida)
+        private long generacionDatos;
+        private boolean leida;
+        // false si hay que consultar en el próximo acceso
+        private boolean programada;
+        private long proxima;
+        // Escrituras hechas a través de la caché desde la última consulta
+        private long escriturasPropias;
+    }
+}
@@ -0,0 +1,366 @@
+package repository;
+
+import util.BloqueoArchivo;
+import util.FileManager;
+import util.VehiculoFactory;
+import util.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Registro de mutaciones sobre los archivos CSV respaldado por un WAL.
+ *
+ * Los repositorios registran cada mutación antes de aplicarla y la confirman
+ * después, o la descartan si la escritura falló ({@link Mutacion}). Las
+ * mutaciones son idempotentes (upsert y eliminación por ID), así que al
+ * arrancar se pueden reaplicar las que quedaron sin confirmar.
+ *
+ * Cada proceso escribe su propio WAL ("vehiculos-<pid>.wal"), así que los
+ * procesos que comparten los CSV no se pisan las entradas. Al arrancar se
+ * recuperan también los WAL de procesos que terminaron sin confirmar todo
+ * (los que ningún proceso tiene bloqueados) y después se eliminan.
+ *
+ * Los upserts y eliminaciones guardan la generación del bloqueo de escritura
+ * con el que se registraron, y al arrancar solo se reaplican si nadie
+ * escribió el archivo después (la generación avanzó una sola vez, con el
+ * bloqueo de la recuperación). Si no, reaplicarlos pisaría cambios
+ * confirmados más nuevos: se descartan con una advertencia, igual que las
+ * entradas sin generación de versiones anteriores.
+ *
+ * Los lotes agregados al final de un archivo no se copian al WAL: se
+ * registra el tamaño previo del archivo y la generación de su bloqueo. Si el
+ * lote no se confirmó, al arrancar se descarta recortando el archivo a ese
+ * tamaño, pero solo si nadie escribió el archivo después (la generación
+ * avanzó una sola vez, con el bloqueo de la recuperación); si no, recortar
+ * borraría líneas confirmadas y el lote se deja como quedó.
+ */
+class CsvWal {
+
+    private static final String NOMBRE_WAL = "vehiculos";
+    private static final String EXTENSION_WAL = ".wal";
+    private static final String UPSERT = "U";
+    private static final String ELIMINAR = "D";
+    private static final String LOTE = "L";
+
+    private final FileManager fileManager;
+    private final WriteAheadLog wal;
+
+    CsvWal(FileManager fileManager) throws IOException {
+        this.fileManager = fileManager;
+        this.wal = WriteAheadLog.abrir(ruta(fileManager));
+    }
+
+    /**
+     * Ruta del WAL de este proceso
+     */
+    static Path ruta(FileManager fileManager) {
+        return fileManager.obtenerRuta(NOMBRE_WAL + "-" + ProcessHandle.current().pid(), EXTENSION_WAL);
+    }
+
+    /**
+     * Inicia una mutación; se usa con try-with-resources y se confirma
+     * después de escribir el archivo
+     */
+    Mutacion iniciar() {
+        return new Mutacion();
+    }
+
+    /**
+     * Registra que se van a agregar líneas al final de un archivo
+     *
+     * @param tamanoAnterior Tamaño del archivo antes de agregar el lote
+     * @param generacion Generación del bloqueo de escritura tomado para el lote
+     * @return Secuencia a confirmar tras escribir todo el lote
+     */
+    long registrarLote(String nombreArchivo, long tamanoAnterior, long generacion) throws IOException {
+        return wal.registrar(LOTE + "\t" + nombreArchivo + "\t" + tamanoAnterior + "\t" + generacion);
+    }
+
+    /**
+     * Confirma un lote escrito completo
+     */
+    void confirmarLote(long secuencia) throws IOException {
+        wal.confirmar(secuencia);
+    }
+
+    /**
+     * Descarta un lote que falló al escribirse, para que no se recorte el
+     * archivo al arrancar después de otras escrituras
+     */
+    void deshacerLote(long secuencia, String nombreArchivo, long tamanoAnterior) throws IOException {
+        try {
+            fileManager.truncarArchivo(nombreArchivo, tamanoAnterior);
+        } finally {
+            wal.descartarTodas(new long[] { secuencia });
+        }
+    }
+
+    /**
+     * Reaplica sobre los CSV las mutaciones que no llegaron a confirmarse,
+     * las del WAL propio y las de los WAL que dejaron otros procesos (ej: el
+     * "vehiculos.wal" de versiones anteriores, compartido por todos)
+     *
+     * @return Cantidad de mutaciones reaplicadas
+     */
+    int recuperar() throws IOException {
+        int aplicadas = recuperar(wal);
+
+        List<Path> ajenos = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(
+                wal.getRuta().getParent(), NOMBRE_WAL + "*" + EXTENSION_WAL)) {
+            for (Path archivo : archivos) {
+                ajenos.add(archivo);
+            }
+        }
+        for (Path archivo : ajenos) {
+            // Los WAL de procesos en curso están bloqueados y se saltean
+            WriteAheadLog ajeno = WriteAheadLog.abrirSiLibre(archivo);
+            if (ajeno != null) {
+                try {
+                    aplicadas += recuperar(ajeno);
+                } catch (IOException | RuntimeException e) {
+                    // Se conserva para reintentar en el próximo arranque
+                    ajeno.cerrar();
+                    throw e;
+                }
+                ajeno.eliminar();
+            }
+        }
+        return aplicadas;
+    }
+
+    /**
+     * Cada archivo se recupera con su bloqueo de escritura tomado, y sus
+     * upserts y eliminaciones se aplican juntos, con una sola reescritura
+     */
+    private int recuperar(WriteAheadLog origen) throws IOException {
+        SortedMap<Long, String> pendientes = origen.pendientes();
+        // Por archivo, las entradas en orden de registro
+        Map<String, List<String[]>> porArchivo = new LinkedHashMap<>();
+        for (String entrada : pendientes.values()) {
+            String[] partes = entrada.split("\t", 3);
+            if (partes.length == 3) {
+                porArchivo.computeIfAbsent(partes[1], n -> new ArrayList<>()).add(partes);
+            }
+        }
+
+        int aplicadas = 0;
+        for (Map.Entry<String, List<String[]>> delArchivo : porArchivo.entrySet()) {
+            aplicadas += recuperarArchivo(delArchivo.getKey(), delArchivo.getValue());
+        }
+        origen.confirmarTodas(pendientes.keySet().stream().mapToLong(Long::longValue).toArray());
+        return aplicadas;
+    }
+
+    private int recuperarArchivo(String nombreArchivo, List<String[]> entradas) throws IOException {
+        int aplicadas = 0;
+        // ID → línea nueva, o null para eliminar; en orden de registro
+        Map<Integer, String> cambios = new LinkedHashMap<>();
+        boolean reescrito = false;
+
+        try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+            int descartadas = 0;
+            for (String[] partes : entradas) {
+                if (UPSERT.equals(partes[0]) || ELIMINAR.equals(partes[0])) {
+                    // "<generación>\t<línea o ID>"; sin generación, de una versión anterior
+                    String[] cambio = partes[2].split("\t", 2);
+                    if (cambio.length < 2 || !esGeneracion(cambio[0])
+                            || Long.parseLong(cambio[0]) != permiso.getGeneracion() - 1) {
+                        descartadas++;
+                        continue;
+                    }
+                    Integer id = UPSERT.equals(partes[0])
+                            ? VehiculoFactory.extraerId(cambio[1]) : Integer.valueOf(cambio[1]);
+                    if (id != null) {
+                        // Se reubica al final para conservar el orden del último cambio
+                        cambios.remove(id);
+                        cambios.put(id, UPSERT.equals(partes[0]) ? cambio[1] : null);
+                        aplicadas++;
+                    }
+                } else if (LOTE.equals(partes[0])) {
+                    // El lote se agregó después de los cambios anteriores del archivo
+                    if (!cambios.isEmpty()) {
+                        aplicarCambios(nombreArchivo, cambios);
+                        cambios.clear();
+                        reescrito = true;
+                    }
+                    String[] lote = partes[2].split("\t");
+                    boolean sinEscriturasPosteriores = lote.length == 2
+                            && Long.parseLong(lote[1]) == permiso.getGeneracion() - 1;
+                    if (!reescrito && sinEscriturasPosteriores) {
+                        fileManager.truncarArchivo(nombreArchivo, Long.parseLong(lote[0]));
+                        aplicadas++;
+                    } else {
+                        System.err.println("Advertencia: Lote sin confirmar en " + nombreArchivo
+                                + " no se descarta: el archivo se escribió después");
+                    }
+                }
+            }
+
+            if (!cambios.isEmpty()) {
+                aplicarCambios(nombreArchivo, cambios);
+            }
+            if (descartadas > 0) {
+                System.err.println("Advertencia: " + descartadas + " cambios sin confirmar en " + nombreArchivo
+                        + " no se reaplican: el archivo se escribió después");
+            }
+        }
+        return aplicadas;
+    }
+
+    private static boolean esGeneracion(String texto) {
+        if (texto.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (!Character.isDigit(texto.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aplica upserts y eliminaciones por ID en una sola reescritura: la
+     * primera línea de un ID se reemplaza y el resto (ej: líneas truncadas)
+     * se descarta; los upserts sin línea previa se agregan al final.
+     * Debe llamarse con el bloqueo de escritura del archivo tomado.
+     */
+    private void aplicarCambios(String nombreArchivo, Map<Integer, String> cambios) throws IOException {
+        List<String> lineas = fileManager.leerArchivo(nombreArchivo);
+        List<String> resultado = new ArrayList<>(lineas.size() + cambios.size());
+        Set<Integer> aplicados = new HashSet<>();
+
+        for (String existente : lineas) {
+            Integer idExistente = VehiculoFactory.extraerId(existente);
+            if (idExistente == null || !cambios.containsKey(idExistente)) {
+                resultado.add(existente);
+            } else if (aplicados.add(idExistente) && cambios.get(idExistente) != null) {
+                resultado.add(cambios.get(idExistente));
+            }
+        }
+
+        for (Map.Entry<Integer, String> cambio : cambios.entrySet()) {
+            if (cambio.getValue() != null && !aplicados.contains(cambio.getKey())) {
+                resultado.add(cambio.getValue());
+            }
+        }
+        fileManager.escribirArchivo(nombreArchivo, resultado);
+    }
+
+    /**
+     * Cambios registrados en el WAL para una escritura. Si se cierra sin
+     * confirmar (la escritura falló) las entradas se descartan, para que un
+     * cambio informado como fallido no se aplique al arrancar.
+     */
+    final class Mutacion implements AutoCloseable {
+
+        private long[] secuencias = new long[0];
+        private boolean confirmada = false;
+
+        /**
+         * Registra la inserción o reemplazo de la línea de un ID. Como todos
+         * los registros, se hace con el bloqueo de escritura del archivo tomado.
+         */
+        void registrarUpsert(String nombreArchivo, String linea) throws IOException {
+            registrar(List.of(entrada(UPSERT, nombreArchivo, linea)));
+        }
+
+        /**
+         * Anota la inserción de una línea sin esperar el fsync del WAL: se
+         * espera con {@link #esperarDurable()} antes de confirmar, ya sin el
+         * bloqueo del archivo
+         */
+        void anotarUpsert(String nombreArchivo, String linea) throws IOException {
+            agregarSecuencias(wal.anotarTodas(List.of(entrada(UPSERT, nombreArchivo, linea))));
+        }
+
+        /**
+         * Espera a que las entradas anotadas sean durables
+         */
+        void esperarDurable() throws IOException {
+            if (secuencias.length > 0) {
+                wal.esperarDurable(secuencias[secuencias.length - 1]);
+            }
+        }
+
+        /**
+         * Registra la inserción o reemplazo de varias líneas con un solo fsync
+         */
+        void registrarUpserts(String nombreArchivo, Collection<String> lineas) throws IOException {
+            String prefijo = entrada(UPSERT, nombreArchivo, "");
+            List<String> entradas = new ArrayList<>(lineas.size());
+            for (String linea : lineas) {
+                entradas.add(prefijo + linea);
+            }
+            registrar(entradas);
+        }
+
+        /**
+         * Registra la eliminación de las líneas de un ID
+         */
+        void registrarEliminacion(String nombreArchivo, int id) throws IOException {
+            registrar(List.of(entrada(ELIMINAR, nombreArchivo, String.valueOf(id))));
+        }
+
+        /**
+         * Registra la eliminación de las líneas de varios IDs con un solo fsync
+         */
+        void registrarEliminaciones(String nombreArchivo, Collection<Integer> ids) throws IOException {
+            String prefijo = entrada(ELIMINAR, nombreArchivo, "");
+            List<String> entradas = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                entradas.add(prefijo + id);
+            }
+            registrar(entradas);
+        }
+
+        /**
+         * Confirma los cambios registrados, una vez escrito el archivo
+         */
+        void confirmar() throws IOException {
+            confirmada = true;
+            wal.confirmarTodas(secuencias);
+        }
+
+        /**
+         * Arma una entrada con la generación del bloqueo de escritura que
+         * tiene tomado quien registra el cambio
+         */
+        private String entrada(String operacion, String nombreArchivo, String dato) throws IOException {
+            return operacion + "\t" + nombreArchivo + "\t" + fileManager.generacionArchivo(nombreArchivo)
+                    + "\t" + dato;
+        }
+
+        private void registrar(List<String> entradas) throws IOException {
+            // Las secuencias se guardan antes del fsync: si falla, close las descarta
+            agregarSecuencias(wal.anotarTodas(entradas));
+            esperarDurable();
+        }
+
+        private void agregarSecuencias(long[] nuevas) {
+            long[] todas = Arrays.copyOf(secuencias, secuencias.length + nuevas.length);
+            System.arraycopy(nuevas, 0, todas, secuencias.length, nuevas.length);
+            secuencias = todas;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!confirmada && secuencias.length > 0) {
+                wal.descartarTodas(secuencias);
+            }
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package repository;
 
+import model.CampoNumerico;
+import model.Pagina;
+import model.RangoNumerico;
 import model.Vehiculo;
+import exception.ConflictoVersionException;
 import exception.VehiculoException;
+import util.TextIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface IVehiculoRepository {
     
     /**
-     * Crea (guarda) un nuevo vehículo
+     * Crea (guarda) un nuevo vehículo, que queda con versión 1
      * 
      * @param vehiculo El vehículo a guardar
+     * @throws exception.VehiculoDuplicadoException Si el ID ya existe
      * @throws VehiculoException Si hay error al guardar
      */
     void create(Vehiculo vehiculo) throws VehiculoException;
@@ -20,15 +34,22 @@ public interface IVehiculoRepository {
      * @param id ID del vehículo a buscar
      * @param tipo Tipo de vehículo ("auto", "moto", "camion")
      * @return El vehículo encontrado
-     * @throws VehiculoException Si no se encuentra o hay error
+     * @throws exception.VehiculoNoEncontradoException Si no se encuentra
+     * @throws VehiculoException Si hay error al leer
      */
     Vehiculo read(int id, String tipo) throws VehiculoException;
     
     /**
-     * Actualiza un vehículo existente
+     * Actualiza un vehículo existente con control de concurrencia optimista:
+     * solo se escribe si la versión del vehículo es la guardada (la que tenía
+     * al leerlo), y al escribirse recibe la versión siguiente. Solo un
+     * vehículo con Vehiculo.SIN_CONTROL_DE_VERSION se escribe sin comparar
+     * (para usos internos que lo eligen a propósito).
      * 
      * @param vehiculo El vehículo con datos actualizados
-     * @throws VehiculoException Si no existe o hay error
+     * @throws exception.ConflictoVersionException Si otro usuario lo modificó después de leerlo
+     * @throws exception.VehiculoNoEncontradoException Si no existe
+     * @throws VehiculoException Si hay error al actualizar
      */
     void update(Vehiculo vehiculo) throws VehiculoException;
     
@@ -37,10 +58,139 @@ public interface IVehiculoRepository {
      * 
      * @param id ID del vehículo a eliminar
      * @param tipo Tipo de vehículo
-     * @throws VehiculoException Si no existe o hay error
+     * @throws exception.VehiculoNoEncontradoException Si no existe
+     * @throws VehiculoException Si hay error al eliminar
      */
     void delete(int id, String tipo) throws VehiculoException;
     
+    /**
+     * Crea el vehículo solo si su ID no existe, verificando y guardando en
+     * una misma operación
+     *
+     * Por defecto verifica con existsById y luego llama a create; los
+     * repositorios lo redefinen para hacerlo bajo un mismo lock y sin
+     * recorrer el archivo dos veces.
+     *
+     * @param vehiculo El vehículo a guardar
+     * @return true si se creó, false si ya existía un vehículo con ese ID
+     * @throws VehiculoException Si hay error al guardar
+     */
+    default boolean createIfAbsent(Vehiculo vehiculo) throws VehiculoException {
+        if (existsById(vehiculo.getId(), vehiculo.getTipo().toLowerCase())) {
+            return false;
+        }
+        create(vehiculo);
+        return true;
+    }
+
+    /**
+     * Actualiza el vehículo solo si su ID existe, verificando y escribiendo
+     * en una misma operación
+     *
+     * @param vehiculo El vehículo con datos actualizados
+     * @return true si se actualizó, false si no existía
+     * @throws exception.ConflictoVersionException Si otro usuario lo modificó después de leerlo
+     * @throws VehiculoException Si hay error al actualizar
+     */
+    default boolean updateIfPresent(Vehiculo vehiculo) throws VehiculoException {
+        if (!existsById(vehiculo.getId(), vehiculo.getTipo().toLowerCase())) {
+            return false;
+        }
+        update(vehiculo);
+        return true;
+    }
+
+    /**
+     * Elimina el vehículo solo si su ID existe, verificando y eliminando en
+     * una misma operación
+     *
+     * @param id ID del vehículo a eliminar
+     * @param tipo Tipo de vehículo
+     * @return true si se eliminó, false si no existía
+     * @throws VehiculoException Si hay error al eliminar
+     */
+    default boolean deleteIfPresent(int id, String tipo) throws VehiculoException {
+        if (!existsById(id, tipo)) {
+            return false;
+        }
+        delete(id, tipo);
+        return true;
+    }
+
+    /**
+     * Crea los vehículos cuyo ID no existe, omitiendo los demás
+     *
+     * Por defecto llama a createIfAbsent con cada uno; los repositorios con
+     * índice lo redefinen para verificar todos los IDs de una vez y guardar
+     * el lote con una sola escritura.
+     *
+     * @param vehiculos Vehículos a guardar (pueden ser de distintos tipos)
+     * @return Vehículos no creados porque su ID ya existía o se repetía en la lista
+     * @throws VehiculoException Si hay error al guardar
+     */
+    default List<Vehiculo> createAllIfAbsent(List<Vehiculo> vehiculos) throws VehiculoException {
+        List<Vehiculo> omitidos = new ArrayList<>();
+        for (Vehiculo vehiculo : vehiculos) {
+            if (!createIfAbsent(vehiculo)) {
+                omitidos.add(vehiculo);
+            }
+        }
+        return omitidos;
+    }
+
+    /**
+     * Actualiza los vehículos cuyo ID existe y cuya versión es la guardada,
+     * omitiendo los demás. Si un ID se repite en la lista queda la última
+     * versión. Un conflicto de versión solo omite a ese vehículo: el resto
+     * del lote se aplica igual.
+     *
+     * Por defecto llama a updateIfPresent con cada uno; los repositorios que
+     * reescriben el archivo lo redefinen para aplicar todo el lote con una
+     * sola reescritura.
+     *
+     * @param vehiculos Vehículos con datos actualizados (pueden ser de distintos tipos)
+     * @return Vehículos no actualizados, en el orden de la lista, con el motivo:
+     *         ConflictoVersionException si se modificó después de leerlo, o
+     *         VehiculoException si su ID no existía
+     * @throws VehiculoException Si hay error al actualizar
+     */
+    default Map<Vehiculo, VehiculoException> updateAllIfPresent(List<Vehiculo> vehiculos)
+            throws VehiculoException {
+        Map<Vehiculo, VehiculoException> omitidos = new LinkedHashMap<>();
+        for (Vehiculo vehiculo : vehiculos) {
+            try {
+                if (!updateIfPresent(vehiculo)) {
+                    omitidos.put(vehiculo, RepositorioComun.noExiste(vehiculo));
+                }
+            } catch (ConflictoVersionException e) {
+                omitidos.put(vehiculo, e);
+            }
+        }
+        return omitidos;
+    }
+
+    /**
+     * Elimina los vehículos de un tipo cuyos IDs existen, omitiendo los demás
+     *
+     * Por defecto llama a deleteIfPresent con cada ID; los repositorios que
+     * reescriben el archivo lo redefinen para eliminar todos con una sola
+     * reescritura.
+     *
+     * @param ids IDs a eliminar (los repetidos se eliminan una vez)
+     * @param tipo Tipo de vehículo
+     * @return IDs no eliminados porque no existían
+     * @throws VehiculoException Si hay error al eliminar
+     */
+    default List<Integer> deleteAllIfPresent(Collection<Integer> ids, String tipo) throws VehiculoException {
+        List<Integer> omitidos = new ArrayList<>();
+        for (int id : new LinkedHashSet<>(ids)) {
+            if (!deleteIfPresent(id, tipo)) {
+                omitidos.add(id);
+            }
+        }
+        return omitidos;
+    }
+
     /**
      * Obtiene todos los vehículos de un tipo específico
      * 
@@ -50,6 +200,122 @@ public interface IVehiculoRepository {
      */
     List<Vehiculo> findAll(String tipo) throws VehiculoException;
     
+    /**
+     * Recorre los vehículos de un tipo a medida que se consumen, sin armar la
+     * lista completa. El Stream puede mantener el archivo abierto, así que
+     * debe cerrarse (ej: con try-with-resources).
+     * 
+     * Por defecto se apoya en findAll; los repositorios que leen del archivo
+     * lo redefinen para leer línea por línea.
+     * 
+     * @param tipo Tipo de vehículo
+     * @return Stream de vehículos en el orden del archivo
+     * @throws VehiculoException Si hay error al abrir el recorrido
+     */
+    default Stream<Vehiculo> streamAll(String tipo) throws VehiculoException {
+        return findAll(tipo).stream();
+    }
+    
+    /**
+     * Recorre los vehículos cuya marca contiene el texto dado, sin distinguir
+     * mayúsculas. El Stream debe cerrarse.
+     * 
+     * Por defecto filtra streamAll; los repositorios con índice de marca lo
+     * redefinen para consultar solo los vehículos que coinciden.
+     * 
+     * @param marca Texto a buscar dentro de la marca
+     * @param tipo Tipo de vehículo
+     * @return Stream de vehículos que coinciden
+     * @throws VehiculoException Si hay error al leer
+     */
+    default Stream<Vehiculo> streamByMarca(String marca, String tipo) throws VehiculoException {
+        String buscada = TextIndex.normalizar(marca);
+        return streamAll(tipo).filter(v -> TextIndex.normalizar(v.getMarca()).contains(buscada));
+    }
+    
+    /**
+     * Recorre los vehículos cuyos campos numéricos caen dentro de todos los
+     * rangos dados. Los campos deben aplicar al tipo. El Stream debe cerrarse.
+     * 
+     * Por defecto filtra streamAll; los repositorios con índices de rango lo
+     * redefinen para intersectar los IDs de cada índice.
+     * 
+     * @param tipo Tipo de vehículo
+     * @param rangos Rango pedido para cada campo
+     * @return Stream de vehículos que cumplen todos los rangos
+     * @throws VehiculoException Si hay error al leer
+     */
+    default Stream<Vehiculo> streamByRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos)
+            throws VehiculoException {
+        return streamAll(tipo).filter(v -> rangos.entrySet().stream()
+                .allMatch(rango -> rango.getValue().contiene(rango.getKey().valor(v))));
+    }
+    
+    /**
+     * Cuenta con un índice los vehículos cuya marca contiene el texto, para
+     * que el planificador de consultas elija el índice más selectivo
+     * 
+     * @param marca Texto a buscar dentro de la marca
+     * @param tipo Tipo de vehículo
+     * @return Cantidad de vehículos, o -1 si el repositorio no tiene índice de marca
+     * @throws VehiculoException Si hay error al leer
+     */
+    default long contarPorMarca(String marca, String tipo) throws VehiculoException {
+        return -1;
+    }
+    
+    /**
+     * Cuenta con un índice los vehículos con el campo dentro del rango
+     * 
+     * @param tipo Tipo de vehículo
+     * @param campo Campo numérico; debe aplicar al tipo
+     * @param rango Rango cerrado de valores
+     * @return Cantidad de vehículos, o -1 si el repositorio no tiene índices de rango
+     * @throws VehiculoException Si hay error al leer
+     */
+    default long contarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango) throws VehiculoException {
+        return -1;
+    }
+    
+    /**
+     * Obtiene una página de vehículos en orden de ID, con cursor por clave:
+     * devuelve los primeros "tamano" vehículos con ID mayor a despuesDeId.
+     * 
+     * Por defecto recorre todos los vehículos; los repositorios con índice
+     * lo redefinen para ir directo a la posición del cursor.
+     * 
+     * @param tipo Tipo de vehículo
+     * @param despuesDeId Último ID de la página anterior (0 para la primera)
+     * @param tamano Cantidad máxima de vehículos por página
+     * @return La página, con el cursor de la siguiente si hay más
+     * @throws VehiculoException Si hay error al leer
+     */
+    default Pagina findPage(String tipo, int despuesDeId, int tamano) throws VehiculoException {
+        try (Stream<Vehiculo> vehiculos = streamAll(tipo)) {
+            List<Vehiculo> candidatos = vehiculos
+                    .filter(v -> v.getId() > despuesDeId)
+                    .sorted(Comparator.comparingInt(Vehiculo::getId))
+                    .limit(tamano + 1L)
+                    .collect(Collectors.toList());
+            return Pagina.desdeCandidatos(candidatos, tamano);
+        }
+    }
+    
+    /**
+     * Generación de los datos de un tipo: cambia cada vez que alguien, en
+     * este u otro proceso, los modifica. Las cachés la comparan para saber
+     * si lo que guardaron sigue vigente.
+     * 
+     * Por defecto es siempre 0: los datos solo cambian a través de este repositorio.
+     * 
+     * @param tipo Tipo de vehículo
+     * @return Generación actual de los datos del tipo
+     * @throws VehiculoException Si hay error al consultarla
+     */
+    default long generacion(String tipo) throws VehiculoException {
+        return 0;
+    }
+    
     /**
      * Verifica si existe un vehículo con el ID dado
      * 
@@ -0,0 +1,83 @@
+package repository;
+
+import model.Vehiculo;
+import exception.ConflictoVersionException;
+import exception.VehiculoException;
+import exception.VehiculoNoEncontradoException;
+import util.VehiculoFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reglas compartidas por las implementaciones de IVehiculoRepository:
+ * control de versiones, líneas CSV versionadas y armado de lotes.
+ */
+final class RepositorioComun {
+
+    private RepositorioComun() {
+    }
+
+    /**
+     * Control de concurrencia optimista: el vehículo debe traer la versión
+     * guardada, es decir, la que tenía cuando se leyó. Solo se escribe sin
+     * comparar con Vehiculo.SIN_CONTROL_DE_VERSION.
+     *
+     * @param versionGuardada Versión del registro en el archivo
+     * @return Versión con la que se guarda el vehículo
+     * @throws ConflictoVersionException Si el registro cambió después de leerlo
+     */
+    static long siguienteVersion(Vehiculo vehiculo, long versionGuardada) throws ConflictoVersionException {
+        if (vehiculo.getVersion() != Vehiculo.SIN_CONTROL_DE_VERSION && vehiculo.getVersion() != versionGuardada) {
+            throw new ConflictoVersionException(vehiculo.getId(), vehiculo.getVersion(), versionGuardada);
+        }
+        return versionGuardada + 1;
+    }
+
+    /**
+     * Línea CSV del vehículo con la versión dada, sin modificar el vehículo
+     * (si la escritura falla conserva la versión que tenía)
+     */
+    static String lineaConVersion(Vehiculo vehiculo, long version) {
+        Vehiculo copia = vehiculo.copiar();
+        copia.setVersion(version);
+        return copia.toCSV();
+    }
+
+    /**
+     * Motivo de un vehículo omitido en un lote porque su ID no existe
+     */
+    static VehiculoException noExiste(Vehiculo vehiculo) {
+        return new VehiculoNoEncontradoException(vehiculo.getId(),
+                "No existe vehículo con ID: " + vehiculo.getId());
+    }
+
+    /**
+     * Agrupa los vehículos por archivo, conservando el orden de cada grupo
+     */
+    static Map<String, List<Vehiculo>> agruparPorArchivo(List<Vehiculo> vehiculos) {
+        Map<String, List<Vehiculo>> grupos = new LinkedHashMap<>();
+        for (Vehiculo vehiculo : vehiculos) {
+            grupos.computeIfAbsent(VehiculoFactory.obtenerNombreArchivo(vehiculo), n -> new ArrayList<>())
+                    .add(vehiculo);
+        }
+        return grupos;
+    }
+
+    /**
+     * Los vehículos omitidos de un lote en el orden en que llegaron
+     */
+    static Map<Vehiculo, VehiculoException> enOrden(List<Vehiculo> vehiculos,
+            Map<Vehiculo, VehiculoException> omitidos) {
+        Map<Vehiculo, VehiculoException> ordenados = new LinkedHashMap<>();
+        for (Vehiculo vehiculo : vehiculos) {
+            VehiculoException motivo = omitidos.get(vehiculo);
+            if (motivo != null) {
+                ordenados.put(vehiculo, motivo);
+            }
+        }
+        return ordenados;
+    }
+}
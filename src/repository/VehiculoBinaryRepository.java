@@ -0,0 +1,624 @@
+package repository;
+
+import model.*;
+import exception.VehiculoDuplicadoException;
+import exception.VehiculoNoEncontradoException;
+import exception.VehiculoException;
+import util.BloqueoArchivo;
+import util.CsvBinaryConverter;
+import util.FileManager;
+import util.VehiculoBinaryCodec;
+import util.VehiculoFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio sobre archivos binarios ("autos.bin", ...) con el formato de
+ * {@link VehiculoBinaryCodec}: registros de tamaño fijo y textos codificados
+ * con un diccionario, sin parseo de texto al leer.
+ *
+ * Cada tipo mantiene en memoria el diccionario y un índice id → posición.
+ * create agrega al final; update agrega el registro nuevo y marca el anterior
+ * como eliminado; delete solo marca el registro. Cuando los registros
+ * eliminados ocupan más de la mitad de un archivo grande, se reescribe.
+ *
+ * La primera vez que se abre un tipo sin archivo binario, se convierte el CSV
+ * existente. Un archivo con el formato anterior, sin versión en los
+ * registros, se reescribe con el formato actual al abrirlo (sus vehículos
+ * quedan con versión 0 hasta la próxima actualización).
+ *
+ * Cada registro guarda la versión del vehículo: update la compara con la
+ * guardada (control de concurrencia optimista) igual que el repositorio CSV.
+ *
+ * Entre procesos, el binario se protege con su propio bloqueo ("autos.bin.lock"):
+ * si su generación avanzó por una escritura de otro proceso, se vuelve a
+ * leer antes de operar. Al cerrar se exportan los cambios al CSV y se
+ * guarda una marca ("autos.bin.exportado") con el CRC del CSV escrito y la
+ * generación del binario; al abrir, si solo cambió el CSV se vuelve a
+ * convertir, y si cambiaron los dos no se abre (habría que elegir cuál
+ * conservar).
+ */
+public class VehiculoBinaryRepository implements IVehiculoRepository, AutoCloseable {
+
+    private static final String EXTENSION_COMPACTACION = ".bin.compact";
+    private static final String EXTENSION_MARCA = ".bin.exportado";
+    private static final String EXTENSION_MARCA_TEMPORAL = ".bin.exportado.tmp";
+    private static final long TAMANO_MINIMO_COMPACTACION = 1024 * 1024;
+
+    private final FileManager fileManager;
+    private final CsvBinaryConverter conversor;
+    private final Map<String, ArchivoBinario> archivos = new HashMap<>();
+
+    // Constructor con inyección de dependencias
+    public VehiculoBinaryRepository(FileManager fileManager) {
+        this.fileManager = fileManager;
+        this.conversor = new CsvBinaryConverter(fileManager);
+    }
+
+    @Override
+    public void create(Vehiculo vehiculo) throws VehiculoException {
+        if (!createIfAbsent(vehiculo)) {
+            throw new VehiculoDuplicadoException(vehiculo.getId());
+        }
+    }
+
+    @Override
+    public boolean createIfAbsent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(vehiculo));
+            return escribirBinario(archivo, () -> {
+                if (archivo.indice.containsKey(vehiculo.getId())) {
+                    return false;
+                }
+                archivo.agregar(conVersion(vehiculo, 1));
+                vehiculo.setVersion(1);
+                return true;
+            });
+
+        } catch (IOException | IllegalArgumentException e) {
+            throw new VehiculoException("Error al guardar vehículo", e);
+        }
+    }
+
+    @Override
+    public Vehiculo read(int id, String tipo) throws VehiculoException {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerBinario(archivo, () -> {
+                Vehiculo vehiculo = archivo.leer(id);
+                if (vehiculo == null) {
+                    throw new VehiculoNoEncontradoException(id);
+                }
+                return vehiculo;
+            });
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al leer vehículo", e);
+        }
+    }
+
+    @Override
+    public void update(Vehiculo vehiculo) throws VehiculoException {
+        if (!updateIfPresent(vehiculo)) {
+            throw new VehiculoNoEncontradoException(vehiculo.getId());
+        }
+    }
+
+    @Override
+    public boolean updateIfPresent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(vehiculo));
+            return escribirBinario(archivo, () -> {
+                Long anterior = archivo.indice.get(vehiculo.getId());
+                if (anterior == null) {
+                    return false;
+                }
+                long version = RepositorioComun.siguienteVersion(vehiculo,
+                        archivo.leer(vehiculo.getId()).getVersion());
+
+                // Primero el registro nuevo: si se interrumpe, al reabrir gana el último
+                archivo.agregar(conVersion(vehiculo, version));
+                archivo.marcarEliminado(anterior);
+                vehiculo.setVersion(version);
+                compactarSiHaceFalta(archivo);
+                return true;
+            });
+
+        } catch (IOException | IllegalArgumentException e) {
+            throw new VehiculoException("Error al actualizar vehículo", e);
+        }
+    }
+
+    @Override
+    public void delete(int id, String tipo) throws VehiculoException {
+        if (!deleteIfPresent(id, tipo)) {
+            throw new VehiculoNoEncontradoException(id);
+        }
+    }
+
+    @Override
+    public boolean deleteIfPresent(int id, String tipo) throws VehiculoException {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return escribirBinario(archivo, () -> {
+                Long posicion = archivo.indice.remove(id);
+                if (posicion == null) {
+                    return false;
+                }
+                archivo.marcarEliminado(posicion);
+                if (id == archivo.maxId) {
+                    archivo.recalcularMaxId();
+                }
+                compactarSiHaceFalta(archivo);
+                return true;
+            });
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al eliminar vehículo", e);
+        }
+    }
+
+    @Override
+    public List<Vehiculo> findAll(String tipo) throws VehiculoException {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerBinario(archivo, archivo::leerTodos);
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al listar vehículos", e);
+        }
+    }
+
+    @Override
+    public boolean existsById(int id, String tipo) {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerBinario(archivo, () -> archivo.indice.containsKey(id));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getNextId(String tipo) {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerBinario(archivo, () -> archivo.maxId + 1);
+        } catch (Exception e) {
+            return 1; // Si hay error o no hay vehículos, empezar en 1
+        }
+    }
+
+    /**
+     * Reescribe el archivo binario de un tipo solo con los registros vigentes
+     *
+     * @param tipo Tipo de vehículo
+     * @throws VehiculoException Si hay error al reescribir
+     */
+    public void compactar(String tipo) throws VehiculoException {
+        try {
+            ArchivoBinario archivo = obtenerArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+            escribirBinario(archivo, () -> {
+                compactarArchivo(archivo);
+                return null;
+            });
+        } catch (IOException e) {
+            throw new VehiculoException("Error al compactar el archivo binario", e);
+        }
+    }
+
+    @Override
+    public long generacion(String tipo) throws VehiculoException {
+        try {
+            return fileManager.generacionArchivo(nombreBloqueo(VehiculoFactory.obtenerNombreArchivo(tipo)));
+        } catch (IOException e) {
+            throw new VehiculoException("Error al consultar la generación de los datos", e);
+        }
+    }
+
+    /**
+     * Exporta al CSV los cambios de los archivos abiertos y los cierra
+     */
+    @Override
+    public void close() {
+        synchronized (archivos) {
+            for (ArchivoBinario archivo : archivos.values()) {
+                synchronized (archivo) {
+                    try {
+                        escribirBinario(archivo, () -> {
+                            exportar(archivo);
+                            return null;
+                        });
+                    } catch (IOException | VehiculoException e) {
+                        System.err.println("Advertencia: No se exportó el archivo binario " + archivo.nombreArchivo
+                                + " al CSV: " + e.getMessage());
+                    }
+                    try {
+                        archivo.canal.close();
+                    } catch (IOException e) {
+                        System.err.println("Advertencia: Error al cerrar el archivo binario: " + e.getMessage());
+                    }
+                }
+            }
+            archivos.clear();
+        }
+    }
+
+    /**
+     * Obtiene el archivo de un tipo, abriéndolo la primera vez
+     */
+    private ArchivoBinario obtenerArchivo(String nombreArchivo) throws IOException {
+        synchronized (archivos) {
+            ArchivoBinario archivo = archivos.get(nombreArchivo);
+            if (archivo == null) {
+                archivo = abrirArchivo(nombreArchivo);
+                archivos.put(nombreArchivo, archivo);
+            }
+            return archivo;
+        }
+    }
+
+    /**
+     * Abre el archivo binario y reconstruye el diccionario y el índice.
+     * Si no existe, o solo cambió el CSV desde la última exportación, se
+     * crea convirtiendo el CSV actual.
+     *
+     * @throws IOException Si el binario y el CSV cambiaron por separado
+     */
+    private ArchivoBinario abrirArchivo(String nombreArchivo) throws IOException {
+        Path ruta = fileManager.obtenerRuta(nombreArchivo, VehiculoBinaryCodec.EXTENSION);
+        try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreBloqueo(nombreArchivo))) {
+            MarcaExportacion marca = leerMarca(nombreArchivo);
+            boolean convertir = !Files.exists(ruta);
+            if (!convertir && marca != null && fileManager.crcArchivo(nombreArchivo) != marca.crc) {
+                if (marca.generacion != permiso.getGeneracion() - 1) {
+                    throw new IOException("El archivo " + ruta + " y el CSV " + nombreArchivo
+                            + " cambiaron por separado desde la última exportación; elija cuál conservar"
+                            + " (borrando el archivo binario se vuelve a convertir el CSV)");
+                }
+                // Solo cambió el CSV: el binario se arma de nuevo desde él
+                convertir = true;
+            }
+            if (convertir) {
+                long crc = fileManager.conBloqueoLectura(nombreArchivo, () -> {
+                    conversor.csvABinario(nombreArchivo);
+                    return fileManager.crcArchivo(nombreArchivo);
+                });
+                escribirMarca(nombreArchivo, new MarcaExportacion(crc, permiso.getGeneracion()));
+            } else if (marca != null && marca.generacion == permiso.getGeneracion() - 1) {
+                // Abrir no cambia los datos: la marca sigue al día
+                escribirMarca(nombreArchivo, new MarcaExportacion(marca.crc, permiso.getGeneracion()));
+            }
+
+            FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ArchivoBinario archivo = new ArchivoBinario(nombreArchivo, canal);
+            archivo.generacion = permiso.getGeneracion();
+            try {
+                archivo.cargar();
+                if (archivo.diccionario.getFormato() != VehiculoBinaryCodec.VERSION_FORMATO) {
+                    // Formato anterior: los registros nuevos no se pueden agregar al final
+                    compactarArchivo(archivo);
+                }
+            } catch (IOException e) {
+                archivo.canal.close();
+                throw e;
+            }
+            return archivo;
+        }
+    }
+
+    /**
+     * Ejecuta una lectura con el monitor del archivo y el binario bloqueado para leer
+     */
+    private <T> T leerBinario(ArchivoBinario archivo,
+            FileManager.OperacionBloqueada<T, VehiculoException> operacion) throws IOException, VehiculoException {
+        synchronized (archivo) {
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearLectura(nombreBloqueo(archivo.nombreArchivo))) {
+                if (permiso.getGeneracion() != archivo.generacion) {
+                    recargar(archivo, permiso);
+                }
+                return operacion.ejecutar();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una escritura con el monitor del archivo y el binario bloqueado
+     * para escribir. Cada bloqueo de escritura avanza la generación en uno:
+     * si avanzó más, otro proceso escribió el binario y se vuelve a leer.
+     */
+    private <T> T escribirBinario(ArchivoBinario archivo,
+            FileManager.OperacionBloqueada<T, VehiculoException> operacion) throws IOException, VehiculoException {
+        synchronized (archivo) {
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreBloqueo(archivo.nombreArchivo))) {
+                if (permiso.getGeneracion() != archivo.generacion + 1) {
+                    recargar(archivo, permiso);
+                }
+                archivo.generacion = permiso.getGeneracion();
+                return operacion.ejecutar();
+            }
+        }
+    }
+
+    /**
+     * Vuelve a abrir el binario (otro proceso pudo reemplazarlo al compactar)
+     * y reconstruye el diccionario y el índice
+     */
+    private void recargar(ArchivoBinario archivo, BloqueoArchivo.Permiso permiso) throws IOException {
+        archivo.canal.close();
+        archivo.canal = FileChannel.open(fileManager.obtenerRuta(archivo.nombreArchivo, VehiculoBinaryCodec.EXTENSION),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        archivo.cargar();
+        archivo.generacion = permiso.getGeneracion();
+    }
+
+    /**
+     * Reemplaza el CSV con los vehículos vigentes si el binario cambió desde
+     * la última exportación. Se llama con el binario bloqueado para escribir.
+     *
+     * @throws IOException Si el CSV cambió fuera del binario desde la última
+     *                     exportación (no se pisa) o falla la escritura
+     */
+    private void exportar(ArchivoBinario archivo) throws IOException {
+        MarcaExportacion marca = leerMarca(archivo.nombreArchivo);
+        if (marca != null && marca.generacion == archivo.generacion - 1) {
+            // Nadie escribió el binario desde la última exportación
+            escribirMarca(archivo.nombreArchivo, new MarcaExportacion(marca.crc, archivo.generacion));
+            return;
+        }
+
+        List<String> lineas = new ArrayList<>(archivo.indice.size());
+        for (Vehiculo vehiculo : archivo.leerTodos()) {
+            lineas.add(vehiculo.toCSV());
+        }
+        long crc = fileManager.conBloqueoEscritura(archivo.nombreArchivo, () -> {
+            if (marca != null && fileManager.crcArchivo(archivo.nombreArchivo) != marca.crc) {
+                throw new IOException("El CSV " + archivo.nombreArchivo
+                        + " cambió fuera del archivo binario desde la última exportación; no se pisa");
+            }
+            fileManager.escribirArchivo(archivo.nombreArchivo, lineas);
+            return fileManager.crcArchivo(archivo.nombreArchivo);
+        });
+        escribirMarca(archivo.nombreArchivo, new MarcaExportacion(crc, archivo.generacion));
+    }
+
+    /**
+     * Lee la marca de la última exportación, o null si nunca se exportó
+     * (o la marca no se puede leer: el binario manda y se exporta sin comparar)
+     */
+    private MarcaExportacion leerMarca(String nombreArchivo) throws IOException {
+        Path ruta = fileManager.obtenerRuta(nombreArchivo, EXTENSION_MARCA);
+        if (!Files.exists(ruta)) {
+            return null;
+        }
+        String[] partes = new String(Files.readAllBytes(ruta), StandardCharsets.UTF_8).trim().split(",");
+        try {
+            return new MarcaExportacion(Long.parseLong(partes[0]), Long.parseLong(partes[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Advertencia: Marca de exportación inválida ignorada: " + ruta);
+            return null;
+        }
+    }
+
+    /**
+     * Guarda la marca en un temporal y lo reemplaza de forma atómica
+     */
+    private void escribirMarca(String nombreArchivo, MarcaExportacion marca) throws IOException {
+        Path destino = fileManager.obtenerRuta(nombreArchivo, EXTENSION_MARCA);
+        Path temporal = fileManager.obtenerRuta(nombreArchivo, EXTENSION_MARCA_TEMPORAL);
+        Files.write(temporal, (marca.crc + "," + marca.generacion).getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String nombreBloqueo(String nombreArchivo) {
+        return nombreArchivo + VehiculoBinaryCodec.EXTENSION;
+    }
+
+    /**
+     * Copia del vehículo con la versión a guardar (si la escritura falla el
+     * vehículo conserva la que tenía)
+     */
+    private static Vehiculo conVersion(Vehiculo vehiculo, long version) {
+        Vehiculo copia = vehiculo.copiar();
+        copia.setVersion(version);
+        return copia;
+    }
+
+    private void compactarSiHaceFalta(ArchivoBinario archivo) throws IOException {
+        long bytesEliminados = (long) archivo.registrosEliminados * archivo.tamanoRegistro;
+        if (archivo.fin >= TAMANO_MINIMO_COMPACTACION && bytesEliminados * 2 > archivo.fin) {
+            compactarArchivo(archivo);
+        }
+    }
+
+    /**
+     * Escribe los registros vigentes en un archivo nuevo y lo reemplaza de
+     * forma atómica. Se llama con el archivo bloqueado.
+     */
+    private void compactarArchivo(ArchivoBinario archivo) throws IOException {
+        Path ruta = fileManager.obtenerRuta(archivo.nombreArchivo, VehiculoBinaryCodec.EXTENSION);
+        Path rutaNueva = fileManager.obtenerRuta(archivo.nombreArchivo, EXTENSION_COMPACTACION);
+
+        try {
+            VehiculoBinaryCodec.escribirArchivo(rutaNueva, archivo.nombreArchivo, archivo.leerTodos());
+
+            // En Windows no se puede reemplazar un archivo abierto
+            archivo.canal.close();
+            try {
+                Files.move(rutaNueva, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                archivo.canal = FileChannel.open(ruta, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                archivo.cargar();
+            }
+        } finally {
+            Files.deleteIfExists(rutaNueva);
+        }
+    }
+
+    /**
+     * CRC del CSV escrito en una exportación y generación del binario en ese momento
+     */
+    private static class MarcaExportacion {
+        private final long crc;
+        private final long generacion;
+
+        MarcaExportacion(long crc, long generacion) {
+            this.crc = crc;
+            this.generacion = generacion;
+        }
+    }
+
+    /**
+     * Archivo binario abierto de un tipo con su diccionario e índice en memoria.
+     * Todos los accesos se sincronizan sobre la instancia.
+     */
+    private static class ArchivoBinario {
+        private final String nombreArchivo;
+        private final int tamanoRegistro;
+        private FileChannel canal;
+        private VehiculoBinaryCodec.Diccionario diccionario;
+        // id → posición de la etiqueta del registro vigente, en orden de inserción
+        private Map<Integer, Long> indice;
+        private long fin;
+        private int registrosEliminados;
+        private int maxId;
+        // Generación del bloqueo del binario que refleja el estado en memoria
+        private long generacion;
+
+        ArchivoBinario(String nombreArchivo, FileChannel canal) {
+            this.nombreArchivo = nombreArchivo;
+            this.tamanoRegistro = 1 + VehiculoBinaryCodec.tamanoRegistro(nombreArchivo);
+            this.canal = canal;
+        }
+
+        /**
+         * Recorre el archivo y reconstruye el estado en memoria
+         */
+        void cargar() throws IOException {
+            diccionario = new VehiculoBinaryCodec.Diccionario();
+            indice = new LinkedHashMap<>();
+            registrosEliminados = 0;
+            maxId = 0;
+
+            fin = VehiculoBinaryCodec.recorrer(canal, nombreArchivo, diccionario, (posicion, vivo, contenido) -> {
+                if (!vivo) {
+                    registrosEliminados++;
+                    return;
+                }
+                int id = contenido.getInt(contenido.position());
+                if (indice.put(id, posicion) != null) {
+                    // Actualización interrumpida: vale el último registro
+                    registrosEliminados++;
+                }
+                if (id > maxId) {
+                    maxId = id;
+                }
+            });
+
+            if (fin < canal.size()) {
+                // Descartar una entrada incompleta de una escritura interrumpida
+                canal.truncate(fin);
+            }
+        }
+
+        Vehiculo leer(int id) throws IOException {
+            Long posicion = indice.get(id);
+            if (posicion == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(tamanoRegistro);
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                    throw new IOException("Registro incompleto en " + nombreArchivo + VehiculoBinaryCodec.EXTENSION);
+                }
+            }
+            buffer.flip();
+            buffer.get(); // etiqueta
+            return VehiculoBinaryCodec.leerRegistro(buffer, nombreArchivo, diccionario);
+        }
+
+        List<Vehiculo> leerTodos() throws IOException {
+            List<Vehiculo> vehiculos = new ArrayList<>(indice.size());
+            // El diccionario en memoria ya está completo; el del recorrido se descarta
+            VehiculoBinaryCodec.recorrer(canal, nombreArchivo, new VehiculoBinaryCodec.Diccionario(),
+                    (posicion, vivo, contenido) -> {
+                        if (vivo) {
+                            int id = contenido.getInt(contenido.position());
+                            Long vigente = indice.get(id);
+                            if (vigente != null && vigente == posicion) {
+                                vehiculos.add(VehiculoBinaryCodec.leerRegistro(contenido, nombreArchivo, diccionario));
+                            }
+                        }
+                    });
+            return vehiculos;
+        }
+
+        /**
+         * Agrega al final los textos nuevos del vehículo y su registro
+         */
+        void agregar(Vehiculo vehiculo) throws IOException {
+            List<String> textosNuevos = VehiculoBinaryCodec.textosNuevos(vehiculo, diccionario);
+            int tamano = tamanoRegistro;
+            for (String texto : textosNuevos) {
+                tamano += VehiculoBinaryCodec.tamanoTexto(texto);
+            }
+
+            // Si la escritura falla, los textos agregados se quitan del diccionario
+            ByteBuffer buffer = ByteBuffer.allocate(tamano);
+            List<String> agregados = new ArrayList<>(textosNuevos.size());
+            for (String texto : textosNuevos) {
+                VehiculoBinaryCodec.escribirTexto(buffer, texto);
+                diccionario.agregar(texto);
+                agregados.add(texto);
+            }
+            long posicionRegistro = fin + buffer.position();
+            try {
+                VehiculoBinaryCodec.escribirRegistro(buffer, vehiculo, diccionario);
+                buffer.flip();
+                long posicion = fin;
+                while (buffer.hasRemaining()) {
+                    posicion += canal.write(buffer, posicion);
+                }
+            } catch (IOException | RuntimeException e) {
+                diccionario.descartarUltimos(agregados.size());
+                throw e;
+            }
+
+            fin += tamano;
+            indice.put(vehiculo.getId(), posicionRegistro);
+            if (vehiculo.getId() > maxId) {
+                maxId = vehiculo.getId();
+            }
+        }
+
+        void marcarEliminado(long posicion) throws IOException {
+            ByteBuffer etiqueta = ByteBuffer.wrap(new byte[] { VehiculoBinaryCodec.ENTRADA_ELIMINADA });
+            while (etiqueta.hasRemaining()) {
+                canal.write(etiqueta, posicion);
+            }
+            registrosEliminados++;
+        }
+
+        void recalcularMaxId() {
+            maxId = 0;
+            for (int id : indice.keySet()) {
+                if (id > maxId) {
+                    maxId = id;
+                }
+            }
+        }
+    }
+}
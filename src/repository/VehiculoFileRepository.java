@@ -1,178 +1,472 @@
 package repository;
 
 import model.*;
+import exception.ConflictoVersionException;
+import exception.VehiculoDuplicadoException;
+import exception.VehiculoNoEncontradoException;
 import exception.VehiculoException;
+import util.BloqueoArchivo;
 import util.FileManager;
+import util.MappedLineReader;
+import util.OffsetIndex;
 import util.VehiculoFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class VehiculoFileRepository implements IVehiculoRepository {
     
     private FileManager fileManager;
+    private OffsetIndex indiceOffsets;
+    private CsvWal wal;
     
     // Constructor con inyección de dependencias
     public VehiculoFileRepository(FileManager fileManager) {
         this.fileManager = fileManager;
+        this.indiceOffsets = new OffsetIndex(fileManager);
+        this.wal = abrirWal(fileManager);
+    }
+    
+    /**
+     * Abre el WAL y reaplica las mutaciones que quedaron sin confirmar
+     * (ej: si la aplicación se interrumpió durante una escritura)
+     */
+    static CsvWal abrirWal(FileManager fileManager) {
+        try {
+            CsvWal wal = new CsvWal(fileManager);
+            int recuperadas = wal.recuperar();
+            if (recuperadas > 0) {
+                System.out.println("Se recuperaron " + recuperadas + " operaciones pendientes del WAL");
+            }
+            return wal;
+        } catch (IOException e) {
+            throw new IllegalStateException("Error al recuperar el WAL: " + e.getMessage(), e);
+        }
     }
     
     @Override
     public void create(Vehiculo vehiculo) throws VehiculoException {
+        if (!createIfAbsent(vehiculo)) {
+            throw new VehiculoDuplicadoException(vehiculo.getId());
+        }
+    }
+    
+    /**
+     * Verifica el ID con el índice de desplazamientos (incluye las líneas mal
+     * formateadas) y agrega la línea al final, sin recorrer el archivo.
+     * Con el bloqueo solo se anota el WAL y se escribe la línea; los fsync se
+     * esperan después de soltarlo, así las altas concurrentes comparten lote.
+     */
+    @Override
+    public boolean createIfAbsent(Vehiculo vehiculo) throws VehiculoException {
         try {
             String tipo = vehiculo.getTipo().toLowerCase();
             String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            
-            // Verificar si el ID ya existe (incluyendo líneas mal formateadas)
-            List<String> lineasExistentes = fileManager.leerArchivo(nombreArchivo);
-            for (String linea : lineasExistentes) {
-                if (linea != null && !linea.trim().isEmpty()) {
-                    String[] partes = linea.split(",", 2);
-                    if (partes.length > 0) {
-                        try {
-                            int idExistente = Integer.parseInt(partes[0].trim());
-                            if (idExistente == vehiculo.getId()) {
-                                throw new VehiculoException("Ya existe un vehículo con ID: " + vehiculo.getId());
-                            }
-                        } catch (NumberFormatException e) {
-                            // Ignorar líneas que no empiezan con número
-                            continue;
-                        }
+            String linea = RepositorioComun.lineaConVersion(vehiculo, 1);
+            try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                CompletableFuture<Void> escrita;
+                try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                    if (indiceOffsets.buscar(nombreArchivo, vehiculo.getId()) != null) {
+                        return false;
                     }
+                    mutacion.anotarUpsert(nombreArchivo, linea);
+                    escrita = fileManager.encolarLinea(nombreArchivo, linea, permiso);
                 }
+                
+                mutacion.esperarDurable();
+                FileManager.esperarEscritura(escrita);
+                mutacion.confirmar();
             }
-            
-            // Agregar al archivo
-            fileManager.agregarLinea(nombreArchivo, vehiculo.toCSV());
+            vehiculo.setVersion(1);
+            return true;
             
         } catch (IOException e) {
             throw new VehiculoException("Error al guardar vehículo", e);
         }
     }
-    
+
+    /**
+     * Verifica todos los IDs de un tipo con una sola consulta al índice y
+     * agrega las líneas nuevas con una sola escritura. El WAL guarda solo el
+     * tamaño previo del archivo: un lote a medias se descarta completo.
+     */
     @Override
-    public Vehiculo read(int id, String tipo) throws VehiculoException {
+    public List<Vehiculo> createAllIfAbsent(List<Vehiculo> vehiculos) throws VehiculoException {
+        List<Vehiculo> omitidos = new ArrayList<>();
         try {
-            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            List<String> lineas = fileManager.leerArchivo(nombreArchivo);
-            
-            for (String linea : lineas) {
-                try {
-                    Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
-                    if (v.getId() == id) {
-                        return v;
+            for (Map.Entry<String, List<Vehiculo>> grupo : RepositorioComun.agruparPorArchivo(vehiculos).entrySet()) {
+                String nombreArchivo = grupo.getKey();
+                List<Vehiculo> delArchivo = grupo.getValue();
+                try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                    int[] ids = delArchivo.stream().mapToInt(Vehiculo::getId).toArray();
+                    boolean[] existentes = indiceOffsets.contiene(nombreArchivo, ids);
+
+                    Set<Integer> nuevos = new HashSet<>();
+                    List<Vehiculo> creados = new ArrayList<>(delArchivo.size());
+                    List<String> lineas = new ArrayList<>(delArchivo.size());
+                    for (int i = 0; i < ids.length; i++) {
+                        if (existentes[i] || !nuevos.add(ids[i])) {
+                            omitidos.add(delArchivo.get(i));
+                        } else {
+                            creados.add(delArchivo.get(i));
+                            lineas.add(RepositorioComun.lineaConVersion(delArchivo.get(i), 1));
+                        }
                     }
-                } catch (IllegalArgumentException e) {
-                    // Ignorar líneas mal formateadas y continuar
-                    continue;
+                    agregarLote(wal, fileManager, nombreArchivo, lineas, permiso);
+                    creados.forEach(v -> v.setVersion(1));
                 }
             }
+            return omitidos;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al guardar vehículos", e);
+        }
+    }
+
+    /**
+     * Agrega un lote de líneas registrándolo en el WAL; si la escritura falla
+     * se recorta el archivo para no dejar el lote a medias.
+     *
+     * @param permiso Bloqueo de escritura del archivo, ya tomado
+     */
+    static void agregarLote(CsvWal wal, FileManager fileManager, String nombreArchivo, List<String> lineas,
+                            BloqueoArchivo.Permiso permiso) throws IOException {
+        if (lineas.isEmpty()) {
+            return;
+        }
+        long tamanoAnterior = fileManager.tamanoArchivo(nombreArchivo);
+        long secuencia = wal.registrarLote(nombreArchivo, tamanoAnterior, permiso.getGeneracion());
+        try {
+            fileManager.agregarLineas(nombreArchivo, lineas);
+        } catch (IOException | RuntimeException e) {
+            try {
+                wal.deshacerLote(secuencia, nombreArchivo, tamanoAnterior);
+            } catch (IOException deshacer) {
+                e.addSuppressed(deshacer);
+            }
+            throw e;
+        }
+        wal.confirmarLote(secuencia);
+    }
+
+    @Override
+    public Vehiculo read(int id, String tipo) throws VehiculoException {
+        try {
+            Vehiculo v = leerConBloqueo(id, tipo);
+            if (v != null) {
+                return v;
+            }
             
-            throw new VehiculoException("No se encontró vehículo con ID: " + id);
+            throw new VehiculoNoEncontradoException(id);
             
         } catch (IOException e) {
             throw new VehiculoException("Error al leer vehículo", e);
         }
     }
     
+    /**
+     * Busca un vehículo con el bloqueo de lectura de su archivo tomado
+     * 
+     * @return El vehículo, o null si no existe
+     */
+    private Vehiculo leerConBloqueo(int id, String tipo) throws IOException {
+        return fileManager.conBloqueoLectura(VehiculoFactory.obtenerNombreArchivo(tipo),
+                () -> leerPorIndice(id, tipo));
+    }
+    
+    /**
+     * Busca un vehículo usando el índice de desplazamientos: se lee
+     * únicamente la línea del ID solicitado en lugar de todo el archivo
+     * 
+     * @return El vehículo, o null si no existe
+     */
+    private Vehiculo leerPorIndice(int id, String tipo) throws IOException {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        long[] posicion = indiceOffsets.buscar(nombreArchivo, id);
+        
+        if (posicion == null) {
+            // Ninguna línea empieza con este ID
+            return null;
+        }
+        return leerEnPosicion(id, tipo, nombreArchivo, posicion[0], (int) posicion[1]);
+    }
+    
+    /**
+     * Lee y parsea la línea indicada por el índice. Si no coincide con el ID
+     * (índice desactualizado o línea mal formateada) se recorre el archivo.
+     * 
+     * @return El vehículo, o null si no existe
+     */
+    private Vehiculo leerEnPosicion(int id, String tipo, String nombreArchivo,
+                                    long offset, int longitud) throws IOException {
+        try {
+            String linea = fileManager.leerLinea(nombreArchivo, offset, longitud);
+            Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
+            if (v.getId() == id) {
+                return v;
+            }
+        } catch (IllegalArgumentException e) {
+            // Línea mal formateada: puede haber otra línea válida con el mismo ID
+        }
+        
+        // El índice no coincide con el archivo: reconstruir y recorrer como respaldo
+        indiceOffsets.invalidar(nombreArchivo);
+        return buscarPorRecorrido(id, tipo, nombreArchivo);
+    }
+    
+    /**
+     * Busca un vehículo recorriendo todas las líneas del archivo
+     * 
+     * @return El vehículo, o null si no existe
+     */
+    private Vehiculo buscarPorRecorrido(int id, String tipo, String nombreArchivo) throws IOException {
+        Vehiculo[] encontrado = new Vehiculo[1];
+        
+        fileManager.recorrerLineas(nombreArchivo, linea -> {
+            Integer idEnLinea = VehiculoFactory.extraerId(linea);
+            if (idEnLinea == null || idEnLinea != id) {
+                return true;
+            }
+            try {
+                encontrado[0] = VehiculoFactory.crearDesdeCSV(tipo, linea);
+                return false;
+            } catch (IllegalArgumentException e) {
+                // Ignorar líneas mal formateadas y continuar
+                return true;
+            }
+        });
+        
+        return encontrado[0];
+    }
+    
     @Override
     public void update(Vehiculo vehiculo) throws VehiculoException {
+        if (!updateIfPresent(vehiculo)) {
+            throw new VehiculoNoEncontradoException(vehiculo.getId());
+        }
+    }
+    
+    /**
+     * Verifica con el índice que haya una línea válida del ID y reescribe el
+     * archivo en una sola pasada
+     */
+    @Override
+    public boolean updateIfPresent(Vehiculo vehiculo) throws VehiculoException {
         try {
             String tipo = vehiculo.getTipo().toLowerCase();
             String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            
-            List<String> lineas = fileManager.leerArchivo(nombreArchivo);
-            List<String> lineasActualizadas = new ArrayList<>();
-            boolean encontrado = false;
-            
-            for (String linea : lineas) {
-                try {
-                    Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
-                    
-                    if (v.getId() == vehiculo.getId()) {
-                        // Reemplazar con la versión actualizada
-                        lineasActualizadas.add(vehiculo.toCSV());
-                        encontrado = true;
-                    } else {
-                        // Mantener la línea original
-                        lineasActualizadas.add(linea);
-                    }
-                } catch (IllegalArgumentException e) {
-                    // Mantener líneas mal formateadas como están
-                    lineasActualizadas.add(linea);
+            return fileManager.conBloqueoEscritura(nombreArchivo, () -> {
+                Vehiculo guardado = leerPorIndice(vehiculo.getId(), tipo);
+                if (guardado == null) {
+                    return false;
                 }
-            }
-            
-            if (!encontrado) {
-                throw new VehiculoException("No se encontró vehículo con ID: " + vehiculo.getId());
-            }
-            
-            // Guardar todo el archivo actualizado
-            fileManager.escribirArchivo(nombreArchivo, lineasActualizadas);
+                long version = RepositorioComun.siguienteVersion(vehiculo, guardado.getVersion());
+                
+                // Reescribir el archivo reemplazando las líneas válidas del ID;
+                // las líneas mal formateadas se mantienen como están
+                String lineaNueva = RepositorioComun.lineaConVersion(vehiculo, version);
+                try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                    mutacion.registrarUpsert(nombreArchivo, lineaNueva);
+                    fileManager.reescribirArchivo(nombreArchivo, linea -> {
+                        Integer idEnLinea = VehiculoFactory.extraerId(linea);
+                        if (idEnLinea == null || idEnLinea != vehiculo.getId()) {
+                            return linea;
+                        }
+                        try {
+                            VehiculoFactory.crearDesdeCSV(tipo, linea);
+                            return lineaNueva;
+                        } catch (IllegalArgumentException e) {
+                            return linea;
+                        }
+                    });
+                    mutacion.confirmar();
+                }
+                vehiculo.setVersion(version);
+                return true;
+            });
             
         } catch (IOException e) {
             throw new VehiculoException("Error al actualizar vehículo", e);
         }
     }
     
+    /**
+     * Reemplaza las líneas de todo el lote con una sola reescritura por
+     * archivo. Los cambios se registran en el WAL con el archivo nuevo ya
+     * escrito y antes de reemplazar al original, solo para los IDs que
+     * tenían una línea válida. Las versiones se comparan antes de escribir
+     * y los vehículos en conflicto no se aplican.
+     */
+    @Override
+    public Map<Vehiculo, VehiculoException> updateAllIfPresent(List<Vehiculo> vehiculos)
+            throws VehiculoException {
+        Map<Vehiculo, VehiculoException> omitidos = new IdentityHashMap<>();
+        try {
+            for (Map.Entry<String, List<Vehiculo>> grupo : RepositorioComun.agruparPorArchivo(vehiculos).entrySet()) {
+                String nombreArchivo = grupo.getKey();
+                List<Vehiculo> delArchivo = grupo.getValue();
+                String tipo = delArchivo.get(0).getTipo().toLowerCase();
+                fileManager.conBloqueoEscritura(nombreArchivo, () -> {
+                    int[] ids = delArchivo.stream().mapToInt(Vehiculo::getId).toArray();
+                    boolean[] existentes = indiceOffsets.contiene(nombreArchivo, ids);
+
+                    // Si un ID se repite queda el último
+                    Map<Integer, Vehiculo> nuevos = new HashMap<>();
+                    for (int i = 0; i < ids.length; i++) {
+                        if (existentes[i]) {
+                            nuevos.put(ids[i], delArchivo.get(i));
+                        }
+                    }
+                    // Los que chocan con otra edición se omiten; el resto se aplica
+                    Map<Integer, ConflictoVersionException> conflictos = new HashMap<>();
+                    for (Vehiculo nuevo : nuevos.values()) {
+                        if (nuevo.getVersion() != Vehiculo.SIN_CONTROL_DE_VERSION) {
+                            Vehiculo guardado = leerPorIndice(nuevo.getId(), tipo);
+                            if (guardado != null) {
+                                try {
+                                    RepositorioComun.siguienteVersion(nuevo, guardado.getVersion());
+                                } catch (ConflictoVersionException e) {
+                                    conflictos.put(nuevo.getId(), e);
+                                }
+                            }
+                        }
+                    }
+                    nuevos.keySet().removeAll(conflictos.keySet());
+
+                    Map<Integer, String> escritas = new HashMap<>();
+                    Map<Integer, Long> versiones = new HashMap<>();
+                    if (!nuevos.isEmpty()) {
+                        try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                            fileManager.reescribirArchivo(nombreArchivo, linea -> {
+                                Integer idEnLinea = VehiculoFactory.extraerId(linea);
+                                Vehiculo nuevo = idEnLinea == null ? null : nuevos.get(idEnLinea);
+                                if (nuevo == null) {
+                                    return linea;
+                                }
+                                try {
+                                    long version = VehiculoFactory.crearDesdeCSV(tipo, linea).getVersion() + 1;
+                                    String nueva = RepositorioComun.lineaConVersion(nuevo, version);
+                                    escritas.put(idEnLinea, nueva);
+                                    versiones.put(idEnLinea, version);
+                                    return nueva;
+                                } catch (IllegalArgumentException e) {
+                                    // Las líneas mal formateadas se mantienen como están
+                                    return linea;
+                                }
+                            }, () -> mutacion.registrarUpserts(nombreArchivo, escritas.values()));
+                            mutacion.confirmar();
+                        }
+                    }
+
+                    for (Map.Entry<Integer, Long> version : versiones.entrySet()) {
+                        nuevos.get(version.getKey()).setVersion(version.getValue());
+                    }
+                    for (Vehiculo vehiculo : delArchivo) {
+                        if (!escritas.containsKey(vehiculo.getId())) {
+                            VehiculoException conflicto = conflictos.get(vehiculo.getId());
+                            omitidos.put(vehiculo, conflicto != null ? conflicto : RepositorioComun.noExiste(vehiculo));
+                        }
+                    }
+                    return null;
+                });
+            }
+            return RepositorioComun.enOrden(vehiculos, omitidos);
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al actualizar vehículos", e);
+        }
+    }
+
     @Override
     public void delete(int id, String tipo) throws VehiculoException {
+        if (!deleteIfPresent(id, tipo)) {
+            throw new VehiculoNoEncontradoException(id);
+        }
+    }
+    
+    /**
+     * Verifica el ID con el índice y reescribe el archivo sin sus líneas en
+     * una sola pasada
+     */
+    @Override
+    public boolean deleteIfPresent(int id, String tipo) throws VehiculoException {
         try {
             String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            List<String> lineas = fileManager.leerArchivo(nombreArchivo);
-            List<String> lineasFiltradas = new ArrayList<>();
-            boolean encontrado = false;
-            
-            for (String linea : lineas) {
-                if (linea == null || linea.trim().isEmpty()) {
-                    continue; // Ignorar líneas vacías
+            return fileManager.conBloqueoEscritura(nombreArchivo, () -> {
+                // Se eliminan todas las líneas del ID, incluidas las mal formateadas
+                if (indiceOffsets.buscar(nombreArchivo, id) == null) {
+                    return false;
                 }
                 
-                try {
-                    Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
-                    
-                    if (v.getId() == id) {
-                        // No agregar esta línea (eliminar)
-                        encontrado = true;
+                // Guardar archivo sin el vehículo eliminado
+                try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                    mutacion.registrarEliminacion(nombreArchivo, id);
+                    fileManager.reescribirArchivo(nombreArchivo, linea -> {
+                        Integer idEnLinea = VehiculoFactory.extraerId(linea);
+                        return idEnLinea != null && idEnLinea == id ? null : linea;
+                    });
+                    mutacion.confirmar();
+                }
+                return true;
+            });
+            
+        } catch (IOException e) {
+            throw new VehiculoException("Error al eliminar vehículo", e);
+        }
+    }
+
+    /**
+     * Verifica los IDs con una sola consulta al índice y reescribe el archivo
+     * sin todas sus líneas en una sola pasada
+     */
+    @Override
+    public List<Integer> deleteAllIfPresent(Collection<Integer> ids, String tipo) throws VehiculoException {
+        try {
+            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+            return fileManager.conBloqueoEscritura(nombreArchivo, () -> {
+                int[] unicos = new LinkedHashSet<>(ids).stream().mapToInt(Integer::intValue).toArray();
+                boolean[] existentes = indiceOffsets.contiene(nombreArchivo, unicos);
+
+                List<Integer> omitidos = new ArrayList<>();
+                Set<Integer> eliminar = new HashSet<>();
+                for (int i = 0; i < unicos.length; i++) {
+                    if (existentes[i]) {
+                        eliminar.add(unicos[i]);
                     } else {
-                        // Mantener esta línea
-                        lineasFiltradas.add(linea);
+                        omitidos.add(unicos[i]);
                     }
-                } catch (IllegalArgumentException e) {
-                    // Si la línea no se puede parsear, verificar si el ID está al inicio
-                    // Formato esperado: "id,resto..."
-                    String[] partes = linea.split(",", 2);
-                    if (partes.length > 0) {
-                        try {
-                            int idEnLinea = Integer.parseInt(partes[0].trim());
-                            if (idEnLinea == id) {
-                                // Eliminar esta línea mal formateada también
-                                encontrado = true;
-                            } else {
-                                // Mantener líneas mal formateadas con otro ID
-                                lineasFiltradas.add(linea);
-                            }
-                        } catch (NumberFormatException ex) {
-                            // No se puede determinar el ID, mantener la línea
-                            lineasFiltradas.add(linea);
-                        }
-                    } else {
-                        // Línea completamente inválida, eliminarla
-                        continue;
+                }
+
+                if (!eliminar.isEmpty()) {
+                    try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                        mutacion.registrarEliminaciones(nombreArchivo, eliminar);
+                        fileManager.reescribirArchivo(nombreArchivo, linea -> {
+                            Integer idEnLinea = VehiculoFactory.extraerId(linea);
+                            return idEnLinea != null && eliminar.contains(idEnLinea) ? null : linea;
+                        });
+                        mutacion.confirmar();
                     }
                 }
-            }
-            
-            if (!encontrado) {
-                throw new VehiculoException("No se encontró vehículo con ID: " + id);
-            }
-            
-            // Guardar archivo sin el vehículo eliminado
-            fileManager.escribirArchivo(nombreArchivo, lineasFiltradas);
-            
+                return omitidos;
+            });
+
         } catch (IOException e) {
-            throw new VehiculoException("Error al eliminar vehículo", e);
+            throw new VehiculoException("Error al eliminar vehículos", e);
         }
     }
     
@@ -180,46 +474,137 @@ public class VehiculoFileRepository implements IVehiculoRepository {
     public List<Vehiculo> findAll(String tipo) throws VehiculoException {
         try {
             String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            List<String> lineas = fileManager.leerArchivo(nombreArchivo);
-            List<Vehiculo> vehiculos = new ArrayList<>();
+            return fileManager.conBloqueoLectura(nombreArchivo, () -> {
+                List<Vehiculo> vehiculos = new ArrayList<>();
+                
+                fileManager.recorrerLineas(nombreArchivo, linea -> {
+                    try {
+                        vehiculos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+                    } catch (IllegalArgumentException e) {
+                        // Ignorar líneas mal formateadas
+                        System.err.println("Advertencia: Línea CSV mal formateada ignorada: " + linea);
+                    }
+                    return true;
+                });
+                
+                return vehiculos;
+            });
             
-            for (String linea : lineas) {
-                try {
-                    Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
-                    vehiculos.add(v);
-                } catch (IllegalArgumentException e) {
-                    // Ignorar líneas mal formateadas
-                    System.err.println("Advertencia: Línea CSV mal formateada ignorada: " + linea);
-                }
+        } catch (IOException e) {
+            throw new VehiculoException("Error al listar vehículos", e);
+        }
+    }
+    
+    /**
+     * Recorre el archivo mapeado a medida que se consume el Stream: solo la
+     * línea actual está en memoria. Los errores de lectura durante el
+     * recorrido se lanzan como UncheckedIOException.
+     * 
+     * El bloqueo de lectura se toma solo al abrir: el cursor queda fijo en el
+     * tamaño y el archivo de ese momento (las reescrituras reemplazan el
+     * archivo en lugar de modificarlo), así que el Stream no bloquea a los
+     * escritores mientras se consume.
+     */
+    @Override
+    public Stream<Vehiculo> streamAll(String tipo) throws VehiculoException {
+        try {
+            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+            MappedLineReader.Cursor cursor = fileManager.abrirLineas(nombreArchivo);
+            if (cursor == null) {
+                return Stream.empty();
             }
             
-            return vehiculos;
+            Spliterator<Vehiculo> lector = new Spliterators.AbstractSpliterator<Vehiculo>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Vehiculo> accion) {
+                    try {
+                        CharSequence linea;
+                        while ((linea = cursor.siguiente()) != null) {
+                            Vehiculo vehiculo;
+                            try {
+                                vehiculo = VehiculoFactory.crearDesdeCSV(tipo, linea);
+                            } catch (IllegalArgumentException e) {
+                                // Ignorar líneas mal formateadas
+                                System.err.println("Advertencia: Línea CSV mal formateada ignorada: " + linea);
+                                continue;
+                            }
+                            accion.accept(vehiculo);
+                            return true;
+                        }
+                        return false;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            
+            return StreamSupport.stream(lector, false).onClose(() -> {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
             
         } catch (IOException e) {
             throw new VehiculoException("Error al listar vehículos", e);
         }
     }
     
+    /**
+     * Usa el índice de desplazamientos ordenado por ID: se leen solo las
+     * líneas de la página, sin importar cuántas haya antes del cursor.
+     */
     @Override
-    public boolean existsById(int id, String tipo) {
+    public Pagina findPage(String tipo, int despuesDeId, int tamano) throws VehiculoException {
         try {
             String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            List<String> lineas = fileManager.leerArchivo(nombreArchivo);
-            
-            for (String linea : lineas) {
-                try {
-                    Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
-                    if (v.getId() == id) {
-                        return true;
+            return fileManager.conBloqueoLectura(nombreArchivo, () -> {
+                List<Vehiculo> candidatos = new ArrayList<>(tamano + 1);
+                int cursor = despuesDeId;
+                
+                // Se piden más IDs si alguno resulta ser una línea mal formateada
+                while (candidatos.size() <= tamano) {
+                    List<long[]> posiciones = indiceOffsets.buscarSiguientes(
+                            nombreArchivo, cursor, tamano + 1 - candidatos.size());
+                    if (posiciones.isEmpty()) {
+                        break;
+                    }
+                    for (long[] posicion : posiciones) {
+                        cursor = (int) posicion[0];
+                        Vehiculo v = leerEnPosicion(cursor, tipo, nombreArchivo, posicion[1], (int) posicion[2]);
+                        if (v != null) {
+                            candidatos.add(v);
+                        }
                     }
-                } catch (IllegalArgumentException e) {
-                    // Ignorar líneas mal formateadas
-                    continue;
                 }
-            }
-            
-            return false;
+                
+                return Pagina.desdeCandidatos(candidatos, tamano);
+            });
             
+        } catch (IOException e) {
+            throw new VehiculoException("Error al listar vehículos", e);
+        }
+    }
+    
+    /**
+     * La generación del bloqueo del archivo, que avanza con cada escritura
+     * de cualquier proceso
+     */
+    @Override
+    public long generacion(String tipo) throws VehiculoException {
+        try {
+            return fileManager.generacionArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+        } catch (IOException e) {
+            throw new VehiculoException("Error al consultar la generación de los datos", e);
+        }
+    }
+    
+    @Override
+    public boolean existsById(int id, String tipo) {
+        try {
+            return leerConBloqueo(id, tipo) != null;
         } catch (Exception e) {
             return false;
         }
@@ -229,26 +614,26 @@ public class VehiculoFileRepository implements IVehiculoRepository {
     public int getNextId(String tipo) {
         try {
             String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
-            List<String> lineas = fileManager.leerArchivo(nombreArchivo);
-            
-            int maxId = 0;
-            
-            for (String linea : lineas) {
-                try {
-                    Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
-                    if (v.getId() > maxId) {
-                        maxId = v.getId();
+            return fileManager.conBloqueoLectura(nombreArchivo, () -> {
+                int[] maxId = new int[1];
+                
+                fileManager.recorrerLineas(nombreArchivo, linea -> {
+                    try {
+                        Vehiculo v = VehiculoFactory.crearDesdeCSV(tipo, linea);
+                        if (v.getId() > maxId[0]) {
+                            maxId[0] = v.getId();
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Ignorar líneas mal formateadas
                     }
-                } catch (IllegalArgumentException e) {
-                    // Ignorar líneas mal formateadas
-                    continue;
-                }
-            }
-            
-            return maxId + 1;
+                    return true;
+                });
+                
+                return maxId[0] + 1;
+            });
             
         } catch (Exception e) {
             return 1; // Si hay error o no hay vehículos, empezar en 1
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,770 @@
+package repository;
+
+import model.*;
+import exception.ConflictoVersionException;
+import exception.VehiculoDuplicadoException;
+import exception.VehiculoNoEncontradoException;
+import exception.VehiculoException;
+import util.BloqueoArchivo;
+import util.CsvTokenizer;
+import util.FileManager;
+import util.RangeIndex;
+import util.TextIndex;
+import util.VehiculoFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio indexado en memoria.
+ *
+ * Carga cada archivo de tipo una sola vez y mantiene un índice id → línea CSV
+ * por tipo, sincronizado en create/update/delete. Las búsquedas puntuales
+ * (read, existsById) se resuelven en O(1) sin tocar el disco; solo se parsea
+ * la línea solicitada.
+ *
+ * Cada índice se protege con el bloqueo de su archivo (BloqueoArchivo): las
+ * consultas toman el de lectura y las mutaciones el de escritura, así que
+ * tipos distintos no compiten entre sí y las consultas de un mismo tipo
+ * corren en paralelo.
+ */
+public class VehiculoIndexedRepository implements IVehiculoRepository {
+
+    private FileManager fileManager;
+    private CsvWal wal;
+
+    // Índices por nombre de archivo ("autos", "motos", "camiones"); cada uno
+    // se lee y modifica con el bloqueo de su archivo tomado
+    private final Map<String, IndiceTipo> indices = new ConcurrentHashMap<>();
+
+    // Constructor con inyección de dependencias
+    public VehiculoIndexedRepository(FileManager fileManager) {
+        this.fileManager = fileManager;
+        this.wal = VehiculoFileRepository.abrirWal(fileManager);
+    }
+
+    @Override
+    public void create(Vehiculo vehiculo) throws VehiculoException {
+        if (!createIfAbsent(vehiculo)) {
+            throw new VehiculoDuplicadoException(vehiculo.getId());
+        }
+    }
+
+    /**
+     * Con el bloqueo del archivo solo se anota el WAL y se escribe la línea;
+     * los fsync se esperan después, así las altas concurrentes comparten lote
+     */
+    @Override
+    public boolean createIfAbsent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(vehiculo);
+            String linea = RepositorioComun.lineaConVersion(vehiculo, 1);
+            try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                CompletableFuture<Void> escrita;
+                try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                    IndiceTipo indice = obtenerIndiceParaEscritura(nombreArchivo, permiso);
+
+                    if (indice.lineas.containsKey(vehiculo.getId())) {
+                        return false;
+                    }
+                    mutacion.anotarUpsert(nombreArchivo, linea);
+                    escrita = fileManager.encolarLinea(nombreArchivo, linea, permiso);
+                    indice.agregar(vehiculo.getId(), linea);
+                }
+
+                mutacion.esperarDurable();
+                FileManager.esperarEscritura(escrita);
+                mutacion.confirmar();
+            }
+            vehiculo.setVersion(1);
+            return true;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al guardar vehículo", e);
+        }
+    }
+
+    @Override
+    public List<Vehiculo> createAllIfAbsent(List<Vehiculo> vehiculos) throws VehiculoException {
+        List<Vehiculo> omitidos = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<Vehiculo>> grupo :
+                    RepositorioComun.agruparPorArchivo(vehiculos).entrySet()) {
+                String nombreArchivo = grupo.getKey();
+                try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                    IndiceTipo indice = obtenerIndiceParaEscritura(nombreArchivo, permiso);
+
+                    Map<Integer, String> nuevas = new LinkedHashMap<>();
+                    List<Vehiculo> creados = new ArrayList<>();
+                    for (Vehiculo vehiculo : grupo.getValue()) {
+                        if (indice.lineas.containsKey(vehiculo.getId()) || nuevas.containsKey(vehiculo.getId())) {
+                            omitidos.add(vehiculo);
+                        } else {
+                            nuevas.put(vehiculo.getId(), RepositorioComun.lineaConVersion(vehiculo, 1));
+                            creados.add(vehiculo);
+                        }
+                    }
+
+                    VehiculoFileRepository.agregarLote(wal, fileManager, nombreArchivo,
+                            new ArrayList<>(nuevas.values()), permiso);
+                    for (Map.Entry<Integer, String> nueva : nuevas.entrySet()) {
+                        indice.agregar(nueva.getKey(), nueva.getValue());
+                    }
+                    creados.forEach(v -> v.setVersion(1));
+                }
+            }
+            return omitidos;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al guardar vehículos", e);
+        }
+    }
+
+    @Override
+    public Vehiculo read(int id, String tipo) throws VehiculoException {
+        try {
+            String linea = leerIndice(tipo, indice -> indice.lineas.get(id));
+
+            if (linea != null) {
+                try {
+                    return VehiculoFactory.crearDesdeCSV(tipo, linea);
+                } catch (IllegalArgumentException e) {
+                    // Línea mal formateada: se trata como inexistente
+                }
+            }
+
+            throw new VehiculoNoEncontradoException(id);
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al leer vehículo", e);
+        }
+    }
+
+    @Override
+    public void update(Vehiculo vehiculo) throws VehiculoException {
+        if (!updateIfPresent(vehiculo)) {
+            throw new VehiculoNoEncontradoException(vehiculo.getId());
+        }
+    }
+
+    @Override
+    public boolean updateIfPresent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(vehiculo);
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                IndiceTipo indice = obtenerIndiceParaEscritura(nombreArchivo, permiso);
+
+                String guardada = indice.lineas.get(vehiculo.getId());
+                if (guardada == null) {
+                    return false;
+                }
+                long version = RepositorioComun.siguienteVersion(vehiculo,
+                        VehiculoFactory.extraerVersion(guardada));
+
+                String linea = RepositorioComun.lineaConVersion(vehiculo, version);
+                try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                    mutacion.registrarUpsert(nombreArchivo, linea);
+                    String anterior = indice.reemplazar(vehiculo.getId(), linea);
+                    try {
+                        fileManager.escribirArchivo(nombreArchivo, indice.todasLasLineas());
+                    } catch (IOException e) {
+                        // Restaurar el índice para que siga reflejando el archivo
+                        indice.reemplazar(vehiculo.getId(), anterior);
+                        throw e;
+                    }
+                    mutacion.confirmar();
+                }
+                vehiculo.setVersion(version);
+                return true;
+            }
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al actualizar vehículo", e);
+        }
+    }
+
+    @Override
+    public Map<Vehiculo, VehiculoException> updateAllIfPresent(List<Vehiculo> vehiculos)
+            throws VehiculoException {
+        Map<Vehiculo, VehiculoException> omitidos = new IdentityHashMap<>();
+        try {
+            for (Map.Entry<String, List<Vehiculo>> grupo :
+                    RepositorioComun.agruparPorArchivo(vehiculos).entrySet()) {
+                String nombreArchivo = grupo.getKey();
+                try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                    IndiceTipo indice = obtenerIndiceParaEscritura(nombreArchivo, permiso);
+
+                    // Si un ID se repite queda el último
+                    Map<Integer, Vehiculo> nuevos = new LinkedHashMap<>();
+                    for (Vehiculo vehiculo : grupo.getValue()) {
+                        if (indice.lineas.containsKey(vehiculo.getId())) {
+                            nuevos.put(vehiculo.getId(), vehiculo);
+                        }
+                    }
+
+                    // Los que chocan con otra edición se omiten; el resto se aplica
+                    Map<Integer, ConflictoVersionException> conflictos = new HashMap<>();
+                    Map<Integer, Long> versiones = new HashMap<>();
+                    Map<Integer, String> nuevas = new LinkedHashMap<>();
+                    for (Vehiculo nuevo : nuevos.values()) {
+                        try {
+                            long version = RepositorioComun.siguienteVersion(nuevo,
+                                    VehiculoFactory.extraerVersion(indice.lineas.get(nuevo.getId())));
+                            versiones.put(nuevo.getId(), version);
+                            nuevas.put(nuevo.getId(), RepositorioComun.lineaConVersion(nuevo, version));
+                        } catch (ConflictoVersionException e) {
+                            conflictos.put(nuevo.getId(), e);
+                        }
+                    }
+
+                    if (!nuevas.isEmpty()) {
+                        try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                            mutacion.registrarUpserts(nombreArchivo, nuevas.values());
+                            Map<Integer, String> anteriores = new HashMap<>();
+                            for (Map.Entry<Integer, String> nueva : nuevas.entrySet()) {
+                                anteriores.put(nueva.getKey(), indice.reemplazar(nueva.getKey(), nueva.getValue()));
+                            }
+                            try {
+                                fileManager.escribirArchivo(nombreArchivo, indice.todasLasLineas());
+                            } catch (IOException e) {
+                                // Restaurar el índice para que siga reflejando el archivo
+                                for (Map.Entry<Integer, String> anterior : anteriores.entrySet()) {
+                                    indice.reemplazar(anterior.getKey(), anterior.getValue());
+                                }
+                                throw e;
+                            }
+                            mutacion.confirmar();
+                        }
+                    }
+                    for (Map.Entry<Integer, Long> version : versiones.entrySet()) {
+                        nuevos.get(version.getKey()).setVersion(version.getValue());
+                    }
+                    for (Vehiculo vehiculo : grupo.getValue()) {
+                        if (!versiones.containsKey(vehiculo.getId())) {
+                            VehiculoException conflicto = conflictos.get(vehiculo.getId());
+                            omitidos.put(vehiculo, conflicto != null
+                                    ? conflicto : RepositorioComun.noExiste(vehiculo));
+                        }
+                    }
+                }
+            }
+            return RepositorioComun.enOrden(vehiculos, omitidos);
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al actualizar vehículos", e);
+        }
+    }
+
+    @Override
+    public void delete(int id, String tipo) throws VehiculoException {
+        if (!deleteIfPresent(id, tipo)) {
+            throw new VehiculoNoEncontradoException(id);
+        }
+    }
+
+    @Override
+    public boolean deleteIfPresent(int id, String tipo) throws VehiculoException {
+        try {
+            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                IndiceTipo indice = obtenerIndiceParaEscritura(nombreArchivo, permiso);
+
+                if (!indice.lineas.containsKey(id)) {
+                    return false;
+                }
+
+                try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                    mutacion.registrarEliminacion(nombreArchivo, id);
+                    indice.quitar(id);
+                    try {
+                        fileManager.escribirArchivo(nombreArchivo, indice.todasLasLineas());
+                    } catch (IOException e) {
+                        // Si no se pudo escribir, el índice se recarga desde disco
+                        indices.remove(nombreArchivo);
+                        throw e;
+                    }
+                    mutacion.confirmar();
+                }
+
+                if (id == indice.maxId) {
+                    indice.recalcularMaxId();
+                }
+                return true;
+            }
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al eliminar vehículo", e);
+        }
+    }
+
+    @Override
+    public List<Integer> deleteAllIfPresent(Collection<Integer> ids, String tipo)
+            throws VehiculoException {
+        try {
+            String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreArchivo)) {
+                IndiceTipo indice = obtenerIndiceParaEscritura(nombreArchivo, permiso);
+
+                List<Integer> omitidos = new ArrayList<>();
+                Set<Integer> eliminar = new LinkedHashSet<>();
+                for (int id : new LinkedHashSet<>(ids)) {
+                    if (indice.lineas.containsKey(id)) {
+                        eliminar.add(id);
+                    } else {
+                        omitidos.add(id);
+                    }
+                }
+                if (eliminar.isEmpty()) {
+                    return omitidos;
+                }
+
+                try (CsvWal.Mutacion mutacion = wal.iniciar()) {
+                    mutacion.registrarEliminaciones(nombreArchivo, eliminar);
+                    for (int id : eliminar) {
+                        indice.quitar(id);
+                    }
+                    try {
+                        fileManager.escribirArchivo(nombreArchivo, indice.todasLasLineas());
+                    } catch (IOException e) {
+                        // Si no se pudo escribir, el índice se recarga desde disco
+                        indices.remove(nombreArchivo);
+                        throw e;
+                    }
+                    mutacion.confirmar();
+                }
+
+                if (eliminar.contains(indice.maxId)) {
+                    indice.recalcularMaxId();
+                }
+                return omitidos;
+            }
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al eliminar vehículos", e);
+        }
+    }
+
+    @Override
+    public List<Vehiculo> findAll(String tipo) throws VehiculoException {
+        try {
+            List<String> lineas = leerIndice(tipo, indice -> new ArrayList<>(indice.lineas.values()));
+            List<Vehiculo> vehiculos = new ArrayList<>(lineas.size());
+
+            for (String linea : lineas) {
+                try {
+                    vehiculos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+                } catch (IllegalArgumentException e) {
+                    // Ignorar líneas mal formateadas
+                    System.err.println("Advertencia: Línea CSV mal formateada ignorada: " + linea);
+                }
+            }
+
+            return vehiculos;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al listar vehículos", e);
+        }
+    }
+
+    /**
+     * Consulta el índice de marcas: solo se parsean las líneas que coinciden
+     */
+    @Override
+    public Stream<Vehiculo> streamByMarca(String marca, String tipo) throws VehiculoException {
+        try {
+            List<String> lineas = leerIndice(tipo, indice -> lineasDe(indice, indice.marcas.buscarContiene(marca)));
+            List<Vehiculo> vehiculos = new ArrayList<>(lineas.size());
+
+            for (String linea : lineas) {
+                try {
+                    vehiculos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+                } catch (IllegalArgumentException e) {
+                    // Ignorar líneas mal formateadas
+                }
+            }
+
+            return vehiculos.stream();
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al buscar vehículos", e);
+        }
+    }
+
+    /**
+     * Intersecta los IDs de los índices de rango de cada campo; solo se
+     * parsean las líneas del resultado
+     */
+    @Override
+    public Stream<Vehiculo> streamByRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos)
+            throws VehiculoException {
+        try {
+            List<String> lineas = leerIndice(tipo, indice -> {
+                Map<CampoNumerico, RangeIndex> indicesRango = indice.indicesDeRango(tipo);
+
+                List<NavigableSet<Integer>> porCampo = new ArrayList<>();
+                for (Map.Entry<CampoNumerico, RangoNumerico> rango : rangos.entrySet()) {
+                    RangeIndex indiceCampo = indicesRango.get(rango.getKey());
+                    if (indiceCampo == null) {
+                        throw new VehiculoException("El campo " + rango.getKey().getNombre() + " no aplica al tipo " + tipo);
+                    }
+                    porCampo.add(indiceCampo.buscarRango(rango.getValue().getMinimo(), rango.getValue().getMaximo()));
+                }
+                return lineasDe(indice, porCampo.isEmpty() ? indice.idsOrdenados : RangeIndex.intersectar(porCampo));
+            });
+
+            List<Vehiculo> vehiculos = new ArrayList<>(lineas.size());
+            for (String linea : lineas) {
+                try {
+                    vehiculos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+                } catch (IllegalArgumentException e) {
+                    // Ignorar líneas mal formateadas
+                }
+            }
+
+            return vehiculos.stream();
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al buscar vehículos", e);
+        }
+    }
+
+    @Override
+    public long contarPorMarca(String marca, String tipo) throws VehiculoException {
+        try {
+            return leerIndice(tipo, indice -> indice.marcas.contarContiene(marca));
+        } catch (IOException e) {
+            throw new VehiculoException("Error al buscar vehículos", e);
+        }
+    }
+
+    @Override
+    public long contarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango)
+            throws VehiculoException {
+        try {
+            return leerIndice(tipo, indice -> {
+                RangeIndex indiceCampo = indice.indicesDeRango(tipo).get(campo);
+                if (indiceCampo == null) {
+                    throw new VehiculoException("El campo " + campo.getNombre() + " no aplica al tipo " + tipo);
+                }
+                return indiceCampo.contarRango(rango.getMinimo(), rango.getMaximo());
+            });
+        } catch (IOException e) {
+            throw new VehiculoException("Error al buscar vehículos", e);
+        }
+    }
+
+    /**
+     * Recorre el conjunto ordenado de IDs desde el cursor: el costo depende
+     * del tamaño de página, no de la posición
+     */
+    @Override
+    public Pagina findPage(String tipo, int despuesDeId, int tamano) throws VehiculoException {
+        try {
+            return leerIndice(tipo, indice -> {
+                List<Vehiculo> candidatos = new ArrayList<>(tamano + 1);
+
+                for (int id : indice.idsOrdenados.tailSet(despuesDeId, false)) {
+                    String linea = indice.lineas.get(id);
+                    try {
+                        candidatos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+                    } catch (IllegalArgumentException e) {
+                        // Ignorar líneas mal formateadas
+                        continue;
+                    }
+                    if (candidatos.size() > tamano) {
+                        break;
+                    }
+                }
+
+                return Pagina.desdeCandidatos(candidatos, tamano);
+            });
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al listar vehículos", e);
+        }
+    }
+
+    /**
+     * La misma generación del archivo con la que el índice decide si recargarse
+     */
+    @Override
+    public long generacion(String tipo) throws VehiculoException {
+        try {
+            return fileManager.generacionArchivo(VehiculoFactory.obtenerNombreArchivo(tipo));
+        } catch (IOException e) {
+            throw new VehiculoException("Error al consultar la generación de los datos", e);
+        }
+    }
+
+    @Override
+    public boolean existsById(int id, String tipo) {
+        try {
+            return leerIndice(tipo, indice -> indice.lineas.containsKey(id));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getNextId(String tipo) {
+        try {
+            return leerIndice(tipo, indice -> indice.maxId + 1);
+        } catch (Exception e) {
+            return 1; // Si hay error o no hay vehículos, empezar en 1
+        }
+    }
+
+    /**
+     * Descarta los índices en memoria; se recargarán desde disco en el
+     * siguiente acceso. Los cambios hechos por otros procesos a través de
+     * FileManager se detectan solos; esto sirve si los archivos se editaron a mano.
+     */
+    public void invalidar() {
+        indices.clear();
+    }
+
+    /**
+     * Consulta el índice de un tipo con el bloqueo de lectura de su archivo
+     * tomado. El índice se carga desde disco la primera vez o si otro proceso
+     * (u otro repositorio) escribió el archivo desde entonces.
+     */
+    private <T> T leerIndice(String tipo, LecturaIndice<T> lectura) throws IOException, VehiculoException {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        try (BloqueoArchivo.Permiso permiso = fileManager.bloquearLectura(nombreArchivo)) {
+            return lectura.leer(obtenerIndice(nombreArchivo, permiso.getGeneracion()));
+        }
+    }
+
+    /**
+     * Copia las líneas de los IDs, para parsearlas después de soltar el bloqueo
+     */
+    private static List<String> lineasDe(IndiceTipo indice, Iterable<Integer> ids) {
+        List<String> lineas = new ArrayList<>();
+        for (int id : ids) {
+            lineas.add(indice.lineas.get(id));
+        }
+        return lineas;
+    }
+
+    /**
+     * Obtiene el índice con el bloqueo de escritura tomado. Ese bloqueo ya
+     * avanzó la generación, así que el índice está vigente si tiene la anterior.
+     */
+    private IndiceTipo obtenerIndiceParaEscritura(String nombreArchivo, BloqueoArchivo.Permiso permiso)
+            throws IOException {
+        IndiceTipo indice = obtenerIndice(nombreArchivo, permiso.getGeneracion() - 1);
+        indice.generacion = permiso.getGeneracion();
+        return indice;
+    }
+
+    /**
+     * @param generacion Generación actual del archivo (con el bloqueo tomado)
+     */
+    private IndiceTipo obtenerIndice(String nombreArchivo, long generacion) throws IOException {
+        IndiceTipo indice = indices.get(nombreArchivo);
+        if (indice == null || indice.generacion != generacion) {
+            indice = cargarIndice(nombreArchivo);
+            indice.generacion = generacion;
+            indices.put(nombreArchivo, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Lee el archivo una vez y construye el índice id → línea.
+     * Solo se extrae el ID de cada línea; el resto se parsea bajo demanda.
+     */
+    private IndiceTipo cargarIndice(String nombreArchivo) throws IOException {
+        IndiceTipo indice = new IndiceTipo();
+
+        for (String linea : fileManager.leerArchivo(nombreArchivo)) {
+            Integer id = VehiculoFactory.extraerId(linea);
+            if (id == null) {
+                // Líneas sin ID numérico se conservan tal cual, en su lugar
+                indice.orden.put(new Object(), linea);
+            } else if (!indice.lineas.containsKey(id)) {
+                // Con IDs repetidos vale la primera línea, como en el índice de
+                // offsets y en la recuperación del WAL; las siguientes se
+                // descartan en la próxima reescritura
+                indice.agregar(id, linea);
+            }
+        }
+
+        return indice;
+    }
+
+    /**
+     * Consulta sobre el índice de un tipo
+     */
+    @FunctionalInterface
+    private interface LecturaIndice<T> {
+        T leer(IndiceTipo indice) throws VehiculoException;
+    }
+
+    /**
+     * Índice en memoria de un archivo de tipo
+     */
+    private static class IndiceTipo {
+        // Conserva el orden del archivo para findAll y reescrituras
+        private final Map<Integer, String> lineas = new LinkedHashMap<>();
+        // Todas las líneas del archivo en su orden: la clave es el ID, o un
+        // objeto propio para cada línea sin ID
+        private final Map<Object, String> orden = new LinkedHashMap<>();
+        // Los mismos IDs en orden, para la paginación por cursor
+        private final NavigableSet<Integer> idsOrdenados = new TreeSet<>();
+        // Índice secundario de marcas para buscarPorMarca
+        private final TextIndex marcas = new TextIndex();
+        // Índices de rango por campo; se arman en la primera consulta por rango
+        private Map<CampoNumerico, RangeIndex> rangos;
+        private String tipoRangos;
+        private int maxId = 0;
+        // Generación del archivo que refleja este índice
+        private long generacion;
+
+        void agregar(int id, String linea) {
+            lineas.put(id, linea);
+            orden.put(id, linea);
+            idsOrdenados.add(id);
+            indexarMarca(id, linea);
+            indexarRangos(id, linea);
+            if (id > maxId) {
+                maxId = id;
+            }
+        }
+
+        /**
+         * Obtiene los índices de rango de los campos del tipo, armándolos la
+         * primera vez con un recorrido de las líneas cargadas (sincronizado:
+         * varias consultas con el bloqueo de lectura pueden llegar a la vez)
+         */
+        synchronized Map<CampoNumerico, RangeIndex> indicesDeRango(String tipo) {
+            if (rangos == null) {
+                Class<? extends Vehiculo> clase = VehiculoFactory.crearVehiculo(tipo).getClass();
+                Map<CampoNumerico, RangeIndex> nuevos = new EnumMap<>(CampoNumerico.class);
+                for (CampoNumerico campo : CampoNumerico.values()) {
+                    if (campo.aplicaA(clase)) {
+                        nuevos.put(campo, new RangeIndex());
+                    }
+                }
+                rangos = nuevos;
+                tipoRangos = tipo;
+                for (Map.Entry<Integer, String> entrada : lineas.entrySet()) {
+                    indexarRangos(entrada.getKey(), entrada.getValue());
+                }
+            }
+            return rangos;
+        }
+
+        /**
+         * Reemplaza la línea de un ID existente
+         *
+         * @return La línea anterior
+         */
+        String reemplazar(int id, String linea) {
+            String anterior = lineas.put(id, linea);
+            orden.put(id, linea);
+            desindexarMarca(id, anterior);
+            desindexarRangos(id, anterior);
+            indexarMarca(id, linea);
+            indexarRangos(id, linea);
+            return anterior;
+        }
+
+        void quitar(int id) {
+            String anterior = lineas.remove(id);
+            orden.remove(id);
+            desindexarMarca(id, anterior);
+            desindexarRangos(id, anterior);
+            idsOrdenados.remove(id);
+        }
+
+        private void indexarRangos(int id, String linea) {
+            Vehiculo vehiculo = vehiculoParaRangos(linea);
+            if (vehiculo != null) {
+                for (Map.Entry<CampoNumerico, RangeIndex> rango : rangos.entrySet()) {
+                    rango.getValue().agregar(id, rango.getKey().valor(vehiculo));
+                }
+            }
+        }
+
+        private void desindexarRangos(int id, String linea) {
+            Vehiculo vehiculo = vehiculoParaRangos(linea);
+            if (vehiculo != null) {
+                for (Map.Entry<CampoNumerico, RangeIndex> rango : rangos.entrySet()) {
+                    rango.getValue().quitar(id, rango.getKey().valor(vehiculo));
+                }
+            }
+        }
+
+        /**
+         * Parsea la línea para los índices de rango
+         *
+         * @return El vehículo, o null si los índices no se armaron o la línea está mal formateada
+         */
+        private Vehiculo vehiculoParaRangos(String linea) {
+            if (rangos == null || linea == null) {
+                return null;
+            }
+            try {
+                return VehiculoFactory.crearDesdeCSV(tipoRangos, linea);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private void indexarMarca(int id, String linea) {
+            String marca = extraerMarca(linea);
+            if (marca != null) {
+                marcas.agregar(id, marca);
+            }
+        }
+
+        private void desindexarMarca(int id, String linea) {
+            String marca = extraerMarca(linea);
+            if (marca != null) {
+                marcas.quitar(id, marca);
+            }
+        }
+
+        /**
+         * Lee solo el segundo campo de la línea, sin parsear el resto
+         *
+         * @return La marca, o null si la línea no tiene ese campo
+         */
+        private static String extraerMarca(String linea) {
+            if (linea == null) {
+                return null;
+            }
+            CsvTokenizer campos = new CsvTokenizer(linea);
+            campos.saltarCampo();
+            return campos.hayMasCampos() ? campos.siguienteTexto() : null;
+        }
+
+        void recalcularMaxId() {
+            maxId = 0;
+            for (int id : lineas.keySet()) {
+                if (id > maxId) {
+                    maxId = id;
+                }
+            }
+        }
+
+        List<String> todasLasLineas() {
+            return new ArrayList<>(orden.values());
+        }
+    }
+}
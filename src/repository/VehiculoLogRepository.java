@@ -0,0 +1,876 @@
+package repository;
+
+import model.*;
+import exception.VehiculoDuplicadoException;
+import exception.VehiculoNoEncontradoException;
+import exception.VehiculoException;
+import util.BloqueoArchivo;
+import util.FileManager;
+import util.VehiculoFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositorio con almacenamiento de tipo log (solo agregar).
+ *
+ * Cada tipo tiene un log ("autos.log", ...) donde create/update agregan un
+ * registro "U," seguido de la línea CSV y delete agrega una lápida "D,id". Las lecturas
+ * se resuelven con un índice en memoria id → posición en el log, por lo que
+ * toda escritura es un append O(1).
+ *
+ * Cuando la proporción de registros obsoletos supera el umbral configurado,
+ * un compactador en segundo plano reescribe los registros vivos en un
+ * segmento nuevo y lo reemplaza de forma atómica.
+ *
+ * La primera vez que se abre un tipo sin log, se importa el CSV existente.
+ * Cada compactación y el cierre exportan los registros vivos al CSV, y el
+ * log guarda una marca "X,crc" con el CRC del CSV escrito. Al abrir un log
+ * se compara esa marca con el CSV: si solo cambió el CSV se vuelve a
+ * importar, y si cambiaron los dos (ej: otro repositorio escribió el CSV
+ * mientras el log tenía cambios sin exportar) no se abre, para no perder
+ * ninguno de los dos. Un log sin marca es anterior a las exportaciones y
+ * se toma como el dato vigente.
+ *
+ * Cada escritura espera a que su registro llegue al disco antes de volver;
+ * las escrituras concurrentes comparten el fsync (el primero que sincroniza
+ * cubre todo lo escrito hasta ese momento).
+ *
+ * El log de cada tipo se bloquea con un BloqueoArchivo propio ("autos.log.lock")
+ * al leerlo y al escribirlo; si su generación avanzó por otro proceso (u
+ * otro repositorio) el índice se reconstruye antes de usarlo.
+ */
+public class VehiculoLogRepository implements IVehiculoRepository, AutoCloseable {
+
+    private static final String EXTENSION_LOG = ".log";
+    private static final String EXTENSION_COMPACTACION = ".log.compact";
+    private static final byte REGISTRO_UPSERT = 'U';
+    private static final byte REGISTRO_LAPIDA = 'D';
+    private static final byte REGISTRO_EXPORTACION = 'X';
+    private static final long SIN_EXPORTAR = -1;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private static final double UMBRAL_BASURA_DEFECTO = 0.5;
+    private static final long TAMANO_MINIMO_DEFECTO = 1024 * 1024;
+
+    private final FileManager fileManager;
+    private final double umbralBasura;
+    private final long tamanoMinimoCompactacion;
+    private final Map<String, Segmento> segmentos = new HashMap<>();
+    private final ExecutorService compactador;
+
+    // Constructor con inyección de dependencias
+    public VehiculoLogRepository(FileManager fileManager) {
+        this(fileManager, UMBRAL_BASURA_DEFECTO, TAMANO_MINIMO_DEFECTO);
+    }
+
+    /**
+     * Constructor con parámetros de compactación
+     *
+     * @param fileManager Gestor de archivos
+     * @param umbralBasura Proporción de bytes obsoletos (0-1) que dispara la compactación
+     * @param tamanoMinimoCompactacion Tamaño mínimo del log en bytes para compactar
+     */
+    public VehiculoLogRepository(FileManager fileManager, double umbralBasura, long tamanoMinimoCompactacion) {
+        this.fileManager = fileManager;
+        this.umbralBasura = umbralBasura;
+        this.tamanoMinimoCompactacion = tamanoMinimoCompactacion;
+        this.compactador = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "compactador-vehiculos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @Override
+    public void create(Vehiculo vehiculo) throws VehiculoException {
+        if (!createIfAbsent(vehiculo)) {
+            throw new VehiculoDuplicadoException(vehiculo.getId());
+        }
+    }
+
+    @Override
+    public boolean createIfAbsent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(vehiculo));
+            boolean creado = escribirSegmento(segmento, () -> {
+                if (segmento.indice.containsKey(vehiculo.getId())) {
+                    return false;
+                }
+                segmento.agregarUpsert(vehiculo.getId(), RepositorioComun.lineaConVersion(vehiculo, 1));
+                return true;
+            });
+            if (!creado) {
+                return false;
+            }
+            vehiculo.setVersion(1);
+            programarCompactacionSiHaceFalta(segmento);
+            return true;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al guardar vehículo", e);
+        }
+    }
+
+    @Override
+    public Vehiculo read(int id, String tipo) throws VehiculoException {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo));
+            String linea = leerSegmento(segmento, () -> segmento.leer(id));
+
+            if (linea != null) {
+                try {
+                    return VehiculoFactory.crearDesdeCSV(tipo, linea);
+                } catch (IllegalArgumentException e) {
+                    // Registro mal formateado: se trata como inexistente
+                }
+            }
+
+            throw new VehiculoNoEncontradoException(id);
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al leer vehículo", e);
+        }
+    }
+
+    @Override
+    public void update(Vehiculo vehiculo) throws VehiculoException {
+        if (!updateIfPresent(vehiculo)) {
+            throw new VehiculoNoEncontradoException(vehiculo.getId());
+        }
+    }
+
+    @Override
+    public boolean updateIfPresent(Vehiculo vehiculo) throws VehiculoException {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(vehiculo));
+            Long version = escribirSegmento(segmento, () -> {
+                String guardada = segmento.leer(vehiculo.getId());
+                if (guardada == null) {
+                    return null;
+                }
+                long siguiente = RepositorioComun.siguienteVersion(vehiculo,
+                        VehiculoFactory.extraerVersion(guardada));
+                segmento.agregarUpsert(vehiculo.getId(), RepositorioComun.lineaConVersion(vehiculo, siguiente));
+                return siguiente;
+            });
+            if (version == null) {
+                return false;
+            }
+            vehiculo.setVersion(version);
+            programarCompactacionSiHaceFalta(segmento);
+            return true;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al actualizar vehículo", e);
+        }
+    }
+
+    @Override
+    public void delete(int id, String tipo) throws VehiculoException {
+        if (!deleteIfPresent(id, tipo)) {
+            throw new VehiculoNoEncontradoException(id);
+        }
+    }
+
+    @Override
+    public boolean deleteIfPresent(int id, String tipo) throws VehiculoException {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo));
+            boolean eliminado = escribirSegmento(segmento, () -> {
+                if (!segmento.indice.containsKey(id)) {
+                    return false;
+                }
+                segmento.agregarLapida(id);
+                return true;
+            });
+            if (!eliminado) {
+                return false;
+            }
+            programarCompactacionSiHaceFalta(segmento);
+            return true;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al eliminar vehículo", e);
+        }
+    }
+
+    @Override
+    public List<Vehiculo> findAll(String tipo) throws VehiculoException {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo));
+            List<String> lineas = leerSegmento(segmento, segmento::lineasVivas);
+
+            List<Vehiculo> vehiculos = new ArrayList<>(lineas.size());
+            for (String linea : lineas) {
+                try {
+                    vehiculos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+                } catch (IllegalArgumentException e) {
+                    // Ignorar registros mal formateados
+                    System.err.println("Advertencia: Línea CSV mal formateada ignorada: " + linea);
+                }
+            }
+            return vehiculos;
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al listar vehículos", e);
+        }
+    }
+
+    @Override
+    public boolean existsById(int id, String tipo) {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerSegmento(segmento, () -> segmento.indice.containsKey(id));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getNextId(String tipo) {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerSegmento(segmento, () -> segmento.maxId + 1);
+        } catch (Exception e) {
+            return 1; // Si hay error o no hay vehículos, empezar en 1
+        }
+    }
+
+    /**
+     * Compacta el log de un tipo de forma síncrona, sin importar el umbral
+     *
+     * @param tipo Tipo de vehículo
+     * @throws VehiculoException Si hay error al compactar
+     */
+    public void compactar(String tipo) throws VehiculoException {
+        try {
+            compactarSegmento(obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo)));
+        } catch (IOException e) {
+            throw new VehiculoException("Error al compactar el log", e);
+        }
+    }
+
+    /**
+     * Obtiene la proporción de bytes obsoletos en el log de un tipo
+     *
+     * @param tipo Tipo de vehículo
+     * @return Valor entre 0 y 1
+     */
+    public double obtenerProporcionBasura(String tipo) throws VehiculoException {
+        try {
+            Segmento segmento = obtenerSegmento(VehiculoFactory.obtenerNombreArchivo(tipo));
+            return leerSegmento(segmento, segmento::proporcionBasura);
+        } catch (IOException e) {
+            throw new VehiculoException("Error al leer el log", e);
+        }
+    }
+
+    /**
+     * Detiene el compactador, exporta al CSV los logs con cambios y los cierra
+     */
+    @Override
+    public void close() {
+        compactador.shutdown();
+        try {
+            // Una compactación en curso usa el canal del segmento: se espera a que termine
+            compactador.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (segmentos) {
+            for (Segmento segmento : segmentos.values()) {
+                synchronized (segmento) {
+                    try {
+                        exportar(segmento);
+                    } catch (IOException | VehiculoException e) {
+                        System.err.println("Advertencia: No se exportó el log " + segmento.nombreArchivo
+                                + " al CSV: " + e.getMessage());
+                    }
+                    try {
+                        segmento.canal.close();
+                    } catch (IOException e) {
+                        System.err.println("Advertencia: Error al cerrar el log: " + e.getMessage());
+                    }
+                }
+            }
+            segmentos.clear();
+        }
+    }
+
+    /**
+     * Obtiene el segmento activo de un archivo, abriéndolo la primera vez
+     */
+    private Segmento obtenerSegmento(String nombreArchivo) throws IOException {
+        synchronized (segmentos) {
+            Segmento segmento = segmentos.get(nombreArchivo);
+            if (segmento == null) {
+                segmento = abrirSegmento(nombreArchivo);
+                segmentos.put(nombreArchivo, segmento);
+            }
+            return segmento;
+        }
+    }
+
+    /**
+     * Abre el log de un archivo y reconstruye el índice recorriéndolo.
+     * Si el log no existe, o solo cambió el CSV desde la última exportación,
+     * se crea importando el CSV actual.
+     *
+     * @throws IOException Si el log y el CSV cambiaron por separado
+     */
+    private Segmento abrirSegmento(String nombreArchivo) throws IOException {
+        Path rutaLog = fileManager.obtenerRuta(nombreArchivo, EXTENSION_LOG);
+        try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreLog(nombreArchivo))) {
+            boolean nuevo = !Files.exists(rutaLog);
+            FileChannel canal = FileChannel.open(rutaLog,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segmento segmento = new Segmento(nombreArchivo, canal);
+            segmento.generacion = permiso.getGeneracion();
+
+            try {
+                if (nuevo) {
+                    importarCsv(segmento);
+                    return segmento;
+                }
+
+                segmento.fin = reproducir(canal, 0, canal.size(), segmento.indice, segmento);
+                if (segmento.fin < canal.size()) {
+                    // Descartar un registro incompleto de una escritura interrumpida
+                    canal.truncate(segmento.fin);
+                }
+                segmento.recalcularEstadisticas();
+
+                if (segmento.crcExportado != SIN_EXPORTAR
+                        && fileManager.crcArchivo(nombreArchivo) != segmento.crcExportado) {
+                    if (segmento.cambiosSinExportar) {
+                        throw new IOException("El log " + rutaLog + " y el CSV " + nombreArchivo
+                                + " cambiaron por separado desde la última exportación; elija cuál conservar"
+                                + " (borrando el log se vuelve a importar el CSV)");
+                    }
+                    // Solo cambió el CSV: el log se arma de nuevo desde él
+                    canal.truncate(0);
+                    segmento.indice.clear();
+                    segmento.fin = 0;
+                    importarCsv(segmento);
+                }
+                return segmento;
+
+            } catch (IOException | RuntimeException e) {
+                canal.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Agrega los registros del CSV a un log vacío y la marca de exportación
+     * con su CRC (el log queda igual al CSV)
+     */
+    private void importarCsv(Segmento segmento) throws IOException {
+        fileManager.conBloqueoLectura(segmento.nombreArchivo, () -> {
+            for (String linea : fileManager.leerArchivo(segmento.nombreArchivo)) {
+                Integer id = VehiculoFactory.extraerId(linea);
+                if (id != null) {
+                    segmento.agregarUpsert(id, linea);
+                }
+            }
+            segmento.agregarMarca(fileManager.crcArchivo(segmento.nombreArchivo));
+            return null;
+        });
+        segmento.recalcularEstadisticas();
+    }
+
+    /**
+     * Exporta al CSV los registros vivos de un segmento con cambios y agrega
+     * la marca al log. Se llama con el monitor del segmento tomado.
+     */
+    private void exportar(Segmento segmento) throws IOException, VehiculoException {
+        escribirSegmento(segmento, () -> {
+            if (segmento.cambiosSinExportar || segmento.crcExportado == SIN_EXPORTAR) {
+                segmento.agregarMarca(exportarCsv(segmento.nombreArchivo,
+                        segmento.lineasVivas(), segmento.crcExportado));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reemplaza el CSV con las líneas dadas, salvo que haya cambiado desde
+     * la última exportación (en ese caso no se pisa)
+     *
+     * @param crcAnterior CRC de la última exportación (SIN_EXPORTAR si nunca se exportó)
+     * @return CRC del CSV escrito, para la marca del log
+     * @throws IOException Si el CSV cambió fuera del log o falla la escritura
+     */
+    private long exportarCsv(String nombreArchivo, List<String> lineas, long crcAnterior) throws IOException {
+        return fileManager.conBloqueoEscritura(nombreArchivo, () -> {
+            if (crcAnterior != SIN_EXPORTAR && fileManager.crcArchivo(nombreArchivo) != crcAnterior) {
+                throw new IOException("El CSV " + nombreArchivo
+                        + " cambió fuera del log desde la última exportación; no se pisa");
+            }
+            fileManager.escribirArchivo(nombreArchivo, lineas);
+            return fileManager.crcArchivo(nombreArchivo);
+        });
+    }
+
+    /**
+     * Ejecuta una lectura con el monitor del segmento y el log bloqueado para leer
+     */
+    private <T> T leerSegmento(Segmento segmento, OperacionSegmento<T> operacion)
+            throws IOException, VehiculoException {
+        synchronized (segmento) {
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearLectura(nombreLog(segmento.nombreArchivo))) {
+                if (permiso.getGeneracion() != segmento.generacion) {
+                    recargar(segmento, permiso);
+                }
+                return operacion.ejecutar();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una escritura con el monitor del segmento y el log bloqueado
+     * para escribir. Cada bloqueo de escritura avanza la generación en uno:
+     * si avanzó más, otro proceso escribió el log y se vuelve a leer.
+     */
+    private <T> T escribirSegmento(Segmento segmento, OperacionSegmento<T> operacion)
+            throws IOException, VehiculoException {
+        T resultado;
+        long escritos;
+        synchronized (segmento) {
+            try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(nombreLog(segmento.nombreArchivo))) {
+                if (permiso.getGeneracion() != segmento.generacion + 1) {
+                    recargar(segmento, permiso);
+                }
+                segmento.generacion = permiso.getGeneracion();
+                resultado = operacion.ejecutar();
+                escritos = segmento.escritos;
+            }
+        }
+        // Fuera del bloqueo, para que las escrituras de otros hilos compartan el fsync
+        segmento.esperarDurable(escritos);
+        return resultado;
+    }
+
+    /**
+     * Vuelve a abrir el log (otro proceso pudo reemplazarlo al compactar) y
+     * reconstruye el índice
+     */
+    private void recargar(Segmento segmento, BloqueoArchivo.Permiso permiso) throws IOException {
+        segmento.canal.close();
+        segmento.canal = FileChannel.open(fileManager.obtenerRuta(segmento.nombreArchivo, EXTENSION_LOG),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmento.indice = new LinkedHashMap<>();
+        segmento.crcExportado = SIN_EXPORTAR;
+        segmento.bytesMarca = 0;
+        segmento.cambiosSinExportar = false;
+        segmento.recargas++;
+        segmento.fin = reproducir(segmento.canal, 0, segmento.canal.size(), segmento.indice, segmento);
+        segmento.recalcularEstadisticas();
+        segmento.generacion = permiso.getGeneracion();
+    }
+
+    private static String nombreLog(String nombreArchivo) {
+        return nombreArchivo + EXTENSION_LOG;
+    }
+
+    private void programarCompactacionSiHaceFalta(Segmento segmento) {
+        synchronized (segmento) {
+            if (segmento.compactando
+                    || segmento.fin < tamanoMinimoCompactacion
+                    || segmento.proporcionBasura() < umbralBasura) {
+                return;
+            }
+            segmento.compactando = true;
+        }
+
+        compactador.execute(() -> {
+            try {
+                compactarSegmento(segmento);
+            } catch (IOException e) {
+                System.err.println("Advertencia: Error al compactar el log "
+                        + segmento.nombreArchivo + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reescribe los registros vivos en un segmento nuevo y los exporta al CSV.
+     *
+     * La copia se hace sin bloquear las escrituras: el log activo solo crece,
+     * así que las posiciones tomadas en la instantánea siguen siendo válidas.
+     * La marca de exportación queda en el segmento nuevo después de la
+     * instantánea, que es lo que se exportó. Al final, con el segmento y el
+     * log bloqueados, se copian los registros agregados durante la
+     * compactación y se reemplaza el log de forma atómica. Si otro proceso
+     * escribió el log mientras tanto, la compactación se descarta.
+     */
+    private void compactarSegmento(Segmento segmento) throws IOException {
+        // Una compactación a la vez por segmento; las escrituras no se bloquean
+        synchronized (segmento.bloqueoCompactacion) {
+            compactarSegmentoBloqueado(segmento);
+        }
+    }
+
+    private void compactarSegmentoBloqueado(Segmento segmento) throws IOException {
+        Path rutaLog = fileManager.obtenerRuta(segmento.nombreArchivo, EXTENSION_LOG);
+        Path rutaNueva = null;
+        FileChannel canalNuevo = null;
+
+        try {
+            Map<Integer, Long> instantanea;
+            long finInstantanea;
+            long crcAnterior;
+            long recargas;
+            FileChannel canalAnterior;
+            synchronized (segmento) {
+                instantanea = new LinkedHashMap<>(segmento.indice);
+                finInstantanea = segmento.fin;
+                crcAnterior = segmento.crcExportado;
+                recargas = segmento.recargas;
+                canalAnterior = segmento.canal;
+            }
+
+            // Nombre propio: otro proceso puede estar compactando el mismo log
+            rutaNueva = Files.createTempFile(rutaLog.getParent(),
+                    segmento.nombreArchivo + ".", EXTENSION_COMPACTACION);
+            canalNuevo = FileChannel.open(rutaNueva, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Map<Integer, Long> indiceNuevo = new LinkedHashMap<>();
+            List<String> lineas = new ArrayList<>(instantanea.size());
+            long posicion = 0;
+
+            // 1. Copiar los registros vivos de la instantánea (sin bloqueo)
+            for (Map.Entry<Integer, Long> entrada : instantanea.entrySet()) {
+                byte[] contenido = leerContenido(canalAnterior, entrada.getValue());
+                posicion += escribirRegistro(canalNuevo, posicion, REGISTRO_UPSERT, contenido);
+                indiceNuevo.put(entrada.getKey(), empaquetar(posicion - contenido.length - 1, contenido.length));
+                lineas.add(new String(contenido, StandardCharsets.UTF_8));
+            }
+
+            // 2. Exportar la instantánea al CSV y marcarla en el segmento nuevo
+            long crc = exportarCsv(segmento.nombreArchivo, lineas, crcAnterior);
+            byte[] marca = String.valueOf(crc).getBytes(StandardCharsets.UTF_8);
+            posicion += escribirRegistro(canalNuevo, posicion, REGISTRO_EXPORTACION, marca);
+
+            synchronized (segmento) {
+                try (BloqueoArchivo.Permiso permiso =
+                             fileManager.bloquearEscritura(nombreLog(segmento.nombreArchivo))) {
+                    if (segmento.recargas != recargas || permiso.getGeneracion() != segmento.generacion + 1) {
+                        // El log cambió por otra vía (ej: otro proceso lo compactó): esta copia no sirve
+                        return;
+                    }
+
+                    // 3. Copiar la cola escrita durante la compactación
+                    long fin = segmento.fin;
+                    if (fin > finInstantanea) {
+                        ByteBuffer cola = ByteBuffer.allocate((int) (fin - finInstantanea));
+                        leerCompleto(canalAnterior, cola, finInstantanea);
+                        cola.flip();
+                        long inicioCola = posicion;
+                        while (cola.hasRemaining()) {
+                            posicion += canalNuevo.write(cola, posicion);
+                        }
+                        reproducir(canalNuevo, inicioCola, posicion, indiceNuevo, null);
+                    }
+                    canalNuevo.force(true);
+
+                    // 4. Reemplazar el log activo (en Windows no se puede reemplazar un archivo abierto)
+                    canalAnterior.close();
+                    try {
+                        Files.move(rutaNueva, rutaLog, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        segmento.canal = FileChannel.open(rutaLog, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                        throw e;
+                    }
+
+                    segmento.canal = canalNuevo;
+                    segmento.indice = indiceNuevo;
+                    segmento.fin = posicion;
+                    segmento.crcExportado = crc;
+                    segmento.bytesMarca = marca.length + 3;
+                    segmento.cambiosSinExportar = fin > finInstantanea;
+                    segmento.generacion = permiso.getGeneracion();
+                    segmento.recalcularEstadisticas();
+                    canalNuevo = null;
+                }
+            }
+
+        } finally {
+            synchronized (segmento) {
+                segmento.compactando = false;
+            }
+            if (canalNuevo != null) {
+                canalNuevo.close();
+            }
+            if (rutaNueva != null) {
+                Files.deleteIfExists(rutaNueva);
+            }
+        }
+    }
+
+    /**
+     * Recorre los registros del log entre [desde, hasta) aplicándolos al índice
+     *
+     * @param marcas Segmento que registra la última marca de exportación y si
+     *               hubo cambios después (null para no registrarlas)
+     * @return Posición siguiente al último registro completo
+     */
+    private static long reproducir(FileChannel canal, long desde, long hasta, Map<Integer, Long> indice,
+                                   Segmento marcas) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+        ByteArrayOutputStream registro = new ByteArrayOutputStream();
+        long inicioRegistro = desde;
+        long posicion = desde;
+
+        while (posicion < hasta) {
+            buffer.clear();
+            if (buffer.remaining() > hasta - posicion) {
+                buffer.limit((int) (hasta - posicion));
+            }
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++, posicion++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    aplicarRegistro(registro.toByteArray(), inicioRegistro, indice, marcas);
+                    registro.reset();
+                    inicioRegistro = posicion + 1;
+                } else {
+                    registro.write(b);
+                }
+            }
+        }
+        // Un registro incompleto al final (escritura interrumpida) se descarta
+        return inicioRegistro;
+    }
+
+    private static void aplicarRegistro(byte[] registro, long inicio, Map<Integer, Long> indice,
+                                        Segmento marcas) {
+        if (registro.length < 3 || registro[1] != ',') {
+            return;
+        }
+        String contenido = new String(registro, 2, registro.length - 2, StandardCharsets.UTF_8);
+        if (registro[0] == REGISTRO_EXPORTACION) {
+            if (marcas != null) {
+                try {
+                    marcas.crcExportado = Long.parseLong(contenido);
+                    marcas.bytesMarca = registro.length + 1;
+                    marcas.cambiosSinExportar = false;
+                } catch (NumberFormatException e) {
+                    // Marca dañada: se ignora como cualquier registro mal formateado
+                }
+            }
+            return;
+        }
+        Integer id = VehiculoFactory.extraerId(contenido);
+        if (id == null) {
+            return;
+        }
+
+        if (registro[0] == REGISTRO_UPSERT) {
+            indice.put(id, empaquetar(inicio + 2, registro.length - 2));
+        } else if (registro[0] == REGISTRO_LAPIDA) {
+            indice.remove(id);
+        } else {
+            return;
+        }
+        if (marcas != null) {
+            marcas.cambiosSinExportar = true;
+        }
+    }
+
+    /**
+     * Escribe un registro "T,contenido\n" en la posición dada
+     *
+     * @return Cantidad de bytes escritos
+     */
+    private static int escribirRegistro(FileChannel canal, long posicion, byte tipoRegistro, byte[] contenido)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(contenido.length + 3);
+        buffer.put(tipoRegistro).put((byte) ',').put(contenido).put((byte) '\n');
+        buffer.flip();
+        int escritos = 0;
+        while (buffer.hasRemaining()) {
+            escritos += canal.write(buffer, posicion + escritos);
+        }
+        return escritos;
+    }
+
+    private static byte[] leerContenido(FileChannel canal, long posicionEmpaquetada) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (posicionEmpaquetada & 0xFFFFFF));
+        leerCompleto(canal, buffer, posicionEmpaquetada >>> 24);
+        return buffer.array();
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new IOException("Fin de archivo inesperado en el log");
+            }
+        }
+    }
+
+    // Offset y longitud del contenido empaquetados en un long (40 + 24 bits)
+    private static long empaquetar(long offset, int longitud) {
+        return (offset << 24) | longitud;
+    }
+
+    @FunctionalInterface
+    private interface OperacionSegmento<T> {
+        T ejecutar() throws IOException, VehiculoException;
+    }
+
+    /**
+     * Log activo de un tipo con su índice en memoria.
+     * Todos los accesos se sincronizan sobre la instancia.
+     */
+    private static class Segmento {
+        private final String nombreArchivo;
+        // Volátil para sincronizar sin el monitor (la compactación lo reemplaza)
+        private volatile FileChannel canal;
+        private Map<Integer, Long> indice = new LinkedHashMap<>();
+        private long fin = 0;
+        private long bytesVivos = 0;
+        private int maxId = 0;
+        private boolean compactando = false;
+        // Generación del bloqueo del log vista en el último acceso y veces que se volvió a leer
+        private long generacion;
+        private int recargas = 0;
+        // CRC de la última exportación al CSV, su tamaño en el log y si hubo cambios después
+        private long crcExportado = SIN_EXPORTAR;
+        private long bytesMarca = 0;
+        private boolean cambiosSinExportar = false;
+        private final Object bloqueoCompactacion = new Object();
+        // Registros agregados y cuántos de ellos ya se sincronizaron con el disco
+        private volatile long escritos = 0;
+        private long sincronizados = 0;
+        private final Object bloqueoSincronizacion = new Object();
+
+        Segmento(String nombreArchivo, FileChannel canal) {
+            this.nombreArchivo = nombreArchivo;
+            this.canal = canal;
+        }
+
+        String leer(int id) throws IOException {
+            Long posicion = indice.get(id);
+            if (posicion == null) {
+                return null;
+            }
+            return new String(leerContenido(canal, posicion), StandardCharsets.UTF_8);
+        }
+
+        List<String> lineasVivas() throws IOException {
+            List<String> lineas = new ArrayList<>(indice.size());
+            for (int id : indice.keySet()) {
+                lineas.add(leer(id));
+            }
+            return lineas;
+        }
+
+        void agregarUpsert(int id, String linea) throws IOException {
+            byte[] contenido = linea.getBytes(StandardCharsets.UTF_8);
+            long inicio = fin;
+            fin += escribirRegistro(canal, inicio, REGISTRO_UPSERT, contenido);
+
+            Long anterior = indice.put(id, empaquetar(inicio + 2, contenido.length));
+            if (anterior != null) {
+                bytesVivos -= (anterior & 0xFFFFFF) + 3;
+            }
+            bytesVivos += contenido.length + 3;
+            if (id > maxId) {
+                maxId = id;
+            }
+            cambiosSinExportar = true;
+            escritos++;
+        }
+
+        void agregarLapida(int id) throws IOException {
+            byte[] contenido = String.valueOf(id).getBytes(StandardCharsets.UTF_8);
+            fin += escribirRegistro(canal, fin, REGISTRO_LAPIDA, contenido);
+
+            Long anterior = indice.remove(id);
+            if (anterior != null) {
+                bytesVivos -= (anterior & 0xFFFFFF) + 3;
+            }
+            if (id == maxId) {
+                recalcularEstadisticas();
+            }
+            cambiosSinExportar = true;
+            escritos++;
+        }
+
+        /**
+         * Registra que el CSV, con el CRC dado, tiene el contenido actual del log
+         */
+        void agregarMarca(long crc) throws IOException {
+            byte[] contenido = String.valueOf(crc).getBytes(StandardCharsets.UTF_8);
+            fin += escribirRegistro(canal, fin, REGISTRO_EXPORTACION, contenido);
+            crcExportado = crc;
+            bytesMarca = contenido.length + 3;
+            cambiosSinExportar = false;
+            escritos++;
+        }
+
+        /**
+         * Espera a que los registros agregados hasta "hasta" estén en el
+         * disco. Un solo fsync cubre lo que escribieron los demás hilos
+         * mientras tanto; no usa el monitor del segmento, así que se puede
+         * llamar con él tomado.
+         */
+        void esperarDurable(long hasta) throws IOException {
+            synchronized (bloqueoSincronizacion) {
+                if (sincronizados >= hasta) {
+                    return;
+                }
+                long cubiertos = escritos;
+                FileChannel actual = canal;
+                while (true) {
+                    try {
+                        actual.force(false);
+                        break;
+                    } catch (ClosedChannelException e) {
+                        // La compactación o una recarga reemplazó el canal: se sincroniza el nuevo
+                        if (canal == actual) {
+                            throw e;
+                        }
+                        actual = canal;
+                    }
+                }
+                sincronizados = cubiertos;
+            }
+        }
+
+        void recalcularEstadisticas() {
+            bytesVivos = 0;
+            maxId = 0;
+            for (Map.Entry<Integer, Long> entrada : indice.entrySet()) {
+                bytesVivos += (entrada.getValue() & 0xFFFFFF) + 3;
+                if (entrada.getKey() > maxId) {
+                    maxId = entrada.getKey();
+                }
+            }
+        }
+
+        double proporcionBasura() {
+            // Solo la última marca de exportación sigue vigente
+            return fin == 0 ? 0 : 1.0 - (double) (bytesVivos + bytesMarca) / fin;
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package service;
 
+import model.CampoNumerico;
+import model.Pagina;
+import model.RangoNumerico;
+import model.ResultadoImportacion;
+import model.ResultadoOperacion;
 import model.Vehiculo;
 import exception.VehiculoException;
 import exception.ValidationException;
+import query.Consulta;
+import query.PlanificadorConsultas;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface IVehiculoService {
     
@@ -12,26 +22,79 @@ public interface IVehiculoService {
      * 
      * @param vehiculo El vehículo a crear
      * @throws ValidationException Si los datos no son válidos
+     * @throws exception.VehiculoDuplicadoException Si el ID ya existe
      * @throws VehiculoException Si hay error al guardar
      */
     void crear(Vehiculo vehiculo) throws ValidationException, VehiculoException;
     
+    /**
+     * Crea varios vehículos. Se validan todos antes de guardar; los válidos
+     * se guardan juntos, con una sola escritura por tipo.
+     * 
+     * @param vehiculos Vehículos a crear (pueden ser de distintos tipos)
+     * @return Un resultado por vehículo, en el mismo orden: fallan los
+     *         inválidos y los de ID ya existente o repetido en la lista
+     * @throws VehiculoException Si la lista es nula o hay error al guardar
+     */
+    List<ResultadoOperacion> crearTodos(List<Vehiculo> vehiculos) throws VehiculoException;
+    
+    /**
+     * Actualiza varios vehículos. Se validan todos antes de escribir; los
+     * válidos se aplican con una sola reescritura del archivo de cada tipo.
+     * 
+     * @param vehiculos Vehículos con datos actualizados (si un ID se repite queda el último)
+     * @return Un resultado por vehículo, en el mismo orden: fallan los
+     *         inválidos, los de ID inexistente y los que se modificaron
+     *         después de leerlos (los demás se aplican igual)
+     * @throws VehiculoException Si la lista es nula o hay error al actualizar
+     */
+    List<ResultadoOperacion> actualizarTodos(List<Vehiculo> vehiculos) throws VehiculoException;
+    
+    /**
+     * Elimina varios vehículos de un tipo con una sola reescritura del archivo
+     * 
+     * @param ids IDs a eliminar
+     * @param tipo Tipo de vehículo
+     * @return Un resultado por ID, en el mismo orden: fallan los inválidos y los inexistentes
+     * @throws VehiculoException Si el tipo o la lista no son válidos o hay error al eliminar
+     */
+    List<ResultadoOperacion> eliminarTodos(List<Integer> ids, String tipo) throws VehiculoException;
+    
+    /**
+     * Importa un archivo CSV con muchos vehículos de un tipo (mismo formato
+     * que los archivos de datos). Las líneas se validan igual que en crear;
+     * las inválidas o con un ID repetido o ya existente se rechazan sin
+     * detener la importación.
+     * 
+     * @param tipo Tipo de los vehículos del archivo
+     * @param archivo Archivo a importar
+     * @param progreso Recibe el avance de la importación (puede ser null)
+     * @return Cantidades importadas y detalle de las líneas rechazadas
+     * @throws VehiculoException Si el tipo no es válido o hay error al leer o guardar
+     */
+    ResultadoImportacion importar(String tipo, Path archivo, ProgresoImportacion progreso) throws VehiculoException;
+    
     /**
      * Obtiene un vehículo por ID
      * 
      * @param id ID del vehículo
      * @param tipo Tipo de vehículo
      * @return El vehículo encontrado
-     * @throws VehiculoException Si no existe o hay error
+     * @throws exception.VehiculoNoEncontradoException Si no existe
+     * @throws VehiculoException Si los parámetros no son válidos o hay error al leer
      */
     Vehiculo obtener(int id, String tipo) throws VehiculoException;
     
     /**
-     * Actualiza un vehículo existente (con validación)
+     * Actualiza un vehículo existente (con validación). Solo se guarda si
+     * trae la versión guardada, es decir, si nadie lo modificó desde que se
+     * obtuvo del servicio (ver IVehiculoRepository#update).
      * 
      * @param vehiculo El vehículo con datos actualizados
      * @throws ValidationException Si los datos no son válidos
-     * @throws VehiculoException Si no existe o hay error
+     * @throws exception.ConflictoVersionException Si otro usuario lo modificó después de leerlo
+     * @throws exception.VehiculoNoEncontradoException Si no existe
+     * @throws VehiculoException Si hay error al actualizar
      */
     void actualizar(Vehiculo vehiculo) throws ValidationException, VehiculoException;
     
@@ -40,7 +103,8 @@ public interface IVehiculoService {
      * 
      * @param id ID del vehículo
      * @param tipo Tipo de vehículo
-     * @throws VehiculoException Si no existe o hay error
+     * @throws exception.VehiculoNoEncontradoException Si no existe
+     * @throws VehiculoException Si los parámetros no son válidos o hay error al eliminar
      */
     void eliminar(int id, String tipo) throws VehiculoException;
     
@@ -53,6 +117,27 @@ public interface IVehiculoService {
      */
     List<Vehiculo> listarTodos(String tipo) throws VehiculoException;
     
+    /**
+     * Recorre todos los vehículos de un tipo sin cargarlos en memoria.
+     * El Stream debe cerrarse (ej: con try-with-resources).
+     * 
+     * @param tipo Tipo de vehículo
+     * @return Stream de vehículos
+     * @throws VehiculoException Si hay error al abrir el recorrido
+     */
+    Stream<Vehiculo> recorrerTodos(String tipo) throws VehiculoException;
+    
+    /**
+     * Lista una página de vehículos en orden de ID
+     * 
+     * @param tipo Tipo de vehículo
+     * @param despuesDeId Cursor: el último ID de la página anterior (0 para la primera)
+     * @param tamano Cantidad de vehículos por página
+     * @return La página, con el cursor de la siguiente si hay más
+     * @throws VehiculoException Si los parámetros no son válidos o hay error al listar
+     */
+    Pagina listarPagina(String tipo, int despuesDeId, int tamano) throws VehiculoException;
+    
     /**
      * Busca vehículos por marca
      * 
@@ -64,7 +149,71 @@ public interface IVehiculoService {
     List<Vehiculo> buscarPorMarca(String marca, String tipo) throws VehiculoException;
     
     /**
-     * Obtiene el próximo ID disponible
+     * Recorre los vehículos de una marca sin cargar el resto en memoria.
+     * El Stream debe cerrarse (ej: con try-with-resources).
+     * 
+     * @param marca Marca a buscar (coincidencia parcial, sin distinguir mayúsculas)
+     * @param tipo Tipo de vehículo
+     * @return Stream de vehículos que coinciden
+     * @throws VehiculoException Si hay error
+     */
+    Stream<Vehiculo> recorrerPorMarca(String marca, String tipo) throws VehiculoException;
+    
+    /**
+     * Busca vehículos cuyo campo numérico está dentro de un rango
+     * (ej: camiones con anio entre 2015 y 2020)
+     * 
+     * @param tipo Tipo de vehículo
+     * @param campo Campo a consultar; debe aplicar al tipo
+     * @param rango Rango cerrado de valores
+     * @return Vehículos que cumplen el rango
+     * @throws VehiculoException Si el campo no aplica al tipo o hay error
+     */
+    List<Vehiculo> buscarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango) throws VehiculoException;
+    
+    /**
+     * Busca vehículos que cumplen a la vez varios rangos
+     * (ej: camiones de 2015 a 2020 con precio hasta 80000)
+     * 
+     * @param tipo Tipo de vehículo
+     * @param rangos Rango pedido para cada campo; deben aplicar al tipo
+     * @return Vehículos que cumplen todos los rangos
+     * @throws VehiculoException Si algún campo no aplica al tipo o hay error
+     */
+    List<Vehiculo> buscarPorRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos) throws VehiculoException;
+    
+    /**
+     * Interpreta una consulta escrita como texto
+     * (ej: "numeroPuertas=4 AND precio<30000 ORDER BY precio LIMIT 10")
+     * 
+     * @param tipo Tipo de vehículo
+     * @param texto Consulta; vacía para todos los vehículos
+     * @return La consulta interpretada
+     * @throws VehiculoException Si la consulta no es válida
+     */
+    Consulta interpretarConsulta(String tipo, String texto) throws VehiculoException;
+    
+    /**
+     * Elige el plan de una consulta sin ejecutarla (índice a usar y candidatos estimados)
+     * 
+     * @param consulta Consulta a planificar
+     * @return El plan, que se puede ejecutar
+     * @throws VehiculoException Si algún atributo no aplica al tipo o hay error
+     */
+    PlanificadorConsultas.Plan planificarConsulta(Consulta consulta) throws VehiculoException;
+    
+    /**
+     * Ejecuta una consulta con predicados, orden y límite
+     * 
+     * @param consulta Consulta a ejecutar
+     * @return Vehículos que la cumplen
+     * @throws VehiculoException Si algún atributo no aplica al tipo o hay error
+     */
+    List<Vehiculo> consultar(Consulta consulta) throws VehiculoException;
+    
+    /**
+     * Reserva el próximo ID disponible. Cada llamada devuelve un ID distinto,
+     * también entre hilos concurrentes.
      * 
      * @param tipo Tipo de vehículo
      * @return Próximo ID
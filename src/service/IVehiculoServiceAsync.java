@@ -0,0 +1,102 @@
+package service;
+
+import model.CampoNumerico;
+import model.Pagina;
+import model.RangoNumerico;
+import model.ResultadoImportacion;
+import model.ResultadoOperacion;
+import model.Vehiculo;
+import query.Consulta;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante asíncrona de IVehiculoService: cada operación devuelve enseguida
+ * un CompletableFuture, así se pueden lanzar muchas a la vez (ej: buscar 500
+ * IDs de distintos tipos) y esperarlas juntas.
+ *
+ * Los errores completan el future de forma excepcional con la misma
+ * excepción que lanzaría el servicio (VehiculoException, ValidationException
+ * o ConflictoVersionException); get() la entrega como causa de la
+ * ExecutionException y join() como causa de la CompletionException.
+ *
+ * No incluye los recorridos con Stream, que mantienen el archivo abierto
+ * hasta que quien los consume los cierra.
+ */
+public interface IVehiculoServiceAsync {
+
+    /**
+     * @see IVehiculoService#crear(Vehiculo)
+     */
+    CompletableFuture<Void> crear(Vehiculo vehiculo);
+
+    /**
+     * @see IVehiculoService#crearTodos(List)
+     */
+    CompletableFuture<List<ResultadoOperacion>> crearTodos(List<Vehiculo> vehiculos);
+
+    /**
+     * @see IVehiculoService#actualizarTodos(List)
+     */
+    CompletableFuture<List<ResultadoOperacion>> actualizarTodos(List<Vehiculo> vehiculos);
+
+    /**
+     * @see IVehiculoService#eliminarTodos(List, String)
+     */
+    CompletableFuture<List<ResultadoOperacion>> eliminarTodos(List<Integer> ids, String tipo);
+
+    /**
+     * @see IVehiculoService#importar(String, Path, ProgresoImportacion)
+     */
+    CompletableFuture<ResultadoImportacion> importar(String tipo, Path archivo, ProgresoImportacion progreso);
+
+    /**
+     * Obtiene un vehículo. Los pedidos simultáneos del mismo (id, tipo)
+     * comparten una sola lectura; cada uno recibe su propia copia.
+     *
+     * @see IVehiculoService#obtener(int, String)
+     */
+    CompletableFuture<Vehiculo> obtener(int id, String tipo);
+
+    /**
+     * @see IVehiculoService#actualizar(Vehiculo)
+     */
+    CompletableFuture<Void> actualizar(Vehiculo vehiculo);
+
+    /**
+     * @see IVehiculoService#eliminar(int, String)
+     */
+    CompletableFuture<Void> eliminar(int id, String tipo);
+
+    /**
+     * @see IVehiculoService#listarTodos(String)
+     */
+    CompletableFuture<List<Vehiculo>> listarTodos(String tipo);
+
+    /**
+     * @see IVehiculoService#listarPagina(String, int, int)
+     */
+    CompletableFuture<Pagina> listarPagina(String tipo, int despuesDeId, int tamano);
+
+    /**
+     * @see IVehiculoService#buscarPorMarca(String, String)
+     */
+    CompletableFuture<List<Vehiculo>> buscarPorMarca(String marca, String tipo);
+
+    /**
+     * @see IVehiculoService#buscarPorRango(String, CampoNumerico, RangoNumerico)
+     */
+    CompletableFuture<List<Vehiculo>> buscarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango);
+
+    /**
+     * @see IVehiculoService#buscarPorRangos(String, Map)
+     */
+    CompletableFuture<List<Vehiculo>> buscarPorRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos);
+
+    /**
+     * @see IVehiculoService#consultar(Consulta)
+     */
+    CompletableFuture<List<Vehiculo>> consultar(Consulta consulta);
+}
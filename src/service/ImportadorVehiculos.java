@@ -0,0 +1,351 @@
+package service;
+
+import model.ResultadoImportacion;
+import model.ResultadoImportacion.ErrorLinea;
+import model.Vehiculo;
+import repository.IVehiculoRepository;
+import validator.IValidator;
+import exception.VehiculoException;
+import util.VehiculoFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Importa un archivo CSV grande de un tipo de vehículo.
+ *
+ * El archivo se divide en bloques que terminan en fin de línea. Los bloques
+ * se leen, parsean y validan en paralelo en un ForkJoinPool, de a una
+ * ventana de varios bloques para no cargar todo el archivo en memoria. Los
+ * resultados de cada ventana se recorren en orden: se descartan los IDs
+ * repetidos dentro del archivo y el resto se guarda con una sola llamada a
+ * createAllIfAbsent, que también descarta los IDs ya guardados.
+ */
+public class ImportadorVehiculos {
+
+    public static final int TAMANO_BLOQUE_DEFECTO = 1024 * 1024;
+    // Detalle de errores que se conserva; el resto solo se cuenta
+    public static final int MAX_ERRORES_DETALLADOS = 10_000;
+
+    private final IVehiculoRepository repository;
+    private final IValidator<Vehiculo> validador;
+    private final SecuenciaIds secuenciaIds;
+    private final ForkJoinPool pool;
+    private final int tamanoBloque;
+
+    /**
+     * Importador en el pool común con bloques de 1 MB
+     */
+    public ImportadorVehiculos(IVehiculoRepository repository, IValidator<Vehiculo> validador,
+                               SecuenciaIds secuenciaIds) {
+        this(repository, validador, secuenciaIds, ForkJoinPool.commonPool(), TAMANO_BLOQUE_DEFECTO);
+    }
+
+    /**
+     * @param repository Repositorio donde guardar los vehículos
+     * @param validador Valida cada vehículo según su tipo
+     * @param secuenciaIds Secuencia a avanzar con los IDs importados
+     * @param pool Pool donde se parsean y validan los bloques
+     * @param tamanoBloque Tamaño aproximado en bytes de cada bloque
+     */
+    public ImportadorVehiculos(IVehiculoRepository repository, IValidator<Vehiculo> validador,
+                               SecuenciaIds secuenciaIds, ForkJoinPool pool, int tamanoBloque) {
+        if (tamanoBloque < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser al menos 1");
+        }
+        this.repository = repository;
+        this.validador = validador;
+        this.secuenciaIds = secuenciaIds;
+        this.pool = pool;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    /**
+     * Importa un archivo con una línea CSV por vehículo, en el mismo formato
+     * que los archivos de datos
+     *
+     * @param tipo Tipo de los vehículos del archivo
+     * @param archivo Archivo a importar
+     * @param progreso Recibe el avance después de cada lote (puede ser null)
+     * @return Cantidades importadas y detalle de las líneas rechazadas
+     * @throws VehiculoException Si el tipo no es válido o hay error al leer o guardar
+     */
+    public ResultadoImportacion importar(String tipo, Path archivo, ProgresoImportacion progreso)
+            throws VehiculoException {
+        if (!VehiculoFactory.esTipoValido(tipo)) {
+            throw new VehiculoException("Tipo de vehículo no válido: " + tipo);
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long total = canal.size();
+            List<long[]> bloques = dividir(canal, total);
+            int ventana = Math.max(1, pool.getParallelism() * 2);
+
+            Importacion importacion = new Importacion(tipo);
+            for (int desde = 0; desde < bloques.size(); desde += ventana) {
+                List<long[]> deVentana = bloques.subList(desde, Math.min(bloques.size(), desde + ventana));
+
+                List<ForkJoinTask<BloqueProcesado>> tareas = new ArrayList<>(deVentana.size());
+                for (long[] bloque : deVentana) {
+                    tareas.add(pool.submit(() -> procesar(canal, tipo, bloque[0], bloque[1])));
+                }
+                for (ForkJoinTask<BloqueProcesado> tarea : tareas) {
+                    importacion.agregar(esperar(tarea));
+                }
+                importacion.guardarLote();
+
+                if (progreso != null) {
+                    long procesados = deVentana.get(deVentana.size() - 1)[1];
+                    progreso.informar(importacion.numeroLinea, importacion.importados, procesados, total);
+                }
+            }
+            return importacion.resultado();
+
+        } catch (IOException e) {
+            throw new VehiculoException("Error al importar archivo: " + archivo, e);
+        }
+    }
+
+    /**
+     * Divide el archivo en bloques {inicio, fin} de aproximadamente
+     * tamanoBloque bytes, cortando siempre después de un salto de línea
+     */
+    private List<long[]> dividir(FileChannel canal, long total) throws IOException {
+        List<long[]> bloques = new ArrayList<>();
+        long inicio = 0;
+        while (inicio < total) {
+            long fin = total - inicio <= tamanoBloque ? total : finDeLinea(canal, inicio + tamanoBloque, total);
+            bloques.add(new long[] { inicio, fin });
+            inicio = fin;
+        }
+        return bloques;
+    }
+
+    /**
+     * @return Posición siguiente al primer salto de línea desde "desde - 1", o el total si no hay
+     */
+    private static long finDeLinea(FileChannel canal, long desde, long total) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        long posicion = desde - 1;
+        while (posicion < total) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicion + i + 1;
+                }
+            }
+            posicion += leidos;
+        }
+        return total;
+    }
+
+    /**
+     * Lee, parsea y valida un bloque. Se ejecuta en paralelo: solo usa
+     * lecturas posicionales del canal y no comparte estado.
+     */
+    private BloqueProcesado procesar(FileChannel canal, String tipo, long inicio, long fin) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (fin - inicio));
+        try {
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer, inicio + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String contenido = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+
+        BloqueProcesado bloque = new BloqueProcesado();
+        int desde = 0;
+        while (desde < contenido.length()) {
+            int salto = contenido.indexOf('\n', desde);
+            int hasta = salto < 0 ? contenido.length() : salto;
+            String linea = contenido.substring(desde, hasta > desde && contenido.charAt(hasta - 1) == '\r' ? hasta - 1 : hasta);
+            desde = hasta + 1;
+
+            int indice = bloque.cantidadLineas++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            bloque.noVacias++;
+
+            Vehiculo vehiculo;
+            try {
+                vehiculo = VehiculoFactory.crearDesdeCSV(tipo, linea);
+            } catch (IllegalArgumentException e) {
+                bloque.errores.add(new ErrorLocal(indice, linea, List.of(e.getMessage())));
+                continue;
+            }
+            List<String> errores = validador.validate(vehiculo);
+            if (errores.isEmpty()) {
+                bloque.vehiculos.add(vehiculo);
+                bloque.indices.add(indice);
+                bloque.lineas.add(linea);
+            } else {
+                bloque.errores.add(new ErrorLocal(indice, linea, errores));
+            }
+        }
+        return bloque;
+    }
+
+    private static BloqueProcesado esperar(ForkJoinTask<BloqueProcesado> tarea) throws IOException {
+        try {
+            return tarea.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Error al procesar bloque: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Estado de una importación: se recorre en orden de línea desde un solo hilo
+     */
+    private final class Importacion {
+        private final String tipo;
+        // IDs ya vistos en el archivo; un BitSet ocupa un bit por ID posible
+        private final BitSet idsVistos = new BitSet();
+        private final List<ErrorLinea> errores = new ArrayList<>();
+        private final List<Vehiculo> lote = new ArrayList<>();
+        private final Map<Integer, Long> lineaPorId = new HashMap<>();
+        private final Map<Integer, String> textoPorId = new HashMap<>();
+        private long numeroLinea;
+        private long lineasLeidas;
+        private long importados;
+        private long rechazados;
+        private int mayorId;
+
+        Importacion(String tipo) {
+            this.tipo = tipo;
+        }
+
+        /**
+         * Agrega los resultados de un bloque, en orden, al lote de la ventana
+         */
+        void agregar(BloqueProcesado bloque) {
+            int siguienteError = 0;
+            for (int i = 0; i < bloque.vehiculos.size(); i++) {
+                int indice = bloque.indices.get(i);
+                // Los errores de parseo y validación anteriores a esta línea van primero
+                while (siguienteError < bloque.errores.size() && bloque.errores.get(siguienteError).indice < indice) {
+                    rechazar(bloque.errores.get(siguienteError++));
+                }
+
+                Vehiculo vehiculo = bloque.vehiculos.get(i);
+                int id = vehiculo.getId();
+                if (id < 0 || idsVistos.get(id)) {
+                    rechazar(numeroLinea + indice + 1, bloque.lineas.get(i),
+                            List.of("ID repetido en el archivo: " + id));
+                    continue;
+                }
+                idsVistos.set(id);
+                lote.add(vehiculo);
+                lineaPorId.put(id, numeroLinea + indice + 1);
+                textoPorId.put(id, bloque.lineas.get(i));
+            }
+            while (siguienteError < bloque.errores.size()) {
+                rechazar(bloque.errores.get(siguienteError++));
+            }
+
+            numeroLinea += bloque.cantidadLineas;
+            lineasLeidas += bloque.noVacias;
+        }
+
+        /**
+         * Guarda el lote de la ventana con una sola escritura
+         */
+        void guardarLote() throws VehiculoException {
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<Vehiculo> omitidos = repository.createAllIfAbsent(lote);
+
+            // Los omitidos se informan en orden de línea junto a los demás errores
+            List<ErrorLinea> existentes = new ArrayList<>(omitidos.size());
+            for (Vehiculo omitido : omitidos) {
+                int id = omitido.getId();
+                existentes.add(new ErrorLinea(lineaPorId.get(id), textoPorId.get(id),
+                        List.of("Ya existe un vehículo con ID: " + id)));
+            }
+            existentes.forEach(this::rechazar);
+            errores.sort((a, b) -> Long.compare(a.getNumeroLinea(), b.getNumeroLinea()));
+
+            for (Vehiculo vehiculo : lote) {
+                mayorId = Math.max(mayorId, vehiculo.getId());
+            }
+            importados += lote.size() - omitidos.size();
+            if (mayorId > 0) {
+                secuenciaIds.registrarUsado(tipo, mayorId);
+            }
+
+            lote.clear();
+            lineaPorId.clear();
+            textoPorId.clear();
+        }
+
+        ResultadoImportacion resultado() {
+            return new ResultadoImportacion(lineasLeidas, importados, rechazados, errores);
+        }
+
+        private void rechazar(ErrorLocal error) {
+            rechazar(numeroLinea + error.indice + 1, error.linea, error.errores);
+        }
+
+        private void rechazar(ErrorLinea error) {
+            rechazados++;
+            if (errores.size() < MAX_ERRORES_DETALLADOS) {
+                errores.add(error);
+            }
+        }
+
+        private void rechazar(long numero, String linea, List<String> motivos) {
+            rechazar(new ErrorLinea(numero, linea, motivos));
+        }
+    }
+
+    /**
+     * Resultado de procesar un bloque; los índices son relativos al bloque
+     */
+    private static final class BloqueProcesado {
+        private int cantidadLineas;
+        private int noVacias;
+        private final List<Vehiculo> vehiculos = new ArrayList<>();
+        private final List<Integer> indices = new ArrayList<>();
+        private final List<String> lineas = new ArrayList<>();
+        private final List<ErrorLocal> errores = new ArrayList<>();
+    }
+
+    private static final class ErrorLocal {
+        private final int indice;
+        private final String linea;
+        private final List<String> errores;
+
+        ErrorLocal(int indice, String linea, List<String> errores) {
+            this.indice = indice;
+            this.linea = linea;
+            this.errores = errores;
+        }
+    }
+}
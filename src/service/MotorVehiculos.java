@@ -0,0 +1,600 @@
+package service;
+
+import model.*;
+import exception.ValidationException;
+import exception.VehiculoNoEncontradoException;
+import exception.VehiculoException;
+import query.Consulta;
+import query.PlanificadorConsultas;
+import util.TextIndex;
+import util.VehiculoFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Motor de ejecución alrededor de un IVehiculoService, con un escritor único
+ * por tipo y lecturas sobre instantáneas inmutables.
+ *
+ * Cada tipo (autos, motos, camiones) tiene un hilo virtual que toma las
+ * mutaciones de su cola y las aplica en orden sobre el servicio decorado.
+ * Los tres tipos escriben en paralelo: los repositorios bloquean cada
+ * archivo por separado. Lo único que comparten es el WAL de los
+ * repositorios CSV, donde cada entrada se agrega con un lock breve y los
+ * fsync de distintos tipos se agrupan en uno. Después de cada tanda de
+ * mutaciones el escritor publica una instantánea ordenada por ID, y recién
+ * entonces responde a quienes esperaban (cada uno lee lo que escribió).
+ * Publicarla copia todos los vehículos del tipo: cada tanda cuesta O(N)
+ * además de sus escrituras, lo que conviene para muchas lecturas y tipos
+ * de tamaño moderado; las tandas de hasta MAX_TANDA mutaciones reparten
+ * ese costo cuando hay muchas escrituras seguidas.
+ *
+ * Las lecturas (obtener, listados, páginas y búsquedas por marca) no toman
+ * locks ni tocan el disco: consultan la última instantánea publicada desde
+ * el hilo que llama, así que escalan con la cantidad de lectores (ej: un
+ * hilo virtual por pedido). Las búsquedas por rango y las consultas se
+ * delegan para aprovechar los índices del repositorio.
+ *
+ * El motor supone que es el único que escribe en los archivos mientras está
+ * abierto; si otro proceso los modifica, recargar(tipo) rehace la instantánea.
+ */
+public class MotorVehiculos implements IVehiculoService, AutoCloseable {
+
+    // Mutaciones que un escritor aplica antes de publicar una instantánea
+    private static final int MAX_TANDA = 256;
+
+    private final IVehiculoService delegado;
+    // "autos" → escritor del tipo (se crea al primer uso)
+    private final Map<String, EscritorTipo> escritores = new ConcurrentHashMap<>();
+    private volatile boolean cerrado = false;
+
+    /**
+     * @param delegado Servicio sobre el que se aplican las operaciones
+     */
+    public MotorVehiculos(IVehiculoService delegado) {
+        this.delegado = delegado;
+    }
+
+    @Override
+    public void crear(Vehiculo vehiculo) throws ValidationException, VehiculoException {
+        if (!esEnrutable(vehiculo)) {
+            delegado.crear(vehiculo);
+            return;
+        }
+        escritor(vehiculo.getTipo().toLowerCase()).ejecutar(vigentes -> {
+            delegado.crear(vehiculo);
+            vigentes.put(vehiculo.getId(), vehiculo.copiar());
+            return null;
+        });
+    }
+
+    @Override
+    public List<ResultadoOperacion> crearTodos(List<Vehiculo> vehiculos) throws VehiculoException {
+        if (vehiculos == null) {
+            return delegado.crearTodos(null);
+        }
+        return aplicarPorTipo(vehiculos, delegado::crearTodos);
+    }
+
+    @Override
+    public List<ResultadoOperacion> actualizarTodos(List<Vehiculo> vehiculos) throws VehiculoException {
+        if (vehiculos == null) {
+            return delegado.actualizarTodos(null);
+        }
+        return aplicarPorTipo(vehiculos, delegado::actualizarTodos);
+    }
+
+    @Override
+    public List<ResultadoOperacion> eliminarTodos(List<Integer> ids, String tipo) throws VehiculoException {
+        if (ids == null || !VehiculoFactory.esTipoValido(tipo)) {
+            return delegado.eliminarTodos(ids, tipo);
+        }
+        return escritor(tipo).ejecutarSinValidacion(vigentes -> {
+            List<ResultadoOperacion> resultados = delegado.eliminarTodos(ids, tipo);
+            for (ResultadoOperacion resultado : resultados) {
+                if (resultado.isExitoso()) {
+                    vigentes.remove(resultado.getId());
+                }
+            }
+            return resultados;
+        });
+    }
+
+    @Override
+    public ResultadoImportacion importar(String tipo, Path archivo, ProgresoImportacion progreso)
+            throws VehiculoException {
+        if (!VehiculoFactory.esTipoValido(tipo)) {
+            return delegado.importar(tipo, archivo, progreso);
+        }
+        EscritorTipo escritor = escritor(tipo);
+        return escritor.ejecutarSinValidacion(vigentes -> {
+            try {
+                return delegado.importar(tipo, archivo, progreso);
+            } finally {
+                escritor.cargar(vigentes);
+            }
+        });
+    }
+
+    /**
+     * Lee el vehículo de la última instantánea publicada
+     */
+    @Override
+    public Vehiculo obtener(int id, String tipo) throws VehiculoException {
+        if (id <= 0 || !VehiculoFactory.esTipoValido(tipo)) {
+            return delegado.obtener(id, tipo);
+        }
+        Vehiculo vehiculo = instantanea(tipo).buscar(id);
+        if (vehiculo == null) {
+            throw new VehiculoNoEncontradoException(id);
+        }
+        return vehiculo.copiar();
+    }
+
+    @Override
+    public void actualizar(Vehiculo vehiculo) throws ValidationException, VehiculoException {
+        if (!esEnrutable(vehiculo)) {
+            delegado.actualizar(vehiculo);
+            return;
+        }
+        escritor(vehiculo.getTipo().toLowerCase()).ejecutar(vigentes -> {
+            delegado.actualizar(vehiculo);
+            vigentes.put(vehiculo.getId(), vehiculo.copiar());
+            return null;
+        });
+    }
+
+    @Override
+    public void eliminar(int id, String tipo) throws VehiculoException {
+        if (id <= 0 || !VehiculoFactory.esTipoValido(tipo)) {
+            delegado.eliminar(id, tipo);
+            return;
+        }
+        escritor(tipo).ejecutarSinValidacion(vigentes -> {
+            delegado.eliminar(id, tipo);
+            vigentes.remove(id);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Vehiculo> listarTodos(String tipo) throws VehiculoException {
+        try (Stream<Vehiculo> vehiculos = recorrerTodos(tipo)) {
+            return vehiculos.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<Vehiculo> recorrerTodos(String tipo) throws VehiculoException {
+        if (!VehiculoFactory.esTipoValido(tipo)) {
+            return delegado.recorrerTodos(tipo);
+        }
+        return Arrays.stream(instantanea(tipo).vehiculos).map(Vehiculo::copiar);
+    }
+
+    @Override
+    public Pagina listarPagina(String tipo, int despuesDeId, int tamano) throws VehiculoException {
+        if (!VehiculoFactory.esTipoValido(tipo) || tamano < 1 || tamano > VehiculoService.TAMANO_MAXIMO_PAGINA) {
+            return delegado.listarPagina(tipo, despuesDeId, tamano);
+        }
+        Instantanea instantanea = instantanea(tipo);
+        int desde = instantanea.posicionDespuesDe(despuesDeId);
+        int hasta = (int) Math.min(instantanea.vehiculos.length, (long) desde + tamano + 1);
+
+        List<Vehiculo> candidatos = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            candidatos.add(instantanea.vehiculos[i].copiar());
+        }
+        return Pagina.desdeCandidatos(candidatos, tamano);
+    }
+
+    @Override
+    public List<Vehiculo> buscarPorMarca(String marca, String tipo) throws VehiculoException {
+        try (Stream<Vehiculo> coincidencias = recorrerPorMarca(marca, tipo)) {
+            return coincidencias.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<Vehiculo> recorrerPorMarca(String marca, String tipo) throws VehiculoException {
+        if (marca == null || marca.trim().isEmpty() || !VehiculoFactory.esTipoValido(tipo)) {
+            return delegado.recorrerPorMarca(marca, tipo);
+        }
+        String buscada = TextIndex.normalizar(marca);
+        return Arrays.stream(instantanea(tipo).vehiculos)
+                .filter(v -> TextIndex.normalizar(v.getMarca()).contains(buscada))
+                .map(Vehiculo::copiar);
+    }
+
+    @Override
+    public List<Vehiculo> buscarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango)
+            throws VehiculoException {
+        return delegado.buscarPorRango(tipo, campo, rango);
+    }
+
+    @Override
+    public List<Vehiculo> buscarPorRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos)
+            throws VehiculoException {
+        return delegado.buscarPorRangos(tipo, rangos);
+    }
+
+    @Override
+    public Consulta interpretarConsulta(String tipo, String texto) throws VehiculoException {
+        return delegado.interpretarConsulta(tipo, texto);
+    }
+
+    @Override
+    public PlanificadorConsultas.Plan planificarConsulta(Consulta consulta) throws VehiculoException {
+        return delegado.planificarConsulta(consulta);
+    }
+
+    @Override
+    public List<Vehiculo> consultar(Consulta consulta) throws VehiculoException {
+        return delegado.consultar(consulta);
+    }
+
+    @Override
+    public int obtenerProximoId(String tipo) {
+        return delegado.obtenerProximoId(tipo);
+    }
+
+    /**
+     * Rehace la instantánea de un tipo desde el servicio decorado (ej: si el
+     * archivo se modificó fuera del motor). Se encola como una mutación más.
+     *
+     * @param tipo Tipo de vehículo
+     * @throws VehiculoException Si el tipo no es válido o hay error al leer
+     */
+    public void recargar(String tipo) throws VehiculoException {
+        if (!VehiculoFactory.esTipoValido(tipo)) {
+            throw new VehiculoException("Tipo de vehículo no válido: " + tipo);
+        }
+        EscritorTipo escritor = escritor(tipo);
+        escritor.ejecutarSinValidacion(vigentes -> {
+            escritor.cargar(vigentes);
+            return null;
+        });
+    }
+
+    /**
+     * Detiene los escritores después de aplicar las mutaciones ya encoladas;
+     * las que lleguen después fallan
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        for (EscritorTipo escritor : escritores.values()) {
+            escritor.detener();
+        }
+    }
+
+    /**
+     * Reparte un lote por tipo, lo aplica con el escritor de cada tipo (en
+     * paralelo) y arma los resultados en el orden original. Los elementos que
+     * no corresponden a ningún tipo (nulos o desconocidos) se pasan directo
+     * al servicio, que los rechaza sin escribir.
+     */
+    private List<ResultadoOperacion> aplicarPorTipo(List<Vehiculo> vehiculos, OperacionLote operacion)
+            throws VehiculoException {
+        Map<String, List<Integer>> posicionesPorTipo = new LinkedHashMap<>();
+        List<Integer> sinTipo = new ArrayList<>();
+        for (int i = 0; i < vehiculos.size(); i++) {
+            Vehiculo vehiculo = vehiculos.get(i);
+            if (esEnrutable(vehiculo)) {
+                posicionesPorTipo.computeIfAbsent(vehiculo.getTipo().toLowerCase(), t -> new ArrayList<>()).add(i);
+            } else {
+                sinTipo.add(i);
+            }
+        }
+
+        Map<List<Integer>, CompletableFuture<List<ResultadoOperacion>>> pendientes = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> grupo : posicionesPorTipo.entrySet()) {
+            List<Vehiculo> delTipo = seleccionar(vehiculos, grupo.getValue());
+            pendientes.put(grupo.getValue(), escritor(grupo.getKey()).encolar(vigentes -> {
+                List<ResultadoOperacion> resultados = operacion.aplicar(delTipo);
+                for (int i = 0; i < resultados.size(); i++) {
+                    if (resultados.get(i).isExitoso()) {
+                        vigentes.put(delTipo.get(i).getId(), delTipo.get(i).copiar());
+                    }
+                }
+                return resultados;
+            }));
+        }
+
+        ResultadoOperacion[] resultados = new ResultadoOperacion[vehiculos.size()];
+        if (!sinTipo.isEmpty()) {
+            ubicar(resultados, sinTipo, operacion.aplicar(seleccionar(vehiculos, sinTipo)));
+        }
+        VehiculoException error = null;
+        for (Map.Entry<List<Integer>, CompletableFuture<List<ResultadoOperacion>>> pendiente : pendientes.entrySet()) {
+            try {
+                ubicar(resultados, pendiente.getKey(), esperarSinValidacion(pendiente.getValue()));
+            } catch (VehiculoException e) {
+                // Se espera a todos los tipos antes de informar el error
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private static List<Vehiculo> seleccionar(List<Vehiculo> vehiculos, List<Integer> posiciones) {
+        List<Vehiculo> seleccionados = new ArrayList<>(posiciones.size());
+        for (int posicion : posiciones) {
+            seleccionados.add(vehiculos.get(posicion));
+        }
+        return seleccionados;
+    }
+
+    private static void ubicar(ResultadoOperacion[] destino, List<Integer> posiciones,
+                               List<ResultadoOperacion> resultados) {
+        for (int i = 0; i < posiciones.size(); i++) {
+            destino[posiciones.get(i)] = resultados.get(i);
+        }
+    }
+
+    /**
+     * Solo se encolan los vehículos de un tipo conocido; el resto lo
+     * rechaza el servicio decorado con su mensaje de siempre
+     */
+    private static boolean esEnrutable(Vehiculo vehiculo) {
+        return vehiculo instanceof Auto || vehiculo instanceof Moto || vehiculo instanceof Camion;
+    }
+
+    private Instantanea instantanea(String tipo) throws VehiculoException {
+        return escritor(tipo).instantanea;
+    }
+
+    /**
+     * Obtiene el escritor del tipo, creándolo (y cargando su instantánea) al primer uso
+     */
+    private EscritorTipo escritor(String tipo) throws VehiculoException {
+        if (cerrado) {
+            throw new VehiculoException("El motor de vehículos está cerrado");
+        }
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        EscritorTipo escritor = escritores.get(nombreArchivo);
+        if (escritor != null) {
+            return escritor;
+        }
+        synchronized (escritores) {
+            escritor = escritores.get(nombreArchivo);
+            if (escritor == null) {
+                escritor = new EscritorTipo(tipo, nombreArchivo);
+                escritores.put(nombreArchivo, escritor);
+            }
+            return escritor;
+        }
+    }
+
+    /**
+     * Espera el resultado de una mutación y relanza su excepción original
+     */
+    private static <T> T esperar(CompletableFuture<T> resultado) throws ValidationException, VehiculoException {
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VehiculoException("Se interrumpió la espera de la operación", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof ValidationException) {
+                throw (ValidationException) causa;
+            }
+            if (causa instanceof VehiculoException) {
+                throw (VehiculoException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new VehiculoException("Error al aplicar la operación", causa);
+        }
+    }
+
+    private static <T> T esperarSinValidacion(CompletableFuture<T> resultado) throws VehiculoException {
+        try {
+            return esperar(resultado);
+        } catch (ValidationException e) {
+            throw new VehiculoException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cambio que el escritor aplica sobre el servicio decorado, reflejándolo
+     * en su copia privada de los vehículos vigentes (ID → vehículo)
+     */
+    @FunctionalInterface
+    private interface Mutacion<T> {
+        T aplicar(TreeMap<Integer, Vehiculo> vigentes) throws ValidationException, VehiculoException;
+    }
+
+    @FunctionalInterface
+    private interface OperacionLote {
+        List<ResultadoOperacion> aplicar(List<Vehiculo> vehiculos) throws VehiculoException;
+    }
+
+    /**
+     * Vehículos de un tipo ordenados por ID. Nunca se modifica: el escritor
+     * publica una nueva (copiando el arreglo completo, O(N) por tanda) y los
+     * lectores entregan copias.
+     */
+    private static final class Instantanea {
+        private final Vehiculo[] vehiculos;
+
+        Instantanea(Collection<Vehiculo> ordenados) {
+            this.vehiculos = ordenados.toArray(new Vehiculo[0]);
+        }
+
+        Vehiculo buscar(int id) {
+            int posicion = posicionDe(id);
+            return posicion < vehiculos.length && vehiculos[posicion].getId() == id ? vehiculos[posicion] : null;
+        }
+
+        // Posición del primer vehículo con ID mayor a "id"
+        int posicionDespuesDe(int id) {
+            return id == Integer.MAX_VALUE ? vehiculos.length : posicionDe(id + 1);
+        }
+
+        // Posición del primer vehículo con ID mayor o igual a "id"
+        private int posicionDe(int id) {
+            int desde = 0;
+            int hasta = vehiculos.length;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (vehiculos[medio].getId() < id) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+    }
+
+    /**
+     * Mutación encolada junto con el resultado que espera quien la envió
+     */
+    private static final class Pedido<T> {
+        private final Mutacion<T> mutacion;
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+        private boolean aplicado;
+        private T valor;
+        private Throwable error;
+
+        Pedido(Mutacion<T> mutacion) {
+            this.mutacion = mutacion;
+        }
+
+        void aplicar(TreeMap<Integer, Vehiculo> vigentes) {
+            aplicado = true;
+            try {
+                valor = mutacion.aplicar(vigentes);
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        void responder() {
+            if (!aplicado) {
+                resultado.completeExceptionally(new VehiculoException("El motor de vehículos está cerrado"));
+            } else if (error != null) {
+                resultado.completeExceptionally(error);
+            } else {
+                resultado.complete(valor);
+            }
+        }
+    }
+
+    /**
+     * Escritor único de un tipo: un hilo virtual que aplica las mutaciones
+     * de la cola y publica la instantánea después de cada tanda
+     */
+    private final class EscritorTipo {
+        private final String tipo;
+        private final BlockingQueue<Pedido<?>> cola = new LinkedBlockingQueue<>();
+        private final Pedido<Void> fin = new Pedido<>(vigentes -> null);
+        private final Thread hilo;
+        private volatile Instantanea instantanea;
+        private boolean detenido = false;
+
+        // Solo los usa el hilo escritor (y el constructor, antes de iniciarlo)
+        private final TreeMap<Integer, Vehiculo> vigentes = new TreeMap<>();
+
+        EscritorTipo(String tipo, String nombreArchivo) throws VehiculoException {
+            this.tipo = tipo;
+            cargar(vigentes);
+            this.instantanea = new Instantanea(vigentes.values());
+            this.hilo = Thread.ofVirtual().name("escritor-" + nombreArchivo).start(this::ejecutar);
+        }
+
+        /**
+         * Lee todos los vehículos del tipo desde el servicio decorado
+         */
+        void cargar(TreeMap<Integer, Vehiculo> destino) throws VehiculoException {
+            destino.clear();
+            try (Stream<Vehiculo> vehiculos = delegado.recorrerTodos(tipo)) {
+                vehiculos.forEach(v -> destino.put(v.getId(), v));
+            }
+        }
+
+        synchronized <T> CompletableFuture<T> encolar(Mutacion<T> mutacion) throws VehiculoException {
+            if (detenido) {
+                throw new VehiculoException("El motor de vehículos está cerrado");
+            }
+            Pedido<T> pedido = new Pedido<>(mutacion);
+            cola.add(pedido);
+            return pedido.resultado;
+        }
+
+        <T> T ejecutar(Mutacion<T> mutacion) throws ValidationException, VehiculoException {
+            return esperar(encolar(mutacion));
+        }
+
+        <T> T ejecutarSinValidacion(Mutacion<T> mutacion) throws VehiculoException {
+            return esperarSinValidacion(encolar(mutacion));
+        }
+
+        void detener() {
+            cola.add(fin);
+            try {
+                hilo.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void ejecutar() {
+            List<Pedido<?>> tanda = new ArrayList<>(MAX_TANDA);
+            boolean activo = true;
+            while (activo) {
+                try {
+                    tanda.add(cola.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                cola.drainTo(tanda, MAX_TANDA - 1);
+
+                for (Pedido<?> pedido : tanda) {
+                    if (pedido == fin) {
+                        activo = false;
+                    } else if (activo) {
+                        pedido.aplicar(vigentes);
+                    }
+                }
+
+                // Primero se publica y después se responde: quien escribió ya lee su cambio
+                instantanea = new Instantanea(vigentes.values());
+                tanda.forEach(Pedido::responder);
+                tanda.clear();
+            }
+
+            // Lo que llegó después de detener el motor no se aplica
+            synchronized (this) {
+                detenido = true;
+                for (Pedido<?> pedido; (pedido = cola.poll()) != null; ) {
+                    pedido.responder();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package service;
+
+/**
+ * Recibe el avance de una importación masiva. Se llama desde el hilo que
+ * importa, después de guardar cada lote.
+ */
+@FunctionalInterface
+public interface ProgresoImportacion {
+
+    /**
+     * @param lineasProcesadas Líneas procesadas hasta ahora
+     * @param importados Vehículos guardados hasta ahora
+     * @param bytesProcesados Bytes del archivo procesados hasta ahora
+     * @param bytesTotales Tamaño del archivo
+     */
+    void informar(long lineasProcesadas, long importados, long bytesProcesados, long bytesTotales);
+}
@@ -0,0 +1,182 @@
+package service;
+
+import repository.IVehiculoRepository;
+import util.FileManager;
+import util.VehiculoFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asigna IDs nuevos por tipo de vehículo sin recorrer el almacenamiento.
+ *
+ * Cada tipo tiene un contador atómico que se inicializa una sola vez con
+ * getNextId del repositorio; después cada ID sale de un getAndIncrement, así
+ * que llamadas concurrentes nunca reciben el mismo.
+ *
+ * Con un FileManager los IDs se reservan por bloques: antes de entregar IDs
+ * de un bloque se guarda su límite en un archivo ".seq" (ej: "autos.seq").
+ * Al reiniciar se continúa desde ese límite, de modo que no se reutilizan
+ * IDs ya entregados aunque el vehículo no se haya guardado o se haya eliminado.
+ */
+public class SecuenciaIds {
+
+    public static final int TAMANO_BLOQUE_DEFECTO = 100;
+    private static final String EXTENSION_SECUENCIA = ".seq";
+
+    private final IVehiculoRepository repository;
+    private final FileManager fileManager;
+    private final int tamanoBloque;
+    private final ConcurrentHashMap<String, Secuencia> secuencias = new ConcurrentHashMap<>();
+
+    /**
+     * Secuencia en memoria, sin persistir los bloques reservados
+     *
+     * @param repository Repositorio del que se toma el primer ID de cada tipo
+     */
+    public SecuenciaIds(IVehiculoRepository repository) {
+        this(repository, null, TAMANO_BLOQUE_DEFECTO);
+    }
+
+    /**
+     * @param repository Repositorio del que se toma el primer ID de cada tipo
+     * @param fileManager Gestor de archivos donde guardar los límites (null = sin persistencia)
+     * @param tamanoBloque Cantidad de IDs que se reservan con cada escritura del archivo
+     */
+    public SecuenciaIds(IVehiculoRepository repository, FileManager fileManager, int tamanoBloque) {
+        if (tamanoBloque < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser al menos 1");
+        }
+        this.repository = repository;
+        this.fileManager = fileManager;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    /**
+     * Entrega un ID nuevo; cada llamada devuelve uno distinto
+     *
+     * @param tipo Tipo de vehículo
+     * @return ID no entregado antes
+     */
+    public int siguiente(String tipo) {
+        Secuencia secuencia = obtenerSecuencia(tipo);
+        long id = secuencia.proximo.getAndIncrement();
+        if (id >= secuencia.limite) {
+            secuencia.reservarHasta(id);
+        }
+        if (id > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Se agotaron los IDs para el tipo: " + tipo);
+        }
+        return (int) id;
+    }
+
+    /**
+     * Avanza la secuencia para que no entregue un ID ya usado (ej: un
+     * vehículo creado con un ID elegido a mano)
+     *
+     * @param tipo Tipo de vehículo
+     * @param id ID usado
+     */
+    public void registrarUsado(String tipo, int id) {
+        obtenerSecuencia(tipo).proximo.accumulateAndGet(id + 1L, Math::max);
+    }
+
+    private Secuencia obtenerSecuencia(String tipo) {
+        String nombreArchivo = VehiculoFactory.obtenerNombreArchivo(tipo);
+        Secuencia secuencia = secuencias.get(nombreArchivo);
+        if (secuencia == null) {
+            secuencia = secuencias.computeIfAbsent(nombreArchivo, n -> new Secuencia(n, tipo));
+        }
+        return secuencia;
+    }
+
+    /**
+     * Lee el límite guardado de un tipo
+     *
+     * @return El límite, o 0 si no hay archivo o no se puede leer
+     */
+    private long leerLimite(String nombreArchivo) {
+        try {
+            String contenido = Files.readString(fileManager.obtenerRuta(nombreArchivo, EXTENSION_SECUENCIA),
+                    StandardCharsets.UTF_8);
+            return Long.parseLong(contenido.trim());
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Advertencia: No se pudo leer la secuencia de " + nombreArchivo + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Guarda el límite en un temporal sincronizado con el disco y lo renombra,
+     * para que el archivo nunca quede a medias
+     */
+    private void guardarLimite(String nombreArchivo, long limite) throws IOException {
+        Path ruta = fileManager.obtenerRuta(nombreArchivo, EXTENSION_SECUENCIA);
+        Path temporal = fileManager.obtenerRuta(nombreArchivo, EXTENSION_SECUENCIA + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                canal.write(ByteBuffer.wrap(Long.toString(limite).getBytes(StandardCharsets.UTF_8)));
+                canal.force(true);
+            }
+            try {
+                Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Contador de un tipo: se entregan sin bloquear los IDs menores a "limite"
+     */
+    private final class Secuencia {
+        private final String nombreArchivo;
+        private final AtomicLong proximo;
+        private volatile long limite;
+
+        Secuencia(String nombreArchivo, String tipo) {
+            this.nombreArchivo = nombreArchivo;
+            long inicio = repository.getNextId(tipo);
+            if (fileManager == null) {
+                this.limite = Long.MAX_VALUE;
+            } else {
+                // Los IDs por debajo del límite guardado pudieron entregarse antes del reinicio
+                inicio = Math.max(inicio, leerLimite(nombreArchivo));
+                this.limite = inicio;
+            }
+            this.proximo = new AtomicLong(inicio);
+        }
+
+        /**
+         * Reserva un bloque que incluya el ID, guardándolo antes de entregarlo
+         */
+        synchronized void reservarHasta(long id) {
+            if (id < limite) {
+                return; // Otro hilo ya reservó un bloque que lo incluye
+            }
+            long nuevoLimite = id + tamanoBloque;
+            try {
+                guardarLimite(nombreArchivo, nuevoLimite);
+            } catch (IOException e) {
+                // Se sigue en memoria: al reiniciar se parte del mayor ID guardado
+                System.err.println("Advertencia: No se pudo guardar la secuencia de " + nombreArchivo + ": " + e.getMessage());
+            }
+            limite = nuevoLimite;
+        }
+    }
+}
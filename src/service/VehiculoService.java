@@ -3,30 +3,64 @@ package service;
 import model.*;
 import repository.IVehiculoRepository;
 import validator.*;
+import exception.VehiculoDuplicadoException;
+import exception.VehiculoNoEncontradoException;
 import exception.VehiculoException;
 import exception.ValidationException;
+import query.Consulta;
+import query.ConsultaParser;
+import query.PlanificadorConsultas;
+import util.VehiculoFactory;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class VehiculoService implements IVehiculoService {
     
+    static final int TAMANO_MAXIMO_PAGINA = 1000;
+    
     private IVehiculoRepository repository;
     private IValidator<Auto> autoValidator;
     private IValidator<Moto> motoValidator;
     private IValidator<Camion> camionValidator;
+    private PlanificadorConsultas planificador;
+    private SecuenciaIds secuenciaIds;
+    private ImportadorVehiculos importador;
     
     /**
-     * Constructor con inyección de dependencias
+     * Constructor con inyección de dependencias (IDs asignados en memoria)
      */
     public VehiculoService(IVehiculoRepository repository,
                           IValidator<Auto> autoValidator,
                           IValidator<Moto> motoValidator,
                           IValidator<Camion> camionValidator) {
+        this(repository, autoValidator, motoValidator, camionValidator, new SecuenciaIds(repository));
+    }
+    
+    /**
+     * Constructor con inyección de dependencias y secuencia de IDs propia
+     * (ej: una que persista los bloques reservados)
+     */
+    public VehiculoService(IVehiculoRepository repository,
+                          IValidator<Auto> autoValidator,
+                          IValidator<Moto> motoValidator,
+                          IValidator<Camion> camionValidator,
+                          SecuenciaIds secuenciaIds) {
         this.repository = repository;
+        this.secuenciaIds = secuenciaIds;
         this.autoValidator = autoValidator;
         this.motoValidator = motoValidator;
         this.camionValidator = camionValidator;
+        this.planificador = new PlanificadorConsultas(repository);
+        this.importador = new ImportadorVehiculos(repository, this::erroresDe, secuenciaIds);
     }
     
     @Override
@@ -34,14 +68,109 @@ public class VehiculoService implements IVehiculoService {
         // 1. Validar el vehículo
         validarVehiculo(vehiculo);
         
-        // 2. Verificar que el ID no exista (regla de negocio)
-        String tipo = vehiculo.getTipo().toLowerCase();
-        if (repository.existsById(vehiculo.getId(), tipo)) {
-            throw new VehiculoException("Ya existe un vehículo con ID: " + vehiculo.getId());
+        // 2. Guardar solo si el ID no existe (regla de negocio), en una sola operación
+        if (!repository.createIfAbsent(vehiculo)) {
+            throw new VehiculoDuplicadoException(vehiculo.getId());
+        }
+        
+        // 3. Que la secuencia no entregue un ID elegido a mano
+        secuenciaIds.registrarUsado(vehiculo.getTipo().toLowerCase(), vehiculo.getId());
+    }
+    
+    @Override
+    public List<ResultadoOperacion> crearTodos(List<Vehiculo> vehiculos) throws VehiculoException {
+        if (vehiculos == null) {
+            throw new VehiculoException("La lista de vehículos no puede ser nula");
+        }
+        
+        // 1. Validar todos antes de guardar
+        ResultadoOperacion[] resultados = new ResultadoOperacion[vehiculos.size()];
+        List<Vehiculo> validos = validarLote(vehiculos, resultados);
+        
+        // 2. Guardar los válidos juntos; se omiten los de ID existente
+        Set<Vehiculo> omitidos = conjuntoPorIdentidad(repository.createAllIfAbsent(validos));
+        
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == null) {
+                Vehiculo vehiculo = vehiculos.get(i);
+                if (omitidos.contains(vehiculo)) {
+                    resultados[i] = ResultadoOperacion.fallo(vehiculo.getId(),
+                            "Ya existe un vehículo con ID: " + vehiculo.getId());
+                } else {
+                    secuenciaIds.registrarUsado(vehiculo.getTipo().toLowerCase(), vehiculo.getId());
+                    resultados[i] = ResultadoOperacion.exito(vehiculo.getId());
+                }
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+    
+    @Override
+    public List<ResultadoOperacion> actualizarTodos(List<Vehiculo> vehiculos) throws VehiculoException {
+        if (vehiculos == null) {
+            throw new VehiculoException("La lista de vehículos no puede ser nula");
+        }
+        
+        // 1. Validar todos antes de escribir
+        ResultadoOperacion[] resultados = new ResultadoOperacion[vehiculos.size()];
+        List<Vehiculo> validos = validarLote(vehiculos, resultados);
+        
+        // 2. Aplicar los válidos con una sola reescritura por tipo; los que no
+        //    existen o chocan con otra edición se informan en su resultado
+        Map<Vehiculo, VehiculoException> omitidos = new IdentityHashMap<>(repository.updateAllIfPresent(validos));
+        
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == null) {
+                Vehiculo vehiculo = vehiculos.get(i);
+                VehiculoException motivo = omitidos.get(vehiculo);
+                resultados[i] = motivo != null
+                        ? ResultadoOperacion.fallo(vehiculo.getId(), motivo.getMessage())
+                        : ResultadoOperacion.exito(vehiculo.getId());
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+    
+    @Override
+    public List<ResultadoOperacion> eliminarTodos(List<Integer> ids, String tipo) throws VehiculoException {
+        if (ids == null) {
+            throw new VehiculoException("La lista de IDs no puede ser nula");
+        }
+        
+        if (tipo == null || tipo.trim().isEmpty()) {
+            throw new VehiculoException("El tipo no puede estar vacío");
+        }
+        
+        List<Integer> validos = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            if (id != null && id > 0) {
+                validos.add(id);
+            }
+        }
+        
+        Set<Integer> omitidos = Set.copyOf(repository.deleteAllIfPresent(validos, tipo));
+        
+        List<ResultadoOperacion> resultados = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            if (id == null || id <= 0) {
+                resultados.add(ResultadoOperacion.fallo(id == null ? 0 : id, "El ID debe ser mayor a 0"));
+            } else if (omitidos.contains(id)) {
+                resultados.add(ResultadoOperacion.fallo(id, "No existe vehículo con ID: " + id));
+            } else {
+                resultados.add(ResultadoOperacion.exito(id));
+            }
+        }
+        return resultados;
+    }
+    
+    @Override
+    public ResultadoImportacion importar(String tipo, Path archivo, ProgresoImportacion progreso)
+            throws VehiculoException {
+        if (archivo == null) {
+            throw new VehiculoException("Debe indicar el archivo a importar");
         }
         
-        // 3. Guardar en el repository
-        repository.create(vehiculo);
+        return importador.importar(tipo, archivo, progreso);
     }
     
     @Override
@@ -63,14 +192,11 @@ public class VehiculoService implements IVehiculoService {
         // 1. Validar el vehículo
         validarVehiculo(vehiculo);
         
-        // 2. Verificar que exista (regla de negocio)
-        String tipo = vehiculo.getTipo().toLowerCase();
-        if (!repository.existsById(vehiculo.getId(), tipo)) {
-            throw new VehiculoException("No existe vehículo con ID: " + vehiculo.getId());
+        // 2. Actualizar solo si existe (regla de negocio), en una sola operación
+        if (!repository.updateIfPresent(vehiculo)) {
+            throw new VehiculoNoEncontradoException(vehiculo.getId(),
+                    "No existe vehículo con ID: " + vehiculo.getId());
         }
-        
-        // 3. Actualizar en el repository
-        repository.update(vehiculo);
     }
     
     @Override
@@ -84,12 +210,10 @@ public class VehiculoService implements IVehiculoService {
             throw new VehiculoException("El tipo no puede estar vacío");
         }
         
-        // Verificar que exista antes de eliminar
-        if (!repository.existsById(id, tipo)) {
-            throw new VehiculoException("No existe vehículo con ID: " + id);
+        // Eliminar solo si existe, verificando y eliminando en una sola operación
+        if (!repository.deleteIfPresent(id, tipo)) {
+            throw new VehiculoNoEncontradoException(id, "No existe vehículo con ID: " + id);
         }
-        
-        repository.delete(id, tipo);
     }
     
     @Override
@@ -101,8 +225,38 @@ public class VehiculoService implements IVehiculoService {
         return repository.findAll(tipo);
     }
     
+    @Override
+    public Stream<Vehiculo> recorrerTodos(String tipo) throws VehiculoException {
+        if (tipo == null || tipo.trim().isEmpty()) {
+            throw new VehiculoException("El tipo no puede estar vacío");
+        }
+        
+        return repository.streamAll(tipo);
+    }
+    
+    @Override
+    public Pagina listarPagina(String tipo, int despuesDeId, int tamano) throws VehiculoException {
+        if (tipo == null || tipo.trim().isEmpty()) {
+            throw new VehiculoException("El tipo no puede estar vacío");
+        }
+        
+        if (tamano < 1 || tamano > TAMANO_MAXIMO_PAGINA) {
+            throw new VehiculoException("El tamaño de página debe estar entre 1 y " + TAMANO_MAXIMO_PAGINA);
+        }
+        
+        return repository.findPage(tipo, despuesDeId, tamano);
+    }
+    
     @Override
     public List<Vehiculo> buscarPorMarca(String marca, String tipo) throws VehiculoException {
+        // Solo se guardan los que coinciden, no todo el archivo
+        try (Stream<Vehiculo> coincidencias = recorrerPorMarca(marca, tipo)) {
+            return coincidencias.collect(Collectors.toList());
+        }
+    }
+    
+    @Override
+    public Stream<Vehiculo> recorrerPorMarca(String marca, String tipo) throws VehiculoException {
         if (marca == null || marca.trim().isEmpty()) {
             throw new VehiculoException("La marca no puede estar vacía");
         }
@@ -111,43 +265,133 @@ public class VehiculoService implements IVehiculoService {
             throw new VehiculoException("El tipo no puede estar vacío");
         }
         
-        // Obtener todos y filtrar por marca
-        List<Vehiculo> todos = repository.findAll(tipo);
-        List<Vehiculo> filtrados = new ArrayList<>();
+        return repository.streamByMarca(marca, tipo);
+    }
+    
+    @Override
+    public List<Vehiculo> buscarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango)
+            throws VehiculoException {
+        if (campo == null || rango == null) {
+            throw new VehiculoException("Debe indicar el campo y el rango");
+        }
+        
+        return buscarPorRangos(tipo, Map.of(campo, rango));
+    }
+    
+    @Override
+    public List<Vehiculo> buscarPorRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos)
+            throws VehiculoException {
+        if (tipo == null || tipo.trim().isEmpty()) {
+            throw new VehiculoException("El tipo no puede estar vacío");
+        }
+        
+        Class<? extends Vehiculo> clase;
+        try {
+            clase = VehiculoFactory.crearVehiculo(tipo).getClass();
+        } catch (IllegalArgumentException e) {
+            throw new VehiculoException(e.getMessage());
+        }
         
-        for (Vehiculo v : todos) {
-            if (v.getMarca().toLowerCase().contains(marca.toLowerCase())) {
-                filtrados.add(v);
+        for (CampoNumerico campo : rangos.keySet()) {
+            if (!campo.aplicaA(clase)) {
+                throw new VehiculoException("El campo " + campo.getNombre() + " no aplica al tipo " + tipo);
             }
         }
         
-        return filtrados;
+        try (Stream<Vehiculo> vehiculos = repository.streamByRangos(tipo, rangos)) {
+            return vehiculos.collect(Collectors.toList());
+        }
+    }
+    
+    @Override
+    public Consulta interpretarConsulta(String tipo, String texto) throws VehiculoException {
+        if (tipo == null || tipo.trim().isEmpty()) {
+            throw new VehiculoException("El tipo no puede estar vacío");
+        }
+        
+        try {
+            return ConsultaParser.parsear(tipo, texto);
+        } catch (IllegalArgumentException e) {
+            throw new VehiculoException(e.getMessage());
+        }
+    }
+    
+    @Override
+    public PlanificadorConsultas.Plan planificarConsulta(Consulta consulta) throws VehiculoException {
+        return planificador.planificar(consulta);
+    }
+    
+    @Override
+    public List<Vehiculo> consultar(Consulta consulta) throws VehiculoException {
+        return planificador.ejecutar(consulta);
     }
     
     @Override
     public int obtenerProximoId(String tipo) {
-        return repository.getNextId(tipo);
+        return secuenciaIds.siguiente(tipo);
     }
     
     /**
      * Método privado para validar un vehículo según su tipo
      */
     private void validarVehiculo(Vehiculo vehiculo) throws ValidationException {
-        List<String> errores;
-        
-        if (vehiculo instanceof Auto) {
-            errores = autoValidator.validate((Auto) vehiculo);
-        } else if (vehiculo instanceof Moto) {
-            errores = motoValidator.validate((Moto) vehiculo);
-        } else if (vehiculo instanceof Camion) {
-            errores = camionValidator.validate((Camion) vehiculo);
-        } else {
+        if (!(vehiculo instanceof Auto || vehiculo instanceof Moto || vehiculo instanceof Camion)) {
             throw new ValidationException("Tipo de vehículo desconocido");
         }
         
+        List<String> errores = erroresDe(vehiculo);
+        
         // Si hay errores, lanzar excepción
         if (!errores.isEmpty()) {
             throw new ValidationException(errores);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Valida todos los vehículos de un lote: anota el fallo de los inválidos
+     * en su posición de "resultados" y devuelve los válidos
+     */
+    private List<Vehiculo> validarLote(List<Vehiculo> vehiculos, ResultadoOperacion[] resultados) {
+        List<Vehiculo> validos = new ArrayList<>(vehiculos.size());
+        for (int i = 0; i < vehiculos.size(); i++) {
+            Vehiculo vehiculo = vehiculos.get(i);
+            if (vehiculo == null) {
+                resultados[i] = ResultadoOperacion.fallo(0, "El vehículo no puede ser nulo");
+                continue;
+            }
+            List<String> errores = erroresDe(vehiculo);
+            if (errores.isEmpty()) {
+                validos.add(vehiculo);
+            } else {
+                resultados[i] = ResultadoOperacion.fallo(vehiculo.getId(), errores);
+            }
+        }
+        return validos;
+    }
+    
+    /**
+     * Los repositorios devuelven las mismas instancias que recibieron:
+     * se comparan por identidad por si dos vehículos tienen el mismo ID
+     */
+    private static Set<Vehiculo> conjuntoPorIdentidad(List<Vehiculo> vehiculos) {
+        Set<Vehiculo> conjunto = Collections.newSetFromMap(new IdentityHashMap<>());
+        conjunto.addAll(vehiculos);
+        return conjunto;
+    }
+    
+    /**
+     * Valida un vehículo con el validador de su tipo (también lo usa la importación)
+     * 
+     * @return Lista de errores (vacía si es válido)
+     */
+    private List<String> erroresDe(Vehiculo vehiculo) {
+        if (vehiculo instanceof Auto) {
+            return autoValidator.validate((Auto) vehiculo);
+        } else if (vehiculo instanceof Moto) {
+            return motoValidator.validate((Moto) vehiculo);
+        } else if (vehiculo instanceof Camion) {
+            return camionValidator.validate((Camion) vehiculo);
+        }
+        return List.of("Tipo de vehículo desconocido");
+    }
+}
@@ -0,0 +1,255 @@
+package service;
+
+import model.*;
+import exception.VehiculoException;
+import query.Consulta;
+import util.VehiculoFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Implementación de IVehiculoServiceAsync que ejecuta cada operación del
+ * servicio decorado en un ExecutorService (por defecto, un hilo virtual por
+ * operación, así las esperas de disco no ocupan hilos del sistema).
+ *
+ * Las lecturas por ID en curso se comparten: si llegan varios pedidos del
+ * mismo (id, tipo) mientras se lee, se hace una sola lectura. Una escritura
+ * descarta la lectura compartida de los IDs que modifica antes de terminar,
+ * así un pedido posterior a la escritura no recibe el dato anterior.
+ */
+public class VehiculoServiceAsync implements IVehiculoServiceAsync, AutoCloseable {
+
+    private final IVehiculoService servicio;
+    private final ExecutorService ejecutor;
+    private final boolean ejecutorPropio;
+
+    // "autos:5" → lectura en curso
+    private final Map<String, CompletableFuture<Vehiculo>> lecturasEnCurso = new ConcurrentHashMap<>();
+
+    /**
+     * Usa un hilo virtual por operación
+     *
+     * @param servicio Servicio sobre el que se ejecutan las operaciones
+     */
+    public VehiculoServiceAsync(IVehiculoService servicio) {
+        this(servicio, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * @param servicio Servicio sobre el que se ejecutan las operaciones
+     * @param ejecutor Ejecutor de las operaciones (no se cierra con close)
+     */
+    public VehiculoServiceAsync(IVehiculoService servicio, ExecutorService ejecutor) {
+        this(servicio, ejecutor, false);
+    }
+
+    private VehiculoServiceAsync(IVehiculoService servicio, ExecutorService ejecutor, boolean ejecutorPropio) {
+        this.servicio = servicio;
+        this.ejecutor = ejecutor;
+        this.ejecutorPropio = ejecutorPropio;
+    }
+
+    @Override
+    public CompletableFuture<Void> crear(Vehiculo vehiculo) {
+        return enviar(() -> {
+            servicio.crear(vehiculo);
+            return null;
+        }, () -> descartarLectura(vehiculo));
+    }
+
+    @Override
+    public CompletableFuture<List<ResultadoOperacion>> crearTodos(List<Vehiculo> vehiculos) {
+        return enviar(() -> servicio.crearTodos(vehiculos), () -> descartarLecturas(vehiculos));
+    }
+
+    @Override
+    public CompletableFuture<List<ResultadoOperacion>> actualizarTodos(List<Vehiculo> vehiculos) {
+        return enviar(() -> servicio.actualizarTodos(vehiculos), () -> descartarLecturas(vehiculos));
+    }
+
+    @Override
+    public CompletableFuture<List<ResultadoOperacion>> eliminarTodos(List<Integer> ids, String tipo) {
+        return enviar(() -> servicio.eliminarTodos(ids, tipo), () -> {
+            if (ids != null) {
+                for (Integer id : ids) {
+                    if (id != null) {
+                        descartarLectura(id, tipo);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ResultadoImportacion> importar(String tipo, Path archivo, ProgresoImportacion progreso) {
+        return enviar(() -> servicio.importar(tipo, archivo, progreso), lecturasEnCurso::clear);
+    }
+
+    @Override
+    public CompletableFuture<Vehiculo> obtener(int id, String tipo) {
+        String clave = clave(id, tipo);
+        if (clave == null) {
+            // Parámetros inválidos: el servicio informa el error
+            return enviar(() -> servicio.obtener(id, tipo), null);
+        }
+
+        CompletableFuture<Vehiculo> nueva = new CompletableFuture<>();
+        CompletableFuture<Vehiculo> compartida = lecturasEnCurso.putIfAbsent(clave, nueva);
+        if (compartida == null) {
+            // Se quita al terminar (registrado antes de empezar, para no dejarla colgada)
+            nueva.whenComplete((v, e) -> lecturasEnCurso.remove(clave, nueva));
+            ejecutar(nueva, () -> servicio.obtener(id, tipo), null);
+            compartida = nueva;
+        }
+        // Cada pedido recibe su copia: el vehículo leído es mutable
+        return compartida.thenApply(Vehiculo::copiar);
+    }
+
+    @Override
+    public CompletableFuture<Void> actualizar(Vehiculo vehiculo) {
+        return enviar(() -> {
+            servicio.actualizar(vehiculo);
+            return null;
+        }, () -> descartarLectura(vehiculo));
+    }
+
+    @Override
+    public CompletableFuture<Void> eliminar(int id, String tipo) {
+        return enviar(() -> {
+            servicio.eliminar(id, tipo);
+            return null;
+        }, () -> descartarLectura(id, tipo));
+    }
+
+    @Override
+    public CompletableFuture<List<Vehiculo>> listarTodos(String tipo) {
+        return enviar(() -> servicio.listarTodos(tipo), null);
+    }
+
+    @Override
+    public CompletableFuture<Pagina> listarPagina(String tipo, int despuesDeId, int tamano) {
+        return enviar(() -> servicio.listarPagina(tipo, despuesDeId, tamano), null);
+    }
+
+    @Override
+    public CompletableFuture<List<Vehiculo>> buscarPorMarca(String marca, String tipo) {
+        return enviar(() -> servicio.buscarPorMarca(marca, tipo), null);
+    }
+
+    @Override
+    public CompletableFuture<List<Vehiculo>> buscarPorRango(String tipo, CampoNumerico campo, RangoNumerico rango) {
+        return enviar(() -> servicio.buscarPorRango(tipo, campo, rango), null);
+    }
+
+    @Override
+    public CompletableFuture<List<Vehiculo>> buscarPorRangos(String tipo, Map<CampoNumerico, RangoNumerico> rangos) {
+        return enviar(() -> servicio.buscarPorRangos(tipo, rangos), null);
+    }
+
+    @Override
+    public CompletableFuture<List<Vehiculo>> consultar(Consulta consulta) {
+        return enviar(() -> servicio.consultar(consulta), null);
+    }
+
+    /**
+     * Servicio bloqueante decorado (ej: para los recorridos con Stream)
+     */
+    public IVehiculoService getServicio() {
+        return servicio;
+    }
+
+    /**
+     * @return Cantidad de lecturas por ID en curso (compartidas o no)
+     */
+    public int getLecturasEnCurso() {
+        return lecturasEnCurso.size();
+    }
+
+    /**
+     * Cierra el ejecutor si lo creó este servicio, esperando las operaciones en curso
+     */
+    @Override
+    public void close() {
+        if (ejecutorPropio) {
+            ejecutor.close();
+        }
+    }
+
+    private <T> CompletableFuture<T> enviar(Operacion<T> operacion, Runnable alTerminar) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        ejecutar(resultado, operacion, alTerminar);
+        return resultado;
+    }
+
+    /**
+     * Ejecuta la operación en el ejecutor y completa "resultado" con su valor
+     * o su excepción. "alTerminar" (si no es null) corre antes de completarlo,
+     * aunque la operación falle.
+     */
+    private <T> void ejecutar(CompletableFuture<T> resultado, Operacion<T> operacion, Runnable alTerminar) {
+        try {
+            ejecutor.execute(() -> {
+                T valor;
+                try {
+                    valor = operacion.ejecutar();
+                } catch (Throwable e) {
+                    terminar(alTerminar);
+                    resultado.completeExceptionally(e);
+                    return;
+                }
+                terminar(alTerminar);
+                resultado.complete(valor);
+            });
+        } catch (RejectedExecutionException e) {
+            resultado.completeExceptionally(
+                    new VehiculoException("El servicio asíncrono no acepta más operaciones", e));
+        }
+    }
+
+    private static void terminar(Runnable alTerminar) {
+        if (alTerminar != null) {
+            alTerminar.run();
+        }
+    }
+
+    private void descartarLecturas(List<Vehiculo> vehiculos) {
+        if (vehiculos != null) {
+            vehiculos.forEach(this::descartarLectura);
+        }
+    }
+
+    private void descartarLectura(Vehiculo vehiculo) {
+        if (vehiculo instanceof Auto || vehiculo instanceof Moto || vehiculo instanceof Camion) {
+            lecturasEnCurso.remove(VehiculoFactory.obtenerNombreArchivo(vehiculo) + ":" + vehiculo.getId());
+        }
+    }
+
+    private void descartarLectura(int id, String tipo) {
+        String clave = clave(id, tipo);
+        if (clave != null) {
+            lecturasEnCurso.remove(clave);
+        }
+    }
+
+    /**
+     * @return "autos:5", o null si el tipo no es válido
+     */
+    private static String clave(int id, String tipo) {
+        if (!VehiculoFactory.esTipoValido(tipo)) {
+            return null;
+        }
+        return VehiculoFactory.obtenerNombreArchivo(tipo) + ":" + id;
+    }
+
+    @FunctionalInterface
+    private interface Operacion<T> {
+        T ejecutar() throws Exception;
+    }
+}
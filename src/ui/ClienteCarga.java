@@ -0,0 +1,304 @@
+package ui;
+
+import model.Auto;
+import model.Camion;
+import model.Moto;
+import model.Vehiculo;
+import util.JsonParser;
+import util.JsonWriter;
+import util.VehiculoJson;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cliente de carga local para ServidorHttp: N clientes concurrentes (uno por
+ * hilo virtual, cada uno con su conexión keep-alive) piden vehículos por ID
+ * durante un tiempo fijo y al final se informan pedidos por segundo y
+ * percentiles de latencia.
+ *
+ * Uso: java ui.ClienteCarga [url] [clientes] [segundos] [tipo] [% escrituras]
+ * (por defecto: http://localhost:8080 64 10 auto 0)
+ *
+ * Si el tipo no tiene vehículos, antes de medir se crean 200 con un lote.
+ * Las escrituras mandan en If-Match la última versión conocida de cada
+ * vehículo; un 409 (otro cliente lo cambió antes) cuenta como conflicto, no
+ * como error, y se vuelve a leer la versión fuera de la medición.
+ */
+public class ClienteCarga {
+
+    private static final int VEHICULOS_SEMILLA = 200;
+
+    private final HttpClient cliente;
+    private final String base;
+    private final String tipo;
+    private final Map<Integer, Long> versiones = new ConcurrentHashMap<>();
+
+    public ClienteCarga(String url, String tipo) {
+        this.base = url.replaceAll("/+$", "") + ServidorHttp.RAIZ + tipo;
+        this.tipo = tipo;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String tipo = args.length > 3 ? args[3] : "auto";
+        int porcentajeEscrituras = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        ClienteCarga carga = new ClienteCarga(url, tipo);
+        List<Integer> ids = carga.prepararIds();
+        System.out.println("Midiendo " + segundos + " s con " + clientes + " clientes sobre "
+                + ids.size() + " vehículos (" + porcentajeEscrituras + "% escrituras)...");
+        System.out.println(carga.medir(ids, clientes, Duration.ofSeconds(segundos), porcentajeEscrituras));
+    }
+
+    /**
+     * IDs existentes del tipo (la primera página); si no hay, crea un lote de prueba
+     */
+    public List<Integer> prepararIds() throws IOException, InterruptedException {
+        List<Integer> ids = leerIds();
+        if (!ids.isEmpty()) {
+            return ids;
+        }
+
+        StringWriter cuerpo = new StringWriter();
+        JsonWriter json = new JsonWriter(cuerpo);
+        json.inicioArreglo();
+        for (int i = 0; i < VEHICULOS_SEMILLA; i++) {
+            VehiculoJson.escribir(json, vehiculoDePrueba(0));
+        }
+        json.finArreglo();
+        HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(base + "/lote"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IOException("No se pudieron crear los vehículos de prueba: " + respuesta.body());
+        }
+        ids = leerIds();
+        if (ids.isEmpty()) {
+            throw new IOException("No hay vehículos de tipo " + tipo + " para medir");
+        }
+        return ids;
+    }
+
+    /**
+     * Ejecuta la carga y devuelve el resumen de la medición
+     */
+    public Resultado medir(List<Integer> ids, int clientes, Duration duracion, int porcentajeEscrituras)
+            throws InterruptedException {
+        long fin = System.nanoTime() + duracion.toNanos();
+        List<Future<Medicion>> futuros = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientes; i++) {
+                futuros.add(hilos.submit(() -> ejecutarCliente(ids, fin, porcentajeEscrituras)));
+            }
+        }
+
+        Medicion total = new Medicion();
+        for (Future<Medicion> futuro : futuros) {
+            try {
+                total.agregar(futuro.get());
+            } catch (java.util.concurrent.ExecutionException e) {
+                total.errores++;
+            }
+        }
+        return new Resultado(total, duracion);
+    }
+
+    private Medicion ejecutarCliente(List<Integer> ids, long fin, int porcentajeEscrituras) {
+        Medicion medicion = new Medicion();
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        while (System.nanoTime() < fin) {
+            int id = ids.get(azar.nextInt(ids.size()));
+            HttpRequest pedido;
+            if (azar.nextInt(100) < porcentajeEscrituras) {
+                pedido = HttpRequest.newBuilder(URI.create(base + "/" + id))
+                        .header("Content-Type", "application/json")
+                        .header("If-Match", "\"" + versiones.getOrDefault(id, 0L) + "\"")
+                        .PUT(HttpRequest.BodyPublishers.ofString(comoJson(vehiculoDePrueba(id))))
+                        .build();
+            } else {
+                pedido = HttpRequest.newBuilder(URI.create(base + "/" + id)).GET().build();
+            }
+
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<byte[]> respuesta = cliente.send(pedido, HttpResponse.BodyHandlers.ofByteArray());
+                long nanos = System.nanoTime() - inicio;
+                if (respuesta.statusCode() == 409) {
+                    medicion.registrarConflicto(nanos);
+                    respuesta = cliente.send(HttpRequest.newBuilder(URI.create(base + "/" + id)).GET().build(),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                } else {
+                    medicion.registrar(nanos, respuesta.statusCode() / 100 == 2);
+                }
+                recordarVersion(id, respuesta);
+            } catch (IOException e) {
+                medicion.registrar(System.nanoTime() - inicio, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return medicion;
+    }
+
+    private List<Integer> leerIds() throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(
+                HttpRequest.newBuilder(URI.create(base + "?despuesDe=0&tamano=1000")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IOException("No se pudieron listar los vehículos: " + respuesta.body());
+        }
+        List<Integer> ids = new ArrayList<>();
+        Map<?, ?> pagina = (Map<?, ?>) JsonParser.parsear(respuesta.body());
+        for (Object vehiculo : (List<?>) pagina.get("vehiculos")) {
+            int id = ((Long) ((Map<?, ?>) vehiculo).get("id")).intValue();
+            ids.add(id);
+            versiones.put(id, (Long) ((Map<?, ?>) vehiculo).get("version"));
+        }
+        return ids;
+    }
+
+    private void recordarVersion(int id, HttpResponse<?> respuesta) {
+        if (respuesta.statusCode() == 200) {
+            respuesta.headers().firstValue("ETag").ifPresent(etag ->
+                    versiones.put(id, Long.parseLong(etag.replace("\"", ""))));
+        }
+    }
+
+    private Vehiculo vehiculoDePrueba(int id) {
+        switch (tipo.toLowerCase()) {
+            case "moto":
+                return new Moto(id, "Honda", "CB 250", 2021, 5_000, "Negro", 250, false);
+            case "camion":
+                return new Camion(id, "Volvo", "FH", 2019, 80_000, "Blanco", 10, 3);
+            default:
+                return new Auto(id, "Toyota", "Corolla", 2020, 15_000, "Rojo", 4, "Manual", true);
+        }
+    }
+
+    private static String comoJson(Vehiculo vehiculo) {
+        try {
+            StringWriter texto = new StringWriter();
+            VehiculoJson.escribir(new JsonWriter(texto), vehiculo);
+            return texto.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Latencias y errores de un cliente (o la suma de todos)
+     */
+    private static class Medicion {
+        private long[] latencias = new long[1024];
+        private int cantidad = 0;
+        private long errores = 0;
+        private long conflictos = 0;
+
+        void registrar(long nanos, boolean exitoso) {
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = nanos;
+            if (!exitoso) {
+                errores++;
+            }
+        }
+
+        void registrarConflicto(long nanos) {
+            registrar(nanos, true);
+            conflictos++;
+        }
+
+        void agregar(Medicion otra) {
+            if (cantidad + otra.cantidad > latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad + otra.cantidad);
+            }
+            System.arraycopy(otra.latencias, 0, latencias, cantidad, otra.cantidad);
+            cantidad += otra.cantidad;
+            errores += otra.errores;
+            conflictos += otra.conflictos;
+        }
+    }
+
+    /**
+     * Resumen de una medición
+     */
+    public static class Resultado {
+        private final long pedidos;
+        private final long errores;
+        private final long conflictos;
+        private final double pedidosPorSegundo;
+        private final long[] latenciasOrdenadas;
+
+        Resultado(Medicion medicion, Duration duracion) {
+            this.pedidos = medicion.cantidad;
+            this.errores = medicion.errores;
+            this.conflictos = medicion.conflictos;
+            this.pedidosPorSegundo = medicion.cantidad / (duracion.toNanos() / 1e9);
+            this.latenciasOrdenadas = Arrays.copyOf(medicion.latencias, medicion.cantidad);
+            Arrays.sort(latenciasOrdenadas);
+        }
+
+        public long getPedidos() {
+            return pedidos;
+        }
+
+        public long getErrores() {
+            return errores;
+        }
+
+        /**
+         * @return Escrituras rechazadas con 409 porque otro cliente cambió el vehículo antes
+         */
+        public long getConflictos() {
+            return conflictos;
+        }
+
+        public double getPedidosPorSegundo() {
+            return pedidosPorSegundo;
+        }
+
+        /**
+         * @param percentil Entre 0 y 100 (ej: 99.9)
+         * @return Latencia en microsegundos
+         */
+        public long latenciaMicros(double percentil) {
+            if (latenciasOrdenadas.length == 0) {
+                return 0;
+            }
+            int posicion = (int) Math.ceil(percentil / 100 * latenciasOrdenadas.length) - 1;
+            return latenciasOrdenadas[Math.max(0, Math.min(posicion, latenciasOrdenadas.length - 1))] / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Pedidos: %d (%d con error, %d conflictos) | %.0f pedidos/s"
+                    + " | p50 %d µs | p99 %d µs | p99.9 %d µs",
+                    pedidos, errores, conflictos, pedidosPorSegundo,
+                    latenciaMicros(50), latenciaMicros(99), latenciaMicros(99.9));
+        }
+    }
+}
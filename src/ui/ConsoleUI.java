@@ -1,15 +1,22 @@
 package ui;
 
 import model.*;
+import query.Consulta;
+import query.PlanificadorConsultas;
 import service.IVehiculoService;
+import exception.ConflictoVersionException;
 import exception.ValidationException;
 import exception.VehiculoException;
 
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 public class ConsoleUI {
     
+    private static final int TAMANO_PAGINA = 10;
+    
     private IVehiculoService service;
     private Scanner scanner;
     
@@ -169,6 +176,7 @@ public class ConsoleUI {
             System.out.println("4. Eliminar Auto");
             System.out.println("5. Listar todos los Autos");
             System.out.println("6. Buscar por marca");
+            System.out.println("7. Consulta avanzada");
             System.out.println("0. Volver al menú principal");
             System.out.println("═══════════════════════════════════════");
             System.out.print("Seleccione una opción: ");
@@ -194,6 +202,9 @@ public class ConsoleUI {
                 case 6:
                     buscarAutosPorMarca();
                     break;
+                case 7:
+                    consultarAutos();
+                    break;
                 case 0:
                     volver = true;
                     break;
@@ -303,7 +314,7 @@ public class ConsoleUI {
             String transmision = leerTexto("Transmisión [" + auto.getTipoTransmision() + "]: ");
             if (!transmision.trim().isEmpty()) auto.setTipoTransmision(transmision);
             
-            // Actualizar
+            // Actualizar (falla si otro usuario lo modificó mientras se editaba)
             service.actualizar(auto);
             
             System.out.println("\n✅ Auto actualizado exitosamente!");
@@ -314,6 +325,9 @@ public class ConsoleUI {
             for (String error : e.getErrores()) {
                 System.out.println("  • " + error);
             }
+        } catch (ConflictoVersionException e) {
+            System.out.println("\n❌ Otro usuario modificó este auto mientras lo editaba. Los cambios no se guardaron;");
+            System.out.println("   vuelva a cargarlo para ver los datos actuales.");
         } catch (VehiculoException e) {
             System.out.println("\n❌ Error: " + e.getMessage());
         } catch (NumberFormatException e) {
@@ -358,18 +372,26 @@ public class ConsoleUI {
     private void listarAutos() {
         System.out.println("\n--- LISTA DE AUTOS ---");
         
+        // Se muestran de a una página, pidiendo cada una con el cursor de la anterior
         try {
-            List<Vehiculo> autos = service.listarTodos("auto");
+            Pagina pagina = service.listarPagina("auto", 0, TAMANO_PAGINA);
             
-            if (autos.isEmpty()) {
+            if (pagina.estaVacia()) {
                 System.out.println("\n⚠️ No hay autos registrados.");
-            } else {
-                System.out.println("\nTotal de autos: " + autos.size());
-                System.out.println("═══════════════════════════════════════════════════════════════");
-                for (Vehiculo v : autos) {
-                    System.out.println(v);
-                    System.out.println("───────────────────────────────────────────────────────────────");
+            }
+            
+            int total = 0;
+            while (!pagina.estaVacia()) {
+                total += imprimirVehiculos(pagina.getVehiculos().stream());
+                
+                if (!pagina.hayMas() || !leerBoolean("\n¿Ver la página siguiente?")) {
+                    break;
                 }
+                pagina = service.listarPagina("auto", pagina.getSiguienteId(), TAMANO_PAGINA);
+            }
+            
+            if (total > 0) {
+                System.out.println("Autos mostrados: " + total);
             }
             
         } catch (VehiculoException e) {
@@ -387,26 +409,72 @@ public class ConsoleUI {
         
         try {
             String marca = leerTexto("Ingrese la marca a buscar: ");
-            List<Vehiculo> autos = service.buscarPorMarca(marca, "auto");
             
-            if (autos.isEmpty()) {
-                System.out.println("\n⚠️ No se encontraron autos de la marca: " + marca);
-            } else {
-                System.out.println("\nAutos encontrados: " + autos.size());
-                System.out.println("═══════════════════════════════════════════════════════════════");
-                for (Vehiculo v : autos) {
-                    System.out.println(v);
-                    System.out.println("───────────────────────────────────────────────────────────────");
+            try (Stream<Vehiculo> autos = service.recorrerPorMarca(marca, "auto")) {
+                int total = imprimirVehiculos(autos);
+                
+                if (total == 0) {
+                    System.out.println("\n⚠️ No se encontraron autos de la marca: " + marca);
+                } else {
+                    System.out.println("Autos encontrados: " + total);
                 }
             }
             
-        } catch (VehiculoException e) {
+        } catch (VehiculoException | UncheckedIOException e) {
             System.out.println("\n❌ Error: " + e.getMessage());
         }
         
         pausar();
     }
     
+    /**
+     * Consulta Autos con filtros sobre cualquier atributo
+     */
+    private void consultarAutos() {
+        System.out.println("\n--- CONSULTA AVANZADA DE AUTOS ---");
+        System.out.println("Ejemplo: numeroPuertas=4 AND tipoTransmision=Automática AND precio<30000 ORDER BY precio LIMIT 10");
+        System.out.println("Operadores: =, !=, <, <=, >, >=, ~ (contiene)");
+        
+        try {
+            String texto = leerTexto("Consulta: ");
+            Consulta consulta = service.interpretarConsulta("auto", texto);
+            PlanificadorConsultas.Plan plan = service.planificarConsulta(consulta);
+            System.out.println("Plan: " + plan.getDescripcion());
+            
+            List<Vehiculo> autos = plan.ejecutar();
+            int total = imprimirVehiculos(autos.stream());
+            
+            if (total == 0) {
+                System.out.println("\n⚠️ Ningún auto cumple la consulta.");
+            } else {
+                System.out.println("Autos encontrados: " + total);
+            }
+            
+        } catch (VehiculoException | UncheckedIOException e) {
+            System.out.println("\n❌ Error: " + e.getMessage());
+        }
+        
+        pausar();
+    }
+    
+    /**
+     * Imprime los vehículos a medida que llegan del Stream
+     * 
+     * @return Cantidad de vehículos impresos
+     */
+    private int imprimirVehiculos(Stream<Vehiculo> vehiculos) {
+        int total = 0;
+        for (Vehiculo v : (Iterable<Vehiculo>) vehiculos::iterator) {
+            if (total == 0) {
+                System.out.println("\n═══════════════════════════════════════════════════════════════");
+            }
+            System.out.println(v);
+            System.out.println("───────────────────────────────────────────────────────────────");
+            total++;
+        }
+        return total;
+    }
+    
     /**
      * Menú de gestión de Motos
      */
@@ -0,0 +1,570 @@
+package ui;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import exception.ConflictoVersionException;
+import exception.ValidationException;
+import exception.VehiculoDuplicadoException;
+import exception.VehiculoException;
+import exception.VehiculoNoEncontradoException;
+import model.Pagina;
+import model.ResultadoOperacion;
+import model.Vehiculo;
+import service.IVehiculoService;
+import util.JsonParser;
+import util.JsonWriter;
+import util.VehiculoFactory;
+import util.VehiculoJson;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * API HTTP/JSON embebida sobre IVehiculoService (com.sun.net.httpserver del JDK).
+ *
+ * Rutas ({tipo} = auto, moto o camion):
+ * <pre>
+ * GET    /vehiculos/{tipo}                       todos, en flujo
+ * GET    /vehiculos/{tipo}?despuesDe=0&tamano=50 una página
+ * GET    /vehiculos/{tipo}/buscar?marca=Toyota   por marca, en flujo
+ * GET    /vehiculos/{tipo}/buscar?q=precio&lt;5000  consulta (ver ConsultaParser)
+ * POST   /vehiculos/{tipo}                       crear (sin id se asigna el próximo)
+ * GET    /vehiculos/{tipo}/{id}                  obtener
+ * PUT    /vehiculos/{tipo}/{id}                  actualizar ("version" o If-Match obligatorio)
+ * DELETE /vehiculos/{tipo}/{id}                  eliminar
+ * POST   /vehiculos/{tipo}/lote                  crear un arreglo de vehículos
+ * PUT    /vehiculos/{tipo}/lote                  actualizar un arreglo de vehículos (cada uno con "version")
+ * DELETE /vehiculos/{tipo}/lote                  eliminar un arreglo de IDs
+ * </pre>
+ *
+ * Cada pedido se atiende en su propio hilo virtual. Los listados se escriben
+ * de a un vehículo por vez en una respuesta por partes (chunked), sin armar
+ * el documento en memoria; las demás respuestas llevan Content-Length, así
+ * la conexión queda abierta (keep-alive) para el próximo pedido. Si el
+ * cliente acepta gzip se comprimen los listados y las respuestas grandes.
+ *
+ * Las actualizaciones usan control de concurrencia optimista: cada vehículo
+ * lleva la versión que se leyó (campo "version" o encabezado If-Match con el
+ * ETag de la lectura). Sin versión se responde 428, para que un cliente que
+ * no la conoce no pise cambios ajenos.
+ *
+ * El servidor del JDK escribe encabezados y cuerpo por separado: conviene
+ * arrancar la JVM con -Dsun.net.httpserver.nodelay=true (Main lo activa),
+ * porque sin TCP_NODELAY Nagle y el ACK demorado del cliente suman ~40 ms
+ * por respuesta en conexiones keep-alive.
+ */
+public class ServidorHttp implements AutoCloseable {
+
+    static final String RAIZ = "/vehiculos/";
+
+    // Debajo de este tamaño comprimir no compensa
+    private static final int UMBRAL_GZIP = 1024;
+    private static final int MAX_CUERPO = 16 * 1024 * 1024;
+
+    private final IVehiculoService servicio;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+
+    /**
+     * @param servicio Servicio sobre el que opera la API
+     * @param puerto Puerto a escuchar (0 = uno libre cualquiera)
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public ServidorHttp(IVehiculoService servicio, int puerto) throws IOException {
+        this.servicio = servicio;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(ejecutor);
+        servidor.createContext(RAIZ, this::atender);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * @return Puerto en el que escucha el servidor
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Deja de aceptar conexiones y espera hasta un segundo los pedidos en curso
+     */
+    @Override
+    public void close() {
+        servidor.stop(1);
+        ejecutor.close();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // RUTEO
+    // ═══════════════════════════════════════════════════════
+
+    private void atender(HttpExchange pedido) {
+        try (pedido) {
+            try {
+                rutear(pedido);
+            } catch (ValidationException e) {
+                responderError(pedido, 400, e.getMessage(), e.getErrores());
+            } catch (ConflictoVersionException e) {
+                responderError(pedido, 409, e.getMessage(), null);
+            } catch (VehiculoException e) {
+                responderError(pedido, estadoDe(e), e.getMessage(), null);
+            } catch (IllegalArgumentException e) {
+                responderError(pedido, 400, e.getMessage(), null);
+            } catch (VersionRequeridaException e) {
+                responderError(pedido, 428, e.getMessage(), null);
+            } catch (CuerpoDemasiadoGrandeException e) {
+                responderError(pedido, 413, "El cuerpo del pedido supera " + MAX_CUERPO + " bytes", null);
+            } catch (RuntimeException e) {
+                // Falla del almacenamiento al recorrer (UncheckedIOException) o error inesperado
+                System.err.println("Error atendiendo " + pedido.getRequestURI() + ": " + e);
+                if (pedido.getResponseCode() == -1) {
+                    responderError(pedido, 500, "Error interno del servidor", null);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // El cliente cortó la conexión o falló una respuesta ya empezada: no hay a quién avisarle
+        } catch (RuntimeException e) {
+            System.err.println("Error inesperado atendiendo " + pedido.getRequestURI() + ": " + e);
+        }
+    }
+
+    private void rutear(HttpExchange pedido) throws IOException, ValidationException, VehiculoException {
+        String ruta = pedido.getRequestURI().getPath();
+        String[] partes = ruta.substring(RAIZ.length()).split("/");
+        String metodo = pedido.getRequestMethod();
+        String tipo = partes[0].toLowerCase();
+
+        if (!VehiculoFactory.esTipoValido(tipo) || partes.length > 2) {
+            responderError(pedido, 404, "Ruta no encontrada: " + ruta, null);
+            return;
+        }
+
+        if (partes.length == 1) {
+            switch (metodo) {
+                case "GET":
+                    listar(pedido, tipo);
+                    return;
+                case "POST":
+                    crear(pedido, tipo);
+                    return;
+                default:
+                    metodoNoPermitido(pedido, "GET, POST");
+                    return;
+            }
+        }
+
+        switch (partes[1]) {
+            case "buscar":
+                if ("GET".equals(metodo)) {
+                    buscar(pedido, tipo);
+                } else {
+                    metodoNoPermitido(pedido, "GET");
+                }
+                return;
+            case "lote":
+                lote(pedido, tipo, metodo);
+                return;
+            default:
+                break;
+        }
+
+        int id;
+        try {
+            id = Integer.parseInt(partes[1]);
+        } catch (NumberFormatException e) {
+            responderError(pedido, 404, "Ruta no encontrada: " + ruta, null);
+            return;
+        }
+        switch (metodo) {
+            case "GET":
+                responderVehiculo(pedido, 200, servicio.obtener(id, tipo));
+                return;
+            case "PUT":
+                actualizar(pedido, tipo, id);
+                return;
+            case "DELETE":
+                servicio.eliminar(id, tipo);
+                pedido.sendResponseHeaders(204, -1);
+                return;
+            default:
+                metodoNoPermitido(pedido, "GET, PUT, DELETE");
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // OPERACIONES
+    // ═══════════════════════════════════════════════════════
+
+    private void listar(HttpExchange pedido, String tipo) throws IOException, VehiculoException {
+        Map<String, String> parametros = parametros(pedido);
+        if (!parametros.containsKey("despuesDe") && !parametros.containsKey("tamano")) {
+            try (Stream<Vehiculo> vehiculos = servicio.recorrerTodos(tipo)) {
+                responderEnFlujo(pedido, vehiculos.iterator());
+            }
+            return;
+        }
+
+        Pagina pagina = servicio.listarPagina(tipo,
+                entero(parametros, "despuesDe", 0), entero(parametros, "tamano", 50));
+        responder(pedido, 200, json -> {
+            json.inicioObjeto().nombre("vehiculos").inicioArreglo();
+            for (Vehiculo vehiculo : pagina.getVehiculos()) {
+                VehiculoJson.escribir(json, vehiculo);
+            }
+            json.finArreglo().nombre("siguiente");
+            if (pagina.hayMas()) {
+                json.valor(pagina.getSiguienteId());
+            } else {
+                json.valorNulo();
+            }
+            json.finObjeto();
+        });
+    }
+
+    private void buscar(HttpExchange pedido, String tipo) throws IOException, VehiculoException {
+        Map<String, String> parametros = parametros(pedido);
+        if (parametros.containsKey("marca")) {
+            try (Stream<Vehiculo> vehiculos = servicio.recorrerPorMarca(parametros.get("marca"), tipo)) {
+                responderEnFlujo(pedido, vehiculos.iterator());
+            }
+        } else if (parametros.containsKey("q")) {
+            List<Vehiculo> vehiculos = servicio.consultar(servicio.interpretarConsulta(tipo, parametros.get("q")));
+            responderEnFlujo(pedido, vehiculos.iterator());
+        } else {
+            throw new IllegalArgumentException("Indique 'marca' o 'q' para buscar");
+        }
+    }
+
+    private void crear(HttpExchange pedido, String tipo) throws IOException, ValidationException, VehiculoException {
+        Vehiculo vehiculo = VehiculoJson.desdeJson(tipo, leerCuerpo(pedido));
+        if (vehiculo.getId() == 0) {
+            vehiculo.setId(servicio.obtenerProximoId(tipo));
+        }
+        servicio.crear(vehiculo);
+        pedido.getResponseHeaders().set("Location", RAIZ + tipo + "/" + vehiculo.getId());
+        responderVehiculo(pedido, 201, vehiculo);
+    }
+
+    private void actualizar(HttpExchange pedido, String tipo, int id)
+            throws IOException, ValidationException, VehiculoException {
+        Object cuerpo = leerCuerpo(pedido);
+        Vehiculo vehiculo = VehiculoJson.desdeJson(tipo, cuerpo);
+        if (vehiculo.getId() != 0 && vehiculo.getId() != id) {
+            throw new IllegalArgumentException("El ID del cuerpo (" + vehiculo.getId()
+                    + ") no coincide con el de la ruta (" + id + ")");
+        }
+        vehiculo.setId(id);
+
+        String ifMatch = pedido.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch != null) {
+            long version = versionDeEtag(ifMatch);
+            if (traeVersion(cuerpo) && vehiculo.getVersion() != version) {
+                throw new IllegalArgumentException("La versión del cuerpo (" + vehiculo.getVersion()
+                        + ") no coincide con la de If-Match (" + version + ")");
+            }
+            vehiculo.setVersion(version);
+        } else {
+            exigirVersion(cuerpo, vehiculo);
+        }
+        servicio.actualizar(vehiculo);
+        responderVehiculo(pedido, 200, vehiculo);
+    }
+
+    private void lote(HttpExchange pedido, String tipo, String metodo) throws IOException, VehiculoException {
+        List<ResultadoOperacion> resultados;
+        switch (metodo) {
+            case "POST":
+                List<Vehiculo> nuevos = vehiculosDelCuerpo(pedido, tipo);
+                for (Vehiculo vehiculo : nuevos) {
+                    if (vehiculo.getId() == 0) {
+                        vehiculo.setId(servicio.obtenerProximoId(tipo));
+                    }
+                }
+                resultados = servicio.crearTodos(nuevos);
+                break;
+            case "PUT":
+                List<Vehiculo> cambios = new ArrayList<>();
+                for (Object objeto : arregloDelCuerpo(pedido)) {
+                    Vehiculo vehiculo = VehiculoJson.desdeJson(tipo, objeto);
+                    exigirVersion(objeto, vehiculo);
+                    cambios.add(vehiculo);
+                }
+                resultados = servicio.actualizarTodos(cambios);
+                break;
+            case "DELETE":
+                List<Integer> ids = new ArrayList<>();
+                for (Object id : arregloDelCuerpo(pedido)) {
+                    if (!(id instanceof Long) || (Long) id != ((Long) id).intValue()) {
+                        throw new IllegalArgumentException("Se esperaba un arreglo de IDs enteros");
+                    }
+                    ids.add(((Long) id).intValue());
+                }
+                resultados = servicio.eliminarTodos(ids, tipo);
+                break;
+            default:
+                metodoNoPermitido(pedido, "POST, PUT, DELETE");
+                return;
+        }
+
+        responder(pedido, 200, json -> {
+            json.inicioArreglo();
+            for (ResultadoOperacion resultado : resultados) {
+                json.inicioObjeto()
+                    .campo("id", resultado.getId())
+                    .campo("exitoso", resultado.isExitoso());
+                if (!resultado.isExitoso()) {
+                    escribirErrores(json, resultado.getErrores());
+                }
+                json.finObjeto();
+            }
+            json.finArreglo();
+        });
+    }
+
+    private List<Vehiculo> vehiculosDelCuerpo(HttpExchange pedido, String tipo) throws IOException {
+        List<Vehiculo> vehiculos = new ArrayList<>();
+        for (Object objeto : arregloDelCuerpo(pedido)) {
+            vehiculos.add(VehiculoJson.desdeJson(tipo, objeto));
+        }
+        return vehiculos;
+    }
+
+    /**
+     * Una actualización debe traer la versión leída (0 solo si el registro
+     * nunca se versionó); las negativas quedan para usos internos
+     */
+    private static void exigirVersion(Object objeto, Vehiculo vehiculo) {
+        if (!traeVersion(objeto)) {
+            throw new VersionRequeridaException("Indique la versión leída del vehículo "
+                    + vehiculo.getId() + " (campo 'version' o encabezado If-Match)");
+        }
+        if (vehiculo.getVersion() < 0) {
+            throw new IllegalArgumentException("La versión no puede ser negativa");
+        }
+    }
+
+    private static boolean traeVersion(Object objeto) {
+        return objeto instanceof Map && ((Map<?, ?>) objeto).get("version") != null;
+    }
+
+    /**
+     * Versión de un ETag como los que se envían ("3"); no se acepta "*"
+     */
+    private static long versionDeEtag(String etag) {
+        String valor = etag.trim();
+        if (valor.length() > 1 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            valor = valor.substring(1, valor.length() - 1);
+        }
+        try {
+            long version = Long.parseLong(valor);
+            if (version >= 0) {
+                return version;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        throw new IllegalArgumentException("If-Match debe llevar el ETag de la lectura (ej: \"3\")");
+    }
+
+    private List<?> arregloDelCuerpo(HttpExchange pedido) throws IOException {
+        Object cuerpo = leerCuerpo(pedido);
+        if (!(cuerpo instanceof List)) {
+            throw new IllegalArgumentException("Se esperaba un arreglo JSON");
+        }
+        return (List<?>) cuerpo;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // PEDIDOS Y RESPUESTAS
+    // ═══════════════════════════════════════════════════════
+
+    private static Object leerCuerpo(HttpExchange pedido) throws IOException {
+        try (InputStream entrada = pedido.getRequestBody()) {
+            byte[] cuerpo = entrada.readNBytes(MAX_CUERPO + 1);
+            if (cuerpo.length > MAX_CUERPO) {
+                throw new CuerpoDemasiadoGrandeException();
+            }
+            return JsonParser.parsear(new String(cuerpo, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Parámetros de la consulta de la URL (sin repetidos: queda el último)
+     */
+    private static Map<String, String> parametros(HttpExchange pedido) {
+        String consulta = pedido.getRequestURI().getRawQuery();
+        if (consulta == null || consulta.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parametros = new HashMap<>();
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nombre = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static int entero(Map<String, String> parametros, String nombre, int porDefecto) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro '" + nombre + "' debe ser un número entero");
+        }
+    }
+
+    private static boolean aceptaGzip(HttpExchange pedido) {
+        for (String codificacion : pedido.getRequestHeaders().getOrDefault("Accept-Encoding", List.of())) {
+            if (codificacion.toLowerCase().contains("gzip")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void responderVehiculo(HttpExchange pedido, int estado, Vehiculo vehiculo) throws IOException {
+        pedido.getResponseHeaders().set("ETag", "\"" + vehiculo.getVersion() + "\"");
+        responder(pedido, estado, json -> VehiculoJson.escribir(json, vehiculo));
+    }
+
+    /**
+     * Responde un documento chico: se arma en memoria para enviar Content-Length
+     */
+    private static void responder(HttpExchange pedido, int estado, Contenido contenido) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (Writer escritor = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+            contenido.escribir(new JsonWriter(escritor));
+        }
+
+        Headers encabezados = pedido.getResponseHeaders();
+        encabezados.set("Content-Type", "application/json; charset=utf-8");
+        byte[] cuerpo = buffer.toByteArray();
+        if (cuerpo.length >= UMBRAL_GZIP && aceptaGzip(pedido)) {
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(cuerpo.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+                gzip.write(cuerpo);
+            }
+            cuerpo = comprimido.toByteArray();
+            encabezados.set("Content-Encoding", "gzip");
+            encabezados.set("Vary", "Accept-Encoding");
+        }
+
+        pedido.sendResponseHeaders(estado, cuerpo.length);
+        try (OutputStream salida = pedido.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    /**
+     * Responde un arreglo de vehículos escribiéndolo a medida que se recorre
+     */
+    private static void responderEnFlujo(HttpExchange pedido, Iterator<Vehiculo> vehiculos) throws IOException {
+        Headers encabezados = pedido.getResponseHeaders();
+        encabezados.set("Content-Type", "application/json; charset=utf-8");
+        boolean gzip = aceptaGzip(pedido);
+        if (gzip) {
+            encabezados.set("Content-Encoding", "gzip");
+            encabezados.set("Vary", "Accept-Encoding");
+        }
+
+        pedido.sendResponseHeaders(200, 0);
+        OutputStream salida = pedido.getResponseBody();
+        if (gzip) {
+            salida = new GZIPOutputStream(salida, 8192);
+        }
+        try (Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 8192)) {
+            JsonWriter json = new JsonWriter(escritor);
+            json.inicioArreglo();
+            while (vehiculos.hasNext()) {
+                VehiculoJson.escribir(json, vehiculos.next());
+            }
+            json.finArreglo();
+        }
+    }
+
+    private static void responderError(HttpExchange pedido, int estado, String mensaje, List<String> errores)
+            throws IOException {
+        responder(pedido, estado, json -> {
+            json.inicioObjeto().campo("error", mensaje);
+            if (errores != null && !errores.isEmpty()) {
+                escribirErrores(json, errores);
+            }
+            json.finObjeto();
+        });
+    }
+
+    private static void escribirErrores(JsonWriter json, List<String> errores) throws IOException {
+        json.nombre("errores").inicioArreglo();
+        for (String error : errores) {
+            json.valor(error);
+        }
+        json.finArreglo();
+    }
+
+    private static void metodoNoPermitido(HttpExchange pedido, String permitidos) throws IOException {
+        pedido.getResponseHeaders().set("Allow", permitidos);
+        responderError(pedido, 405, "Método no permitido: " + pedido.getRequestMethod(), null);
+    }
+
+    /**
+     * Estado HTTP de un error del servicio, según su tipo. Un error con una
+     * causa que no es de validación es una falla del almacenamiento (500);
+     * los demás son pedidos inválidos (400).
+     */
+    static int estadoDe(VehiculoException e) {
+        if (e instanceof VehiculoNoEncontradoException) {
+            return 404;
+        }
+        if (e instanceof VehiculoDuplicadoException) {
+            return 409;
+        }
+        if (e.getCause() != null && !(e.getCause() instanceof ValidationException)) {
+            return 500;
+        }
+        return 400;
+    }
+
+    @FunctionalInterface
+    private interface Contenido {
+        void escribir(JsonWriter json) throws IOException;
+    }
+
+    private static class CuerpoDemasiadoGrandeException extends RuntimeException {
+    }
+
+    private static class VersionRequeridaException extends RuntimeException {
+        VersionRequeridaException(String mensaje) {
+            super(mensaje);
+        }
+    }
+}
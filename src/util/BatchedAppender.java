@@ -0,0 +1,221 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canal de escritura al final de un archivo con agrupación de fsync.
+ *
+ * Cada llamada escribe su línea en el momento (con el bloqueo del archivo
+ * tomado por quien llama, así nadie ve líneas a medias) y recibe un
+ * CompletableFuture que se completa cuando la línea es durable. Un único
+ * hilo sincroniza el archivo por lotes: un fsync cubre todas las líneas
+ * escritas hasta ese momento, así que quien espera el futuro puede hacerlo
+ * después de soltar el bloqueo y los demás hilos agregan líneas al mismo lote.
+ *
+ * Un lote se cierra al alcanzar "maxLote" líneas o cuando pasa "maxLatenciaMs"
+ * desde que llegó su primera línea.
+ *
+ * Las escrituras no se agrupan en el hilo del lote: quien llama tiene el
+ * bloqueo exclusivo del archivo, así que un lote armado bajo ese bloqueo
+ * tendría una sola línea, y escribir después de soltarlo dejaría que otro
+ * hilo o proceso verifique un ID sin ver la línea todavía. Lo que se
+ * ahorra por lote es el fsync, que es lo caro; la escritura es un write
+ * sobre el canal ya abierto, sin abrir ni cerrar el archivo.
+ */
+public class BatchedAppender {
+
+    // Marca de fin encolada por cerrar()
+    private static final Pendiente FIN = new Pendiente();
+
+    private final Path ruta;
+    private final long maxLatenciaNanos;
+    private final int maxLote;
+    private final BlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final Thread sincronizador;
+    private final AtomicLong sincronizaciones = new AtomicLong();
+    private volatile boolean cerrado = false;
+
+    // Protegidos por "this"
+    private FileChannel canal;
+    private IOException errorApertura;
+
+    /**
+     * @param ruta Archivo al que se agregan las líneas
+     * @param maxLatenciaMs Tiempo máximo de espera para completar un lote
+     * @param maxLote Cantidad máxima de líneas por lote
+     */
+    public BatchedAppender(Path ruta, long maxLatenciaMs, int maxLote) {
+        if (maxLote < 1) {
+            throw new IllegalArgumentException("El tamaño máximo de lote debe ser al menos 1");
+        }
+        this.ruta = ruta;
+        this.maxLatenciaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLatenciaMs));
+        this.maxLote = maxLote;
+        try {
+            this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            this.errorApertura = e;
+            this.cerrado = true;
+        }
+        this.sincronizador = new Thread(this::ejecutar, "agregador-" + ruta.getFileName());
+        this.sincronizador.setDaemon(true);
+        this.sincronizador.start();
+    }
+
+    /**
+     * Escribe una línea al final del archivo y la encola para el próximo fsync
+     *
+     * @param linea Línea a agregar (sin salto de línea)
+     * @return Future que se completa cuando la línea está sincronizada; si la
+     *         escritura falla ya está completado con el error
+     */
+    public CompletableFuture<Void> agregar(String linea) {
+        Pendiente pendiente = new Pendiente();
+        ByteBuffer buffer = ByteBuffer.wrap((linea + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        synchronized (this) {
+            if (cerrado) {
+                pendiente.futuro.completeExceptionally(errorApertura != null ? errorApertura
+                        : new IOException("El canal de " + ruta + " está cerrado"));
+                return pendiente.futuro;
+            }
+            try {
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+            } catch (IOException e) {
+                pendiente.futuro.completeExceptionally(e);
+                return pendiente.futuro;
+            }
+            cola.add(pendiente);
+        }
+        return pendiente.futuro;
+    }
+
+    /**
+     * Sincroniza lo pendiente, detiene el hilo sincronizador y cierra el archivo.
+     * Debe llamarse antes de reemplazar o eliminar el archivo.
+     */
+    public void cerrar() {
+        synchronized (this) {
+            cerrado = true;
+        }
+        // No se interrumpe el hilo: interrumpir un FileChannel lo cierra a mitad de un fsync
+        cola.add(FIN);
+        try {
+            sincronizador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Indica si el canal ya no acepta líneas (cerrado o con error al abrir el archivo)
+     */
+    public boolean estaCerrado() {
+        return cerrado;
+    }
+
+    /**
+     * Cantidad de fsync hechos (uno por lote)
+     */
+    public long getSincronizaciones() {
+        return sincronizaciones.get();
+    }
+
+    private void ejecutar() {
+        List<Pendiente> lote = new ArrayList<>(maxLote);
+        boolean continuar = errorApertura == null;
+
+        while (continuar) {
+            continuar = armarLote(lote);
+            if (!lote.isEmpty()) {
+                sincronizarLote(lote);
+                lote.clear();
+            }
+        }
+
+        synchronized (this) {
+            cerrado = true;
+            if (canal != null) {
+                try {
+                    canal.close();
+                } catch (IOException e) {
+                    System.err.println("Advertencia: Error al cerrar " + ruta + ": " + e.getMessage());
+                }
+            }
+        }
+        fallarPendientes(new IOException("El canal de " + ruta + " está cerrado"));
+    }
+
+    /**
+     * Espera la primera línea y junta más hasta llenar el lote o agotar la latencia
+     *
+     * @return false si se pidió cerrar el canal
+     */
+    private boolean armarLote(List<Pendiente> lote) {
+        try {
+            lote.add(cola.take());
+            cola.drainTo(lote, maxLote - lote.size());
+
+            long limite = System.nanoTime() + maxLatenciaNanos;
+            while (lote.size() < maxLote && !lote.contains(FIN)) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    break;
+                }
+                Pendiente siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                if (siguiente == null) {
+                    break;
+                }
+                lote.add(siguiente);
+                cola.drainTo(lote, maxLote - lote.size());
+            }
+        } catch (InterruptedException e) {
+            return false;
+        }
+        return !lote.remove(FIN);
+    }
+
+    /**
+     * Las líneas del lote ya están escritas (se encolan después de escribirse):
+     * un solo fsync las cubre a todas
+     */
+    private void sincronizarLote(List<Pendiente> lote) {
+        try {
+            canal.force(false);
+            sincronizaciones.incrementAndGet();
+
+            for (Pendiente pendiente : lote) {
+                pendiente.futuro.complete(null);
+            }
+        } catch (IOException e) {
+            for (Pendiente pendiente : lote) {
+                pendiente.futuro.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void fallarPendientes(IOException causa) {
+        Pendiente pendiente;
+        while ((pendiente = cola.poll()) != null) {
+            pendiente.futuro.completeExceptionally(causa);
+        }
+    }
+
+    private static class Pendiente {
+        private final CompletableFuture<Void> futuro = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,315 @@
+package util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lock de lectura/escritura de un archivo de datos, entre hilos y entre procesos.
+ *
+ * Dentro de la JVM se usa un ReentrantReadWriteLock. El primer hilo que lo
+ * toma adquiere además un FileLock (compartido para leer, exclusivo para
+ * escribir) sobre un archivo auxiliar (ej: "autos.lock"), y el último en
+ * soltarlo lo libera. Se bloquea el auxiliar y no el CSV porque las
+ * reescrituras reemplazan el CSV con un renombrado.
+ *
+ * Para que los lectores de un proceso no posterguen sin límite a un escritor
+ * de otro, el escritor que espera toma además un byte de "turno" al final
+ * del rango. Un lector nuevo no se suma al FileLock compartido ya tomado
+ * si pasó UNION_LIBRE_MS desde que se tomó y hay un escritor con el turno:
+ * espera a que los lectores actuales lo suelten y lo vuelve a pedir detrás
+ * del escritor.
+ *
+ * El auxiliar guarda un contador de generación que aumenta con cada bloqueo
+ * de escritura. Quien mantiene en memoria el contenido del archivo compara
+ * la generación para saber si otro proceso (u otro repositorio) lo modificó.
+ *
+ * Hay una sola instancia por archivo en la JVM: los FileLock pertenecen al
+ * proceso y la JVM no admite dos sobre el mismo archivo.
+ */
+public class BloqueoArchivo {
+
+    private static final long PAUSA_MAXIMA_MS = 50;
+    private static final long UNION_LIBRE_MS = 20;
+    // Rango del bloqueo de los datos y byte del turno de los escritores
+    private static final long POSICION_TURNO = Long.MAX_VALUE - 1;
+    private static final Map<Path, BloqueoArchivo> instancias = new ConcurrentHashMap<>();
+
+    private final Path ruta;
+    private final ReentrantReadWriteLock local = new ReentrantReadWriteLock();
+
+    // Estado del FileLock, protegido por el monitor de la instancia
+    private FileChannel canal;
+    private FileLock bloqueoSo;
+    private int usos;
+    private long tomadoDesde;
+    private volatile long generacion;
+
+    // Métricas de espera
+    private final AtomicLong adquisiciones = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong tiemposAgotados = new AtomicLong();
+
+    private BloqueoArchivo(Path ruta) {
+        this.ruta = ruta;
+    }
+
+    /**
+     * Obtiene el lock de un archivo auxiliar, creándolo la primera vez
+     *
+     * @param ruta Ruta del archivo auxiliar (ej: "data/autos.lock")
+     */
+    static BloqueoArchivo obtener(Path ruta) {
+        return instancias.computeIfAbsent(ruta.toAbsolutePath().normalize(), BloqueoArchivo::new);
+    }
+
+    /**
+     * Bloquea el archivo para lectura: otros lectores pueden entrar, los escritores esperan
+     *
+     * @param esperaMaximaMs Tiempo máximo de espera
+     * @return Permiso que libera el bloqueo al cerrarse
+     * @throws IOException Si se agota la espera o falla el bloqueo del sistema operativo
+     */
+    public Permiso adquirirLectura(long esperaMaximaMs) throws IOException {
+        return adquirir(local.readLock(), true, esperaMaximaMs);
+    }
+
+    /**
+     * Bloquea el archivo para escritura, en forma exclusiva
+     *
+     * @param esperaMaximaMs Tiempo máximo de espera
+     * @return Permiso que libera el bloqueo al cerrarse
+     * @throws IOException Si se agota la espera o falla el bloqueo del sistema operativo
+     */
+    public Permiso adquirirEscritura(long esperaMaximaMs) throws IOException {
+        return adquirir(local.writeLock(), false, esperaMaximaMs);
+    }
+
+    public long getAdquisiciones() {
+        return adquisiciones.get();
+    }
+
+    public long getEsperaTotalNanos() {
+        return esperaTotalNanos.get();
+    }
+
+    public long getEsperaMaximaNanos() {
+        return esperaMaximaNanos.get();
+    }
+
+    public long getTiemposAgotados() {
+        return tiemposAgotados.get();
+    }
+
+    private Permiso adquirir(Lock lock, boolean compartido, long esperaMaximaMs) throws IOException {
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+
+        try {
+            if (!lock.tryLock(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                tiemposAgotados.incrementAndGet();
+                throw new IOException("Tiempo de espera agotado al bloquear " + ruta);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido al bloquear " + ruta);
+        }
+
+        try {
+            synchronized (this) {
+                // Un escritor con usos > 0 solo puede ser el mismo hilo
+                boolean reentrante = !compartido
+                        || local.getReadHoldCount() > 1 || local.isWriteLockedByCurrentThread();
+                if (usos > 0 && !reentrante) {
+                    esperarSiHayEscritor(limite);
+                }
+                if (usos == 0) {
+                    adquirirSo(compartido, limite);
+                } else if (!reentrante) {
+                    generacion = leerGeneracion();
+                }
+                usos++;
+            }
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+
+        long espera = System.nanoTime() - inicio;
+        adquisiciones.incrementAndGet();
+        esperaTotalNanos.addAndGet(espera);
+        esperaMaximaNanos.accumulateAndGet(espera, Math::max);
+        return new Permiso(lock);
+    }
+
+    /**
+     * Un lector que se suma a un FileLock compartido tomado hace más de
+     * UNION_LIBRE_MS espera a que se libere si un escritor de otro proceso
+     * tiene el turno. Se llama con el monitor tomado.
+     */
+    private void esperarSiHayEscritor(long limite) throws IOException {
+        if (System.nanoTime() - tomadoDesde < TimeUnit.MILLISECONDS.toNanos(UNION_LIBRE_MS)
+                || !escritorEsperando()) {
+            return;
+        }
+        while (usos > 0) {
+            long restanteMs = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+            if (restanteMs <= 0) {
+                tiemposAgotados.incrementAndGet();
+                throw new IOException("Tiempo de espera agotado: otro proceso espera para escribir " + ruta);
+            }
+            try {
+                wait(restanteMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrumpido al bloquear " + ruta);
+            }
+        }
+    }
+
+    /**
+     * Indica si otro proceso tiene el turno de escritura (un escritor espera)
+     */
+    private boolean escritorEsperando() throws IOException {
+        FileLock turno = canal.tryLock(POSICION_TURNO, 1, true);
+        if (turno == null) {
+            return true;
+        }
+        turno.release();
+        return false;
+    }
+
+    /**
+     * Adquiere el FileLock reintentando hasta el límite (otro proceso puede
+     * tenerlo) y actualiza la generación. Un escritor toma el turno mientras
+     * espera; un lector no entra mientras otro proceso lo tenga.
+     */
+    private void adquirirSo(boolean compartido, long limite) throws IOException {
+        if (canal == null) {
+            canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        FileLock turno = null;
+        try {
+            long pausaMs = 1;
+            while (true) {
+                if (!compartido && turno == null) {
+                    turno = canal.tryLock(POSICION_TURNO, 1, false);
+                }
+                if (!compartido || !escritorEsperando()) {
+                    bloqueoSo = canal.tryLock(0, POSICION_TURNO, compartido);
+                    if (bloqueoSo != null) {
+                        break;
+                    }
+                }
+                if (System.nanoTime() - limite >= 0) {
+                    tiemposAgotados.incrementAndGet();
+                    throw new IOException("Tiempo de espera agotado: otro proceso bloquea " + ruta);
+                }
+                try {
+                    Thread.sleep(pausaMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrumpido al bloquear " + ruta);
+                }
+                pausaMs = Math.min(pausaMs * 2, PAUSA_MAXIMA_MS);
+            }
+        } finally {
+            if (turno != null) {
+                turno.release();
+            }
+        }
+        tomadoDesde = System.nanoTime();
+
+        try {
+            long leida = leerGeneracion();
+            if (!compartido) {
+                leida++;
+                escribirGeneracion(leida);
+            }
+            generacion = leida;
+        } catch (IOException | RuntimeException e) {
+            liberarSo();
+            throw e;
+        }
+    }
+
+    private synchronized void liberar(Lock lock) {
+        try {
+            if (--usos == 0) {
+                liberarSo();
+                notifyAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void liberarSo() {
+        try {
+            bloqueoSo.release();
+        } catch (IOException e) {
+            System.err.println("Advertencia: Error al liberar el bloqueo de " + ruta + ": " + e.getMessage());
+        }
+        bloqueoSo = null;
+    }
+
+    private long leerGeneracion() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                return 0; // Archivo nuevo o vacío
+            }
+        }
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    private void escribirGeneracion(long valor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(valor);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, buffer.position());
+        }
+    }
+
+    /**
+     * Bloqueo adquirido; se libera con close (ej: con try-with-resources)
+     */
+    public class Permiso implements AutoCloseable {
+
+        private final Lock lock;
+        private boolean cerrado;
+
+        private Permiso(Lock lock) {
+            this.lock = lock;
+        }
+
+        /**
+         * @return Generación del archivo mientras el bloqueo está tomado
+         */
+        public long getGeneracion() {
+            return generacion;
+        }
+
+        @Override
+        public void close() {
+            if (!cerrado) {
+                cerrado = true;
+                liberar(lock);
+            }
+        }
+    }
+}
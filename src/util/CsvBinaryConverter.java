@@ -0,0 +1,105 @@
+package util;
+
+import model.Vehiculo;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversión entre los archivos CSV ("autos.csv", ...) y su versión binaria
+ * ("autos.bin", ...), en ambos sentidos y sin pérdida de datos.
+ */
+public class CsvBinaryConverter {
+
+    private static final String EXTENSION_TEMPORAL = ".bin.tmp";
+
+    private final FileManager fileManager;
+
+    // Constructor con inyección de dependencias
+    public CsvBinaryConverter(FileManager fileManager) {
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Genera el archivo binario a partir del CSV de un tipo.
+     * Las líneas mal formateadas no se pueden representar y se omiten con una advertencia.
+     *
+     * @param nombreArchivo Nombre del archivo de tipo ("autos", "motos", "camiones")
+     * @return Cantidad de vehículos convertidos
+     * @throws IOException Si hay error al leer o escribir
+     */
+    public int csvABinario(String nombreArchivo) throws IOException {
+        String tipo = VehiculoBinaryCodec.tipoDeArchivo(nombreArchivo);
+        List<Vehiculo> vehiculos = new ArrayList<>();
+
+        for (String linea : fileManager.leerArchivo(nombreArchivo)) {
+            try {
+                vehiculos.add(VehiculoFactory.crearDesdeCSV(tipo, linea));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Advertencia: Línea CSV mal formateada ignorada: " + linea);
+            }
+        }
+
+        // Se escribe en un temporal y se reemplaza de forma atómica
+        Path destino = fileManager.obtenerRuta(nombreArchivo, VehiculoBinaryCodec.EXTENSION);
+        Path temporal = fileManager.obtenerRuta(nombreArchivo, EXTENSION_TEMPORAL);
+        try {
+            VehiculoBinaryCodec.escribirArchivo(temporal, nombreArchivo, vehiculos);
+            try {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+
+        return vehiculos.size();
+    }
+
+    /**
+     * Genera el CSV de un tipo a partir de su archivo binario
+     *
+     * @param nombreArchivo Nombre del archivo de tipo ("autos", "motos", "camiones")
+     * @return Cantidad de vehículos convertidos
+     * @throws IOException Si hay error al leer o escribir, o si no existe el archivo binario
+     */
+    public int binarioACsv(String nombreArchivo) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        for (Vehiculo vehiculo : leerBinario(nombreArchivo).values()) {
+            lineas.add(vehiculo.toCSV());
+        }
+        fileManager.escribirArchivo(nombreArchivo, lineas);
+        return lineas.size();
+    }
+
+    /**
+     * Lee los vehículos vigentes de un archivo binario. Si un ID aparece más
+     * de una vez (actualización interrumpida), vale el último registro.
+     *
+     * @return Mapa id → vehículo en el orden de aparición
+     */
+    public Map<Integer, Vehiculo> leerBinario(String nombreArchivo) throws IOException {
+        Path ruta = fileManager.obtenerRuta(nombreArchivo, VehiculoBinaryCodec.EXTENSION);
+        Map<Integer, Vehiculo> vehiculos = new LinkedHashMap<>();
+        VehiculoBinaryCodec.Diccionario diccionario = new VehiculoBinaryCodec.Diccionario();
+
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            VehiculoBinaryCodec.recorrer(canal, nombreArchivo, diccionario, (posicion, vivo, contenido) -> {
+                if (vivo) {
+                    Vehiculo vehiculo = VehiculoBinaryCodec.leerRegistro(contenido, nombreArchivo, diccionario);
+                    vehiculos.put(vehiculo.getId(), vehiculo);
+                }
+            });
+        }
+        return vehiculos;
+    }
+}
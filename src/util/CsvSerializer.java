@@ -0,0 +1,181 @@
+package util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arma líneas CSV sobre un StringBuilder reutilizable, sin String.format.
+ *
+ * Los decimales se escriben siempre con punto y dos decimales, sin importar la
+ * configuración regional, con el mismo redondeo que "%.2f" (HALF_UP sobre la
+ * representación decimal más corta del double).
+ *
+ * Los campos de texto que contienen comas o comillas se escriben entre comillas
+ * dobles (las comillas internas se duplican); CsvTokenizer los lee de vuelta.
+ * Como cada registro ocupa una línea, los saltos de línea se reemplazan por espacios.
+ *
+ * La versión del registro va como último campo opcional con prefijo
+ * ("...,true,v3"), así no se confunde con un precio escrito con coma decimal.
+ */
+public final class CsvSerializer {
+
+    private static final char SEPARADOR = ',';
+    private static final char COMILLA = '"';
+    public static final char PREFIJO_VERSION = 'v';
+
+    // Hasta este valor, precio * 100 se calcula con error muy inferior a 0.001
+    private static final double MAX_CAMINO_RAPIDO = 1e11;
+    private static final double MARGEN_REDONDEO = 1e-3;
+
+    private static final ThreadLocal<CsvSerializer> POR_HILO = ThreadLocal.withInitial(CsvSerializer::new);
+
+    private final StringBuilder buffer = new StringBuilder(128);
+    private boolean primerCampo = true;
+
+    /**
+     * Obtiene el serializador del hilo actual, vacío y listo para una nueva línea
+     */
+    public static CsvSerializer linea() {
+        return POR_HILO.get().reiniciar();
+    }
+
+    /**
+     * Vacía el buffer para armar una nueva línea
+     */
+    public CsvSerializer reiniciar() {
+        buffer.setLength(0);
+        primerCampo = true;
+        return this;
+    }
+
+    public CsvSerializer entero(int valor) {
+        separar();
+        buffer.append(valor);
+        return this;
+    }
+
+    public CsvSerializer booleano(boolean valor) {
+        separar();
+        buffer.append(valor);
+        return this;
+    }
+
+    /**
+     * Agrega un decimal con dos decimales (equivalente a "%.2f" con Locale.ROOT)
+     */
+    public CsvSerializer decimal(double valor) {
+        separar();
+        formatearDecimal(buffer, valor);
+        return this;
+    }
+
+    /**
+     * Agrega un campo de texto, entre comillas si contiene comas o comillas
+     */
+    public CsvSerializer texto(String valor) {
+        separar();
+        if (valor == null) {
+            buffer.append("null");
+            return this;
+        }
+
+        if (!necesitaComillas(valor)) {
+            buffer.append(valor);
+            return this;
+        }
+
+        buffer.append(COMILLA);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == COMILLA) {
+                buffer.append(COMILLA).append(COMILLA);
+            } else if (c == '\n' || c == '\r') {
+                buffer.append(' ');
+            } else {
+                buffer.append(c);
+            }
+        }
+        buffer.append(COMILLA);
+        return this;
+    }
+
+    /**
+     * Agrega la versión del registro como último campo ("v3"); la versión 0
+     * (registro sin versionar) no se escribe
+     */
+    public CsvSerializer version(long valor) {
+        if (valor != 0) {
+            separar();
+            buffer.append(PREFIJO_VERSION).append(valor);
+        }
+        return this;
+    }
+
+    /**
+     * Obtiene la línea armada
+     */
+    public String construir() {
+        return buffer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return construir();
+    }
+
+    /**
+     * Escribe un decimal con dos decimales y punto como separador decimal
+     *
+     * @param destino Buffer de salida
+     * @param valor Valor a escribir
+     */
+    public static void formatearDecimal(StringBuilder destino, double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            destino.append(valor);
+            return;
+        }
+        if (Double.doubleToRawLongBits(valor) < 0) {
+            // Igual que "%.2f": el signo se conserva aunque redondee a cero
+            destino.append('-');
+            valor = -valor;
+        }
+
+        if (valor < MAX_CAMINO_RAPIDO) {
+            double escalado = valor * 100;
+            double entero = Math.floor(escalado);
+            double fraccion = escalado - entero;
+
+            // Lejos de .5 el error de la multiplicación no cambia el redondeo
+            if (Math.abs(fraccion - 0.5) > MARGEN_REDONDEO) {
+                long centavos = (long) entero + (fraccion > 0.5 ? 1 : 0);
+                destino.append(centavos / 100).append('.');
+                long resto = centavos % 100;
+                if (resto < 10) {
+                    destino.append('0');
+                }
+                destino.append(resto);
+                return;
+            }
+        }
+
+        destino.append(BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    private void separar() {
+        if (primerCampo) {
+            primerCampo = false;
+        } else {
+            buffer.append(SEPARADOR);
+        }
+    }
+
+    private static boolean necesitaComillas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == SEPARADOR || c == COMILLA || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
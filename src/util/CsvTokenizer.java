@@ -0,0 +1,407 @@
+package util;
+
+/**
+ * Cursor de campos sobre una línea CSV.
+ *
+ * Recorre la línea sin dividirla: no crea arreglos ni Strings intermedios,
+ * y los enteros, decimales y booleanos se interpretan directamente desde
+ * los caracteres. Solo los campos de texto generan un String.
+ *
+ * Un campo que empieza con comillas dobles puede contener comas y comillas
+ * duplicadas (""), como los escribe CsvSerializer.
+ *
+ * Cada campo se recorta como con String.trim(). Los valores numéricos tienen
+ * la misma semántica que Integer.parseInt y Double.parseDouble: los casos
+ * simples se resuelven en el lugar y el resto se delega al JDK.
+ */
+public final class CsvTokenizer {
+
+    private static final char SEPARADOR = ',';
+    private static final char COMILLA = '"';
+    private static final long MAX_MANTISA_EXACTA = 1L << 53;
+    private static final double[] POTENCIAS_DE_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharSequence linea;
+    private int inicioLinea;
+    private int finLinea;
+    private int posicion;
+    private boolean agotado;
+
+    // Rango del último campo leído (ya recortado y sin comillas)
+    private int inicioCampo;
+    private int finCampo;
+    private boolean campoConComillasEscapadas;
+
+    // Constructor
+    public CsvTokenizer(CharSequence linea) {
+        reiniciar(linea);
+    }
+
+    /**
+     * Reutiliza el cursor sobre otra línea
+     *
+     * @param linea Línea CSV
+     * @return El mismo cursor
+     */
+    public CsvTokenizer reiniciar(CharSequence linea) {
+        this.linea = linea;
+        this.inicioLinea = 0;
+        this.finLinea = linea.length();
+        while (inicioLinea < finLinea && linea.charAt(inicioLinea) <= ' ') {
+            inicioLinea++;
+        }
+        while (finLinea > inicioLinea && linea.charAt(finLinea - 1) <= ' ') {
+            finLinea--;
+        }
+        this.posicion = inicioLinea;
+        this.agotado = false;
+        return this;
+    }
+
+    /**
+     * Indica si la línea (recortada) está vacía
+     */
+    public boolean estaVacia() {
+        return inicioLinea == finLinea;
+    }
+
+    /**
+     * Cuenta los campos de la línea con la misma regla que String.split(","):
+     * los campos vacíos al final no se cuentan
+     *
+     * @return Cantidad de campos
+     */
+    public int contarCampos() {
+        if (estaVacia()) {
+            return 1;
+        }
+        int campos = 0;
+        int camposHastaUltimoNoVacio = 0;
+        int inicio = inicioLinea;
+
+        while (true) {
+            int fin = buscarFinDeCampo(inicio);
+            campos++;
+            if (fin > inicio) {
+                camposHastaUltimoNoVacio = campos;
+            }
+            if (fin >= finLinea) {
+                return camposHastaUltimoNoVacio;
+            }
+            inicio = fin + 1;
+        }
+    }
+
+    /**
+     * Quita el campo de versión del final de la línea ("...,v3"), si lo hay,
+     * para que contarCampos y la lectura de campos no lo incluyan.
+     * Debe llamarse antes de leer el primer campo.
+     *
+     * @return La versión, o 0 si la línea no la tiene
+     */
+    public long quitarVersion() {
+        int i = finLinea;
+        while (i > inicioLinea && linea.charAt(i - 1) >= '0' && linea.charAt(i - 1) <= '9') {
+            i--;
+        }
+        int finDigitos = finLinea;
+        if (i == finDigitos || i - 1 <= inicioLinea || linea.charAt(i - 1) != CsvSerializer.PREFIJO_VERSION) {
+            return 0;
+        }
+        int separador = i - 2;
+        while (separador > inicioLinea && linea.charAt(separador) <= ' ') {
+            separador--;
+        }
+        if (linea.charAt(separador) != SEPARADOR || finDigitos - i > 18) {
+            return 0;
+        }
+
+        long version = 0;
+        for (int j = i; j < finDigitos; j++) {
+            version = version * 10 + (linea.charAt(j) - '0');
+        }
+        finLinea = separador;
+        while (finLinea > inicioLinea && linea.charAt(finLinea - 1) <= ' ') {
+            finLinea--;
+        }
+        return version;
+    }
+
+    /**
+     * Indica si quedan campos por leer
+     */
+    public boolean hayMasCampos() {
+        return !agotado;
+    }
+
+    /**
+     * Lee el siguiente campo como texto (recortado)
+     */
+    public String siguienteTexto() {
+        avanzarCampo();
+        if (!campoConComillasEscapadas) {
+            return linea.subSequence(inicioCampo, finCampo).toString();
+        }
+
+        StringBuilder texto = new StringBuilder(finCampo - inicioCampo);
+        for (int i = inicioCampo; i < finCampo; i++) {
+            char c = linea.charAt(i);
+            texto.append(c);
+            if (c == COMILLA) {
+                i++; // "" representa una sola comilla
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Salta el siguiente campo sin interpretarlo
+     */
+    public void saltarCampo() {
+        avanzarCampo();
+    }
+
+    /**
+     * Lee el siguiente campo como entero
+     *
+     * @throws NumberFormatException Si el campo no es un entero válido
+     */
+    public int siguienteEntero() {
+        avanzarCampo();
+        return parsearEntero(linea, inicioCampo, finCampo);
+    }
+
+    /**
+     * Lee el siguiente campo como decimal
+     *
+     * @throws NumberFormatException Si el campo no es un número válido
+     */
+    public double siguienteDouble() {
+        avanzarCampo();
+        return parsearDouble(linea, inicioCampo, finCampo);
+    }
+
+    /**
+     * Lee un decimal escrito con coma decimal, que ocupa dos campos
+     * (ej: "2000000,50" → 2000000.50). Corresponde a líneas generadas con
+     * una configuración regional que usa coma como separador decimal.
+     *
+     * @throws NumberFormatException Si los campos no forman un número válido
+     */
+    public double siguienteDoubleConComaDecimal() {
+        avanzarCampo();
+        int inicioEntera = inicioCampo;
+        int finEntera = finCampo;
+        avanzarCampo();
+
+        double valor = parsearDecimalSimple(linea, inicioEntera, finEntera, inicioCampo, finCampo);
+        if (!Double.isNaN(valor)) {
+            return valor;
+        }
+        return Double.parseDouble(linea.subSequence(inicioEntera, finEntera) + "."
+                + linea.subSequence(inicioCampo, finCampo));
+    }
+
+    /**
+     * Lee el siguiente campo como booleano, igual que Boolean.parseBoolean
+     */
+    public boolean siguienteBoolean() {
+        avanzarCampo();
+        if (finCampo - inicioCampo != 4) {
+            return false;
+        }
+        return (linea.charAt(inicioCampo) | 0x20) == 't'
+                && (linea.charAt(inicioCampo + 1) | 0x20) == 'r'
+                && (linea.charAt(inicioCampo + 2) | 0x20) == 'u'
+                && (linea.charAt(inicioCampo + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Ubica el siguiente campo, recorta sus espacios y quita las comillas
+     */
+    private void avanzarCampo() {
+        if (agotado) {
+            throw new IllegalArgumentException("No hay más campos en la línea CSV");
+        }
+        int inicio = posicion;
+        int fin = buscarFinDeCampo(inicio);
+
+        if (fin < finLinea) {
+            posicion = fin + 1;
+        } else {
+            agotado = true;
+        }
+
+        while (inicio < fin && linea.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && linea.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+
+        campoConComillasEscapadas = false;
+        if (inicio < fin && linea.charAt(inicio) == COMILLA) {
+            // Contenido entre la comilla inicial y su cierre
+            int i = inicio + 1;
+            while (i < fin) {
+                if (linea.charAt(i) == COMILLA) {
+                    if (i + 1 < fin && linea.charAt(i + 1) == COMILLA) {
+                        campoConComillasEscapadas = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            inicio++;
+            fin = i;
+        }
+        inicioCampo = inicio;
+        finCampo = fin;
+    }
+
+    /**
+     * Busca el separador que cierra el campo que empieza en "desde".
+     * Las comas dentro de un campo entre comillas no cuentan.
+     *
+     * @return Posición del separador, o el fin de la línea
+     */
+    private int buscarFinDeCampo(int desde) {
+        int i = desde;
+        while (i < finLinea && linea.charAt(i) <= ' ') {
+            i++;
+        }
+        if (i < finLinea && linea.charAt(i) == COMILLA) {
+            i++;
+            while (i < finLinea) {
+                if (linea.charAt(i) == COMILLA) {
+                    if (i + 1 < finLinea && linea.charAt(i + 1) == COMILLA) {
+                        i += 2;
+                        continue;
+                    }
+                    i++;
+                    break;
+                }
+                i++;
+            }
+        }
+        while (i < finLinea && linea.charAt(i) != SEPARADOR) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Interpreta un entero desde un rango de caracteres
+     *
+     * @throws NumberFormatException Si el rango no es un entero válido
+     */
+    static int parsearEntero(CharSequence texto, int inicio, int fin) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fin && (texto.charAt(i) == '-' || texto.charAt(i) == '+')) {
+            negativo = texto.charAt(i) == '-';
+            i++;
+        }
+        if (i == fin) {
+            return Integer.parseInt(texto.subSequence(inicio, fin).toString());
+        }
+
+        long valor = 0;
+        for (; i < fin; i++) {
+            int digito = texto.charAt(i) - '0';
+            if (digito < 0 || digito > 9 || valor > Integer.MAX_VALUE) {
+                // Dígitos no ASCII o desbordamiento: el JDK decide
+                return Integer.parseInt(texto.subSequence(inicio, fin).toString());
+            }
+            valor = valor * 10 + digito;
+        }
+
+        valor = negativo ? -valor : valor;
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            return Integer.parseInt(texto.subSequence(inicio, fin).toString());
+        }
+        return (int) valor;
+    }
+
+    /**
+     * Interpreta un decimal desde un rango de caracteres
+     *
+     * @throws NumberFormatException Si el rango no es un número válido
+     */
+    static double parsearDouble(CharSequence texto, int inicio, int fin) {
+        int punto = -1;
+        for (int i = inicio; i < fin; i++) {
+            if (texto.charAt(i) == '.') {
+                punto = i;
+                break;
+            }
+        }
+
+        double valor = punto < 0
+                ? parsearDecimalSimple(texto, inicio, fin, fin, fin)
+                : parsearDecimalSimple(texto, inicio, punto, punto + 1, fin);
+        if (!Double.isNaN(valor)) {
+            return valor;
+        }
+        // Exponentes, demasiados dígitos, NaN, hexadecimales...: el JDK decide
+        return Double.parseDouble(texto.subSequence(inicio, fin).toString());
+    }
+
+    /**
+     * Camino rápido para "[+-]entera[.fraccion]": si la mantisa cabe exactamente
+     * en un double y hay como mucho 22 decimales, mantisa / 10^decimales es el
+     * resultado correctamente redondeado (igual que Double.parseDouble).
+     *
+     * @return El valor, o NaN si el texto no es un caso simple
+     */
+    private static double parsearDecimalSimple(CharSequence texto, int inicioEntera, int finEntera,
+                                               int inicioFraccion, int finFraccion) {
+        int i = inicioEntera;
+        boolean negativo = false;
+        if (i < finEntera && (texto.charAt(i) == '-' || texto.charAt(i) == '+')) {
+            negativo = texto.charAt(i) == '-';
+            i++;
+        }
+
+        int decimales = finFraccion - inicioFraccion;
+        if (i == finEntera && decimales == 0) {
+            return Double.NaN;
+        }
+
+        // Los ceros a la izquierda no cuentan como dígitos significativos
+        long mantisa = 0;
+        int digitos = 0;
+        for (; i < finEntera; i++) {
+            int digito = texto.charAt(i) - '0';
+            if (digito < 0 || digito > 9 || digitos == 18) {
+                return Double.NaN;
+            }
+            mantisa = mantisa * 10 + digito;
+            if (mantisa > 0) {
+                digitos++;
+            }
+        }
+        for (int j = inicioFraccion; j < finFraccion; j++) {
+            int digito = texto.charAt(j) - '0';
+            if (digito < 0 || digito > 9 || digitos == 18) {
+                return Double.NaN;
+            }
+            mantisa = mantisa * 10 + digito;
+            if (mantisa > 0) {
+                digitos++;
+            }
+        }
+
+        if (mantisa > MAX_MANTISA_EXACTA || decimales >= POTENCIAS_DE_10.length) {
+            return Double.NaN;
+        }
+
+        double valor = decimales == 0 ? mantisa : mantisa / POTENCIAS_DE_10[decimales];
+        return negativo ? -valor : valor;
+    }
+}
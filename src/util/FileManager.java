@@ -1,14 +1,45 @@
 package util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32;
 
 public class FileManager {
     
     private static final String DATA_DIRECTORY = "data";
     private static final String FILE_EXTENSION = ".csv";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String LOCK_EXTENSION = ".lock";
+    
+    // Agrupación de escrituras en agregarLinea (desactivada por defecto)
+    private boolean agrupacionActiva = false;
+    private long maxLatenciaMs = 2;
+    private int maxLote = 256;
+    private final Map<String, BatchedAppender> canalesAgregado = new HashMap<>();
+    
+    // Tamaño de ventana para recorrer archivos mapeados en memoria
+    private long tamanoVentanaMapeo = MappedLineReader.VENTANA_DEFECTO;
+    
+    // En Windows un archivo mapeado no se puede reemplazar hasta que se libera el mapeo
+    private volatile boolean mapeoActivo = !System.getProperty("os.name", "").startsWith("Windows");
+    
+    // Espera máxima para bloquear un archivo (otro hilo u otro proceso puede tenerlo)
+    private volatile long esperaMaximaBloqueoMs = 10_000;
+    
+    // Generación del archivo cuando se abrió cada canal agrupado
+    private final Map<String, Long> generacionesAgregado = new HashMap<>();
+    
+    // Fsync de los canales agrupados ya cerrados
+    private long sincronizacionesCerradas = 0;
     
     // Constructor
     public FileManager() {
@@ -38,48 +69,265 @@ public class FileManager {
      * @throws IOException Si hay error al leer el archivo
      */
     public List<String> leerArchivo(String nombreArchivo) throws IOException {
+        // Se recorre el archivo sin cargarlo entero: solo se guardan las líneas filtradas
+        List<String> lineasFiltradas = new ArrayList<>();
+        recorrerLineas(nombreArchivo, linea -> lineasFiltradas.add(linea.toString()));
+        return lineasFiltradas;
+    }
+    
+    /**
+     * Recorre las líneas no vacías de un archivo CSV sobre el archivo mapeado
+     * en memoria, sin cargarlo completo. Sirve para archivos más grandes que el heap.
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param visitante Recibe cada línea (sin espacios al inicio ni al final);
+     *                  si devuelve false se detiene el recorrido
+     * @throws IOException Si hay error al leer el archivo
+     */
+    public void recorrerLineas(String nombreArchivo, VisitanteLinea visitante) throws IOException {
+        recorrerLineas(nombreArchivo, visitante, mapeoActivo);
+    }
+    
+    private void recorrerLineas(String nombreArchivo, VisitanteLinea visitante, boolean mapear) throws IOException {
         String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
         Path path = Paths.get(rutaCompleta);
         
-        // Si el archivo no existe, retornar lista vacía
-        if (!Files.exists(path)) {
-            return new ArrayList<>();
+        conBloqueoLectura(nombreArchivo, () -> {
+            // Si el archivo no existe, no hay líneas
+            if (Files.exists(path)) {
+                new MappedLineReader(tamanoVentanaMapeo, mapear).recorrer(path, visitante);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Abre un cursor sobre las líneas no vacías de un archivo CSV, para
+     * recorrerlas a pedido (ej: desde un Stream). El cursor debe cerrarse.
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return El cursor, o null si el archivo no existe
+     * @throws IOException Si hay error al abrir el archivo
+     */
+    public MappedLineReader.Cursor abrirLineas(String nombreArchivo) throws IOException {
+        Path path = Paths.get(obtenerRutaCompleta(nombreArchivo));
+        // El bloqueo se toma solo al abrir: el cursor queda fijo en el archivo de ese momento
+        try {
+            return conBloqueoLectura(nombreArchivo,
+                    () -> new MappedLineReader(tamanoVentanaMapeo, mapeoActivo).abrir(path));
+        } catch (NoSuchFileException e) {
+            return null;
         }
+    }
+
+    /**
+     * Configura el tamaño de las ventanas con las que se mapean los archivos
+     * en recorrerLineas (por defecto 256 MB)
+     * 
+     * @param bytes Tamaño de ventana en bytes
+     */
+    public void configurarVentanaMapeo(long bytes) {
+        if (bytes < 1 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamaño de ventana inválido: " + bytes);
+        }
+        this.tamanoVentanaMapeo = bytes;
+    }
+    
+    /**
+     * Activa o desactiva el mapeo en memoria al recorrer archivos (por
+     * defecto activo, salvo en Windows). Sin mapeo se usan lecturas posicionales.
+     * 
+     * @param activo true para mapear los archivos grandes
+     */
+    public void configurarMapeo(boolean activo) {
+        this.mapeoActivo = activo;
+    }
+    
+    /**
+     * Lee una sola línea de un archivo CSV mediante lectura posicional,
+     * sin cargar el resto del archivo
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param offset Posición en bytes donde empieza la línea
+     * @param longitud Longitud en bytes de la línea (sin salto de línea)
+     * @return La línea leída, sin espacios al inicio ni al final
+     * @throws IOException Si hay error al leer el archivo
+     */
+    public String leerLinea(String nombreArchivo, long offset, int longitud) throws IOException {
+        String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
+        Path path = Paths.get(rutaCompleta);
         
-        List<String> lineas = Files.readAllLines(path, java.nio.charset.StandardCharsets.UTF_8);
-        // Filtrar líneas vacías
-        List<String> lineasFiltradas = new ArrayList<>();
-        for (String linea : lineas) {
-            if (linea != null && !linea.trim().isEmpty()) {
-                lineasFiltradas.add(linea.trim());
+        return conBloqueoLectura(nombreArchivo, () -> {
+            try (FileChannel canal = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(longitud);
+                while (buffer.hasRemaining()) {
+                    if (canal.read(buffer, offset + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                return new String(buffer.array(), 0, buffer.position(), java.nio.charset.StandardCharsets.UTF_8).trim();
             }
-        }
-        return lineasFiltradas;
+        });
     }
     
     /**
      * Escribe líneas en un archivo CSV (sobrescribe el contenido)
      * 
+     * El contenido se escribe en un archivo temporal, se sincroniza con el disco
+     * y luego reemplaza al original con un renombrado atómico. Si el proceso se
+     * interrumpe, el archivo queda con el contenido anterior o el nuevo, nunca a medias.
+     * 
      * @param nombreArchivo Nombre del archivo sin extensión
      * @param lineas Lista de líneas a escribir
      * @throws IOException Si hay error al escribir
      */
     public void escribirArchivo(String nombreArchivo, List<String> lineas) throws IOException {
+        reemplazarArchivo(nombreArchivo, null, escritor -> {
+            for (String linea : lineas) {
+                escritor.write(linea);
+                escritor.write(System.lineSeparator());
+            }
+        });
+    }
+    
+    /**
+     * Reescribe un archivo CSV línea por línea sin cargarlo en memoria: cada
+     * línea del archivo actual pasa por el transformador y el resultado se
+     * escribe en el archivo nuevo, que reemplaza al original de forma atómica.
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param transformador Devuelve la línea a escribir, o null para descartarla
+     * @throws IOException Si hay error al leer o escribir
+     */
+    public void reescribirArchivo(String nombreArchivo, TransformadorLinea transformador) throws IOException {
+        reescribirArchivo(nombreArchivo, transformador, null);
+    }
+    
+    /**
+     * Reescribe un archivo CSV como {@link #reescribirArchivo(String, TransformadorLinea)},
+     * ejecutando una acción cuando el archivo nuevo ya está en disco y antes
+     * de que reemplace al original (ej: registrar en el WAL solo los cambios
+     * que el transformador realmente aplicó)
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param transformador Devuelve la línea a escribir, o null para descartarla
+     * @param antesDeReemplazar Acción a ejecutar antes del reemplazo (puede ser null);
+     *                          si lanza una excepción el original no se modifica
+     * @throws IOException Si hay error al leer o escribir
+     */
+    public void reescribirArchivo(String nombreArchivo, TransformadorLinea transformador,
+                                  AccionArchivo antesDeReemplazar) throws IOException {
+        // Sin mapeo: un mapeo vivo sobre el original impediría reemplazarlo en Windows
+        reemplazarArchivo(nombreArchivo, antesDeReemplazar, escritor -> recorrerLineas(nombreArchivo, linea -> {
+            CharSequence resultado = transformador.transformar(linea);
+            if (resultado != null) {
+                escritor.append(resultado);
+                escritor.write(System.lineSeparator());
+            }
+            return true;
+        }, false));
+    }
+    
+    /**
+     * Escribe el contenido nuevo en un archivo temporal, lo sincroniza con el
+     * disco y luego reemplaza al original con un renombrado atómico. Si el
+     * proceso se interrumpe, el archivo queda con el contenido anterior o el
+     * nuevo, nunca a medias.
+     */
+    private void reemplazarArchivo(String nombreArchivo, AccionArchivo antesDeReemplazar,
+                                   EscrituraContenido contenido) throws IOException {
         String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
         Path path = Paths.get(rutaCompleta);
+        Path temporal = Paths.get(rutaCompleta + TEMP_EXTENSION);
         
-        Files.write(path, lineas, java.nio.charset.StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        conBloqueoEscritura(nombreArchivo, () -> {
+            liberarCanalAgregado(nombreArchivo);
+            
+            try {
+                try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    Writer escritor = new BufferedWriter(
+                            Channels.newWriter(canal, java.nio.charset.StandardCharsets.UTF_8), 64 * 1024);
+                    contenido.escribir(escritor);
+                    escritor.flush();
+                    canal.force(true);
+                }
+                
+                if (antesDeReemplazar != null) {
+                    antesDeReemplazar.ejecutar();
+                }
+                try {
+                    Files.move(temporal, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporal, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                // El temporal se borra con el bloqueo tomado: otro proceso usa el mismo nombre
+                Files.deleteIfExists(temporal);
+            }
+            return null;
+        });
     }
     
     /**
-     * Agrega una línea al final de un archivo CSV
+     * Activa la agrupación de escrituras en agregarLinea: las líneas de
+     * varios hilos se escriben por lotes con un solo fsync por lote
+     * 
+     * @param maxLatenciaMs Tiempo máximo que una línea espera a que se complete su lote
+     * @param maxLote Cantidad máxima de líneas por lote
+     */
+    public synchronized void configurarAgrupacion(long maxLatenciaMs, int maxLote) {
+        if (maxLote < 1) {
+            throw new IllegalArgumentException("El tamaño máximo de lote debe ser al menos 1");
+        }
+        cerrarCanalesAgregado();
+        this.agrupacionActiva = true;
+        this.maxLatenciaMs = maxLatenciaMs;
+        this.maxLote = maxLote;
+    }
+    
+    /**
+     * Agrega una línea al final de un archivo CSV. Con agrupación activa la
+     * línea se escribe con el bloqueo tomado y el fsync se espera después de
+     * soltarlo, así los hilos que agregan al mismo tiempo comparten el lote.
      * 
      * @param nombreArchivo Nombre del archivo sin extensión
      * @param linea Línea a agregar
      * @throws IOException Si hay error al escribir
      */
     public void agregarLinea(String nombreArchivo, String linea) throws IOException {
+        CompletableFuture<Void> escrita;
+        try (BloqueoArchivo.Permiso permiso = bloquearEscritura(nombreArchivo)) {
+            escrita = encolarLinea(nombreArchivo, linea, permiso);
+        }
+        esperarEscritura(escrita);
+    }
+    
+    /**
+     * Escribe una línea al final de un archivo CSV sin esperar a que sea
+     * durable. Debe llamarse con el bloqueo de escritura del archivo tomado
+     * (ej: para verificar antes que el ID no exista); el futuro se espera
+     * después de soltarlo con {@link #esperarEscritura(CompletableFuture)}.
+     * Sin agrupación, la línea se escribe directamente y el futuro vuelve completo.
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param linea Línea a agregar
+     * @param permiso Bloqueo de escritura del archivo tomado por quien llama
+     * @return Future que se completa cuando la línea está en disco
+     * @throws IOException Si hay error al escribir
+     */
+    public CompletableFuture<Void> encolarLinea(String nombreArchivo, String linea,
+                                                BloqueoArchivo.Permiso permiso) throws IOException {
+        if (agrupacionActiva) {
+            verificarCanalAgregado(nombreArchivo, permiso.getGeneracion());
+            CompletableFuture<Void> escrita = agregarLineaAsync(nombreArchivo, linea);
+            if (escrita.isCompletedExceptionally()) {
+                // La escritura misma falló: se informa con el bloqueo tomado
+                esperarEscritura(escrita);
+            }
+            return escrita;
+        }
+        
         String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
         Path path = Paths.get(rutaCompleta);
         
@@ -94,6 +342,298 @@ public class FileManager {
             Files.write(path, (linea + System.lineSeparator()).getBytes(java.nio.charset.StandardCharsets.UTF_8), 
                         StandardOpenOption.APPEND);
         }
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * Espera a que una línea encolada sea durable
+     * 
+     * @param escrita Future devuelto por {@link #encolarLinea(String, String, BloqueoArchivo.Permiso)}
+     * @throws IOException Si falló la escritura o el fsync de su lote
+     */
+    public static void esperarEscritura(CompletableFuture<Void> escrita) throws IOException {
+        try {
+            escrita.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Agrega varias líneas al final de un archivo CSV con una sola escritura
+     * secuencial y un solo fsync (ej: una importación masiva)
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param lineas Líneas a agregar
+     * @throws IOException Si hay error al escribir
+     */
+    public void agregarLineas(String nombreArchivo, List<String> lineas) throws IOException {
+        if (lineas.isEmpty()) {
+            return;
+        }
+        String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
+
+        conBloqueoEscritura(nombreArchivo, () -> {
+            try (FileChannel canal = FileChannel.open(Paths.get(rutaCompleta), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                Writer escritor = new BufferedWriter(
+                        Channels.newWriter(canal, java.nio.charset.StandardCharsets.UTF_8), 64 * 1024);
+                for (String linea : lineas) {
+                    escritor.write(linea);
+                    escritor.write(System.lineSeparator());
+                }
+                escritor.flush();
+                canal.force(false);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Obtiene el tamaño en bytes de un archivo CSV
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return Tamaño en bytes, o 0 si no existe
+     * @throws IOException Si hay error al leer los atributos
+     */
+    public long tamanoArchivo(String nombreArchivo) throws IOException {
+        Path path = Paths.get(DATA_DIRECTORY, nombreArchivo + FILE_EXTENSION);
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Calcula el CRC32 del contenido de un archivo CSV, con el archivo
+     * bloqueado para lectura para que no cambie durante el recorrido
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return CRC32 del contenido, o 0 si no existe
+     * @throws IOException Si hay error al leer
+     */
+    public long crcArchivo(String nombreArchivo) throws IOException {
+        Path path = Paths.get(DATA_DIRECTORY, nombreArchivo + FILE_EXTENSION);
+        return conBloqueoLectura(nombreArchivo, () -> {
+            CRC32 crc = new CRC32();
+            if (Files.exists(path)) {
+                byte[] buffer = new byte[64 * 1024];
+                try (InputStream entrada = Files.newInputStream(path)) {
+                    int leidos;
+                    while ((leidos = entrada.read(buffer)) > 0) {
+                        crc.update(buffer, 0, leidos);
+                    }
+                }
+            }
+            return crc.getValue();
+        });
+    }
+
+    /**
+     * Recorta un archivo CSV a un tamaño anterior, descartando lo agregado
+     * después (ej: un lote que no llegó a escribirse completo)
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param tamano Tamaño en bytes a conservar
+     * @return true si se recortó, false si el archivo ya no era más grande
+     * @throws IOException Si hay error al escribir
+     */
+    public boolean truncarArchivo(String nombreArchivo, long tamano) throws IOException {
+        Path path = Paths.get(DATA_DIRECTORY, nombreArchivo + FILE_EXTENSION);
+
+        return conBloqueoEscritura(nombreArchivo, () -> {
+            liberarCanalAgregado(nombreArchivo);
+            if (!Files.exists(path)) {
+                return false;
+            }
+            try (FileChannel canal = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                if (canal.size() <= tamano) {
+                    return false;
+                }
+                canal.truncate(tamano);
+                canal.force(true);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Cierra el canal agrupado si alguien más escribió el archivo desde su
+     * último uso (la generación avanzó más de lo que avanzó este bloqueo):
+     * otro proceso pudo reemplazar el archivo y el canal seguiría apuntando
+     * al anterior
+     */
+    private synchronized void verificarCanalAgregado(String nombreArchivo, long generacion) {
+        Long anterior = generacionesAgregado.put(nombreArchivo, generacion);
+        if (anterior != null && anterior != generacion - 1 && anterior != generacion) {
+            liberarCanalAgregado(nombreArchivo);
+        }
+    }
+    
+    /**
+     * Agrega una línea al final de un archivo CSV a través del canal agrupado
+     * del archivo, sin esperar el fsync
+     * 
+     * No toma el bloqueo del archivo: quien la llame directamente debe tener
+     * el bloqueo de escritura mientras se escribe la línea (al volver ya está
+     * escrita); el futuro se puede esperar después de soltarlo.
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param linea Línea a agregar
+     * @return Future que se completa cuando el lote de la línea está en disco
+     */
+    public synchronized CompletableFuture<Void> agregarLineaAsync(String nombreArchivo, String linea) {
+        BatchedAppender canal = canalesAgregado.get(nombreArchivo);
+        if (canal == null || canal.estaCerrado()) {
+            if (canal != null) {
+                sincronizacionesCerradas += canal.getSincronizaciones();
+            }
+            String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
+            canal = new BatchedAppender(Paths.get(rutaCompleta), maxLatenciaMs, maxLote);
+            canalesAgregado.put(nombreArchivo, canal);
+        }
+        return canal.agregar(linea);
+    }
+    
+    /**
+     * Cierra el canal agrupado de un archivo (escribiendo lo pendiente).
+     * Se llama antes de reemplazar o eliminar el archivo, porque el canal
+     * abierto seguiría apuntando al archivo anterior.
+     */
+    private synchronized void liberarCanalAgregado(String nombreArchivo) {
+        generacionesAgregado.remove(nombreArchivo);
+        BatchedAppender canal = canalesAgregado.remove(nombreArchivo);
+        if (canal != null) {
+            canal.cerrar();
+            sincronizacionesCerradas += canal.getSincronizaciones();
+        }
+    }
+    
+    /**
+     * Cierra todos los canales agrupados abiertos
+     */
+    public synchronized void cerrarCanalesAgregado() {
+        for (BatchedAppender canal : canalesAgregado.values()) {
+            canal.cerrar();
+            sincronizacionesCerradas += canal.getSincronizaciones();
+        }
+        canalesAgregado.clear();
+    }
+    
+    /**
+     * Cantidad de fsync hechos por los canales agrupados (uno por lote),
+     * incluidos los de canales ya cerrados
+     */
+    public synchronized long getSincronizacionesAgregado() {
+        long total = sincronizacionesCerradas;
+        for (BatchedAppender canal : canalesAgregado.values()) {
+            total += canal.getSincronizaciones();
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene el bloqueo de un archivo, compartido por todos los hilos de la
+     * JVM y coordinado con otros procesos mediante un archivo ".lock"
+     * (ej: para consultar sus métricas de espera)
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return El bloqueo del archivo
+     */
+    public BloqueoArchivo obtenerBloqueo(String nombreArchivo) {
+        return BloqueoArchivo.obtener(obtenerRuta(nombreArchivo, LOCK_EXTENSION));
+    }
+    
+    /**
+     * Bloquea un archivo para lectura. Los métodos de lectura de FileManager
+     * lo toman por sí mismos; quien combina varias lecturas que deben ver el
+     * mismo contenido lo toma alrededor de todas ellas.
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return Permiso que libera el bloqueo al cerrarse
+     * @throws IOException Si se agota la espera
+     */
+    public BloqueoArchivo.Permiso bloquearLectura(String nombreArchivo) throws IOException {
+        return obtenerBloqueo(nombreArchivo).adquirirLectura(esperaMaximaBloqueoMs);
+    }
+    
+    /**
+     * Bloquea un archivo para escritura. Los métodos de escritura de
+     * FileManager lo toman por sí mismos; quien combina varias operaciones
+     * (ej: verificar un ID y luego agregar la línea) lo toma alrededor de
+     * todas ellas. Archivos distintos no se bloquean entre sí.
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return Permiso que libera el bloqueo al cerrarse
+     * @throws IOException Si se agota la espera
+     */
+    public BloqueoArchivo.Permiso bloquearEscritura(String nombreArchivo) throws IOException {
+        return obtenerBloqueo(nombreArchivo).adquirirEscritura(esperaMaximaBloqueoMs);
+    }
+    
+    /**
+     * Obtiene la generación de un archivo: avanza cada vez que alguien, en
+     * este u otro proceso, lo bloquea para escribir
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @return Generación actual
+     * @throws IOException Si se agota la espera del bloqueo de lectura
+     */
+    public long generacionArchivo(String nombreArchivo) throws IOException {
+        try (BloqueoArchivo.Permiso permiso = bloquearLectura(nombreArchivo)) {
+            return permiso.getGeneracion();
+        }
+    }
+    
+    /**
+     * Ejecuta una operación con el archivo bloqueado para lectura
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param operacion Operación a ejecutar mientras dura el bloqueo
+     * @return Lo que devuelve la operación
+     * @throws IOException Si se agota la espera o falla la operación
+     */
+    public <T, E extends Exception> T conBloqueoLectura(String nombreArchivo,
+            OperacionBloqueada<T, E> operacion) throws IOException, E {
+        return ejecutarBloqueado(bloquearLectura(nombreArchivo), operacion);
+    }
+    
+    /**
+     * Ejecuta una operación con el archivo bloqueado para escritura
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param operacion Operación a ejecutar mientras dura el bloqueo
+     * @return Lo que devuelve la operación
+     * @throws IOException Si se agota la espera o falla la operación
+     */
+    public <T, E extends Exception> T conBloqueoEscritura(String nombreArchivo,
+            OperacionBloqueada<T, E> operacion) throws IOException, E {
+        return ejecutarBloqueado(bloquearEscritura(nombreArchivo), operacion);
+    }
+    
+    private static <T, E extends Exception> T ejecutarBloqueado(BloqueoArchivo.Permiso permiso,
+            OperacionBloqueada<T, E> operacion) throws IOException, E {
+        try {
+            return operacion.ejecutar();
+        } finally {
+            permiso.close();
+        }
+    }
+    
+    /**
+     * Configura cuánto se espera un bloqueo antes de fallar (por defecto 10 segundos)
+     * 
+     * @param milisegundos Espera máxima en milisegundos
+     */
+    public void configurarEsperaBloqueo(long milisegundos) {
+        if (milisegundos < 0) {
+            throw new IllegalArgumentException("Espera de bloqueo inválida: " + milisegundos);
+        }
+        this.esperaMaximaBloqueoMs = milisegundos;
     }
     
     /**
@@ -118,7 +658,10 @@ public class FileManager {
         String rutaCompleta = DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
         Path path = Paths.get(rutaCompleta);
         
-        return Files.deleteIfExists(path);
+        return conBloqueoEscritura(nombreArchivo, () -> {
+            liberarCanalAgregado(nombreArchivo);
+            return Files.deleteIfExists(path);
+        });
     }
     
     /**
@@ -130,4 +673,59 @@ public class FileManager {
     public String obtenerRutaCompleta(String nombreArchivo) {
         return DATA_DIRECTORY + File.separator + nombreArchivo + FILE_EXTENSION;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Obtiene la ruta de un archivo auxiliar dentro del directorio de datos
+     * 
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param extension Extensión del archivo auxiliar (ej: ".log")
+     * @return Ruta del archivo
+     */
+    public Path obtenerRuta(String nombreArchivo, String extension) {
+        return Paths.get(DATA_DIRECTORY, nombreArchivo + extension);
+    }
+    
+    /**
+     * Recibe las líneas de un recorrido
+     */
+    @FunctionalInterface
+    public interface VisitanteLinea {
+        /**
+         * @param linea Línea actual; solo es válida durante la llamada
+         * @return false para detener el recorrido
+         */
+        boolean visitar(CharSequence linea) throws IOException;
+    }
+    
+    /**
+     * Transforma las líneas al reescribir un archivo
+     */
+    @FunctionalInterface
+    public interface TransformadorLinea {
+        /**
+         * @param linea Línea actual; solo es válida durante la llamada
+         * @return Línea a escribir, o null para descartarla
+         */
+        CharSequence transformar(CharSequence linea) throws IOException;
+    }
+    
+    /**
+     * Acción sobre archivos que puede fallar con IOException
+     */
+    @FunctionalInterface
+    public interface AccionArchivo {
+        void ejecutar() throws IOException;
+    }
+    
+    private interface EscrituraContenido {
+        void escribir(Writer escritor) throws IOException;
+    }
+    
+    /**
+     * Operación que se ejecuta con un archivo bloqueado
+     */
+    @FunctionalInterface
+    public interface OperacionBloqueada<T, E extends Exception> {
+        T ejecutar() throws IOException, E;
+    }
+}
@@ -0,0 +1,221 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intérprete de JSON para los cuerpos de los pedidos HTTP.
+ *
+ * Los objetos se devuelven como Map (en el orden del texto), los arreglos
+ * como List, los números enteros como Long y los demás como Double.
+ */
+public final class JsonParser {
+
+    // Límite de anidamiento para que un cuerpo malicioso no agote la pila
+    private static final int MAX_NIVELES = 32;
+
+    private final String texto;
+    private int posicion = 0;
+
+    private JsonParser(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Interpreta un documento JSON completo
+     *
+     * @param texto Documento JSON
+     * @return Map, List, String, Long, Double, Boolean o null
+     * @throws IllegalArgumentException Si el texto no es JSON válido
+     */
+    public static Object parsear(String texto) {
+        JsonParser parser = new JsonParser(texto);
+        Object valor = parser.leerValor(0);
+        parser.saltarEspacios();
+        if (parser.posicion < texto.length()) {
+            throw parser.error("contenido después del final del documento");
+        }
+        return valor;
+    }
+
+    private Object leerValor(int niveles) {
+        saltarEspacios();
+        if (posicion >= texto.length()) {
+            throw error("se esperaba un valor");
+        }
+        char c = texto.charAt(posicion);
+        switch (c) {
+            case '{':
+                return leerObjeto(niveles + 1);
+            case '[':
+                return leerArreglo(niveles + 1);
+            case '"':
+                return leerTexto();
+            case 't':
+                return leerLiteral("true", Boolean.TRUE);
+            case 'f':
+                return leerLiteral("false", Boolean.FALSE);
+            case 'n':
+                return leerLiteral("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return leerNumero();
+                }
+                throw error("carácter inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> leerObjeto(int niveles) {
+        verificarNiveles(niveles);
+        posicion++; // {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        saltarEspacios();
+        if (consumir('}')) {
+            return objeto;
+        }
+        do {
+            saltarEspacios();
+            if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                throw error("se esperaba el nombre de un campo");
+            }
+            String nombre = leerTexto();
+            saltarEspacios();
+            if (!consumir(':')) {
+                throw error("se esperaba ':'");
+            }
+            objeto.put(nombre, leerValor(niveles));
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw error("se esperaba ',' o '}'");
+        }
+        return objeto;
+    }
+
+    private List<Object> leerArreglo(int niveles) {
+        verificarNiveles(niveles);
+        posicion++; // [
+        List<Object> arreglo = new ArrayList<>();
+        saltarEspacios();
+        if (consumir(']')) {
+            return arreglo;
+        }
+        do {
+            arreglo.add(leerValor(niveles));
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw error("se esperaba ',' o ']'");
+        }
+        return arreglo;
+    }
+
+    private String leerTexto() {
+        posicion++; // "
+        StringBuilder resultado = new StringBuilder();
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion++);
+            if (c == '"') {
+                return resultado.toString();
+            }
+            if (c != '\\') {
+                resultado.append(c);
+                continue;
+            }
+            if (posicion >= texto.length()) {
+                break;
+            }
+            char escape = texto.charAt(posicion++);
+            switch (escape) {
+                case '"':
+                case '\\':
+                case '/':
+                    resultado.append(escape);
+                    break;
+                case 'b':
+                    resultado.append('\b');
+                    break;
+                case 'f':
+                    resultado.append('\f');
+                    break;
+                case 'n':
+                    resultado.append('\n');
+                    break;
+                case 'r':
+                    resultado.append('\r');
+                    break;
+                case 't':
+                    resultado.append('\t');
+                    break;
+                case 'u':
+                    if (posicion + 4 > texto.length()) {
+                        throw error("escape \\u incompleto");
+                    }
+                    try {
+                        resultado.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("escape \\u inválido");
+                    }
+                    posicion += 4;
+                    break;
+                default:
+                    throw error("escape inválido '\\" + escape + "'");
+            }
+        }
+        throw error("texto sin cerrar");
+    }
+
+    private Object leerNumero() {
+        int inicio = posicion;
+        boolean decimal = false;
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            posicion++;
+        }
+        String numero = texto.substring(inicio, posicion);
+        try {
+            return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+        } catch (NumberFormatException e) {
+            throw error("número inválido '" + numero + "'");
+        }
+    }
+
+    private Object leerLiteral(String literal, Object valor) {
+        if (!texto.startsWith(literal, posicion)) {
+            throw error("se esperaba " + literal);
+        }
+        posicion += literal.length();
+        return valor;
+    }
+
+    private boolean consumir(char esperado) {
+        if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+
+    private void saltarEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+
+    private void verificarNiveles(int niveles) {
+        if (niveles > MAX_NIVELES) {
+            throw error("demasiados niveles de anidamiento");
+        }
+    }
+
+    private IllegalArgumentException error(String detalle) {
+        return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + detalle);
+    }
+}
@@ -0,0 +1,183 @@
+package util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escritor de JSON en flujo: escribe directo sobre un Writer a medida que se
+ * agregan valores, sin armar el documento en memoria (ej: para responder
+ * listados grandes de a un vehículo por vez).
+ *
+ * Lleva la cuenta de las comas con una pila de niveles; no valida que el
+ * documento quede bien formado.
+ */
+public final class JsonWriter {
+
+    private static final int MAX_NIVELES = 32;
+
+    private final Writer destino;
+    // Por nivel abierto: true si todavía no se escribió ningún elemento
+    private final boolean[] primero = new boolean[MAX_NIVELES];
+    private int nivel = -1;
+    // El próximo valor es el de un campo ya escrito (no lleva coma)
+    private boolean despuesDeNombre = false;
+
+    public JsonWriter(Writer destino) {
+        this.destino = destino;
+    }
+
+    public JsonWriter inicioObjeto() throws IOException {
+        separar();
+        destino.write('{');
+        abrirNivel();
+        return this;
+    }
+
+    public JsonWriter finObjeto() throws IOException {
+        nivel--;
+        destino.write('}');
+        return this;
+    }
+
+    public JsonWriter inicioArreglo() throws IOException {
+        separar();
+        destino.write('[');
+        abrirNivel();
+        return this;
+    }
+
+    public JsonWriter finArreglo() throws IOException {
+        nivel--;
+        destino.write(']');
+        return this;
+    }
+
+    /**
+     * Escribe el nombre de un campo; el próximo valor es el suyo
+     */
+    public JsonWriter nombre(String nombre) throws IOException {
+        separar();
+        escribirTexto(nombre);
+        destino.write(':');
+        despuesDeNombre = true;
+        return this;
+    }
+
+    public JsonWriter valor(String valor) throws IOException {
+        separar();
+        if (valor == null) {
+            destino.write("null");
+        } else {
+            escribirTexto(valor);
+        }
+        return this;
+    }
+
+    public JsonWriter valor(long valor) throws IOException {
+        separar();
+        destino.write(Long.toString(valor));
+        return this;
+    }
+
+    public JsonWriter valor(boolean valor) throws IOException {
+        separar();
+        destino.write(valor ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Escribe un decimal (NaN e infinito, que JSON no admite, como null)
+     */
+    public JsonWriter valor(double valor) throws IOException {
+        separar();
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            destino.write("null");
+        } else if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            destino.write(Long.toString((long) valor));
+        } else {
+            destino.write(Double.toString(valor));
+        }
+        return this;
+    }
+
+    public JsonWriter valorNulo() throws IOException {
+        separar();
+        destino.write("null");
+        return this;
+    }
+
+    public JsonWriter campo(String nombre, String valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    public JsonWriter campo(String nombre, long valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    public JsonWriter campo(String nombre, double valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    public JsonWriter campo(String nombre, boolean valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    public void flush() throws IOException {
+        destino.flush();
+    }
+
+    private void abrirNivel() {
+        if (nivel + 1 == MAX_NIVELES) {
+            throw new IllegalStateException("Demasiados niveles de anidamiento en el JSON");
+        }
+        primero[++nivel] = true;
+    }
+
+    private void separar() throws IOException {
+        if (despuesDeNombre) {
+            despuesDeNombre = false;
+            return;
+        }
+        if (nivel >= 0) {
+            if (primero[nivel]) {
+                primero[nivel] = false;
+            } else {
+                destino.write(',');
+            }
+        }
+    }
+
+    private void escribirTexto(String texto) throws IOException {
+        destino.write('"');
+        int inicio = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            destino.write(texto, inicio, i - inicio);
+            switch (c) {
+                case '"':
+                    destino.write("\\\"");
+                    break;
+                case '\\':
+                    destino.write("\\\\");
+                    break;
+                case '\n':
+                    destino.write("\\n");
+                    break;
+                case '\r':
+                    destino.write("\\r");
+                    break;
+                case '\t':
+                    destino.write("\\t");
+                    break;
+                default:
+                    destino.write(String.format("\\u%04x", (int) c));
+            }
+            inicio = i + 1;
+        }
+        destino.write(texto, inicio, texto.length() - inicio);
+        destino.write('"');
+    }
+}
@@ -0,0 +1,266 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Recorre las líneas de un archivo mapeándolo en memoria con FileChannel.map.
+ *
+ * El archivo se mapea por ventanas de tamaño configurable, así que funciona
+ * con archivos de más de 2 GB y con archivos más grandes que el heap: solo
+ * se mantiene en memoria la línea que se está visitando. Una línea que
+ * queda cortada al final de una ventana se vuelve a leer al inicio de la siguiente.
+ *
+ * Las líneas ASCII se entregan como una vista sobre los bytes mapeados, sin
+ * copiarlas; las que tienen caracteres UTF-8 multibyte se decodifican. Los
+ * archivos chicos se leen de una vez en lugar de mapearse.
+ *
+ * El mapeo se puede desactivar: un archivo mapeado no se libera hasta que
+ * el recolector descarta el buffer, y mientras tanto Windows no permite
+ * reemplazarlo. Sin mapeo se lee con lecturas posicionales en un buffer
+ * reutilizado, que crece hasta el tamaño de ventana si una línea no entra.
+ */
+public class MappedLineReader {
+
+    public static final long VENTANA_DEFECTO = 256L * 1024 * 1024;
+    private static final long TAMANO_MINIMO_MAPEO = 1024 * 1024;
+    private static final long VENTANA_LECTURA = 1024 * 1024;
+
+    private final long tamanoVentana;
+    private final boolean mapear;
+
+    /**
+     * @param tamanoVentana Bytes a mapear por ventana (máximo Integer.MAX_VALUE)
+     */
+    public MappedLineReader(long tamanoVentana) {
+        this(tamanoVentana, true);
+    }
+
+    /**
+     * @param tamanoVentana Bytes por ventana (máximo Integer.MAX_VALUE)
+     * @param mapear false para leer siempre con lecturas posicionales
+     */
+    public MappedLineReader(long tamanoVentana, boolean mapear) {
+        if (tamanoVentana < 1 || tamanoVentana > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamaño de ventana inválido: " + tamanoVentana);
+        }
+        this.tamanoVentana = tamanoVentana;
+        this.mapear = mapear;
+    }
+
+    /**
+     * Entrega al visitante cada línea no vacía del archivo, sin espacios al inicio ni al final.
+     * La línea recibida solo es válida durante la llamada; para conservarla, usar toString().
+     *
+     * @param ruta Archivo a recorrer
+     * @param visitante Recibe cada línea; si devuelve false se detiene el recorrido
+     * @throws IOException Si hay error al leer, o una línea no entra en una ventana
+     */
+    public void recorrer(Path ruta, FileManager.VisitanteLinea visitante) throws IOException {
+        try (Cursor cursor = abrir(ruta)) {
+            CharSequence linea;
+            while ((linea = cursor.siguiente()) != null) {
+                if (!visitante.visitar(linea)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Abre un cursor que entrega las líneas a pedido, para recorridos que no
+     * pueden usar un visitante (ej: un Stream). El cursor debe cerrarse.
+     *
+     * @param ruta Archivo a recorrer
+     * @return Cursor posicionado antes de la primera línea
+     * @throws IOException Si hay error al abrir el archivo
+     */
+    public Cursor abrir(Path ruta) throws IOException {
+        return new Cursor(FileChannel.open(ruta, StandardOpenOption.READ), tamanoVentana, mapear);
+    }
+
+    /**
+     * Recorrido de las líneas de un archivo, una ventana mapeada a la vez
+     */
+    public static final class Cursor implements AutoCloseable {
+        private final FileChannel canal;
+        private final long tamanoVentana;
+        private final long tamano;
+        private final boolean mapear;
+        private final VistaAscii vista = new VistaAscii();
+        // Ventana de las lecturas posicionales: crece hasta tamanoVentana
+        private long ventanaLectura;
+        private ByteBuffer lectura;
+
+        // Ventana actual: bytes [inicio, inicio + largo) del archivo
+        private ByteBuffer ventana;
+        private long inicio;
+        private int largo;
+        private int posicion;
+        private boolean terminado;
+
+        private Cursor(FileChannel canal, long tamanoVentana, boolean mapear) throws IOException {
+            this.canal = canal;
+            this.tamanoVentana = tamanoVentana;
+            this.tamano = canal.size();
+            this.mapear = mapear && tamano >= TAMANO_MINIMO_MAPEO;
+            this.ventanaLectura = this.mapear ? tamanoVentana : Math.min(tamanoVentana, VENTANA_LECTURA);
+            this.terminado = tamano == 0;
+        }
+
+        /**
+         * Avanza a la siguiente línea no vacía, sin espacios al inicio ni al final.
+         * La línea devuelta solo es válida hasta la próxima llamada; para conservarla, usar toString().
+         *
+         * @return La línea, o null si no quedan más
+         * @throws IOException Si hay error al leer, o una línea no entra en una ventana
+         */
+        public CharSequence siguiente() throws IOException {
+            while (!terminado) {
+                if (ventana == null) {
+                    abrirVentana();
+                }
+
+                int inicioLinea = posicion;
+                int finLinea = -1;
+                for (int i = inicioLinea; i < largo; i++) {
+                    if (ventana.get(i) == '\n') {
+                        finLinea = i;
+                        break;
+                    }
+                }
+
+                if (finLinea >= 0) {
+                    posicion = finLinea + 1;
+                } else if (inicio + largo >= tamano) {
+                    // Última línea sin salto de línea final
+                    posicion = largo;
+                    finLinea = largo;
+                    terminado = true;
+                } else if (inicioLinea == 0 && ventanaLectura < tamanoVentana) {
+                    // La línea no entra en el buffer de lectura: se agranda
+                    ventanaLectura = Math.min(tamanoVentana, ventanaLectura * 2);
+                    ventana = null;
+                    continue;
+                } else if (inicioLinea == 0) {
+                    throw new IOException("Hay una línea más larga que la ventana de mapeo (" + tamanoVentana + " bytes)");
+                } else {
+                    // La siguiente ventana empieza en la línea que quedó cortada
+                    inicio += inicioLinea;
+                    ventana = null;
+                    continue;
+                }
+
+                CharSequence linea = recortar(ventana, inicioLinea, finLinea, vista);
+                if (linea != null) {
+                    return linea;
+                }
+            }
+            return null;
+        }
+
+        private void abrirVentana() throws IOException {
+            largo = (int) Math.min(ventanaLectura, tamano - inicio);
+            posicion = 0;
+            if (mapear) {
+                ventana = canal.map(FileChannel.MapMode.READ_ONLY, inicio, largo);
+                return;
+            }
+            if (lectura == null || lectura.capacity() < largo) {
+                lectura = ByteBuffer.allocate(largo);
+            }
+            lectura.clear().limit(largo);
+            while (lectura.hasRemaining()) {
+                if (canal.read(lectura, inicio + lectura.position()) < 0) {
+                    break;
+                }
+            }
+            ventana = lectura;
+        }
+
+        @Override
+        public void close() throws IOException {
+            terminado = true;
+            ventana = null;
+            lectura = null;
+            canal.close();
+        }
+    }
+
+    /**
+     * Recorta la línea [inicio, fin) de la ventana
+     *
+     * @return La línea, o null si está vacía
+     */
+    private static CharSequence recortar(ByteBuffer ventana, int inicio, int fin, VistaAscii vista) {
+        while (inicio < fin && (ventana.get(inicio) & 0xFF) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && (ventana.get(fin - 1) & 0xFF) <= ' ') {
+            fin--;
+        }
+        if (inicio == fin) {
+            return null;
+        }
+
+        for (int i = inicio; i < fin; i++) {
+            if (ventana.get(i) < 0) {
+                // Hay caracteres multibyte: decodificar la línea
+                byte[] bytes = new byte[fin - inicio];
+                ventana.get(inicio, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return vista.apuntar(ventana, inicio, fin);
+    }
+
+    /**
+     * Vista de solo lectura sobre un rango ASCII de un buffer, reutilizada entre líneas
+     */
+    private static final class VistaAscii implements CharSequence {
+        private ByteBuffer buffer;
+        private int inicio;
+        private int fin;
+
+        VistaAscii apuntar(ByteBuffer buffer, int inicio, int fin) {
+            this.buffer = buffer;
+            this.inicio = inicio;
+            this.fin = fin;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return fin - inicio;
+        }
+
+        @Override
+        public char charAt(int indice) {
+            if (indice < 0 || indice >= fin - inicio) {
+                throw new IndexOutOfBoundsException(indice);
+            }
+            return (char) buffer.get(inicio + indice);
+        }
+
+        @Override
+        public CharSequence subSequence(int desde, int hasta) {
+            if (desde < 0 || hasta > fin - inicio || desde > hasta) {
+                throw new IndexOutOfBoundsException("Rango inválido: " + desde + ", " + hasta);
+            }
+            byte[] bytes = new byte[hasta - desde];
+            buffer.get(inicio + desde, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[fin - inicio];
+            buffer.get(inicio, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+    }
+}
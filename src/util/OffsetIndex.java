@@ -0,0 +1,495 @@
+package util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Índice de desplazamientos (id → offset y longitud en bytes) de un archivo CSV.
+ *
+ * El índice se guarda en un archivo auxiliar junto al CSV (ej: "autos.csv.idx")
+ * y se reconstruye automáticamente cuando el CSV cambia fuera de la aplicación.
+ * Si el CSV solo creció (líneas agregadas al final) se indexa únicamente la cola.
+ */
+public class OffsetIndex {
+
+    private static final String EXTENSION_INDICE = ".idx";
+    private static final int MAGIC = 0x56494458; // "VIDX"
+    private static final int VERSION_FORMATO = 1;
+    private static final int TAMANO_HUELLA = 4096;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final FileManager fileManager;
+    private final Map<String, IndiceArchivo> indices = new HashMap<>();
+
+    // Constructor
+    public OffsetIndex(FileManager fileManager) {
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Busca la posición de la línea con el ID dado
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión (ej: "autos")
+     * @param id ID del registro
+     * @return Arreglo {offset, longitud} o null si el ID no está en el archivo
+     * @throws IOException Si hay error al leer el archivo o el índice
+     */
+    public synchronized long[] buscar(String nombreArchivo, int id) throws IOException {
+        IndiceArchivo indice = obtenerIndiceActualizado(nombreArchivo);
+        long valor = indice.tabla.obtener(id);
+        if (valor < 0) {
+            return null;
+        }
+        return new long[] { valor >>> 24, valor & 0xFFFFFF };
+    }
+
+    /**
+     * Verifica varios IDs a la vez, revisando una sola vez si el CSV cambió
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param ids IDs a verificar
+     * @return Para cada ID, true si hay alguna línea que empieza con él
+     * @throws IOException Si hay error al leer el archivo o el índice
+     */
+    public synchronized boolean[] contiene(String nombreArchivo, int[] ids) throws IOException {
+        IndiceArchivo indice = obtenerIndiceActualizado(nombreArchivo);
+        boolean[] resultado = new boolean[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            resultado[i] = indice.tabla.obtener(ids[i]) >= 0;
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca las posiciones de los IDs siguientes a uno dado, en orden de ID.
+     * Se ubica el cursor con búsqueda binaria, sin recorrer los IDs anteriores.
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     * @param despuesDeId Se devuelven solo IDs mayores a este
+     * @param cantidad Cantidad máxima de IDs a devolver
+     * @return Arreglos {id, offset, longitud} en orden de ID
+     * @throws IOException Si hay error al leer el archivo o el índice
+     */
+    public synchronized List<long[]> buscarSiguientes(String nombreArchivo, int despuesDeId, int cantidad)
+            throws IOException {
+        IndiceArchivo indice = obtenerIndiceActualizado(nombreArchivo);
+        indice.ordenarIds();
+
+        int posicion = Arrays.binarySearch(indice.idsOrdenados, 0, indice.cantidadOrdenados, despuesDeId);
+        int desde = posicion >= 0 ? posicion + 1 : -posicion - 1;
+        int hasta = (int) Math.min(indice.cantidadOrdenados, (long) desde + cantidad);
+
+        List<long[]> resultado = new ArrayList<>(Math.max(0, hasta - desde));
+        for (int i = desde; i < hasta; i++) {
+            int id = indice.idsOrdenados[i];
+            long valor = indice.tabla.obtener(id);
+            resultado.add(new long[] { id, valor >>> 24, valor & 0xFFFFFF });
+        }
+        return resultado;
+    }
+
+    /**
+     * Descarta el índice en memoria de un archivo (se reconstruye en el próximo acceso)
+     *
+     * @param nombreArchivo Nombre del archivo sin extensión
+     */
+    public synchronized void invalidar(String nombreArchivo) {
+        indices.remove(nombreArchivo);
+    }
+
+    /**
+     * Devuelve un índice que refleja el contenido actual del CSV,
+     * reconstruyéndolo o extendiéndolo si el archivo cambió
+     */
+    private IndiceArchivo obtenerIndiceActualizado(String nombreArchivo) throws IOException {
+        Path rutaCsv = Paths.get(fileManager.obtenerRutaCompleta(nombreArchivo));
+
+        if (!Files.exists(rutaCsv)) {
+            // Sin CSV el índice auxiliar queda obsoleto
+            Files.deleteIfExists(rutaIndice(nombreArchivo));
+            IndiceArchivo vacio = new IndiceArchivo();
+            indices.put(nombreArchivo, vacio);
+            return vacio;
+        }
+
+        BasicFileAttributes atributos = Files.readAttributes(rutaCsv, BasicFileAttributes.class);
+        long tamano = atributos.size();
+        long modificado = atributos.lastModifiedTime().toMillis();
+
+        IndiceArchivo indice = indices.get(nombreArchivo);
+        if (indice == null) {
+            indice = cargarDesdeDisco(nombreArchivo);
+        }
+
+        if (indice != null && indice.tamano == tamano && indice.modificado == modificado) {
+            indices.put(nombreArchivo, indice);
+            return indice;
+        }
+
+        boolean reconstruido = false;
+        try (FileChannel canal = FileChannel.open(rutaCsv, StandardOpenOption.READ)) {
+            if (indice != null && tamano > indice.tamano
+                    && indice.huella == calcularHuella(canal, indice.tamano)) {
+                // Solo se agregaron líneas: indexar la cola
+                indexar(canal, indice, indice.tamano, tamano);
+            } else {
+                indice = new IndiceArchivo();
+                indexar(canal, indice, 0, tamano);
+                reconstruido = true;
+            }
+            indice.tamano = tamano;
+            indice.modificado = modificado;
+            indice.huella = calcularHuella(canal, tamano);
+        }
+
+        indices.put(nombreArchivo, indice);
+        if (reconstruido) {
+            // Tras agregar líneas no se reescribe: el próximo arranque indexa solo la cola
+            guardarEnDisco(nombreArchivo, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Recorre los bytes [desde, hasta) del CSV registrando el offset de cada línea.
+     * Solo se extrae el ID del inicio de la línea; el resto no se decodifica.
+     */
+    private void indexar(FileChannel canal, IndiceArchivo indice, long desde, long hasta) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+        EstadoLinea estado = new EstadoLinea();
+        estado.inicio = desde;
+        long posicion = desde;
+
+        while (posicion < hasta) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            buffer.flip();
+
+            for (int i = 0; i < leidos && posicion < hasta; i++, posicion++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    registrarLinea(indice, estado, posicion);
+                    estado.reiniciar(posicion + 1);
+                } else {
+                    estado.procesar(b);
+                }
+            }
+        }
+
+        // Última línea sin salto de línea final
+        if (estado.inicio < hasta) {
+            registrarLinea(indice, estado, hasta);
+        }
+    }
+
+    private void registrarLinea(IndiceArchivo indice, EstadoLinea estado, long fin) {
+        long longitud = fin - estado.inicio;
+        if (estado.ultimoByte == '\r') {
+            longitud--;
+        }
+        Integer id = estado.id();
+        // Se conserva la primera aparición de cada ID, igual que el recorrido secuencial
+        if (id != null && longitud > 0 && longitud <= 0xFFFFFF && indice.tabla.obtener(id) < 0) {
+            indice.tabla.poner(id, (estado.inicio << 24) | longitud);
+            indice.agregarIdOrdenado(id);
+        }
+    }
+
+    /**
+     * Huella (CRC32) de los últimos bytes antes de "tamano", usada para
+     * detectar si el archivo solo creció o fue reescrito
+     */
+    private long calcularHuella(FileChannel canal, long tamano) throws IOException {
+        long desde = Math.max(0, tamano - TAMANO_HUELLA);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (tamano - desde));
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, desde + buffer.position()) < 0) {
+                break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+
+    private Path rutaIndice(String nombreArchivo) {
+        return Paths.get(fileManager.obtenerRutaCompleta(nombreArchivo) + EXTENSION_INDICE);
+    }
+
+    /**
+     * Carga el índice auxiliar desde disco
+     *
+     * @return El índice, o null si no existe o está dañado
+     */
+    private IndiceArchivo cargarDesdeDisco(String nombreArchivo) {
+        Path ruta = rutaIndice(nombreArchivo);
+        if (!Files.exists(ruta)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(ruta), TAMANO_BUFFER))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION_FORMATO) {
+                return null;
+            }
+            IndiceArchivo indice = new IndiceArchivo();
+            indice.tamano = in.readLong();
+            indice.modificado = in.readLong();
+            indice.huella = in.readLong();
+            int cantidad = in.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                indice.tabla.poner(in.readInt(), in.readLong());
+            }
+            // La tabla se guarda en orden de hash: se ordena al paginar
+            indice.idsOrdenados = null;
+            return indice;
+        } catch (IOException e) {
+            // Índice dañado: se reconstruye desde el CSV
+            return null;
+        }
+    }
+
+    /**
+     * Guarda el índice auxiliar en disco. Un fallo aquí no es crítico:
+     * el índice se reconstruirá desde el CSV en el próximo arranque.
+     */
+    private void guardarEnDisco(String nombreArchivo, IndiceArchivo indice) {
+        Path ruta = rutaIndice(nombreArchivo);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(ruta), TAMANO_BUFFER))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION_FORMATO);
+            out.writeLong(indice.tamano);
+            out.writeLong(indice.modificado);
+            out.writeLong(indice.huella);
+            out.writeInt(indice.tabla.tamano());
+            TablaOffsets tabla = indice.tabla;
+            for (int i = 0; i < tabla.claves.length; i++) {
+                if (tabla.ocupado[i]) {
+                    out.writeInt(tabla.claves[i]);
+                    out.writeLong(tabla.valores[i]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Advertencia: No se pudo guardar el índice " + ruta + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Índice de un archivo junto con los metadatos del CSV que refleja
+     */
+    private static class IndiceArchivo {
+        private final TablaOffsets tabla = new TablaOffsets();
+        private long tamano;
+        private long modificado;
+        private long huella;
+        // IDs en orden ascendente para la paginación; null si hay que reordenar
+        private int[] idsOrdenados = new int[16];
+        private int cantidadOrdenados;
+
+        /**
+         * Mantiene el orden si el ID es mayor al último (el caso habitual al
+         * agregar líneas); si no, el orden se recalcula en el próximo uso
+         */
+        void agregarIdOrdenado(int id) {
+            if (idsOrdenados == null) {
+                return;
+            }
+            if (cantidadOrdenados > 0 && id <= idsOrdenados[cantidadOrdenados - 1]) {
+                idsOrdenados = null;
+                return;
+            }
+            if (cantidadOrdenados == idsOrdenados.length) {
+                idsOrdenados = Arrays.copyOf(idsOrdenados, cantidadOrdenados * 2);
+            }
+            idsOrdenados[cantidadOrdenados++] = id;
+        }
+
+        void ordenarIds() {
+            if (idsOrdenados != null) {
+                return;
+            }
+            idsOrdenados = tabla.claves();
+            cantidadOrdenados = idsOrdenados.length;
+            Arrays.sort(idsOrdenados);
+        }
+    }
+
+    /**
+     * Estado del análisis de una línea: extrae el ID inicial byte a byte
+     */
+    private static class EstadoLinea {
+        private static final int INICIO = 0;
+        private static final int DIGITOS = 1;
+        private static final int ESPERA_COMA = 2;
+        private static final int COMPLETO = 3;
+        private static final int INVALIDO = 4;
+
+        private long inicio;
+        private int estado = INICIO;
+        private long valor;
+        private boolean negativo;
+        private boolean conDigitos;
+        private byte ultimoByte;
+
+        void reiniciar(long nuevoInicio) {
+            inicio = nuevoInicio;
+            estado = INICIO;
+            valor = 0;
+            negativo = false;
+            conDigitos = false;
+            ultimoByte = 0;
+        }
+
+        void procesar(byte b) {
+            ultimoByte = b;
+            boolean espacio = b == ' ' || b == '\t' || b == '\r';
+
+            switch (estado) {
+                case INICIO:
+                    if (espacio) {
+                        return;
+                    }
+                    if (b == '-' || b == '+') {
+                        negativo = b == '-';
+                        estado = DIGITOS;
+                    } else if (b >= '0' && b <= '9') {
+                        agregarDigito(b);
+                    } else {
+                        estado = INVALIDO;
+                    }
+                    break;
+                case DIGITOS:
+                    if (b >= '0' && b <= '9') {
+                        agregarDigito(b);
+                    } else if (b == ',') {
+                        estado = conDigitos ? COMPLETO : INVALIDO;
+                    } else if (espacio) {
+                        estado = conDigitos ? ESPERA_COMA : INVALIDO;
+                    } else {
+                        estado = INVALIDO;
+                    }
+                    break;
+                case ESPERA_COMA:
+                    if (b == ',') {
+                        estado = COMPLETO;
+                    } else if (!espacio) {
+                        estado = INVALIDO;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void agregarDigito(byte b) {
+            valor = valor * 10 + (b - '0');
+            conDigitos = true;
+            estado = valor > (long) Integer.MAX_VALUE + 1 ? INVALIDO : DIGITOS;
+        }
+
+        Integer id() {
+            boolean valido = estado == COMPLETO
+                    || ((estado == DIGITOS || estado == ESPERA_COMA) && conDigitos);
+            if (!valido) {
+                return null;
+            }
+            long resultado = negativo ? -valor : valor;
+            if (resultado > Integer.MAX_VALUE || resultado < Integer.MIN_VALUE) {
+                return null;
+            }
+            return (int) resultado;
+        }
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto int → long, sin objetos por entrada
+     * para mantener bajo el uso de memoria con millones de registros
+     */
+    private static class TablaOffsets {
+        private int[] claves = new int[16];
+        private long[] valores = new long[16];
+        private boolean[] ocupado = new boolean[16];
+        private int cantidad = 0;
+
+        long obtener(int clave) {
+            int mascara = claves.length - 1;
+            int i = mezclar(clave) & mascara;
+            while (ocupado[i]) {
+                if (claves[i] == clave) {
+                    return valores[i];
+                }
+                i = (i + 1) & mascara;
+            }
+            return -1;
+        }
+
+        void poner(int clave, long valor) {
+            if ((cantidad + 1) * 4 > claves.length * 3) {
+                redimensionar();
+            }
+            int mascara = claves.length - 1;
+            int i = mezclar(clave) & mascara;
+            while (ocupado[i]) {
+                if (claves[i] == clave) {
+                    valores[i] = valor;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            valores[i] = valor;
+            ocupado[i] = true;
+            cantidad++;
+        }
+
+        int tamano() {
+            return cantidad;
+        }
+
+        int[] claves() {
+            int[] resultado = new int[cantidad];
+            int j = 0;
+            for (int i = 0; i < claves.length; i++) {
+                if (ocupado[i]) {
+                    resultado[j++] = claves[i];
+                }
+            }
+            return resultado;
+        }
+
+        private void redimensionar() {
+            int[] clavesAnteriores = claves;
+            long[] valoresAnteriores = valores;
+            boolean[] ocupadoAnterior = ocupado;
+
+            claves = new int[clavesAnteriores.length * 2];
+            valores = new long[clavesAnteriores.length * 2];
+            ocupado = new boolean[clavesAnteriores.length * 2];
+            cantidad = 0;
+
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (ocupadoAnterior[i]) {
+                    poner(clavesAnteriores[i], valoresAnteriores[i]);
+                }
+            }
+        }
+
+        private static int mezclar(int clave) {
+            int h = clave * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package util;
+
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Índice secundario ordenado de un campo numérico (valor → IDs).
+ *
+ * Las consultas por rango recorren solo el tramo del mapa ordenado entre
+ * los dos extremos, sin tocar el resto de los valores.
+ *
+ * No es seguro para uso concurrente; el repositorio que lo usa lo sincroniza.
+ */
+public class RangeIndex {
+
+    private final NavigableMap<Double, NavigableSet<Integer>> valores = new TreeMap<>();
+
+    /**
+     * Registra que el ID tiene el valor dado
+     */
+    public void agregar(int id, double valor) {
+        valores.computeIfAbsent(valor, v -> new TreeSet<>()).add(id);
+    }
+
+    /**
+     * Quita la asociación entre el ID y el valor (si existía)
+     */
+    public void quitar(int id, double valor) {
+        NavigableSet<Integer> ids = valores.get(valor);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            valores.remove(valor);
+        }
+    }
+
+    /**
+     * @return IDs con valor en [minimo, maximo], en orden de ID
+     */
+    public NavigableSet<Integer> buscarRango(double minimo, double maximo) {
+        NavigableSet<Integer> resultado = new TreeSet<>();
+        for (NavigableSet<Integer> ids : valores.subMap(minimo, true, maximo, true).values()) {
+            resultado.addAll(ids);
+        }
+        return resultado;
+    }
+
+    /**
+     * Cuenta los IDs con valor en [minimo, maximo] sin armar el conjunto
+     */
+    public long contarRango(double minimo, double maximo) {
+        long cantidad = 0;
+        for (NavigableSet<Integer> ids : valores.subMap(minimo, true, maximo, true).values()) {
+            cantidad += ids.size();
+        }
+        return cantidad;
+    }
+
+    /**
+     * Intersección de varios resultados, empezando por el más chico
+     *
+     * @return IDs presentes en todos los conjuntos, en orden de ID
+     */
+    public static NavigableSet<Integer> intersectar(Collection<NavigableSet<Integer>> conjuntos) {
+        NavigableSet<Integer> menor = null;
+        for (NavigableSet<Integer> conjunto : conjuntos) {
+            if (menor == null || conjunto.size() < menor.size()) {
+                menor = conjunto;
+            }
+        }
+        if (menor == null) {
+            return new TreeSet<>();
+        }
+
+        NavigableSet<Integer> resultado = new TreeSet<>();
+        for (int id : menor) {
+            boolean enTodos = true;
+            for (NavigableSet<Integer> conjunto : conjuntos) {
+                if (conjunto != menor && !conjunto.contains(id)) {
+                    enTodos = false;
+                    break;
+                }
+            }
+            if (enTodos) {
+                resultado.add(id);
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,178 @@
+package util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Índice secundario de texto (ej: marca → IDs), sin distinguir mayúsculas.
+ *
+ * Los términos se guardan normalizados en un mapa ordenado, que resuelve
+ * búsquedas exactas y por prefijo. Para las búsquedas por subcadena cada
+ * término se indexa además por sus trigramas: solo se comparan los términos
+ * que contienen todos los trigramas de la consulta.
+ *
+ * No es seguro para uso concurrente; el repositorio que lo usa lo sincroniza.
+ */
+public class TextIndex {
+
+    private static final int LARGO_NGRAMA = 3;
+
+    // término normalizado → IDs que lo tienen
+    private final NavigableMap<String, NavigableSet<Integer>> terminos = new TreeMap<>();
+    // trigrama → términos que lo contienen
+    private final Map<String, Set<String>> trigramas = new HashMap<>();
+
+    /**
+     * Normaliza un texto para indexarlo o buscarlo (minúsculas, independiente del Locale)
+     */
+    public static String normalizar(String texto) {
+        return texto.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registra que el ID tiene el texto dado
+     */
+    public void agregar(int id, String texto) {
+        String termino = normalizar(texto);
+        NavigableSet<Integer> ids = terminos.get(termino);
+        if (ids == null) {
+            ids = new TreeSet<>();
+            terminos.put(termino, ids);
+            for (String trigrama : trigramasDe(termino)) {
+                trigramas.computeIfAbsent(trigrama, t -> new HashSet<>()).add(termino);
+            }
+        }
+        ids.add(id);
+    }
+
+    /**
+     * Quita la asociación entre el ID y el texto (si existía)
+     */
+    public void quitar(int id, String texto) {
+        String termino = normalizar(texto);
+        NavigableSet<Integer> ids = terminos.get(termino);
+        if (ids == null || !ids.remove(id) || !ids.isEmpty()) {
+            return;
+        }
+
+        // Último ID con este término: se quita también de los trigramas
+        terminos.remove(termino);
+        for (String trigrama : trigramasDe(termino)) {
+            Set<String> conTrigrama = trigramas.get(trigrama);
+            conTrigrama.remove(termino);
+            if (conTrigrama.isEmpty()) {
+                trigramas.remove(trigrama);
+            }
+        }
+    }
+
+    /**
+     * @return IDs cuyo texto es igual al buscado, en orden de ID
+     */
+    public NavigableSet<Integer> buscarExacto(String texto) {
+        NavigableSet<Integer> ids = terminos.get(normalizar(texto));
+        return ids == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(ids);
+    }
+
+    /**
+     * @return IDs cuyo texto empieza con el prefijo, en orden de ID
+     */
+    public NavigableSet<Integer> buscarPrefijo(String prefijo) {
+        String inicio = normalizar(prefijo);
+        NavigableSet<Integer> resultado = new TreeSet<>();
+        String fin = inicio + Character.MAX_VALUE;
+        for (NavigableSet<Integer> ids : terminos.subMap(inicio, true, fin, false).values()) {
+            resultado.addAll(ids);
+        }
+        return resultado;
+    }
+
+    /**
+     * @return IDs cuyo texto contiene la subcadena, en orden de ID
+     */
+    public NavigableSet<Integer> buscarContiene(String subcadena) {
+        String buscada = normalizar(subcadena);
+        NavigableSet<Integer> resultado = new TreeSet<>();
+        for (String termino : terminosCandidatos(buscada)) {
+            if (termino.contains(buscada)) {
+                resultado.addAll(terminos.get(termino));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cuenta los IDs cuyo texto contiene la subcadena sin armar el conjunto
+     */
+    public long contarContiene(String subcadena) {
+        String buscada = normalizar(subcadena);
+        long cantidad = 0;
+        for (String termino : terminosCandidatos(buscada)) {
+            if (termino.contains(buscada)) {
+                cantidad += terminos.get(termino).size();
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Cantidad de términos distintos indexados
+     */
+    public int cantidadTerminos() {
+        return terminos.size();
+    }
+
+    /**
+     * Términos que pueden contener la subcadena: la intersección de los
+     * términos de cada trigrama, o todos si la subcadena es más corta
+     */
+    private Set<String> terminosCandidatos(String buscada) {
+        Set<String> consulta = trigramasDe(buscada);
+        if (consulta.isEmpty()) {
+            return terminos.keySet();
+        }
+
+        // Se parte del trigrama con menos términos
+        Set<String> menor = null;
+        for (String trigrama : consulta) {
+            Set<String> conTrigrama = trigramas.get(trigrama);
+            if (conTrigrama == null) {
+                return Collections.emptySet();
+            }
+            if (menor == null || conTrigrama.size() < menor.size()) {
+                menor = conTrigrama;
+            }
+        }
+
+        Set<String> candidatos = new HashSet<>();
+        for (String termino : menor) {
+            boolean enTodos = true;
+            for (String trigrama : consulta) {
+                if (!trigramas.get(trigrama).contains(termino)) {
+                    enTodos = false;
+                    break;
+                }
+            }
+            if (enTodos) {
+                candidatos.add(termino);
+            }
+        }
+        return candidatos;
+    }
+
+    private static Set<String> trigramasDe(String termino) {
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + LARGO_NGRAMA <= termino.length(); i++) {
+            resultado.add(termino.substring(i, i + LARGO_NGRAMA));
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,435 @@
+package util;
+
+import model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario de los archivos de vehículos ("autos.bin", ...).
+ *
+ * Cabecera de 8 bytes: "VBIN", versión y tipo ('A', 'M' o 'C'). Luego una
+ * secuencia de entradas, cada una con un byte de etiqueta:
+ *   'S' texto del diccionario: longitud (2 bytes) + UTF-8. Su código es el
+ *       orden de aparición (0, 1, 2...).
+ *   'R' registro vivo de tamaño fijo por tipo: los campos numéricos y
+ *       booleanos en línea y los textos como código del diccionario.
+ *   'X' registro eliminado (mismo tamaño que 'R').
+ *
+ * Layout de los registros (big endian):
+ *   común:  id int, version long, anio short, precio double, marca int, modelo int, color int
+ *   auto:   numeroPuertas byte, tipoTransmision int, esSedan byte
+ *   moto:   cilindrada int, tieneCarenado byte
+ *   camion: capacidadCarga double, numeroEjes byte
+ *
+ * La versión 1 del formato no tenía el campo "version" en los registros:
+ * esos archivos se siguen leyendo (los vehículos quedan con versión 0) y
+ * VehiculoBinaryRepository los migra a la versión actual al abrirlos.
+ */
+public final class VehiculoBinaryCodec {
+
+    public static final String EXTENSION = ".bin";
+
+    public static final byte ENTRADA_TEXTO = 'S';
+    public static final byte ENTRADA_REGISTRO = 'R';
+    public static final byte ENTRADA_ELIMINADA = 'X';
+
+    public static final int TAMANO_CABECERA = 8;
+    private static final int MAGIA = 0x5642494E; // "VBIN"
+    public static final byte VERSION_FORMATO = 2;
+    private static final byte FORMATO_SIN_VERSIONES = 1;
+    private static final int SIN_TEXTO = -1;
+    private static final int TAMANO_COMUN = 4 + 8 + 2 + 8 + 4 + 4 + 4;
+    private static final int TAMANO_VERSION = 8;
+    private static final int TAMANO_MAXIMO_ENTRADA = 1 + 2 + 0xFFFF;
+    private static final int TAMANO_BUFFER = 128 * 1024;
+
+    private VehiculoBinaryCodec() {
+    }
+
+    /**
+     * Tamaño de un registro (sin la etiqueta) para un archivo de tipo
+     */
+    public static int tamanoRegistro(String nombreArchivo) {
+        return tamanoRegistro(nombreArchivo, VERSION_FORMATO);
+    }
+
+    private static int tamanoRegistro(String nombreArchivo, byte formato) {
+        int comun = formato == FORMATO_SIN_VERSIONES ? TAMANO_COMUN - TAMANO_VERSION : TAMANO_COMUN;
+        switch (codigoTipo(nombreArchivo)) {
+            case 'A':
+                return comun + 1 + 4 + 1;
+            case 'M':
+                return comun + 4 + 1;
+            default:
+                return comun + 8 + 1;
+        }
+    }
+
+    public static void escribirCabecera(ByteBuffer destino, String nombreArchivo) {
+        destino.putInt(MAGIA).put(VERSION_FORMATO).put(codigoTipo(nombreArchivo)).putShort((short) 0);
+    }
+
+    /**
+     * Escribe la entrada de diccionario de un texto
+     */
+    public static void escribirTexto(ByteBuffer destino, String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Texto demasiado largo para el formato binario");
+        }
+        destino.put(ENTRADA_TEXTO).putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Tamaño en bytes de la entrada de diccionario de un texto
+     */
+    public static int tamanoTexto(String texto) {
+        return 1 + 2 + texto.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Escribe un registro vivo. Los textos deben estar ya en el diccionario.
+     */
+    public static void escribirRegistro(ByteBuffer destino, Vehiculo vehiculo, Diccionario diccionario) {
+        destino.put(ENTRADA_REGISTRO)
+                .putInt(vehiculo.getId())
+                .putLong(vehiculo.getVersion())
+                .putShort(aShort(vehiculo.getAnio(), "anio"))
+                .putDouble(vehiculo.getPrecio())
+                .putInt(diccionario.codigoExistente(vehiculo.getMarca()))
+                .putInt(diccionario.codigoExistente(vehiculo.getModelo()))
+                .putInt(diccionario.codigoExistente(vehiculo.getColor()));
+
+        if (vehiculo instanceof Auto) {
+            Auto auto = (Auto) vehiculo;
+            destino.put(aByte(auto.getNumeroPuertas(), "numeroPuertas"))
+                    .putInt(diccionario.codigoExistente(auto.getTipoTransmision()))
+                    .put((byte) (auto.isEsSedan() ? 1 : 0));
+        } else if (vehiculo instanceof Moto) {
+            Moto moto = (Moto) vehiculo;
+            destino.putInt(moto.getCilindrada())
+                    .put((byte) (moto.isTieneCarenado() ? 1 : 0));
+        } else {
+            Camion camion = (Camion) vehiculo;
+            destino.putDouble(camion.getCapacidadCarga())
+                    .put(aByte(camion.getNumeroEjes(), "numeroEjes"));
+        }
+    }
+
+    /**
+     * Lee un registro desde la posición actual del buffer (después de la
+     * etiqueta), con el formato del archivo del que se cargó el diccionario
+     */
+    public static Vehiculo leerRegistro(ByteBuffer origen, String nombreArchivo, Diccionario diccionario) {
+        int id = origen.getInt();
+        long version = diccionario.formato == FORMATO_SIN_VERSIONES ? 0 : origen.getLong();
+        int anio = origen.getShort();
+        double precio = origen.getDouble();
+        String marca = diccionario.texto(origen.getInt());
+        String modelo = diccionario.texto(origen.getInt());
+        String color = diccionario.texto(origen.getInt());
+
+        Vehiculo vehiculo;
+        switch (codigoTipo(nombreArchivo)) {
+            case 'A':
+                vehiculo = new Auto(id, marca, modelo, anio, precio, color,
+                        origen.get(), diccionario.texto(origen.getInt()), origen.get() != 0);
+                break;
+            case 'M':
+                vehiculo = new Moto(id, marca, modelo, anio, precio, color, origen.getInt(), origen.get() != 0);
+                break;
+            default:
+                vehiculo = new Camion(id, marca, modelo, anio, precio, color, origen.getDouble(), origen.get());
+                break;
+        }
+        vehiculo.setVersion(version);
+        return vehiculo;
+    }
+
+    /**
+     * Textos del vehículo que todavía no están en el diccionario
+     */
+    public static List<String> textosNuevos(Vehiculo vehiculo, Diccionario diccionario) {
+        List<String> nuevos = new ArrayList<>(2);
+        for (String texto : textos(vehiculo)) {
+            if (texto != null && diccionario.codigo(texto) == SIN_TEXTO && !nuevos.contains(texto)) {
+                nuevos.add(texto);
+            }
+        }
+        return nuevos;
+    }
+
+    /**
+     * Recorre un archivo binario desde el principio, cargando el diccionario
+     * (con la versión del formato del archivo) y entregando cada registro al visitante.
+     *
+     * @return Posición siguiente a la última entrada completa (una entrada
+     *         incompleta al final corresponde a una escritura interrumpida)
+     * @throws IOException Si la cabecera no corresponde al tipo o hay error de lectura
+     */
+    public static long recorrer(FileChannel canal, String nombreArchivo, Diccionario diccionario,
+                                VisitanteRegistro visitante) throws IOException {
+        long tamano = canal.size();
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+        long leidoHasta = leerHasta(canal, buffer, 0, tamano);
+        buffer.flip();
+
+        if (buffer.remaining() < TAMANO_CABECERA || buffer.getInt() != MAGIA) {
+            throw new IOException("El archivo " + nombreArchivo + EXTENSION + " no tiene formato binario válido");
+        }
+        byte version = buffer.get();
+        byte tipo = buffer.get();
+        buffer.getShort();
+        if ((version != VERSION_FORMATO && version != FORMATO_SIN_VERSIONES) || tipo != codigoTipo(nombreArchivo)) {
+            throw new IOException("Versión o tipo no soportado en " + nombreArchivo + EXTENSION);
+        }
+        diccionario.formato = version;
+
+        int tamanoRegistro = tamanoRegistro(nombreArchivo, version);
+        long inicioBuffer = 0; // Posición en el archivo del primer byte del buffer
+        long finValido = TAMANO_CABECERA;
+
+        while (true) {
+            if (buffer.remaining() < TAMANO_MAXIMO_ENTRADA && leidoHasta < tamano) {
+                // Conservar lo no procesado y completar el buffer con lo que sigue del archivo
+                inicioBuffer += buffer.position();
+                buffer.compact();
+                leidoHasta += leerHasta(canal, buffer, leidoHasta, tamano);
+                buffer.flip();
+            }
+            if (!buffer.hasRemaining()) {
+                break;
+            }
+
+            long posicion = inicioBuffer + buffer.position();
+            byte etiqueta = buffer.get();
+
+            if (etiqueta == ENTRADA_TEXTO) {
+                if (buffer.remaining() < 2) {
+                    break;
+                }
+                int longitud = buffer.getShort() & 0xFFFF;
+                if (buffer.remaining() < longitud) {
+                    break;
+                }
+                byte[] bytes = new byte[longitud];
+                buffer.get(bytes);
+                diccionario.agregar(new String(bytes, StandardCharsets.UTF_8));
+            } else if (etiqueta == ENTRADA_REGISTRO || etiqueta == ENTRADA_ELIMINADA) {
+                if (buffer.remaining() < tamanoRegistro) {
+                    break;
+                }
+                int finRegistro = buffer.position() + tamanoRegistro;
+                visitante.registro(posicion, etiqueta == ENTRADA_REGISTRO, buffer);
+                buffer.position(finRegistro);
+            } else {
+                // Etiqueta desconocida: el resto del archivo no es confiable
+                break;
+            }
+            finValido = inicioBuffer + buffer.position();
+        }
+
+        return finValido;
+    }
+
+    private static int leerHasta(FileChannel canal, ByteBuffer buffer, long posicion, long tamano)
+            throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining() && posicion + total < tamano) {
+            int leidos = canal.read(buffer, posicion + total);
+            if (leidos <= 0) {
+                break;
+            }
+            total += leidos;
+        }
+        return total;
+    }
+
+    /**
+     * Escribe un archivo binario completo (cabecera, diccionario y registros)
+     *
+     * @param ruta Archivo destino (se sobrescribe)
+     * @param nombreArchivo Nombre del archivo de tipo ("autos", "motos", "camiones")
+     * @param vehiculos Vehículos a escribir, en orden
+     * @throws IOException Si hay error al escribir
+     */
+    public static void escribirArchivo(Path ruta, String nombreArchivo, Iterable<? extends Vehiculo> vehiculos)
+            throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+            Diccionario diccionario = new Diccionario();
+            int tamanoRegistro = 1 + tamanoRegistro(nombreArchivo);
+            escribirCabecera(buffer, nombreArchivo);
+
+            for (Vehiculo vehiculo : vehiculos) {
+                for (String texto : textosNuevos(vehiculo, diccionario)) {
+                    if (buffer.remaining() < tamanoTexto(texto)) {
+                        vaciar(canal, buffer);
+                    }
+                    escribirTexto(buffer, texto);
+                    diccionario.agregar(texto);
+                }
+                if (buffer.remaining() < tamanoRegistro) {
+                    vaciar(canal, buffer);
+                }
+                escribirRegistro(buffer, vehiculo, diccionario);
+            }
+
+            vaciar(canal, buffer);
+            canal.force(true);
+        }
+    }
+
+    /**
+     * Tipo de vehículo ("auto", "moto", "camion") que guarda un archivo
+     */
+    public static String tipoDeArchivo(String nombreArchivo) {
+        switch (codigoTipo(nombreArchivo)) {
+            case 'A':
+                return "auto";
+            case 'M':
+                return "moto";
+            default:
+                return "camion";
+        }
+    }
+
+    private static void vaciar(FileChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static short aShort(int valor, String campo) {
+        if (valor < Short.MIN_VALUE || valor > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor fuera de rango para " + campo + ": " + valor);
+        }
+        return (short) valor;
+    }
+
+    private static byte aByte(int valor, String campo) {
+        if (valor < Byte.MIN_VALUE || valor > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor fuera de rango para " + campo + ": " + valor);
+        }
+        return (byte) valor;
+    }
+
+    private static String[] textos(Vehiculo vehiculo) {
+        String transmision = vehiculo instanceof Auto ? ((Auto) vehiculo).getTipoTransmision() : null;
+        return new String[] { vehiculo.getMarca(), vehiculo.getModelo(), vehiculo.getColor(), transmision };
+    }
+
+    private static byte codigoTipo(String nombreArchivo) {
+        switch (nombreArchivo) {
+            case "autos":
+                return 'A';
+            case "motos":
+                return 'M';
+            case "camiones":
+                return 'C';
+            default:
+                throw new IllegalArgumentException("Archivo de tipo desconocido: " + nombreArchivo);
+        }
+    }
+
+    /**
+     * Recibe cada registro encontrado al recorrer un archivo
+     */
+    @FunctionalInterface
+    public interface VisitanteRegistro {
+        /**
+         * @param posicion Posición de la etiqueta del registro en el archivo
+         * @param vivo false si el registro está marcado como eliminado
+         * @param contenido Buffer posicionado al inicio del registro (puede leerse o ignorarse)
+         */
+        void registro(long posicion, boolean vivo, ByteBuffer contenido);
+    }
+
+    /**
+     * Diccionario de textos: cada texto distinto se guarda una sola vez.
+     * Recuerda también la versión del formato del archivo del que se cargó,
+     * necesaria para leer sus registros.
+     */
+    public static class Diccionario {
+        private final List<String> textos = new ArrayList<>();
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private byte formato = VERSION_FORMATO;
+
+        /**
+         * @return Versión del formato del archivo recorrido (la actual si es un diccionario nuevo)
+         */
+        public byte getFormato() {
+            return formato;
+        }
+
+        /**
+         * Agrega un texto al final del diccionario
+         *
+         * @return Código asignado
+         */
+        public int agregar(String texto) {
+            Integer existente = codigos.get(texto);
+            textos.add(texto);
+            if (existente == null) {
+                codigos.put(texto, textos.size() - 1);
+            }
+            return textos.size() - 1;
+        }
+
+        /**
+         * @return Código del texto, o -1 si no está en el diccionario
+         */
+        public int codigo(String texto) {
+            Integer codigo = codigos.get(texto);
+            return codigo == null ? SIN_TEXTO : codigo;
+        }
+
+        public String texto(int codigo) {
+            if (codigo == SIN_TEXTO) {
+                return null;
+            }
+            if (codigo < 0 || codigo >= textos.size()) {
+                throw new IllegalArgumentException("Código de texto inválido: " + codigo);
+            }
+            return textos.get(codigo);
+        }
+
+        public int tamano() {
+            return textos.size();
+        }
+
+        /**
+         * Quita los últimos textos agregados (ej: si no se pudieron escribir)
+         */
+        public void descartarUltimos(int cantidad) {
+            for (int i = 0; i < cantidad; i++) {
+                int codigo = textos.size() - 1;
+                String texto = textos.remove(codigo);
+                codigos.remove(texto, codigo);
+            }
+        }
+
+        private int codigoExistente(String texto) {
+            if (texto == null) {
+                return SIN_TEXTO;
+            }
+            int codigo = codigo(texto);
+            if (codigo == SIN_TEXTO) {
+                throw new IllegalStateException("Texto no registrado en el diccionario: " + texto);
+            }
+            return codigo;
+        }
+    }
+}
@@ -37,8 +37,8 @@ public class VehiculoFactory {
      * @return Instancia del vehículo con datos cargados
      * @throws IllegalArgumentException Si el tipo no es válido o la línea es inválida
      */
-    public static Vehiculo crearDesdeCSV(String tipo, String lineaCSV) {
-        if (lineaCSV == null || lineaCSV.trim().isEmpty()) {
+    public static Vehiculo crearDesdeCSV(String tipo, CharSequence lineaCSV) {
+        if (lineaCSV == null || new CsvTokenizer(lineaCSV).estaVacia()) {
             throw new IllegalArgumentException("La línea CSV no puede estar vacía");
         }
         
@@ -59,6 +59,41 @@ public class VehiculoFactory {
         }
     }
     
+    /**
+     * Extrae el ID (primer campo) de una línea CSV sin parsear el resto
+     * 
+     * @param lineaCSV Línea CSV
+     * @return El ID, o null si la línea no empieza con un número
+     */
+    public static Integer extraerId(CharSequence lineaCSV) {
+        int fin = 0;
+        while (fin < lineaCSV.length() && lineaCSV.charAt(fin) != ',') {
+            fin++;
+        }
+        int inicio = 0;
+        while (inicio < fin && lineaCSV.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && lineaCSV.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        try {
+            return CsvTokenizer.parsearEntero(lineaCSV, inicio, fin);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Extrae la versión (último campo, "v3") de una línea CSV sin parsear el resto
+     * 
+     * @param lineaCSV Línea CSV
+     * @return La versión, o 0 si la línea no la tiene
+     */
+    public static long extraerVersion(CharSequence lineaCSV) {
+        return new CsvTokenizer(lineaCSV).quitarVersion();
+    }
+    
     /**
      * Obtiene el nombre del archivo CSV según el tipo de vehículo
      * 
@@ -0,0 +1,148 @@
+package util;
+
+import model.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Conversión entre vehículos y JSON para la API HTTP.
+ *
+ * Campos comunes: id, tipo, marca, modelo, anio, precio, color y version;
+ * más los propios de cada tipo con el mismo nombre que su atributo
+ * (numeroPuertas, tipoTransmision, esSedan, cilindrada, tieneCarenado,
+ * capacidadCarga, numeroEjes).
+ */
+public final class VehiculoJson {
+
+    private VehiculoJson() {
+    }
+
+    /**
+     * Escribe un vehículo como objeto JSON
+     */
+    public static void escribir(JsonWriter json, Vehiculo vehiculo) throws IOException {
+        json.inicioObjeto()
+            .campo("id", vehiculo.getId())
+            .campo("tipo", vehiculo.getTipo().toLowerCase())
+            .campo("marca", vehiculo.getMarca())
+            .campo("modelo", vehiculo.getModelo())
+            .campo("anio", vehiculo.getAnio())
+            .campo("precio", vehiculo.getPrecio())
+            .campo("color", vehiculo.getColor())
+            .campo("version", vehiculo.getVersion());
+
+        if (vehiculo instanceof Auto) {
+            Auto auto = (Auto) vehiculo;
+            json.campo("numeroPuertas", auto.getNumeroPuertas())
+                .campo("tipoTransmision", auto.getTipoTransmision())
+                .campo("esSedan", auto.isEsSedan());
+        } else if (vehiculo instanceof Moto) {
+            Moto moto = (Moto) vehiculo;
+            json.campo("cilindrada", moto.getCilindrada())
+                .campo("tieneCarenado", moto.isTieneCarenado());
+        } else if (vehiculo instanceof Camion) {
+            Camion camion = (Camion) vehiculo;
+            json.campo("capacidadCarga", camion.getCapacidadCarga())
+                .campo("numeroEjes", camion.getNumeroEjes());
+        }
+        json.finObjeto();
+    }
+
+    /**
+     * Arma un vehículo desde un objeto JSON ya interpretado por JsonParser.
+     * Los campos ausentes quedan con su valor por defecto (los valida el servicio).
+     *
+     * @param tipo Tipo de vehículo ("auto", "moto", "camion")
+     * @param objeto Objeto JSON
+     * @return Vehículo con los datos del objeto
+     * @throws IllegalArgumentException Si el tipo no es válido o un campo tiene otro tipo de dato
+     */
+    public static Vehiculo desdeJson(String tipo, Object objeto) {
+        if (!(objeto instanceof Map)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON con los datos del vehículo");
+        }
+        Map<?, ?> campos = (Map<?, ?>) objeto;
+        Vehiculo vehiculo = VehiculoFactory.crearVehiculo(tipo);
+
+        vehiculo.setId(entero(campos, "id", 0));
+        vehiculo.setMarca(texto(campos, "marca"));
+        vehiculo.setModelo(texto(campos, "modelo"));
+        vehiculo.setAnio(entero(campos, "anio", 0));
+        vehiculo.setPrecio(decimal(campos, "precio"));
+        vehiculo.setColor(texto(campos, "color"));
+        vehiculo.setVersion(largo(campos, "version"));
+
+        if (vehiculo instanceof Auto) {
+            Auto auto = (Auto) vehiculo;
+            auto.setNumeroPuertas(entero(campos, "numeroPuertas", 0));
+            auto.setTipoTransmision(texto(campos, "tipoTransmision"));
+            auto.setEsSedan(logico(campos, "esSedan"));
+        } else if (vehiculo instanceof Moto) {
+            Moto moto = (Moto) vehiculo;
+            moto.setCilindrada(entero(campos, "cilindrada", 0));
+            moto.setTieneCarenado(logico(campos, "tieneCarenado"));
+        } else if (vehiculo instanceof Camion) {
+            Camion camion = (Camion) vehiculo;
+            camion.setCapacidadCarga(decimal(campos, "capacidadCarga"));
+            camion.setNumeroEjes(entero(campos, "numeroEjes", 0));
+        }
+        return vehiculo;
+    }
+
+    private static String texto(Map<?, ?> campos, String nombre) {
+        Object valor = campos.get(nombre);
+        if (valor == null || valor instanceof String) {
+            return (String) valor;
+        }
+        throw tipoInvalido(nombre, "un texto");
+    }
+
+    private static int entero(Map<?, ?> campos, String nombre, int porDefecto) {
+        Object valor = campos.get(nombre);
+        if (valor == null) {
+            return porDefecto;
+        }
+        if (valor instanceof Long && (Long) valor == ((Long) valor).intValue()) {
+            return ((Long) valor).intValue();
+        }
+        throw tipoInvalido(nombre, "un número entero");
+    }
+
+    private static long largo(Map<?, ?> campos, String nombre) {
+        Object valor = campos.get(nombre);
+        if (valor == null) {
+            return 0;
+        }
+        if (valor instanceof Long) {
+            return (Long) valor;
+        }
+        throw tipoInvalido(nombre, "un número entero");
+    }
+
+    private static double decimal(Map<?, ?> campos, String nombre) {
+        Object valor = campos.get(nombre);
+        if (valor == null) {
+            return 0;
+        }
+        if (valor instanceof Number) {
+            return ((Number) valor).doubleValue();
+        }
+        throw tipoInvalido(nombre, "un número");
+    }
+
+    private static boolean logico(Map<?, ?> campos, String nombre) {
+        Object valor = campos.get(nombre);
+        if (valor == null) {
+            return false;
+        }
+        if (valor instanceof Boolean) {
+            return (Boolean) valor;
+        }
+        throw tipoInvalido(nombre, "true o false");
+    }
+
+    private static IllegalArgumentException tipoInvalido(String nombre, String esperado) {
+        return new IllegalArgumentException("El campo '" + nombre + "' debe ser " + esperado);
+    }
+}
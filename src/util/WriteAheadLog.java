@@ -0,0 +1,423 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escritura anticipada (WAL) de mutaciones pendientes.
+ *
+ * Antes de modificar un archivo de datos se registra la mutación y se espera
+ * a que sea durable; al terminar se confirma, o se descarta si la
+ * modificación falló. Si la aplicación se interrumpe,
+ * las entradas sin confirmar se devuelven en {@link #pendientes()} para
+ * reaplicarlas al arrancar.
+ *
+ * Los fsync se agrupan (group commit): mientras un hilo sincroniza, los demás
+ * siguen agregando entradas y el siguiente fsync cubre a todas a la vez.
+ *
+ * El archivo queda bloqueado (FileLock exclusivo) mientras está abierto: un
+ * WAL es de un solo proceso, y otro proceso solo lo puede abrir para
+ * recuperarlo si el dueño ya terminó ({@link #abrirSiLibre(Path)}).
+ *
+ * Formato de cada línea: "R\tsecuencia\tcrc\tentrada", "C\tsecuencia"
+ * (confirmada) o "A\tsecuencia" (descartada).
+ */
+public class WriteAheadLog {
+
+    private static final long TAMANO_CHECKPOINT = 1024 * 1024;
+    private static final Map<Path, WriteAheadLog> ABIERTOS = new HashMap<>();
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final Object bloqueoSincronizacion = new Object();
+
+    // Protegidos por "this"
+    private long posicion;
+    private long siguienteSecuencia = 1;
+    private long ultimaSecuenciaEscrita = 0;
+    private final Set<Long> enCurso = new HashSet<>();
+    private final SortedMap<Long, String> pendientes = new TreeMap<>();
+
+    // Protegido por "bloqueoSincronizacion"
+    private volatile long secuenciaDurable = 0;
+
+    private WriteAheadLog(Path ruta, FileChannel canal) throws IOException {
+        this.ruta = ruta;
+        this.canal = canal;
+        try {
+            cargar();
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre el WAL de una ruta. Todas las llamadas con la misma ruta comparten
+     * la misma instancia, para que no haya dos escritores sobre el mismo archivo.
+     *
+     * Si otro proceso lo está recuperando, espera a que termine.
+     *
+     * @param ruta Ruta del archivo WAL
+     * @return Instancia del WAL
+     * @throws IOException Si hay error al abrir o leer el archivo
+     */
+    public static synchronized WriteAheadLog abrir(Path ruta) throws IOException {
+        Path clave = ruta.toAbsolutePath().normalize();
+        WriteAheadLog wal = ABIERTOS.get(clave);
+        if (wal == null || !wal.canal.isOpen()) {
+            FileChannel canal;
+            do {
+                canal = FileChannel.open(clave,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                canal.lock();
+            } while (!sigueEnDisco(canal, clave));
+            wal = new WriteAheadLog(clave, canal);
+            ABIERTOS.put(clave, wal);
+        }
+        return wal;
+    }
+
+    /**
+     * Abre para recuperarlo el WAL de otro proceso, si ese proceso ya no lo
+     * tiene abierto. La instancia no se comparte: al terminar se cierra con
+     * {@link #eliminar()}.
+     *
+     * @param ruta Ruta del archivo WAL
+     * @return Instancia del WAL, o null si está en uso o ya no existe
+     * @throws IOException Si hay error al abrir o leer el archivo
+     */
+    public static synchronized WriteAheadLog abrirSiLibre(Path ruta) throws IOException {
+        Path clave = ruta.toAbsolutePath().normalize();
+        if (ABIERTOS.containsKey(clave)) {
+            return null;
+        }
+        FileChannel canal;
+        try {
+            canal = FileChannel.open(clave, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (canal.tryLock() == null || !sigueEnDisco(canal, clave)) {
+            canal.close();
+            return null;
+        }
+        return new WriteAheadLog(clave, canal);
+    }
+
+    /**
+     * Con el bloqueo tomado, verifica que el archivo no se haya eliminado
+     * mientras se esperaba (otro proceso lo recuperó); si no, cierra el canal
+     */
+    private static boolean sigueEnDisco(FileChannel canal, Path ruta) throws IOException {
+        if (Files.exists(ruta)) {
+            return true;
+        }
+        canal.close();
+        return false;
+    }
+
+    /**
+     * Registra una mutación y espera a que sea durable en disco
+     *
+     * @param entrada Descripción de la mutación (una sola línea)
+     * @return Número de secuencia, necesario para confirmar
+     * @throws IOException Si hay error al escribir o sincronizar
+     */
+    public long registrar(String entrada) throws IOException {
+        if (entrada.indexOf('\n') >= 0 || entrada.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("La entrada del WAL no puede contener saltos de línea");
+        }
+
+        long secuencia;
+        synchronized (this) {
+            secuencia = siguienteSecuencia++;
+            CRC32 crc = new CRC32();
+            byte[] bytesEntrada = entrada.getBytes(StandardCharsets.UTF_8);
+            crc.update(bytesEntrada);
+            escribirLinea("R\t" + secuencia + "\t" + crc.getValue() + "\t" + entrada);
+            enCurso.add(secuencia);
+            ultimaSecuenciaEscrita = secuencia;
+        }
+
+        esperarDurable(secuencia);
+        return secuencia;
+    }
+
+    /**
+     * Registra varias mutaciones con una sola escritura y espera a que sean
+     * durables con un solo fsync
+     *
+     * @param entradas Descripciones de las mutaciones (una línea cada una)
+     * @return Números de secuencia, en el orden de las entradas
+     * @throws IOException Si hay error al escribir o sincronizar
+     */
+    public long[] registrarTodas(List<String> entradas) throws IOException {
+        long[] secuencias = anotarTodas(entradas);
+        if (secuencias.length > 0) {
+            esperarDurable(secuencias[secuencias.length - 1]);
+        }
+        return secuencias;
+    }
+
+    /**
+     * Registra varias mutaciones con una sola escritura, sin esperar el fsync:
+     * quien llama lo espera con {@link #esperarDurable(long)} antes de
+     * confirmar (ej: después de soltar el bloqueo del archivo de datos, para
+     * que el fsync cubra también las entradas de otros hilos)
+     *
+     * @param entradas Descripciones de las mutaciones (una línea cada una)
+     * @return Números de secuencia, en el orden de las entradas
+     * @throws IOException Si hay error al escribir
+     */
+    public long[] anotarTodas(List<String> entradas) throws IOException {
+        for (String entrada : entradas) {
+            if (entrada.indexOf('\n') >= 0 || entrada.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("La entrada del WAL no puede contener saltos de línea");
+            }
+        }
+        if (entradas.isEmpty()) {
+            return new long[0];
+        }
+
+        long[] secuencias = new long[entradas.size()];
+        synchronized (this) {
+            StringBuilder lineas = new StringBuilder();
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < secuencias.length; i++) {
+                String entrada = entradas.get(i);
+                secuencias[i] = siguienteSecuencia++;
+                crc.reset();
+                crc.update(entrada.getBytes(StandardCharsets.UTF_8));
+                lineas.append("R\t").append(secuencias[i]).append('\t').append(crc.getValue())
+                        .append('\t').append(entrada).append('\n');
+                enCurso.add(secuencias[i]);
+            }
+            escribirTexto(lineas);
+            ultimaSecuenciaEscrita = secuencias[secuencias.length - 1];
+        }
+        return secuencias;
+    }
+
+    /**
+     * Marca una mutación como aplicada. La confirmación no se sincroniza:
+     * si se pierde, la mutación se reaplica al arrancar (debe ser idempotente).
+     *
+     * @param secuencia Número devuelto por {@link #registrar(String)}
+     * @throws IOException Si hay error al escribir
+     */
+    public synchronized void confirmar(long secuencia) throws IOException {
+        escribirLinea("C\t" + secuencia);
+        enCurso.remove(secuencia);
+        pendientes.remove(secuencia);
+
+        checkpoint();
+    }
+
+    /**
+     * Marca varias mutaciones como aplicadas con una sola escritura
+     *
+     * @param secuencias Números devueltos por {@link #registrarTodas(List)}
+     * @throws IOException Si hay error al escribir
+     */
+    public synchronized void confirmarTodas(long[] secuencias) throws IOException {
+        cerrarEntradas("C", secuencias);
+    }
+
+    /**
+     * Descarta mutaciones que no llegaron a aplicarse (la escritura del
+     * archivo de datos falló), para que no se reapliquen al arrancar
+     *
+     * @param secuencias Números devueltos al registrar
+     * @throws IOException Si hay error al escribir
+     */
+    public synchronized void descartarTodas(long[] secuencias) throws IOException {
+        cerrarEntradas("A", secuencias);
+    }
+
+    private void cerrarEntradas(String marca, long[] secuencias) throws IOException {
+        StringBuilder lineas = new StringBuilder();
+        for (long secuencia : secuencias) {
+            lineas.append(marca).append('\t').append(secuencia).append('\n');
+        }
+        try {
+            escribirTexto(lineas);
+        } finally {
+            // Aunque no se pueda anotar, la entrada ya no está en curso: que no
+            // impida vaciar el archivo en el próximo checkpoint
+            for (long secuencia : secuencias) {
+                enCurso.remove(secuencia);
+                pendientes.remove(secuencia);
+            }
+        }
+
+        checkpoint();
+    }
+
+    /**
+     * Obtiene las mutaciones registradas que no se confirmaron antes del último cierre
+     *
+     * @return Mapa secuencia → entrada, en orden de registro
+     */
+    public synchronized SortedMap<Long, String> pendientes() {
+        return new TreeMap<>(pendientes);
+    }
+
+    /**
+     * Cierra el WAL. Un {@link #abrir(Path)} posterior vuelve a leerlo desde disco.
+     *
+     * @throws IOException Si hay error al cerrar el archivo
+     */
+    public void cerrar() throws IOException {
+        synchronized (WriteAheadLog.class) {
+            ABIERTOS.remove(ruta);
+            synchronized (this) {
+                canal.close();
+            }
+        }
+    }
+
+    /**
+     * Elimina el archivo (con todo ya aplicado) y cierra el WAL
+     *
+     * @throws IOException Si hay error al eliminar o cerrar el archivo
+     */
+    public void eliminar() throws IOException {
+        synchronized (WriteAheadLog.class) {
+            ABIERTOS.remove(ruta);
+            synchronized (this) {
+                try {
+                    // Se elimina con el bloqueo tomado: quien espere para abrirlo lo verá eliminado
+                    Files.deleteIfExists(ruta);
+                } finally {
+                    canal.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la ruta del archivo WAL
+     */
+    public Path getRuta() {
+        return ruta;
+    }
+
+    /**
+     * Espera a que una entrada y todas las anteriores sean durables. Solo un
+     * hilo ejecuta fsync a la vez; los que llegan mientras tanto quedan
+     * cubiertos por el siguiente.
+     *
+     * @param secuencia Número devuelto al registrar o anotar
+     * @throws IOException Si hay error al sincronizar
+     */
+    public void esperarDurable(long secuencia) throws IOException {
+        if (secuenciaDurable >= secuencia) {
+            return;
+        }
+        synchronized (bloqueoSincronizacion) {
+            if (secuenciaDurable >= secuencia) {
+                return;
+            }
+            long hasta;
+            synchronized (this) {
+                hasta = ultimaSecuenciaEscrita;
+            }
+            canal.force(false);
+            secuenciaDurable = hasta;
+        }
+    }
+
+    /**
+     * Si todo está aplicado el contenido ya no es necesario: se vacía el archivo
+     */
+    private void checkpoint() throws IOException {
+        if (enCurso.isEmpty() && pendientes.isEmpty() && posicion > TAMANO_CHECKPOINT) {
+            canal.truncate(0);
+            posicion = 0;
+        }
+    }
+
+    private void escribirLinea(String linea) throws IOException {
+        escribirTexto(linea + "\n");
+    }
+
+    private void escribirTexto(CharSequence texto) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(java.nio.CharBuffer.wrap(texto));
+        while (buffer.hasRemaining()) {
+            posicion += canal.write(buffer, posicion);
+        }
+    }
+
+    /**
+     * Lee el WAL existente y determina las mutaciones sin confirmar.
+     * Una línea final incompleta o con CRC inválido (escritura interrumpida) se descarta.
+     */
+    private void cargar() throws IOException {
+        long tamano = canal.size();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream linea = new ByteArrayOutputStream();
+        long leido = 0;
+        long finValido = 0;
+
+        while (leido < tamano) {
+            buffer.clear();
+            int n = canal.read(buffer, leido);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    if (!procesarLinea(new String(linea.toByteArray(), StandardCharsets.UTF_8))) {
+                        leido = tamano;
+                        break;
+                    }
+                    finValido = leido + i + 1;
+                    linea.reset();
+                } else {
+                    linea.write(b);
+                }
+            }
+            leido += n;
+        }
+
+        if (finValido < tamano) {
+            canal.truncate(finValido);
+        }
+        posicion = finValido;
+    }
+
+    /**
+     * @return false si la línea está dañada y hay que descartar el resto
+     */
+    private boolean procesarLinea(String linea) {
+        String[] partes = linea.split("\t", 4);
+        try {
+            long secuencia = Long.parseLong(partes[1]);
+            siguienteSecuencia = Math.max(siguienteSecuencia, secuencia + 1);
+
+            if (partes[0].equals("R") && partes.length == 4) {
+                CRC32 crc = new CRC32();
+                crc.update(partes[3].getBytes(StandardCharsets.UTF_8));
+                if (crc.getValue() != Long.parseLong(partes[2])) {
+                    return false;
+                }
+                pendientes.put(secuencia, partes[3]);
+                return true;
+            } else if (partes[0].equals("C") || partes[0].equals("A")) {
+                pendientes.remove(secuencia);
+                return true;
+            }
+            return false;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package query;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ConsultaParser
+ */
+class ConsultaParserTest {
+
+    @Test
+    @DisplayName("Test PARSEAR - Predicados, orden y límite")
+    void testParsear_FullQuery() {
+        // Act
+        Consulta consulta = ConsultaParser.parsear("auto",
+            "numeroPuertas=4 and tipoTransmision = Automática AND precio<30000.5 ORDER BY precio DESC LIMIT 10");
+
+        // Assert
+        assertEquals(3, consulta.getPredicados().size());
+        Predicado puertas = consulta.getPredicados().get(0);
+        assertEquals(Atributo.NUMERO_PUERTAS, puertas.getAtributo());
+        assertEquals(Operador.IGUAL, puertas.getOperador());
+        assertEquals(4.0, puertas.getValor());
+        assertEquals("automática", consulta.getPredicados().get(1).getValor());
+        assertEquals(Operador.MENOR, consulta.getPredicados().get(2).getOperador());
+        assertEquals(Atributo.PRECIO, consulta.getOrden());
+        assertTrue(consulta.isDescendente());
+        assertEquals(10, consulta.getLimite());
+    }
+
+    @Test
+    @DisplayName("Test PARSEAR - Valores con espacios y consulta vacía")
+    void testParsear_TextValuesAndEmpty() {
+        // Act
+        Consulta conEspacios = ConsultaParser.parsear("auto", "marca=Mercedes Benz AND modelo~\"Clase AND C\"");
+        Consulta vacia = ConsultaParser.parsear("auto", "  LIMIT 5");
+
+        // Assert
+        assertEquals("mercedes benz", conEspacios.getPredicados().get(0).getValor());
+        assertEquals("clase and c", conEspacios.getPredicados().get(1).getValor());
+        assertTrue(vacia.getPredicados().isEmpty());
+        assertEquals(5, vacia.getLimite());
+    }
+
+    @Test
+    @DisplayName("Test PARSEAR - Consultas inválidas")
+    void testParsear_InvalidQueries() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> ConsultaParser.parsear("auto", "potencia>100"));
+        assertThrows(IllegalArgumentException.class, () -> ConsultaParser.parsear("auto", "precio<barato"));
+        assertThrows(IllegalArgumentException.class, () -> ConsultaParser.parsear("auto", "marca<Toyota"));
+        assertThrows(IllegalArgumentException.class, () -> ConsultaParser.parsear("auto", "precio<1 LIMIT"));
+        assertThrows(IllegalArgumentException.class, () -> ConsultaParser.parsear("auto", "esSedan=quizas"));
+        assertThrows(IllegalArgumentException.class,
+            () -> ConsultaParser.parsear("auto", "precio>0 ORDER BY precio LIMIT 2000000000"));
+    }
+}
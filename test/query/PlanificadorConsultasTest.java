@@ -0,0 +1,103 @@
+package query;
+
+import model.*;
+import repository.*;
+import exception.VehiculoException;
+import util.FileManager;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para PlanificadorConsultas
+ *
+ * Verifica la elección de índices y que el resultado no dependa del plan
+ */
+class PlanificadorConsultasTest {
+
+    private static FileManager fileManager;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            fileManager.eliminarArchivo("autos");
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    private static void crearAutos(IVehiculoRepository repository) throws VehiculoException {
+        String[] marcas = { "Toyota", "Honda", "Ford", "Fiat" };
+        for (int i = 1; i <= 40; i++) {
+            repository.create(new Auto(i, marcas[i % 4], "M" + i, 2000 + i % 20, 10000.0 + i * 1000, "Rojo",
+                                       i % 3 == 0 ? 2 : 4, i % 2 == 0 ? "Automática" : "Manual", i % 5 == 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Test PLAN - Se elige el índice más selectivo")
+    void testPlanificar_PicksMostSelectiveIndex() throws VehiculoException {
+        // Arrange
+        IVehiculoRepository repository = new VehiculoIndexedRepository(fileManager);
+        crearAutos(repository);
+        PlanificadorConsultas planificador = new PlanificadorConsultas(repository);
+
+        // Act
+        PlanificadorConsultas.Plan porPrecio = planificador.planificar(
+            ConsultaParser.parsear("auto", "marca~o AND precio>=45000 AND precio<=47000"));
+        PlanificadorConsultas.Plan porMarca = planificador.planificar(
+            ConsultaParser.parsear("auto", "marca=Ford AND precio>15000"));
+        PlanificadorConsultas.Plan completo = planificador.planificar(
+            ConsultaParser.parsear("auto", "color=Rojo"));
+
+        // Assert
+        assertTrue(porPrecio.getDescripcion().contains("precio"));
+        assertEquals(3, porPrecio.getCandidatosEstimados());
+        assertTrue(porMarca.getDescripcion().contains("marca"));
+        assertEquals(10, porMarca.getCandidatosEstimados());
+        assertEquals(-1, completo.getCandidatosEstimados());
+        assertEquals(List.of(36, 37), ids(porPrecio.ejecutar()));
+    }
+
+    @Test
+    @DisplayName("Test EJECUTAR - Mismo resultado con índice o recorrido, con top-K")
+    void testEjecutar_SameResultWithAndWithoutIndex() throws VehiculoException {
+        // Arrange - el repositorio de archivo no tiene índices: recorre todo
+        IVehiculoRepository indexado = new VehiculoIndexedRepository(fileManager);
+        crearAutos(indexado);
+        IVehiculoRepository archivo = new VehiculoFileRepository(fileManager);
+        String texto = "numeroPuertas=4 AND tipoTransmision=automática AND precio<30000 ORDER BY anio DESC LIMIT 3";
+
+        // Act
+        List<Vehiculo> conIndice = new PlanificadorConsultas(indexado).ejecutar(ConsultaParser.parsear("auto", texto));
+        List<Vehiculo> sinIndice = new PlanificadorConsultas(archivo).ejecutar(ConsultaParser.parsear("auto", texto));
+
+        // Assert - pares, no múltiplos de 3, precio < 30000 (id < 20), por año descendente
+        assertEquals(List.of(16, 14, 10), ids(conIndice));
+        assertEquals(ids(conIndice), ids(sinIndice));
+    }
+
+    @Test
+    @DisplayName("Test VALIDAR - Atributo que no aplica al tipo")
+    void testPlanificar_AttributeNotApplicable() throws VehiculoException {
+        // Arrange
+        PlanificadorConsultas planificador = new PlanificadorConsultas(new VehiculoFileRepository(fileManager));
+
+        // Act & Assert
+        assertThrows(VehiculoException.class,
+            () -> planificador.planificar(ConsultaParser.parsear("auto", "cilindrada>500")));
+        assertTrue(planificador.ejecutar(ConsultaParser.parsear("auto", "precio>10 AND precio<5")).isEmpty());
+    }
+
+    private static List<Integer> ids(List<Vehiculo> vehiculos) {
+        return vehiculos.stream().map(Vehiculo::getId).collect(Collectors.toList());
+    }
+}
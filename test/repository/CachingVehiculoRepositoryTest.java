@@ -0,0 +1,154 @@
+package repository;
+
+import model.*;
+import exception.VehiculoException;
+import util.FileManager;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CachingVehiculoRepository
+ *
+ * Verifica aciertos, desalojo LRU, vencimiento por TTL e invalidación
+ */
+class CachingVehiculoRepositoryTest {
+
+    private static FileManager fileManager;
+    private final AtomicLong reloj = new AtomicLong();
+    private CachingVehiculoRepository repository;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @BeforeEach
+    void setUp() throws VehiculoException {
+        repository = new CachingVehiculoRepository(new VehiculoFileRepository(fileManager), 2, 100, reloj::get);
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        repository.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", false));
+        repository.create(new Auto(3, "Mazda", "3", 2019, 18000.0, "Gris", 4, "Manual", true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            fileManager.eliminarArchivo("autos");
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @DisplayName("Test ACIERTOS - Las lecturas repetidas salen de la caché como copias")
+    void testRead_HitsReturnCopies() throws VehiculoException {
+        // Act
+        Vehiculo primera = repository.read(1, "auto");
+        primera.setColor("Verde"); // modificar la copia no altera la caché
+        Vehiculo segunda = repository.read(1, "auto");
+
+        // Assert
+        assertEquals("Rojo", segunda.getColor());
+        assertNotSame(primera, segunda);
+        assertEquals(1, repository.getAciertos());
+        assertEquals(1, repository.getFallos());
+    }
+
+    @Test
+    @DisplayName("Test LRU - Se desaloja la entrada usada hace más tiempo")
+    void testRead_EvictsLeastRecentlyUsed() throws VehiculoException {
+        // Act
+        repository.read(1, "auto");
+        repository.read(2, "auto");
+        repository.read(1, "auto"); // 2 pasa a ser el menos usado
+        repository.read(3, "auto"); // desaloja a 2
+        repository.read(1, "auto");
+        repository.read(2, "auto");
+
+        // Assert
+        assertEquals(2, repository.getCantidadEntradas());
+        assertEquals(2, repository.getAciertos());
+        assertEquals(4, repository.getFallos());
+        assertEquals(2, repository.getDesalojos());
+    }
+
+    @Test
+    @DisplayName("Test TTL - Las entradas vencidas se vuelven a leer")
+    void testRead_ExpiredEntriesAreReloaded() throws VehiculoException {
+        // Act
+        repository.read(1, "auto");
+        reloj.addAndGet(50);
+        repository.read(1, "auto");
+        reloj.addAndGet(60);
+        repository.read(1, "auto");
+
+        // Assert
+        assertEquals(1, repository.getAciertos());
+        assertEquals(2, repository.getFallos());
+    }
+
+    @Test
+    @DisplayName("Test INVALIDAR - update y delete descartan lecturas y listados")
+    void testMutations_InvalidateEntries() throws VehiculoException {
+        // Arrange
+        repository.read(1, "auto");
+        assertEquals(3, repository.findAll("auto").size());
+
+        // Act
+        Auto auto = (Auto) repository.read(1, "auto");
+        auto.setPrecio(30000.0);
+        repository.update(auto);
+        repository.delete(2, "auto");
+
+        // Assert
+        assertEquals(30000.0, repository.read(1, "auto").getPrecio(), 0.01);
+        assertEquals(2, repository.findAll("auto").size());
+        assertFalse(repository.existsById(2, "auto"));
+    }
+
+    @Test
+    @DisplayName("Test PROCESOS - Un cambio hecho por otro repositorio descarta la entrada sin TTL")
+    void testRead_SeesChangesFromAnotherProcess() throws VehiculoException {
+        // Arrange - caché sin vencimiento, con la lectura ya guardada
+        CachingVehiculoRepository sinTtl = new CachingVehiculoRepository(
+            new VehiculoFileRepository(fileManager), 10, 0, reloj::get);
+        sinTtl.read(1, "auto");
+
+        // Act - otro repositorio (como lo haría otro proceso) modifica el archivo
+        Vehiculo cambiado = new VehiculoFileRepository(new FileManager()).read(1, "auto");
+        cambiado.setColor("Negro");
+        new VehiculoFileRepository(new FileManager()).update(cambiado);
+
+        // Assert - se ve al pasar el intervalo de verificación, sin consultar en cada acierto
+        assertEquals("Rojo", sinTtl.read(1, "auto").getColor());
+        reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(CachingVehiculoRepository.INTERVALO_VERIFICACION_MS));
+        assertEquals("Negro", sinTtl.read(1, "auto").getColor());
+        assertEquals(1, sinTtl.getAciertos());
+    }
+
+    @Test
+    @DisplayName("Test PROCESOS - Una escritura propia solo descarta los IDs escritos")
+    void testOwnWrite_KeepsOtherEntries() throws VehiculoException {
+        // Arrange
+        CachingVehiculoRepository sinTtl = new CachingVehiculoRepository(
+            new VehiculoFileRepository(fileManager), 10, 0, reloj::get);
+        sinTtl.read(1, "auto");
+        sinTtl.read(2, "auto");
+
+        // Act
+        Vehiculo cambiado = sinTtl.read(1, "auto");
+        cambiado.setColor("Negro");
+        sinTtl.update(cambiado);
+        reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(CachingVehiculoRepository.INTERVALO_VERIFICACION_MS));
+
+        // Assert - el 2 sigue en caché y el 1 se vuelve a leer
+        sinTtl.read(2, "auto");
+        assertEquals("Negro", sinTtl.read(1, "auto").getColor());
+        assertEquals(2, sinTtl.getAciertos());
+        assertEquals(3, sinTtl.getFallos());
+    }
+}
@@ -0,0 +1,264 @@
+package repository;
+
+import model.*;
+import exception.ConflictoVersionException;
+import exception.VehiculoException;
+import util.CsvBinaryConverter;
+import util.FileManager;
+import util.VehiculoBinaryCodec;
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para VehiculoBinaryRepository y CsvBinaryConverter
+ *
+ * Verifica las operaciones sobre el formato binario y la conversión desde y hacia CSV
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class VehiculoBinaryRepositoryTest {
+
+    private static FileManager fileManager;
+    private VehiculoBinaryRepository repository;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new VehiculoBinaryRepository(fileManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+        try {
+            for (String archivo : new String[] { "autos", "motos", "camiones" }) {
+                fileManager.eliminarArchivo(archivo);
+                Files.deleteIfExists(fileManager.obtenerRuta(archivo, VehiculoBinaryCodec.EXTENSION));
+                Files.deleteIfExists(fileManager.obtenerRuta(archivo, ".bin.exportado"));
+            }
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test CRUD - Operaciones sobre el archivo binario")
+    void testCrud_Success() throws VehiculoException {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                            4, "Automática", true);
+
+        // Act
+        repository.create(auto);
+        auto.setPrecio(30000.0);
+        auto.setColor("Negro");
+        repository.update(auto);
+        repository.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul",
+                                  4, "Manual", false));
+        repository.delete(2, "auto");
+
+        // Assert
+        Auto leido = (Auto) repository.read(1, "auto");
+        assertEquals(30000.0, leido.getPrecio(), 0.01);
+        assertEquals("Negro", leido.getColor());
+        assertEquals("Automática", leido.getTipoTransmision());
+        assertFalse(repository.existsById(2, "auto"));
+        assertEquals(1, repository.findAll("auto").size());
+        assertThrows(VehiculoException.class, () -> repository.read(2, "auto"));
+        assertThrows(VehiculoException.class, () -> repository.create(auto));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test REABRIR - El diccionario y el índice se reconstruyen desde el archivo")
+    void testReopen_RebuildsIndex() throws VehiculoException {
+        // Arrange
+        repository.create(new Moto(1, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true));
+        repository.create(new Moto(2, "Honda", "CBR", 2020, 12000.0, "Rojo", 600, false));
+        repository.create(new Moto(3, "Yamaha", "MT-07", 2022, 9000.0, "Azul", 689, false));
+        repository.delete(1, "moto");
+        repository.close();
+
+        // Act
+        repository = new VehiculoBinaryRepository(fileManager);
+
+        // Assert
+        assertFalse(repository.existsById(1, "moto"));
+        assertEquals("Honda", repository.read(2, "moto").getMarca());
+        assertEquals("Yamaha", repository.read(3, "moto").getMarca());
+        assertEquals(689, ((Moto) repository.read(3, "moto")).getCilindrada());
+        assertEquals(4, repository.getNextId("moto"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test CONVERTIR - CSV → binario → CSV conserva las líneas")
+    void testConvertir_RoundTripIsLossless() throws Exception {
+        // Arrange
+        List<String> original = List.of(
+            "1,Volvo,FH16,2020,150000.50,Blanco,25.75,4",
+            "2,\"Scania, AB\",R500,2019,120000.00,Rojo,18.00,3",
+            "3,Volvo,FM,2018,99999.99,Blanco,12.50,2");
+        fileManager.escribirArchivo("camiones", original);
+        CsvBinaryConverter conversor = new CsvBinaryConverter(fileManager);
+
+        // Act
+        int aBinario = conversor.csvABinario("camiones");
+        fileManager.eliminarArchivo("camiones");
+        int aCsv = conversor.binarioACsv("camiones");
+
+        // Assert
+        assertEquals(3, aBinario);
+        assertEquals(3, aCsv);
+        assertEquals(original, fileManager.leerArchivo("camiones"));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test COMPACTAR - Se eliminan los registros obsoletos")
+    void testCompactar_RemovesDeletedRecords() throws Exception {
+        // Arrange
+        Camion camion = new Camion(1, "Volvo", "FH16", 2020, 150000.0, "Blanco", 25.0, 4);
+        repository.create(camion);
+        for (int i = 0; i < 20; i++) {
+            camion.setPrecio(150000.0 + i);
+            repository.update(camion);
+        }
+        repository.create(new Camion(2, "Scania", "R500", 2019, 120000.0, "Rojo", 18.0, 3));
+        long tamanoAntes = Files.size(fileManager.obtenerRuta("camiones", VehiculoBinaryCodec.EXTENSION));
+
+        // Act
+        repository.compactar("camion");
+
+        // Assert
+        assertTrue(Files.size(fileManager.obtenerRuta("camiones", VehiculoBinaryCodec.EXTENSION)) < tamanoAntes);
+        assertEquals(150019.0, repository.read(1, "camion").getPrecio(), 0.01);
+        assertEquals("Scania", repository.read(2, "camion").getMarca());
+        assertEquals(2, repository.findAll("camion").size());
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test IMPORTAR - Un archivo binario nuevo importa el CSV existente")
+    void testNewFile_ImportsCsv() throws VehiculoException {
+        // Arrange - datos escritos en el CSV por el repositorio de archivo
+        new VehiculoFileRepository(fileManager).create(
+            new Auto(5, "Mazda", "3", 2019, 18000.0, "Gris", 4, "Manual", true));
+
+        // Act & Assert
+        assertEquals("Mazda", repository.read(5, "auto").getMarca());
+        assertEquals(6, repository.getNextId("auto"));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test VERSIONES - Se guarda la versión y una edición vieja falla con conflicto")
+    void testUpdate_ChecksStoredVersion() throws Exception {
+        // Arrange
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Manual", true));
+        Vehiculo primero = repository.read(1, "auto");
+        Vehiculo segundo = repository.read(1, "auto");
+
+        // Act
+        primero.setPrecio(26000.0);
+        repository.update(primero);
+        segundo.setPrecio(27000.0);
+
+        // Assert
+        assertEquals(2, primero.getVersion());
+        assertThrows(ConflictoVersionException.class, () -> repository.update(segundo));
+        repository.close();
+        repository = new VehiculoBinaryRepository(fileManager);
+        assertEquals(2, repository.read(1, "auto").getVersion());
+        assertEquals(26000.0, repository.read(1, "auto").getPrecio(), 0.01);
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test MIGRAR - Un archivo con el formato anterior se reescribe al abrirlo")
+    void testOldFormat_IsMigrated() throws Exception {
+        // Arrange - formato 1: registros sin versión
+        ByteBuffer anterior = ByteBuffer.allocate(256);
+        anterior.putInt(0x5642494E).put((byte) 1).put((byte) 'M').putShort((short) 0);
+        for (String texto : new String[] { "Honda", "CBR", "Rojo" }) {
+            anterior.put((byte) 'S').putShort((short) texto.length()).put(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        anterior.put((byte) 'R').putInt(7).putShort((short) 2020).putDouble(12000.0)
+                .putInt(0).putInt(1).putInt(2).putInt(600).put((byte) 1);
+        Files.write(fileManager.obtenerRuta("motos", VehiculoBinaryCodec.EXTENSION),
+                Arrays.copyOf(anterior.array(), anterior.position()));
+
+        // Act
+        Vehiculo migrada = repository.read(7, "moto");
+        repository.create(new Moto(8, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true));
+        repository.close();
+        repository = new VehiculoBinaryRepository(fileManager);
+
+        // Assert
+        assertEquals("Honda", migrada.getMarca());
+        assertEquals(0, migrada.getVersion());
+        assertEquals(VehiculoBinaryCodec.VERSION_FORMATO,
+                Files.readAllBytes(fileManager.obtenerRuta("motos", VehiculoBinaryCodec.EXTENSION))[4]);
+        assertEquals(600, ((Moto) repository.read(7, "moto")).getCilindrada());
+        assertEquals(1, repository.read(8, "moto").getVersion());
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test EXPORTAR - Al cerrar, los cambios pasan al CSV y otra instancia los ve")
+    void testClose_ExportsToCsvAndOthersSeeWrites() throws Exception {
+        // Arrange - otra instancia sobre los mismos archivos, como otro proceso
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Manual", true));
+        VehiculoBinaryRepository otro = new VehiculoBinaryRepository(fileManager);
+        assertEquals("Toyota", otro.read(1, "auto").getMarca());
+
+        // Act
+        otro.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", false));
+        otro.close();
+        Vehiculo visto = repository.read(2, "auto");
+        repository.close();
+
+        // Assert
+        assertEquals("Honda", visto.getMarca());
+        VehiculoFileRepository csv = new VehiculoFileRepository(fileManager);
+        assertEquals("Toyota", csv.read(1, "auto").getMarca());
+        assertEquals("Honda", csv.read(2, "auto").getMarca());
+        repository = new VehiculoBinaryRepository(fileManager);
+        assertEquals(2, repository.findAll("auto").size());
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Test DIVERGENCIA - Se reconvierte si solo cambió el CSV y falla si cambiaron ambos")
+    void testCsvChanged_ReconvertsOrRejects() throws Exception {
+        // Arrange
+        repository.create(new Moto(1, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true));
+        repository.close();
+        VehiculoFileRepository csv = new VehiculoFileRepository(fileManager);
+        csv.create(new Moto(2, "Honda", "CBR", 2020, 12000.0, "Rojo", 600, false));
+
+        // Act - solo cambió el CSV
+        repository = new VehiculoBinaryRepository(fileManager);
+        Vehiculo importada = repository.read(2, "moto");
+        repository.create(new Moto(3, "Ducati", "Monster", 2022, 14000.0, "Rojo", 821, false));
+        csv.delete(1, "moto");
+
+        // Assert - el binario tiene un cambio sin exportar y el CSV cambió por su lado
+        assertEquals("Honda", importada.getMarca());
+        repository.close();
+        assertFalse(csv.existsById(3, "moto"));
+        repository = new VehiculoBinaryRepository(fileManager);
+        assertThrows(VehiculoException.class, () -> repository.read(1, "moto"));
+    }
+}
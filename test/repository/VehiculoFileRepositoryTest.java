@@ -1,14 +1,26 @@
 package repository;
 
 import model.*;
+import exception.ConflictoVersionException;
 import exception.VehiculoException;
+import util.BloqueoArchivo;
 import util.FileManager;
+import util.WriteAheadLog;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -304,5 +316,369 @@ class VehiculoFileRepositoryTest {
         assertEquals(1, repository.findAll("moto").size());
         assertEquals(1, repository.findAll("camion").size());
     }
-}
+    
+    @Test
+    @Order(15)
+    @DisplayName("Test READ - El índice de offsets detecta cambios externos al archivo")
+    void testRead_FileChangedExternally() throws Exception {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 
+                            4, "Automática", true);
+        repository.create(auto);
+        assertEquals("Toyota", repository.read(1, "auto").getMarca());
+        
+        // Act - reescribir el archivo sin pasar por el repositorio
+        fileManager.escribirArchivo("autos", List.of(
+            "7,Mazda,3,2019,18000.00,Gris,4,Manual,true",
+            new Auto(1, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true).toCSV()));
+        
+        // Assert
+        assertEquals("Honda", repository.read(1, "auto").getMarca());
+        assertEquals("Mazda", repository.read(7, "auto").getMarca());
+    }
+    
+    @Test
+    @Order(16)
+    @DisplayName("Test STREAM - Recorrer el archivo de forma perezosa")
+    void testStreamAll_ReadsLazily() throws Exception {
+        // Arrange
+        fileManager.escribirArchivo("motos", List.of(
+            "1,Yamaha,R1,2021,15000.00,Azul,1000,true",
+            "linea,mal,formateada",
+            "2,Honda,CBR,2020,12000.00,Rojo,600,false",
+            "3,Yamaha,MT-07,2022,9000.00,Azul,689,false"));
+        
+        // Act
+        List<Integer> ids;
+        String primeraMarca;
+        try (Stream<Vehiculo> motos = repository.streamAll("moto")) {
+            ids = motos.map(Vehiculo::getId).collect(Collectors.toList());
+        }
+        try (Stream<Vehiculo> motos = repository.streamAll("moto")) {
+            primeraMarca = motos.findFirst().orElseThrow().getMarca();
+        }
+        
+        // Assert
+        assertEquals(List.of(1, 2, 3), ids);
+        assertEquals("Yamaha", primeraMarca);
+        try (Stream<Vehiculo> camiones = repository.streamAll("camion")) {
+            assertEquals(0, camiones.count());
+        }
+    }
+    
+    @Test
+    @Order(17)
+    @DisplayName("Test PAGINAR - Páginas en orden de ID con cursor por clave")
+    void testFindPage_KeysetCursor() throws Exception {
+        // Arrange - IDs desordenados y una línea mal formateada
+        fileManager.escribirArchivo("camiones", List.of(
+            "5,Volvo,FH16,2020,150000.00,Blanco,25.00,4",
+            "2,Scania,R500,2019,120000.00,Rojo,18.00,3",
+            "3,linea,mal,formateada",
+            "9,MAN,TGX,2021,140000.00,Gris,20.00,3",
+            "1,Iveco,Stralis,2018,90000.00,Azul,16.00,2"));
+        
+        // Act
+        Pagina primera = repository.findPage("camion", 0, 2);
+        Pagina segunda = repository.findPage("camion", primera.getSiguienteId(), 2);
+        
+        // Assert
+        assertEquals(List.of(1, 2), ids(primera));
+        assertEquals(2, primera.getSiguienteId());
+        assertEquals(List.of(5, 9), ids(segunda));
+        assertFalse(segunda.hayMas());
+        
+        // Un vehículo agregado al final aparece en la página siguiente
+        repository.create(new Camion(12, "DAF", "XF", 2022, 160000.0, "Negro", 30.0, 4));
+        assertEquals(List.of(9, 12), ids(repository.findPage("camion", 5, 2)));
+    }
+    
+    @Test
+    @Order(18)
+    @DisplayName("Test CONDICIONAL - Crear, actualizar y eliminar solo si corresponde")
+    void testConditionalOperations() throws Exception {
+        // Arrange - el ID 3 solo tiene una línea mal formateada
+        fileManager.escribirArchivo("camiones", List.of(
+            "2,Scania,R500,2019,120000.00,Rojo,18.00,3",
+            "3,linea,mal,formateada"));
+        Camion nuevo = new Camion(3, "DAF", "XF", 2022, 160000.0, "Negro", 30.0, 4);
+        Camion cambiado = new Camion(2, "Scania", "R500", 2019, 110000.0, "Rojo", 18.0, 3);
+
+        // Act & Assert - la línea mal formateada bloquea el ID al crear, pero no se actualiza
+        assertFalse(repository.createIfAbsent(nuevo));
+        assertFalse(repository.updateIfPresent(nuevo));
+        assertTrue(repository.updateIfPresent(cambiado));
+        assertEquals(110000.0, repository.read(2, "camion").getPrecio(), 0.01);
+
+        assertTrue(repository.deleteIfPresent(3, "camion"));
+        assertFalse(repository.deleteIfPresent(3, "camion"));
+        assertTrue(repository.createIfAbsent(nuevo));
+        assertEquals(List.of(2, 3), ids(repository.findPage("camion", 0, 10)));
+    }
 
+    @Test
+    @Order(19)
+    @DisplayName("Test CONCURRENCIA - Escrituras simultáneas sin actualizaciones perdidas")
+    void testConcurrentWrites_NoLostUpdates() throws Exception {
+        // Arrange
+        for (int id = 1; id <= 6; id++) {
+            repository.create(new Auto(id, "Toyota", "Corolla", 2020, 1000.0, "Rojo", 4, "Manual", true));
+        }
+        Queue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        AtomicInteger motosCreadas = new AtomicInteger();
+        AtomicBoolean escribiendo = new AtomicBoolean(true);
+        List<Thread> escritores = new ArrayList<>();
+        
+        // Act - cada hilo actualiza su auto y todos compiten por crear las mismas motos
+        for (int h = 1; h <= 6; h++) {
+            int id = h;
+            escritores.add(new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 10; i++) {
+                        // Sin leerlo antes: se actualiza sin control de versión a propósito
+                        Auto auto = new Auto(id, "Toyota", "Corolla", 2020, id * 1000.0 + i,
+                                "Rojo", 4, "Manual", true);
+                        auto.setVersion(Vehiculo.SIN_CONTROL_DE_VERSION);
+                        repository.update(auto);
+                        if (repository.createIfAbsent(new Moto(i, "Honda", "CBR", 2020, 8500.0, "Negro", 600, true))) {
+                            motosCreadas.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            }));
+        }
+        Thread lector = new Thread(() -> {
+            try {
+                // Un lector nunca ve el archivo a medio reescribir
+                while (escribiendo.get()) {
+                    assertEquals(6, repository.findAll("auto").size());
+                }
+            } catch (Throwable e) {
+                errores.add(e);
+            }
+        });
+        
+        lector.start();
+        escritores.forEach(Thread::start);
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+        escribiendo.set(false);
+        lector.join();
+        
+        // Assert - se conserva la última actualización de cada hilo y cada moto se creó una vez
+        assertTrue(errores.isEmpty(), () -> "Errores en los hilos: " + errores);
+        for (int id = 1; id <= 6; id++) {
+            assertEquals(id * 1000.0 + 10, repository.read(id, "auto").getPrecio(), 0.01);
+        }
+        assertEquals(10, motosCreadas.get());
+        assertEquals(10, repository.findAll("moto").size());
+    }
+    
+    @Test
+    @Order(20)
+    @DisplayName("Test LOTES - Actualizar y eliminar varios vehículos en una reescritura")
+    void testBatchUpdateAndDelete() throws Exception {
+        // Arrange - el ID 3 solo tiene una línea mal formateada
+        fileManager.escribirArchivo("camiones", List.of(
+            "1,Volvo,FH16,2016,75000.00,Blanco,25.00,4",
+            "2,Scania,R500,2019,120000.00,Rojo,18.00,3",
+            "3,linea,mal,formateada"));
+        Camion primero = new Camion(1, "Volvo", "FH16", 2016, 70000.0, "Blanco", 25.0, 4);
+        Camion segundo = new Camion(2, "Scania", "R500", 2019, 110000.0, "Rojo", 18.0, 3);
+        Camion malFormateado = new Camion(3, "DAF", "XF", 2022, 160000.0, "Negro", 30.0, 4);
+        Camion inexistente = new Camion(9, "MAN", "TGX", 2012, 60000.0, "Gris", 20.0, 3);
+
+        // Act
+        Map<Vehiculo, VehiculoException> noActualizados = repository.updateAllIfPresent(
+            List.of(primero, malFormateado, segundo, inexistente));
+        List<Integer> noEliminados = repository.deleteAllIfPresent(List.of(3, 9, 1, 3), "camion");
+
+        // Assert
+        assertEquals(List.of(malFormateado, inexistente), List.copyOf(noActualizados.keySet()));
+        assertEquals(110000.0, repository.read(2, "camion").getPrecio(), 0.01);
+        assertEquals(List.of(9), noEliminados);
+        assertEquals(List.of(2), ids(repository.findPage("camion", 0, 10)));
+        assertEquals(1, fileManager.leerArchivo("camiones").size());
+    }
+    
+    @Test
+    @Order(21)
+    @DisplayName("Test VERSIONES - Una edición sobre una versión vieja falla con conflicto")
+    void testUpdate_OptimisticVersionConflict() throws Exception {
+        // Arrange - dos usuarios leen la misma moto
+        Moto moto = new Moto(50, "Yamaha", "R6", 2020, 9000.0, "Azul", 600, true);
+        repository.create(moto);
+        Moto primerUsuario = (Moto) repository.read(50, "moto");
+        Moto segundoUsuario = (Moto) repository.read(50, "moto");
+        primerUsuario.setPrecio(9500.0);
+        segundoUsuario.setColor("Negro");
+
+        // Act
+        repository.update(primerUsuario);
+        ConflictoVersionException conflicto = assertThrows(ConflictoVersionException.class,
+            () -> repository.update(segundoUsuario));
+
+        // Assert - la versión se guarda en el archivo y el cambio ganador se conserva
+        assertEquals(1, moto.getVersion());
+        assertEquals(2, primerUsuario.getVersion());
+        assertEquals(1, conflicto.getVersionEsperada());
+        assertEquals(2, conflicto.getVersionActual());
+        Moto guardada = (Moto) repository.read(50, "moto");
+        assertEquals(2, guardada.getVersion());
+        assertEquals(9500.0, guardada.getPrecio(), 0.01);
+        assertEquals("Azul", guardada.getColor());
+        assertInstanceOf(ConflictoVersionException.class,
+            repository.updateAllIfPresent(List.of(segundoUsuario)).get(segundoUsuario));
+    }
+    
+    @Test
+    @Order(22)
+    @DisplayName("Test WAL - Un lote sin confirmar no recorta las líneas agregadas después")
+    void testUnconfirmedBatch_KeepsLaterLines() throws Exception {
+        // Arrange - un lote queda sin confirmar (como si el proceso se cortara)
+        // y después se crea otro vehículo
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        registrarLoteSinConfirmar(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true));
+        repository.create(new Auto(3, "Fiat", "Cronos", 2022, 20000.0, "Gris", 4, "Manual", true));
+
+        // Act - reinicio: el WAL se vuelve a leer desde disco
+        IVehiculoRepository reiniciado = reiniciar();
+
+        // Assert
+        assertTrue(reiniciado.existsById(1, "auto"));
+        assertTrue(reiniciado.existsById(3, "auto"));
+    }
+
+    @Test
+    @Order(23)
+    @DisplayName("Test WAL - Un lote sin confirmar y sin escrituras posteriores se descarta")
+    void testUnconfirmedBatch_IsTruncated() throws Exception {
+        // Arrange
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        registrarLoteSinConfirmar(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true));
+
+        // Act
+        IVehiculoRepository reiniciado = reiniciar();
+
+        // Assert
+        assertTrue(reiniciado.existsById(1, "auto"));
+        assertFalse(reiniciado.existsById(2, "auto"));
+    }
+
+    @Test
+    @Order(24)
+    @DisplayName("Test WAL - Se recupera el WAL de un proceso que terminó sin confirmar")
+    void testRecoversWalOfFinishedProcess() throws Exception {
+        // Arrange - otro proceso registró un alta y terminó antes de escribirla
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        Path rutaAjena = registrarEnWalAjeno(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul",
+                4, "Manual", true));
+
+        // Act
+        IVehiculoRepository otro = new VehiculoFileRepository(fileManager);
+
+        // Assert
+        assertTrue(otro.existsById(2, "auto"));
+        assertFalse(rutaAjena.toFile().exists());
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("Test WAL - Un cambio sin confirmar no pisa lo que se escribió después")
+    void testStaleWalEntry_IsNotReplayed() throws Exception {
+        // Arrange - otro proceso registró un cambio y terminó; después se actualizó el auto
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        Auto viejo = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Verde", 4, "Automática", true);
+        viejo.setVersion(2);
+        Path rutaAjena = registrarEnWalAjeno(viejo);
+        Auto actual = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Azul", 4, "Automática", true);
+        actual.setVersion(1);
+        repository.update(actual);
+
+        // Act
+        IVehiculoRepository otro = new VehiculoFileRepository(fileManager);
+
+        // Assert
+        Vehiculo guardado = otro.read(1, "auto");
+        assertEquals("Azul", guardado.getColor());
+        assertEquals(2, guardado.getVersion());
+        assertFalse(rutaAjena.toFile().exists());
+    }
+
+    @Test
+    @Order(26)
+    @DisplayName("Test AGRUPACION - Altas concurrentes comparten el fsync del archivo")
+    void testConcurrentCreates_ShareFsync() throws Exception {
+        // Arrange
+        FileManager agrupado = new FileManager();
+        agrupado.configurarAgrupacion(50, 256);
+        IVehiculoRepository conAgrupacion = new VehiculoFileRepository(agrupado);
+        int creadores = 16;
+        CountDownLatch largada = new CountDownLatch(1);
+        Queue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 1; h <= creadores; h++) {
+            int id = h;
+            hilos.add(new Thread(() -> {
+                try {
+                    largada.await();
+                    conAgrupacion.create(new Auto(id, "Toyota", "Corolla", 2020, 1000.0, "Rojo", 4, "Manual", true));
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            }));
+        }
+
+        try {
+            // Act
+            hilos.forEach(Thread::start);
+            largada.countDown();
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+
+            // Assert - todas las altas son durables y ninguna pagó su propio fsync
+            assertTrue(errores.isEmpty(), () -> "Errores en los hilos: " + errores);
+            assertEquals(creadores, repository.findAll("auto").size());
+            assertTrue(agrupado.getSincronizacionesAgregado() < creadores,
+                    () -> "fsync del archivo: " + agrupado.getSincronizacionesAgregado());
+        } finally {
+            agrupado.cerrarCanalesAgregado();
+        }
+    }
+
+    private static void registrarLoteSinConfirmar(Vehiculo vehiculo) throws Exception {
+        CsvWal wal = new CsvWal(fileManager);
+        try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura("autos")) {
+            wal.registrarLote("autos", fileManager.tamanoArchivo("autos"), permiso.getGeneracion());
+            fileManager.agregarLineas("autos", List.of(vehiculo.toCSV()));
+        }
+    }
+
+    /**
+     * Simula otro proceso que registra un upsert con el bloqueo tomado y
+     * termina antes de escribir el archivo
+     */
+    private static Path registrarEnWalAjeno(Vehiculo vehiculo) throws Exception {
+        Path rutaAjena = fileManager.obtenerRuta("vehiculos-999999999", ".wal");
+        WriteAheadLog ajeno = WriteAheadLog.abrir(rutaAjena);
+        try (BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura("autos")) {
+            ajeno.registrar("U\tautos\t" + permiso.getGeneracion() + "\t" + vehiculo.toCSV());
+        }
+        ajeno.cerrar();
+        return rutaAjena;
+    }
+
+    private static IVehiculoRepository reiniciar() throws Exception {
+        WriteAheadLog.abrir(CsvWal.ruta(fileManager)).cerrar();
+        repository = new VehiculoFileRepository(fileManager);
+        return repository;
+    }
+
+    private static List<Integer> ids(Pagina pagina) {
+        return pagina.getVehiculos().stream().map(Vehiculo::getId).collect(Collectors.toList());
+    }
+}
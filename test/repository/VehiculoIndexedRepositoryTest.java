@@ -0,0 +1,392 @@
+package repository;
+
+import model.*;
+import exception.ConflictoVersionException;
+import exception.VehiculoException;
+import util.FileManager;
+import util.WriteAheadLog;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para VehiculoIndexedRepository
+ *
+ * Verifica que el índice en memoria se mantenga sincronizado con el archivo
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class VehiculoIndexedRepositoryTest {
+
+    private static FileManager fileManager;
+    private IVehiculoRepository repository;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Nueva instancia por prueba para no arrastrar índices entre pruebas
+        repository = new VehiculoIndexedRepository(fileManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            fileManager.eliminarArchivo("autos");
+            fileManager.eliminarArchivo("motos");
+            fileManager.eliminarArchivo("camiones");
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test CREATE/READ - Crear y leer desde el índice")
+    void testCreateAndRead_Success() throws VehiculoException {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                            4, "Automática", true);
+
+        // Act
+        repository.create(auto);
+        Vehiculo encontrado = repository.read(1, "auto");
+
+        // Assert
+        assertTrue(repository.existsById(1, "auto"));
+        assertEquals("Toyota", encontrado.getMarca());
+        assertEquals(25000.0, encontrado.getPrecio(), 0.01);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test CREATE - Error al crear con ID duplicado")
+    void testCreate_DuplicateId_ThrowsException() throws VehiculoException {
+        // Arrange
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                                  4, "Automática", true));
+        Auto duplicado = new Auto(1, "Honda", "Civic", 2021, 28000.0, "Azul",
+                                 4, "Manual", true);
+
+        // Act & Assert
+        VehiculoException exception = assertThrows(VehiculoException.class, () -> {
+            repository.create(duplicado);
+        });
+
+        assertTrue(exception.getMessage().contains("Ya existe un vehículo con ID: 1"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test INDICE - Cargar datos existentes desde el archivo")
+    void testRead_LoadsExistingFile() throws VehiculoException {
+        // Arrange - datos escritos por otro repositorio
+        IVehiculoRepository repositorioArchivo = new VehiculoFileRepository(fileManager);
+        repositorioArchivo.create(new Moto(3, "Yamaha", "R1", 2021, 15000.0, "Azul",
+                                           1000, true));
+
+        // Act
+        Vehiculo encontrado = repository.read(3, "moto");
+
+        // Assert
+        assertTrue(encontrado instanceof Moto);
+        assertEquals(1000, ((Moto) encontrado).getCilindrada());
+        assertEquals(4, repository.getNextId("moto"));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test UPDATE - El índice y el archivo reflejan la actualización")
+    void testUpdate_Success() throws VehiculoException {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                            4, "Automática", true);
+        repository.create(auto);
+        auto.setPrecio(30000.0);
+
+        // Act
+        repository.update(auto);
+
+        // Assert - desde el índice y desde un repositorio recién cargado
+        assertEquals(30000.0, repository.read(1, "auto").getPrecio(), 0.01);
+        IVehiculoRepository recargado = new VehiculoIndexedRepository(fileManager);
+        assertEquals(30000.0, recargado.read(1, "auto").getPrecio(), 0.01);
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test DELETE - Eliminar y recalcular próximo ID")
+    void testDelete_Success() throws VehiculoException {
+        // Arrange
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                                  4, "Automática", true));
+        repository.create(new Auto(5, "Honda", "Civic", 2021, 28000.0, "Azul",
+                                  4, "Manual", true));
+        assertEquals(6, repository.getNextId("auto"));
+
+        // Act
+        repository.delete(5, "auto");
+
+        // Assert
+        assertFalse(repository.existsById(5, "auto"));
+        assertEquals(2, repository.getNextId("auto"));
+        assertThrows(VehiculoException.class, () -> repository.delete(5, "auto"));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test FINDALL - Conserva el orden del archivo")
+    void testFindAll_PreservesOrder() throws VehiculoException {
+        // Arrange
+        repository.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul",
+                                  4, "Manual", true));
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                                  4, "Automática", true));
+
+        // Act
+        List<Vehiculo> vehiculos = repository.findAll("auto");
+
+        // Assert
+        assertEquals(2, vehiculos.size());
+        assertEquals(2, vehiculos.get(0).getId());
+        assertEquals(1, vehiculos.get(1).getId());
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test PAGINAR - Páginas en orden de ID desde el índice")
+    void testFindPage_KeysetCursor() throws VehiculoException {
+        // Arrange
+        repository.create(new Moto(4, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true));
+        repository.create(new Moto(1, "Honda", "CBR", 2020, 12000.0, "Rojo", 600, false));
+        repository.create(new Moto(7, "Suzuki", "GSX", 2022, 11000.0, "Negro", 750, false));
+        repository.delete(4, "moto");
+
+        // Act
+        Pagina primera = repository.findPage("moto", 0, 1);
+        Pagina segunda = repository.findPage("moto", primera.getSiguienteId(), 1);
+
+        // Assert
+        assertEquals(1, primera.getVehiculos().get(0).getId());
+        assertTrue(primera.hayMas());
+        assertEquals(7, segunda.getVehiculos().get(0).getId());
+        assertFalse(segunda.hayMas());
+        assertTrue(repository.findPage("moto", 7, 1).estaVacia());
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test MARCA - El índice de marcas sigue a create, update y delete")
+    void testStreamByMarca_FollowsMutations() throws VehiculoException {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true);
+        repository.create(auto);
+        repository.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", false));
+        repository.create(new Auto(3, "toyota", "Yaris", 2019, 15000.0, "Gris", 4, "Manual", true));
+
+        // Act
+        auto.setMarca("Mazda");
+        repository.update(auto);
+        repository.delete(2, "auto");
+
+        // Assert
+        assertEquals(List.of(3), ids(repository.streamByMarca("TOY", "auto")));
+        assertEquals(List.of(1), ids(repository.streamByMarca("azd", "auto")));
+        assertEquals(List.of(), ids(repository.streamByMarca("honda", "auto")));
+
+        // Tras recargar desde disco se obtiene lo mismo
+        ((VehiculoIndexedRepository) repository).invalidar();
+        assertEquals(List.of(1, 3), ids(repository.streamByMarca("a", "auto")));
+    }
+
+    private static List<Integer> ids(Stream<Vehiculo> vehiculos) {
+        return vehiculos.map(Vehiculo::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Test RANGOS - Los índices de rango siguen a update y delete")
+    void testStreamByRangos_FollowsMutations() throws VehiculoException {
+        // Arrange
+        Moto moto = new Moto(1, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true);
+        repository.create(moto);
+        repository.create(new Moto(2, "Honda", "CBR", 2020, 12000.0, "Rojo", 600, false));
+        Map<CampoNumerico, RangoNumerico> rangos = Map.of(
+            CampoNumerico.CILINDRADA, RangoNumerico.desde(500),
+            CampoNumerico.PRECIO, RangoNumerico.hasta(13000));
+        assertEquals(List.of(2), ids(repository.streamByRangos("moto", rangos)));
+
+        // Act - los índices ya están armados y se actualizan con cada cambio
+        moto.setPrecio(9000.0);
+        repository.update(moto);
+        repository.delete(2, "moto");
+        repository.create(new Moto(3, "Suzuki", "GN", 2018, 3000.0, "Negro", 125, false));
+
+        // Assert
+        assertEquals(List.of(1), ids(repository.streamByRangos("moto", rangos)));
+        assertEquals(List.of(1, 3), ids(repository.streamByRangos("moto",
+            Map.of(CampoNumerico.ANIO, RangoNumerico.entre(2018, 2021)))));
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("Test GENERACIÓN - Los cambios de otro repositorio recargan el índice")
+    void testIndex_ReloadsAfterExternalWrite() throws VehiculoException {
+        // Arrange - el índice queda cargado
+        repository.create(new Camion(1, "Volvo", "FH16", 2020, 150000.0, "Blanco", 25.0, 4));
+        assertEquals(1, repository.findAll("camion").size());
+
+        // Act - otro repositorio (como lo haría otro proceso) escribe el mismo archivo
+        IVehiculoRepository otro = new VehiculoFileRepository(new FileManager());
+        otro.create(new Camion(2, "Scania", "R500", 2019, 120000.0, "Rojo", 18.0, 3));
+        otro.delete(1, "camion");
+
+        // Assert
+        assertFalse(repository.existsById(1, "camion"));
+        assertEquals("Scania", repository.read(2, "camion").getMarca());
+        assertTrue(repository.createIfAbsent(new Camion(1, "DAF", "XF", 2022, 160000.0, "Negro", 30.0, 4)));
+        assertEquals(2, otro.findAll("camion").size());
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("Test DUPLICADOS - Vale la primera línea en ambos repositorios y al eliminar no reaparece")
+    void testDuplicateIds_FirstWinsAndDeleteRemovesAll() throws Exception {
+        // Arrange - archivo editado a mano con el ID 1 repetido y una línea sin ID
+        String primera = RepositorioComun.lineaConVersion(
+            new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true), 1);
+        String segunda = RepositorioComun.lineaConVersion(
+            new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true), 1);
+        String repetida = RepositorioComun.lineaConVersion(
+            new Auto(1, "Fiat", "Cronos", 2022, 20000.0, "Gris", 4, "Manual", true), 1);
+        fileManager.escribirArchivo("autos", List.of(primera, "sin id", segunda, repetida));
+
+        // Act
+        String marca = repository.read(1, "auto").getMarca();
+        String marcaPorOffsets = new VehiculoFileRepository(fileManager).read(1, "auto").getMarca();
+        repository.delete(1, "auto");
+
+        // Assert - el resto del archivo conserva su orden
+        assertEquals("Toyota", marca);
+        assertEquals("Toyota", marcaPorOffsets);
+        assertEquals(List.of("sin id", segunda), fileManager.leerArchivo("autos"));
+        assertFalse(new VehiculoIndexedRepository(fileManager).existsById(1, "auto"));
+    }
+
+    @Test
+    @Order(12)
+    @DisplayName("Test WAL - Una eliminación que falló no se reaplica al arrancar")
+    void testFailedDelete_IsNotReplayedOnRestart() throws Exception {
+        // Arrange - la reescritura del archivo falla
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        FileManager sinEspacio = new FileManager() {
+            @Override
+            public void escribirArchivo(String nombreArchivo, List<String> lineas) throws IOException {
+                throw new IOException("No queda espacio en el disco");
+            }
+        };
+        IVehiculoRepository fallido = new VehiculoIndexedRepository(sinEspacio);
+        assertThrows(VehiculoException.class, () -> fallido.delete(1, "auto"));
+
+        // Act - simular un reinicio: el WAL se vuelve a leer desde disco
+        WriteAheadLog.abrir(CsvWal.ruta(fileManager)).cerrar();
+        IVehiculoRepository reiniciado = new VehiculoIndexedRepository(fileManager);
+
+        // Assert
+        assertTrue(reiniciado.existsById(1, "auto"));
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("Test CONCURRENCIA - Un tipo bloqueado no frena las escrituras de otro")
+    void testLockedType_DoesNotBlockOtherTypes() throws Exception {
+        // Arrange - otro hilo tiene el archivo de autos bloqueado para escribir
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        CountDownLatch bloqueado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread dueno = new Thread(() -> {
+            try {
+                fileManager.conBloqueoEscritura("autos", () -> {
+                    bloqueado.countDown();
+                    soltar.await();
+                    return null;
+                });
+            } catch (Exception e) {
+                // La prueba falla por tiempo si no se llega a bloquear
+            }
+        });
+        dueno.start();
+        assertTrue(bloqueado.await(5, TimeUnit.SECONDS));
+
+        // Un alta de auto queda esperando el bloqueo dentro del repositorio
+        CompletableFuture<Boolean> auto = CompletableFuture.supplyAsync(() -> {
+            try {
+                return repository.createIfAbsent(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true));
+            } catch (VehiculoException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try {
+            // Act
+            CompletableFuture<Boolean> moto = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return repository.createIfAbsent(new Moto(1, "Honda", "CBR", 2020, 8500.0, "Negro", 600, true));
+                } catch (VehiculoException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // Assert
+            assertTrue(moto.get(5, TimeUnit.SECONDS));
+            assertEquals(1, repository.findAll("moto").size());
+            assertFalse(auto.isDone());
+        } finally {
+            soltar.countDown();
+            dueno.join();
+        }
+        assertTrue(auto.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Test VERSIONES - Un conflicto en un lote omite solo ese vehículo")
+    void testUpdateAll_ConflictSkipsOnlyThatVehicle() throws Exception {
+        // Arrange - la moto 1 se editó después de leerla
+        repository.create(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        repository.create(new Moto(1, "Honda", "CBR", 2020, 8500.0, "Negro", 600, true));
+        repository.create(new Moto(2, "Yamaha", "R6", 2020, 9000.0, "Azul", 600, true));
+        Moto vieja = (Moto) repository.read(1, "moto");
+        Moto actual = (Moto) repository.read(1, "moto");
+        actual.setPrecio(8000.0);
+        repository.update(actual);
+
+        Auto auto = (Auto) repository.read(1, "auto");
+        auto.setPrecio(24000.0);
+        vieja.setPrecio(7000.0);
+        Moto otra = (Moto) repository.read(2, "moto");
+        otra.setPrecio(9500.0);
+
+        // Act
+        Map<Vehiculo, VehiculoException> omitidos = repository.updateAllIfPresent(List.of(auto, vieja, otra));
+
+        // Assert - el resto de los dos tipos se aplicó
+        assertEquals(List.of(vieja), List.copyOf(omitidos.keySet()));
+        assertInstanceOf(ConflictoVersionException.class, omitidos.get(vieja));
+        assertEquals(24000.0, repository.read(1, "auto").getPrecio(), 0.01);
+        assertEquals(8000.0, repository.read(1, "moto").getPrecio(), 0.01);
+        assertEquals(9500.0, repository.read(2, "moto").getPrecio(), 0.01);
+        assertEquals(2, otra.getVersion());
+    }
+}
@@ -0,0 +1,193 @@
+package repository;
+
+import model.*;
+import exception.VehiculoException;
+import util.FileManager;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para VehiculoLogRepository
+ *
+ * Verifica las operaciones sobre el log y la compactación
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class VehiculoLogRepositoryTest {
+
+    private static FileManager fileManager;
+    private VehiculoLogRepository repository;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Sin tamaño mínimo para poder compactar logs pequeños
+        repository = new VehiculoLogRepository(fileManager, 0.5, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+        try {
+            for (String archivo : new String[] { "autos", "motos", "camiones" }) {
+                fileManager.eliminarArchivo(archivo);
+                Files.deleteIfExists(fileManager.obtenerRuta(archivo, ".log"));
+            }
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test CRUD - Operaciones sobre el log")
+    void testCrud_Success() throws VehiculoException {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo",
+                            4, "Automática", true);
+
+        // Act
+        repository.create(auto);
+        auto.setPrecio(30000.0);
+        repository.update(auto);
+        repository.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul",
+                                  4, "Manual", true));
+        repository.delete(2, "auto");
+
+        // Assert
+        assertEquals(30000.0, repository.read(1, "auto").getPrecio(), 0.01);
+        assertFalse(repository.existsById(2, "auto"));
+        assertEquals(1, repository.findAll("auto").size());
+        assertThrows(VehiculoException.class, () -> repository.read(2, "auto"));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test REABRIR - El índice se reconstruye desde el log")
+    void testReopen_RebuildsIndex() throws VehiculoException {
+        // Arrange
+        repository.create(new Moto(1, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true));
+        repository.create(new Moto(2, "Honda", "CBR", 2020, 12000.0, "Rojo", 600, true));
+        repository.delete(1, "moto");
+        repository.close();
+
+        // Act
+        repository = new VehiculoLogRepository(fileManager, 0.5, 0);
+
+        // Assert
+        assertFalse(repository.existsById(1, "moto"));
+        assertEquals("Honda", repository.read(2, "moto").getMarca());
+        assertEquals(3, repository.getNextId("moto"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test COMPACTAR - Se eliminan los registros obsoletos")
+    void testCompactar_RemovesGarbage() throws Exception {
+        // Arrange
+        Camion camion = new Camion(1, "Volvo", "FH16", 2020, 150000.0, "Blanco", 25.0, 4);
+        repository.create(camion);
+        for (int i = 0; i < 20; i++) {
+            camion.setPrecio(150000.0 + i);
+            repository.update(camion);
+        }
+        repository.create(new Camion(2, "Scania", "R500", 2019, 120000.0, "Rojo", 18.0, 3));
+
+        // Act
+        repository.compactar("camion");
+
+        // Assert
+        assertEquals(0.0, repository.obtenerProporcionBasura("camion"), 0.001);
+        List<String> lineas = Files.readAllLines(fileManager.obtenerRuta("camiones", ".log"));
+        assertEquals(2, lineas.stream().filter(linea -> linea.startsWith("U,")).count());
+        assertEquals(2, fileManager.leerArchivo("camiones").size());
+        assertEquals(150019.0, repository.read(1, "camion").getPrecio(), 0.01);
+        assertEquals("Scania", repository.read(2, "camion").getMarca());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test IMPORTAR - Un log nuevo importa el CSV existente")
+    void testNewLog_ImportsCsv() throws VehiculoException {
+        // Arrange - datos escritos en el CSV por el repositorio de archivo
+        new VehiculoFileRepository(fileManager).create(
+            new Auto(5, "Mazda", "3", 2019, 18000.0, "Gris", 4, "Manual", true));
+
+        // Act & Assert
+        assertEquals("Mazda", repository.read(5, "auto").getMarca());
+        assertEquals(6, repository.getNextId("auto"));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test EXPORTAR - Al cerrar, el CSV refleja el log")
+    void testClose_ExportsToCsv() throws VehiculoException {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true);
+        repository.create(auto);
+        auto.setPrecio(27000.0);
+        repository.update(auto);
+        repository.create(new Auto(2, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true));
+        repository.delete(2, "auto");
+
+        // Act
+        repository.close();
+
+        // Assert - otro repositorio sobre el CSV ve el estado del log
+        IVehiculoRepository csv = new VehiculoFileRepository(fileManager);
+        assertEquals(27000.0, csv.read(1, "auto").getPrecio(), 0.01);
+        assertFalse(csv.existsById(2, "auto"));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test DIVERGENCIA - Si solo cambió el CSV se reimporta; si cambiaron los dos no se abre")
+    void testReopen_CsvChangedOutsideLog() throws Exception {
+        // Arrange - el log se exporta al cerrar y luego se escribe el CSV por fuera
+        repository.create(new Moto(1, "Yamaha", "R1", 2021, 15000.0, "Azul", 1000, true));
+        repository.close();
+        new VehiculoFileRepository(fileManager).create(new Moto(2, "Honda", "CBR", 2020, 12000.0, "Rojo", 600, true));
+
+        // Act + Assert - el log no tenía cambios: se vuelve a importar el CSV
+        repository = new VehiculoLogRepository(fileManager, 0.5, 0);
+        assertEquals("Honda", repository.read(2, "moto").getMarca());
+
+        // Arrange - el log queda con un cambio sin exportar (el proceso se corta)...
+        repository.create(new Moto(3, "Suzuki", "GSX", 2022, 11000.0, "Negro", 750, true));
+        VehiculoLogRepository cortado = repository;
+        repository = new VehiculoLogRepository(fileManager, 0.5, 0);
+        // ...y otro repositorio cambia el CSV
+        new VehiculoFileRepository(fileManager).create(new Moto(4, "BMW", "S1000", 2023, 20000.0, "Blanco", 1000, true));
+
+        // Act + Assert - no se abre para no perder ninguno de los dos cambios
+        VehiculoException error = assertThrows(VehiculoException.class, () -> repository.read(1, "moto"));
+        assertTrue(error.getCause().getMessage().contains("cambiaron por separado"));
+        cortado.close();
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test BLOQUEO - Otro repositorio sobre el mismo log ve sus cambios")
+    void testTwoRepositories_SeeEachOthersWrites() throws VehiculoException {
+        // Arrange - los dos abren el log de camiones
+        VehiculoLogRepository otro = new VehiculoLogRepository(fileManager, 0.5, 0);
+        try {
+            assertFalse(otro.existsById(1, "camion"));
+            repository.create(new Camion(1, "Volvo", "FH16", 2020, 150000.0, "Blanco", 25.0, 4));
+
+            // Act + Assert - el otro vuelve a leer el log y no pisa el registro
+            assertTrue(otro.existsById(1, "camion"));
+            otro.create(new Camion(2, "Scania", "R500", 2019, 120000.0, "Rojo", 18.0, 3));
+            assertEquals(2, repository.findAll("camion").size());
+        } finally {
+            otro.close();
+        }
+    }
+}
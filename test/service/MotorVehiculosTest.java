@@ -0,0 +1,130 @@
+package service;
+
+import model.*;
+import repository.*;
+import validator.*;
+import exception.ConflictoVersionException;
+import exception.ValidationException;
+import exception.VehiculoException;
+import util.FileManager;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para MotorVehiculos: escritor único por tipo y lecturas sobre instantáneas
+ */
+class MotorVehiculosTest {
+
+    private FileManager fileManager;
+    private MotorVehiculos motor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileManager = new FileManager();
+        fileManager.escribirArchivo("autos", List.of());
+        fileManager.escribirArchivo("motos", List.of());
+        fileManager.escribirArchivo("camiones", List.of());
+        IVehiculoRepository repository = new VehiculoIndexedRepository(fileManager);
+        motor = new MotorVehiculos(new VehiculoService(repository,
+            new AutoValidator(), new MotoValidator(), new CamionValidator()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        motor.close();
+        try {
+            fileManager.eliminarArchivo("autos");
+            fileManager.eliminarArchivo("motos");
+            fileManager.eliminarArchivo("camiones");
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @DisplayName("Test MOTOR - Cada escritura se lee apenas termina y los errores llegan al que la envió")
+    void testEscrituras_LecturaInmediataYErrores() throws Exception {
+        // Arrange
+        Auto auto = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true);
+
+        // Act
+        motor.crear(auto);
+        Vehiculo leido = motor.obtener(1, "auto");
+        leido.setPrecio(26000.0);
+        motor.actualizar(leido);
+        Vehiculo viejo = motor.obtener(1, "auto");
+        viejo.setVersion(1);
+
+        // Assert
+        assertEquals(26000.0, motor.obtener(1, "auto").getPrecio(), 0.01);
+        assertEquals(2, motor.obtener(1, "auto").getVersion());
+        assertThrows(ConflictoVersionException.class, () -> motor.actualizar(viejo));
+        assertThrows(ValidationException.class, () -> motor.crear(
+            new Auto(2, "", "Corolla", 1800, -1.0, "Rojo", 4, "Manual", true)));
+        VehiculoException noExiste = assertThrows(VehiculoException.class, () -> motor.eliminar(9, "auto"));
+        assertEquals("No existe vehículo con ID: 9", noExiste.getMessage());
+
+        // Modificar lo leído no altera la instantánea
+        leido.setPrecio(1.0);
+        assertEquals(26000.0, motor.obtener(1, "auto").getPrecio(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Test MOTOR - Escritores de distintos tipos y lectores concurrentes")
+    void testConcurrencia_EscritoresPorTipoYLectores() throws Exception {
+        // Arrange
+        Queue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        List<Thread> hilos = new ArrayList<>();
+
+        // Act - hilos virtuales crean autos y motos mientras otros leen páginas
+        for (int h = 0; h < 4; h++) {
+            int base = h * 25;
+            hilos.add(Thread.startVirtualThread(() -> {
+                try {
+                    for (int i = 1; i <= 25; i++) {
+                        motor.crear(new Auto(base + i, "Toyota", "Corolla", 2020, 1000.0, "Rojo", 4, "Manual", true));
+                        motor.crear(new Moto(base + i, "Honda", "CBR", 2021, 8500.0, "Negro", 600, true));
+                    }
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            }));
+        }
+        for (int h = 0; h < 50; h++) {
+            hilos.add(Thread.startVirtualThread(() -> {
+                try {
+                    Pagina pagina = motor.listarPagina("auto", 0, 1000);
+                    // Cada instantánea está ordenada por ID
+                    List<Vehiculo> vehiculos = pagina.getVehiculos();
+                    for (int i = 1; i < vehiculos.size(); i++) {
+                        assertTrue(vehiculos.get(i - 1).getId() < vehiculos.get(i).getId());
+                    }
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            }));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        List<ResultadoOperacion> lote = motor.crearTodos(List.of(
+            new Camion(1, "Volvo", "FH16", 2020, 150000.0, "Blanco", 25.0, 4),
+            new Auto(1, "Ford", "Focus", 2019, 18000.0, "Azul", 4, "Manual", false)));
+
+        // Assert
+        assertTrue(errores.isEmpty(), () -> "Errores en los hilos: " + errores);
+        assertEquals(100, motor.listarTodos("auto").size());
+        assertEquals(100, motor.listarTodos("moto").size());
+        assertTrue(lote.get(0).isExitoso());
+        assertFalse(lote.get(1).isExitoso());
+        assertEquals(List.of(1), motor.listarTodos("camion").stream().map(Vehiculo::getId).toList());
+        assertEquals(List.of(51, 52), motor.listarPagina("moto", 50, 2).getVehiculos().stream()
+            .map(Vehiculo::getId).toList());
+    }
+}
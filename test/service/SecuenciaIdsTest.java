@@ -0,0 +1,90 @@
+package service;
+
+import model.*;
+import repository.*;
+import exception.VehiculoException;
+import util.FileManager;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para SecuenciaIds
+ *
+ * Verifica que los IDs no se repitan entre hilos ni entre reinicios
+ */
+class SecuenciaIdsTest {
+
+    private static FileManager fileManager;
+    private IVehiculoRepository repository;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @BeforeEach
+    void setUp() throws VehiculoException {
+        repository = new VehiculoFileRepository(fileManager);
+        repository.create(new Moto(4, "Honda", "CBR", 2020, 8500.0, "Negro", 600, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            fileManager.eliminarArchivo("motos");
+            Files.deleteIfExists(fileManager.obtenerRuta("motos", ".seq"));
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @DisplayName("Test CONCURRENTE - Hilos simultáneos nunca reciben el mismo ID")
+    void testSiguiente_ConcurrentThreadsGetDistinctIds() throws InterruptedException {
+        // Arrange
+        SecuenciaIds secuencia = new SecuenciaIds(repository, fileManager, 7);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> hilos = new ArrayList<>();
+
+        // Act
+        for (int h = 0; h < 4; h++) {
+            hilos.add(Thread.startVirtualThread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    ids.add(secuencia.siguiente("moto"));
+                }
+            }));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        // Assert - 2000 IDs distintos y consecutivos a partir del mayor guardado
+        assertEquals(2000, ids.size());
+        assertEquals(5, ids.stream().mapToInt(Integer::intValue).min().getAsInt());
+        assertEquals(2004, ids.stream().mapToInt(Integer::intValue).max().getAsInt());
+    }
+
+    @Test
+    @DisplayName("Test REINICIO - No se reutilizan IDs entregados antes de reiniciar")
+    void testSiguiente_RestartDoesNotReuseIds() {
+        // Arrange
+        SecuenciaIds antes = new SecuenciaIds(repository, fileManager, 10);
+        assertEquals(5, antes.siguiente("moto"));
+        assertEquals(6, antes.siguiente("moto"));
+        antes.registrarUsado("moto", 30);
+        assertEquals(31, antes.siguiente("moto"));
+
+        // Act - una nueva instancia parte del último bloque reservado
+        SecuenciaIds despues = new SecuenciaIds(new VehiculoFileRepository(fileManager), fileManager, 10);
+
+        // Assert
+        assertEquals(41, despues.siguiente("moto"));
+    }
+}
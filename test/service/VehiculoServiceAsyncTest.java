@@ -0,0 +1,109 @@
+package service;
+
+import model.*;
+import repository.*;
+import validator.*;
+import exception.ValidationException;
+import exception.VehiculoException;
+import util.FileManager;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para VehiculoServiceAsync: futures, errores y lecturas compartidas
+ */
+class VehiculoServiceAsyncTest {
+
+    private FileManager fileManager;
+    private AtomicInteger lecturas;
+    private CountDownLatch liberarLecturas;
+    private VehiculoServiceAsync servicio;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileManager = new FileManager();
+        fileManager.escribirArchivo("autos", List.of());
+        lecturas = new AtomicInteger();
+        liberarLecturas = new CountDownLatch(0);
+
+        // Repositorio que cuenta las lecturas y puede retenerlas
+        IVehiculoRepository repository = new VehiculoIndexedRepository(fileManager) {
+            @Override
+            public Vehiculo read(int id, String tipo) throws VehiculoException {
+                lecturas.incrementAndGet();
+                try {
+                    liberarLecturas.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(id, tipo);
+            }
+        };
+        servicio = new VehiculoServiceAsync(new VehiculoService(repository,
+            new AutoValidator(), new MotoValidator(), new CamionValidator()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicio.close();
+        try {
+            fileManager.eliminarArchivo("autos");
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @DisplayName("Test ASYNC - Pedidos simultáneos del mismo ID comparten una lectura")
+    void testObtener_CoalesceConcurrentReads() throws Exception {
+        // Arrange
+        servicio.crear(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true)).get();
+        servicio.crear(new Auto(2, "Ford", "Focus", 2019, 18000.0, "Azul", 4, "Manual", false)).get();
+        liberarLecturas = new CountDownLatch(1);
+
+        // Act - 100 pedidos del ID 1 y uno del ID 2 mientras la lectura está retenida
+        List<CompletableFuture<Vehiculo>> pedidos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pedidos.add(servicio.obtener(1, "auto"));
+        }
+        CompletableFuture<Vehiculo> otro = servicio.obtener(2, "auto");
+        liberarLecturas.countDown();
+        CompletableFuture.allOf(pedidos.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        otro.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(2, lecturas.get());
+        assertEquals("Ford", otro.get().getMarca());
+        assertEquals("Toyota", pedidos.get(99).get().getMarca());
+        assertNotSame(pedidos.get(0).get(), pedidos.get(1).get());
+    }
+
+    @Test
+    @DisplayName("Test ASYNC - Los errores completan el future con la excepción del servicio")
+    void testErrores_CompleteExceptionally() throws Exception {
+        // Arrange
+        Auto invalido = new Auto(5, "", "Corolla", 1800, -1.0, "Rojo", 4, "Manual", true);
+        servicio.crear(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true)).get();
+
+        // Act
+        ExecutionException noExiste = assertThrows(ExecutionException.class, () -> servicio.obtener(9, "auto").get());
+        ExecutionException noValido = assertThrows(ExecutionException.class, () -> servicio.crear(invalido).get());
+        Vehiculo leido = servicio.obtener(1, "auto").get();
+        leido.setPrecio(30000.0);
+        servicio.actualizar(leido).get();
+
+        // Assert
+        assertInstanceOf(VehiculoException.class, noExiste.getCause());
+        assertInstanceOf(ValidationException.class, noValido.getCause());
+        assertEquals(30000.0, servicio.obtener(1, "auto").get().getPrecio(), 0.01);
+    }
+}
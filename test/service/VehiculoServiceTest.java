@@ -11,6 +11,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -275,5 +276,122 @@ class VehiculoServiceTest {
         // Assert
         assertEquals(6, nextId);
     }
+    
+    @Test
+    @Order(13)
+    @DisplayName("Test RANGOS - Camiones por año y precio")
+    void testBuscarPorRangos_Success() throws ValidationException, VehiculoException {
+        // Arrange
+        service.crear(new Camion(1, "Volvo", "FH16", 2016, 75000.0, "Blanco", 25.0, 4));
+        service.crear(new Camion(2, "Scania", "R500", 2019, 95000.0, "Rojo", 18.0, 3));
+        service.crear(new Camion(3, "MAN", "TGX", 2012, 60000.0, "Gris", 20.0, 3));
+        
+        // Act
+        List<Vehiculo> encontrados = service.buscarPorRangos("camion", Map.of(
+            CampoNumerico.ANIO, RangoNumerico.entre(2015, 2020),
+            CampoNumerico.PRECIO, RangoNumerico.hasta(80000)));
+        
+        // Assert
+        assertEquals(1, encontrados.size());
+        assertEquals(1, encontrados.get(0).getId());
+        assertEquals(2, service.buscarPorRango("camion", CampoNumerico.NUMERO_EJES, RangoNumerico.entre(3, 3)).size());
+        assertThrows(VehiculoException.class,
+            () -> service.buscarPorRango("camion", CampoNumerico.CILINDRADA, RangoNumerico.desde(0)));
+    }
+    
+    @Test
+    @Order(14)
+    @DisplayName("Test IMPORTAR - Importación en bloques con reporte de líneas rechazadas")
+    void testImportar_ReportsRejectedLines(@TempDir Path directorio) throws Exception {
+        // Arrange - bloques de 64 bytes para que el archivo se divida en varios
+        service.crear(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        Path archivo = directorio.resolve("autos_importar.csv");
+        java.nio.file.Files.write(archivo, List.of(
+            new Auto(10, "Ford", "Focus", 2019, 18000.0, "Azul", 4, "Manual", false).toCSV(),
+            "no,es,un,auto",
+            new Auto(11, "", "Focus", 2019, 18000.0, "Azul", 4, "Manual", false).toCSV(),
+            new Auto(10, "Fiat", "Uno", 2010, 5000.0, "Blanco", 2, "Manual", false).toCSV(),
+            "",
+            new Auto(1, "Toyota", "Yaris", 2018, 15000.0, "Gris", 4, "Manual", false).toCSV(),
+            new Auto(12, "Renault", "Clio", 2021, 17000.0, "Negro", 4, "Automática", false).toCSV()));
+        
+        AutoValidator validador = new AutoValidator();
+        ImportadorVehiculos importador = new ImportadorVehiculos(repository, v -> v instanceof Auto a ? validador.validate(a) : List.of("No es un auto"),
+            new SecuenciaIds(repository), new java.util.concurrent.ForkJoinPool(2), 64);
+        List<Long> avance = new java.util.ArrayList<>();
+        
+        // Act
+        ResultadoImportacion resultado = importador.importar("auto", archivo,
+            (lineas, importados, bytes, total) -> avance.add(bytes));
+        
+        // Assert
+        assertEquals(6, resultado.getLineasLeidas());
+        assertEquals(2, resultado.getImportados());
+        assertEquals(4, resultado.getRechazados());
+        assertEquals(List.of(2L, 3L, 4L, 6L), resultado.getErrores().stream()
+            .map(ResultadoImportacion.ErrorLinea::getNumeroLinea).toList());
+        assertTrue(resultado.getErrores().get(3).getErrores().get(0).contains("Ya existe"));
+        assertEquals("Focus", service.obtener(10, "auto").getModelo());
+        assertEquals("Corolla", service.obtener(1, "auto").getModelo());
+        assertEquals(3, service.listarTodos("auto").size());
+        assertEquals(java.nio.file.Files.size(archivo), avance.get(avance.size() - 1));
+    }
+    
+    @Test
+    @Order(15)
+    @DisplayName("Test LOTES - Crear, actualizar y eliminar varios con un resultado por elemento")
+    void testOperacionesPorLotes_ResultPerItem() throws Exception {
+        // Arrange
+        Auto valido = new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true);
+        Auto invalido = new Auto(2, "", "Corolla", 1800, -1000.0, "Rojo", 4, "Automática", true);
+        Auto otro = new Auto(3, "Honda", "Civic", 2021, 28000.0, "Azul", 4, "Manual", true);
+        Auto repetido = new Auto(3, "Fiat", "Uno", 2010, 5000.0, "Blanco", 2, "Manual", false);
+        
+        // Act
+        List<ResultadoOperacion> creados = service.crearTodos(List.of(valido, invalido, otro, repetido));
+        Auto cambio = new Auto(1, "Toyota", "Corolla", 2020, 20000.0, "Rojo", 4, "Automática", true);
+        cambio.setVersion(1);
+        List<ResultadoOperacion> actualizados = service.actualizarTodos(List.of(
+            cambio, new Auto(7, "Ford", "Focus", 2019, 18000.0, "Azul", 4, "Manual", false)));
+        List<ResultadoOperacion> eliminados = service.eliminarTodos(List.of(3, 8, -1), "auto");
+        
+        // Assert
+        assertEquals(List.of(true, false, true, false), creados.stream().map(ResultadoOperacion::isExitoso).toList());
+        assertTrue(creados.get(3).getErrores().get(0).contains("Ya existe"));
+        assertEquals(List.of(true, false), actualizados.stream().map(ResultadoOperacion::isExitoso).toList());
+        assertEquals(List.of(true, false, false), eliminados.stream().map(ResultadoOperacion::isExitoso).toList());
+        assertEquals(20000.0, service.obtener(1, "auto").getPrecio(), 0.01);
+        assertEquals(1, service.listarTodos("auto").size());
+        assertTrue(service.obtenerProximoId("auto") > 3);
+    }
+    
+    @Test
+    @Order(16)
+    @DisplayName("Test LOTES - Un conflicto de versión falla solo ese elemento")
+    void testActualizarTodos_ConflictReportedPerItem() throws Exception {
+        // Arrange - un auto y dos motos; la segunda moto se editó después de leerla
+        service.crear(new Auto(1, "Toyota", "Corolla", 2020, 25000.0, "Rojo", 4, "Automática", true));
+        service.crear(new Moto(1, "Honda", "CBR", 2020, 8500.0, "Negro", 600, true));
+        service.crear(new Moto(2, "Yamaha", "R6", 2020, 9000.0, "Azul", 600, true));
+        Vehiculo vieja = service.obtener(2, "moto");
+        Vehiculo actual = service.obtener(2, "moto");
+        actual.setPrecio(9200.0);
+        service.actualizar(actual);
+        
+        Vehiculo auto = service.obtener(1, "auto");
+        auto.setPrecio(24000.0);
+        Vehiculo moto = service.obtener(1, "moto");
+        moto.setPrecio(8000.0);
+        vieja.setPrecio(7000.0);
+        
+        // Act
+        List<ResultadoOperacion> resultados = service.actualizarTodos(List.of(auto, moto, vieja));
+        
+        // Assert
+        assertEquals(List.of(true, true, false), resultados.stream().map(ResultadoOperacion::isExitoso).toList());
+        assertTrue(resultados.get(2).getErrores().get(0).contains("modificado por otro usuario"));
+        assertEquals(24000.0, service.obtener(1, "auto").getPrecio(), 0.01);
+        assertEquals(8000.0, service.obtener(1, "moto").getPrecio(), 0.01);
+        assertEquals(9200.0, service.obtener(2, "moto").getPrecio(), 0.01);
+    }
 }
-
@@ -0,0 +1,190 @@
+package ui;
+
+import exception.VehiculoException;
+import repository.*;
+import service.*;
+import validator.*;
+import util.FileManager;
+import util.JsonParser;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para ServidorHttp: rutas CRUD, listados, lotes y errores
+ */
+class ServidorHttpTest {
+
+    private static final String AUTO = "{\"marca\":\"Toyota\",\"modelo\":\"Corolla\",\"anio\":2020,"
+            + "\"precio\":15000,\"color\":\"Rojo\",\"numeroPuertas\":4,\"tipoTransmision\":\"Manual\",\"esSedan\":true}";
+
+    private FileManager fileManager;
+    private ServidorHttp servidor;
+    private HttpClient cliente;
+    private String base;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileManager = new FileManager();
+        fileManager.escribirArchivo("autos", List.of());
+        fileManager.escribirArchivo("motos", List.of());
+        fileManager.escribirArchivo("camiones", List.of());
+        IVehiculoRepository repository = new VehiculoIndexedRepository(fileManager);
+        IVehiculoService servicio = new VehiculoService(repository,
+            new AutoValidator(), new MotoValidator(), new CamionValidator());
+
+        servidor = new ServidorHttp(servicio, 0);
+        servidor.iniciar();
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        base = "http://localhost:" + servidor.getPuerto() + "/vehiculos/auto";
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.close();
+        try {
+            fileManager.eliminarArchivo("autos");
+            fileManager.eliminarArchivo("motos");
+            fileManager.eliminarArchivo("camiones");
+        } catch (Exception e) {
+            // Ignorar errores de limpieza
+        }
+    }
+
+    @Test
+    @DisplayName("Test CRUD - Crear, obtener, actualizar y eliminar por HTTP")
+    void testCrud() throws Exception {
+        // Crear sin ID: se asigna el próximo
+        HttpResponse<String> creado = enviar("POST", base, AUTO);
+        assertEquals(201, creado.statusCode());
+        Map<?, ?> auto = (Map<?, ?>) JsonParser.parsear(creado.body());
+        long id = (Long) auto.get("id");
+        assertTrue(id > 0);
+        assertEquals(1L, auto.get("version"));
+        assertEquals("/vehiculos/auto/" + id, creado.headers().firstValue("Location").orElse(null));
+
+        HttpResponse<String> leido = enviar("GET", base + "/" + id, null);
+        assertEquals(200, leido.statusCode());
+        assertEquals("Toyota", ((Map<?, ?>) JsonParser.parsear(leido.body())).get("marca"));
+
+        // Actualizar con la versión leída y luego con la misma (ya vieja)
+        String cambio = AUTO.replace("Rojo", "Azul").replace("{", "{\"version\":1,");
+        HttpResponse<String> actualizado = enviar("PUT", base + "/" + id, cambio);
+        assertEquals(200, actualizado.statusCode());
+        assertEquals(2L, ((Map<?, ?>) JsonParser.parsear(actualizado.body())).get("version"));
+        assertEquals(409, enviar("PUT", base + "/" + id, cambio).statusCode());
+
+        assertEquals(204, enviar("DELETE", base + "/" + id, null).statusCode());
+        assertEquals(404, enviar("GET", base + "/" + id, null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Test LISTADOS - Lote, página y listado completo comprimido")
+    void testListados() throws Exception {
+        // Arrange
+        HttpResponse<String> lote = enviar("POST", base + "/lote", "[" + AUTO + "," + AUTO + "," + AUTO + "]");
+        assertEquals(200, lote.statusCode());
+        for (Object resultado : (List<?>) JsonParser.parsear(lote.body())) {
+            assertEquals(Boolean.TRUE, ((Map<?, ?>) resultado).get("exitoso"));
+        }
+
+        // Act: página de 2
+        Map<?, ?> pagina = (Map<?, ?>) JsonParser.parsear(enviar("GET", base + "?tamano=2", null).body());
+
+        // Assert
+        assertEquals(2, ((List<?>) pagina.get("vehiculos")).size());
+        assertNotNull(pagina.get("siguiente"));
+
+        // Act: listado completo en flujo, con gzip
+        HttpResponse<InputStream> todos = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofInputStream());
+
+        // Assert
+        assertEquals(200, todos.statusCode());
+        assertEquals("gzip", todos.headers().firstValue("Content-Encoding").orElse(null));
+        String cuerpo;
+        try (InputStream entrada = new GZIPInputStream(todos.body())) {
+            cuerpo = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(3, ((List<?>) JsonParser.parsear(cuerpo)).size());
+
+        // Act + Assert: búsquedas por marca y por consulta
+        assertEquals(3, ((List<?>) JsonParser.parsear(enviar("GET", base + "/buscar?marca=toy", null).body())).size());
+        assertEquals(1, ((List<?>) JsonParser.parsear(
+                enviar("GET", base + "/buscar?q=numeroPuertas%3D4+LIMIT+1", null).body())).size());
+    }
+
+    @Test
+    @DisplayName("Test ERRORES - JSON inválido, validación, ruta y método")
+    void testErrores() throws Exception {
+        assertEquals(400, enviar("POST", base, "{\"marca\":").statusCode());
+
+        HttpResponse<String> invalido = enviar("POST", base, AUTO.replace("\"numeroPuertas\":4", "\"numeroPuertas\":9"));
+        assertEquals(400, invalido.statusCode());
+        Map<?, ?> error = (Map<?, ?>) JsonParser.parsear(invalido.body());
+        assertTrue(((List<?>) error.get("errores")).contains("El número de puertas debe estar entre 2 y 5"));
+
+        assertEquals(404, enviar("GET", base.replace("/auto", "/avion"), null).statusCode());
+        assertEquals(405, enviar("PATCH", base + "/1", AUTO).statusCode());
+    }
+
+    @Test
+    @DisplayName("Test VERSIONES - Un PUT sin versión no pisa el registro; If-Match usa el ETag leído")
+    void testActualizar_RequiereVersion() throws Exception {
+        // Arrange
+        long id = (Long) ((Map<?, ?>) JsonParser.parsear(enviar("POST", base, AUTO).body())).get("id");
+        String etag = enviar("GET", base + "/" + id, null).headers().firstValue("ETag").orElse(null);
+        assertEquals("\"1\"", etag);
+        String cambio = AUTO.replace("Rojo", "Azul");
+
+        // Act + Assert: sin versión, 428 y el auto no cambia
+        assertEquals(428, enviar("PUT", base + "/" + id, cambio).statusCode());
+        assertEquals(428, enviar("PUT", base + "/lote", "[" + cambio.replace("{", "{\"id\":" + id + ",") + "]")
+                .statusCode());
+        assertEquals(400, enviar("PUT", base + "/" + id, cambio.replace("{", "{\"version\":-1,")).statusCode());
+        assertEquals("Rojo", ((Map<?, ?>) JsonParser.parsear(enviar("GET", base + "/" + id, null).body())).get("color"));
+
+        // Act + Assert: con If-Match se actualiza y una segunda vez con el mismo ETag es conflicto
+        HttpRequest conEtag = HttpRequest.newBuilder(URI.create(base + "/" + id)).header("If-Match", etag)
+                .PUT(HttpRequest.BodyPublishers.ofString(cambio)).build();
+        HttpResponse<String> actualizado = cliente.send(conEtag, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, actualizado.statusCode());
+        assertEquals("\"2\"", actualizado.headers().firstValue("ETag").orElse(null));
+        assertEquals(409, cliente.send(conEtag, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Test ESTADOS - El estado sale del tipo de error: duplicado 409, falla de almacenamiento 500")
+    void testEstados_SegunTipoDeError() throws Exception {
+        // Arrange
+        long id = (Long) ((Map<?, ?>) JsonParser.parsear(enviar("POST", base, AUTO).body())).get("id");
+
+        // Act + Assert: mismo ID dos veces
+        assertEquals(409, enviar("POST", base, AUTO.replace("{", "{\"id\":" + id + ",")).statusCode());
+
+        // Act + Assert: fallas con causa que no es de validación
+        assertEquals(500, ServidorHttp.estadoDe(new VehiculoException("x", new IOException("disco"))));
+        assertEquals(500, ServidorHttp.estadoDe(new VehiculoException("x", new IllegalStateException("roto"))));
+        assertEquals(400, ServidorHttp.estadoDe(new VehiculoException("Tipo de vehículo inválido")));
+    }
+
+    private HttpResponse<String> enviar(String metodo, String url, String cuerpo)
+            throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publicador = cuerpo == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(cuerpo);
+        return cliente.send(HttpRequest.newBuilder(URI.create(url)).method(metodo, publicador).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
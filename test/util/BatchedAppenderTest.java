@@ -0,0 +1,77 @@
+package util;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para BatchedAppender
+ *
+ * Verifica que las escrituras agrupadas de varios hilos no se pierdan ni se mezclen
+ */
+class BatchedAppenderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test AGREGAR - Escrituras concurrentes agrupadas en lotes")
+    void testAgregar_ConcurrentWriters() throws Exception {
+        // Arrange
+        Path ruta = tempDir.resolve("autos.csv");
+        BatchedAppender canal = new BatchedAppender(ruta, 1, 64);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> futuros = new ArrayList<>();
+
+        // Act
+        for (int hilo = 0; hilo < 8; hilo++) {
+            final int base = hilo * 250;
+            hilos.submit(() -> {
+                for (int i = 1; i <= 250; i++) {
+                    CompletableFuture<Void> futuro = canal.agregar((base + i) + ",Toyota,Corolla");
+                    synchronized (futuros) {
+                        futuros.add(futuro);
+                    }
+                }
+            });
+        }
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(10, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        canal.cerrar();
+
+        // Assert
+        List<String> lineas = Files.readAllLines(ruta);
+        assertEquals(2000, lineas.size());
+        assertEquals(2000, new HashSet<>(lineas).size());
+        assertTrue(lineas.stream().allMatch(l -> l.endsWith(",Toyota,Corolla")));
+    }
+
+    @Test
+    @DisplayName("Test CERRAR - Las líneas posteriores al cierre fallan")
+    void testAgregar_AfterClose_Fails() throws Exception {
+        // Arrange
+        Path ruta = tempDir.resolve("motos.csv");
+        BatchedAppender canal = new BatchedAppender(ruta, 0, 16);
+        canal.agregar("1,Yamaha,R1").get(5, TimeUnit.SECONDS);
+
+        // Act
+        canal.cerrar();
+        CompletableFuture<Void> tardio = canal.agregar("2,Honda,CBR");
+
+        // Assert
+        assertTrue(tardio.isCompletedExceptionally());
+        assertEquals(List.of("1,Yamaha,R1"), Files.readAllLines(ruta));
+    }
+}
@@ -0,0 +1,182 @@
+package util;
+
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para BloqueoArchivo
+ *
+ * Verifica el bloqueo entre procesos (con una segunda JVM), la espera
+ * máxima y el contador de generación
+ */
+class BloqueoArchivoTest {
+
+    private static final String ARCHIVO = "bloqueo_prueba";
+
+    private static FileManager fileManager;
+
+    @BeforeAll
+    static void setUpAll() {
+        fileManager = new FileManager();
+    }
+
+    @AfterAll
+    static void tearDownAll() throws IOException {
+        Files.deleteIfExists(fileManager.obtenerRuta(ARCHIVO, ".lock"));
+    }
+
+    @Test
+    @DisplayName("Test PROCESOS - Otro proceso con el bloqueo de escritura hace esperar a los lectores")
+    void testBloqueo_OtherProcessBlocksReaders() throws Exception {
+        // Arrange
+        BloqueoArchivo bloqueo = fileManager.obtenerBloqueo(ARCHIVO);
+        long generacionInicial;
+        try (BloqueoArchivo.Permiso permiso = bloqueo.adquirirLectura(1000)) {
+            generacionInicial = permiso.getGeneracion();
+        }
+        long agotadosAntes = bloqueo.getTiemposAgotados();
+
+        Process otro = iniciarEscritor();
+        try {
+            assertEquals("BLOQUEADO", esperarBloqueo(otro));
+
+            // Act & Assert - mientras el otro proceso lo tiene, no se puede leer
+            assertThrows(IOException.class, () -> bloqueo.adquirirLectura(100).close());
+            assertEquals(agotadosAntes + 1, bloqueo.getTiemposAgotados());
+
+            // Al terminar el otro proceso se libera y la generación avanzó
+            otro.getOutputStream().close();
+            assertEquals(0, otro.waitFor());
+            try (BloqueoArchivo.Permiso permiso = bloqueo.adquirirLectura(1000)) {
+                assertEquals(generacionInicial + 1, permiso.getGeneracion());
+            }
+        } finally {
+            otro.destroyForcibly();
+        }
+    }
+
+    @Test
+    @DisplayName("Test REENTRANTE - Un escritor puede volver a bloquear sin avanzar la generación")
+    void testBloqueo_ReentrantWriterKeepsGeneration() throws IOException {
+        // Arrange
+        BloqueoArchivo bloqueo = fileManager.obtenerBloqueo(ARCHIVO);
+        long adquisicionesAntes = bloqueo.getAdquisiciones();
+
+        // Act
+        try (BloqueoArchivo.Permiso escritura = bloqueo.adquirirEscritura(1000)) {
+            long generacion = escritura.getGeneracion();
+            try (BloqueoArchivo.Permiso anidada = bloqueo.adquirirEscritura(1000);
+                 BloqueoArchivo.Permiso lectura = bloqueo.adquirirLectura(1000)) {
+                // Assert
+                assertEquals(generacion, anidada.getGeneracion());
+                assertEquals(generacion, lectura.getGeneracion());
+            }
+        }
+        assertEquals(adquisicionesAntes + 3, bloqueo.getAdquisiciones());
+    }
+
+    @Test
+    @DisplayName("Test TURNO - Con un escritor de otro proceso esperando, los lectores nuevos no se suman")
+    void testBloqueo_WaitingWriterStopsNewReaders() throws Exception {
+        // Arrange - otro hilo con un lector que no suelta el bloqueo compartido
+        BloqueoArchivo bloqueo = fileManager.obtenerBloqueo(ARCHIVO);
+        CountDownLatch tomado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread lector = new Thread(() -> {
+            try {
+                BloqueoArchivo.Permiso permiso = bloqueo.adquirirLectura(1000);
+                try {
+                    tomado.countDown();
+                    soltar.await();
+                } finally {
+                    permiso.close();
+                }
+            } catch (IOException | InterruptedException e) {
+                // El test falla al no poder esperar el bloqueo
+            }
+        });
+        lector.start();
+        assertTrue(tomado.await(5, TimeUnit.SECONDS));
+        Process otro = iniciarEscritor();
+        try {
+            // Act - los lectores nuevos se suman hasta que el otro proceso pide escribir
+            boolean rechazado = false;
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!rechazado && System.nanoTime() - limite < 0) {
+                try {
+                    bloqueo.adquirirLectura(50).close();
+                    Thread.sleep(10);
+                } catch (IOException e) {
+                    rechazado = true;
+                }
+            }
+            soltar.countDown();
+
+            // Assert - al soltarlo el primer lector, el escritor entra
+            assertTrue(rechazado);
+            assertEquals("BLOQUEADO", esperarBloqueo(otro));
+            otro.getOutputStream().close();
+            assertEquals(0, otro.waitFor());
+        } finally {
+            soltar.countDown();
+            lector.join();
+            otro.destroyForcibly();
+        }
+    }
+
+    /**
+     * Lanza el proceso Escritor en otra JVM
+     */
+    private static Process iniciarEscritor() throws Exception {
+        // Las clases se compilan en "out", que el lanzador de JUnit no deja en java.class.path
+        String clases = Paths.get(Escritor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        return new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", clases, Escritor.class.getName())
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    /**
+     * Espera a que el proceso Escritor avise que tomó el bloqueo
+     *
+     * @return "BLOQUEADO", o null si el proceso terminó sin tomarlo
+     */
+    private static String esperarBloqueo(Process otro) throws IOException {
+        BufferedReader salida = new BufferedReader(new InputStreamReader(otro.getInputStream()));
+        String linea;
+        while ((linea = salida.readLine()) != null && !linea.equals("BLOQUEADO")) {
+            // Ignorar la salida previa (ej: creación del directorio)
+        }
+        return linea;
+    }
+
+    /**
+     * Proceso auxiliar: toma el bloqueo de escritura hasta que se cierre su entrada estándar
+     */
+    public static class Escritor {
+        public static void main(String[] args) throws IOException {
+            FileManager fileManager = new FileManager();
+            BloqueoArchivo.Permiso permiso = fileManager.bloquearEscritura(ARCHIVO);
+            try {
+                System.out.println("BLOQUEADO");
+                System.out.flush();
+                while (System.in.read() >= 0) {
+                    // Esperar a que el proceso principal cierre la entrada
+                }
+            } finally {
+                permiso.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package util;
+
+import model.Auto;
+import model.Camion;
+import org.junit.jupiter.api.*;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CsvSerializer
+ *
+ * Verifica que los decimales coincidan con "%.2f" sin depender de la
+ * configuración regional y que los textos con comas se lean de vuelta
+ */
+class CsvSerializerTest {
+
+    @Test
+    @DisplayName("Test DECIMALES - Mismo resultado que %.2f con Locale.ROOT")
+    void testFormatearDecimal_SameAsStringFormat() {
+        // Arrange
+        double[] casos = {
+            0, -0.0, 0.125, 1.005, 2.675, 0.045, 15000, 2000000.5, -0.001, -1.235,
+            99999999999.995, 1e11, 123456789012.345, 1e20, 4.9e-324, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+        };
+        Random random = new Random(7);
+
+        // Act & Assert
+        for (double valor : casos) {
+            assertDecimalIgualAFormat(valor);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertDecimalIgualAFormat(random.nextInt(10_000_000) / 1000.0);
+            assertDecimalIgualAFormat(random.nextDouble() * 1e12);
+        }
+    }
+
+    @Test
+    @DisplayName("Test LOCALE - El precio usa punto aunque la configuración regional use coma")
+    void testToCSV_IgnoresDefaultLocale() {
+        // Arrange
+        Locale original = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("es-AR"));
+        try {
+            Camion camion = new Camion(3, "Volvo", "FH16", 2019, 120000.5, "Blanco", 25.25, 3);
+
+            // Act
+            String linea = camion.toCSV();
+
+            // Assert
+            assertEquals("3,Volvo,FH16,2019,120000.50,Blanco,25.25,3", linea);
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    @Test
+    @DisplayName("Test COMILLAS - Los textos con comas y comillas sobreviven al ida y vuelta")
+    void testTexto_RoundTripWithCommasAndQuotes() {
+        // Arrange
+        Auto auto = new Auto(1, "Mercedes, Benz", "Clase \"C\"", 2022, 45000.99, "Gris", 4, "Automática", true);
+
+        // Act
+        String linea = auto.toCSV();
+        Auto leido = Auto.fromCSV(linea);
+
+        // Assert
+        assertEquals("1,\"Mercedes, Benz\",\"Clase \"\"C\"\"\",2022,45000.99,Gris,4,Automática,true", linea);
+        assertEquals("Mercedes, Benz", leido.getMarca());
+        assertEquals("Clase \"C\"", leido.getModelo());
+        assertEquals(45000.99, leido.getPrecio());
+        assertEquals("Gris", leido.getColor());
+        assertTrue(leido.isEsSedan());
+    }
+
+    private static void assertDecimalIgualAFormat(double valor) {
+        StringBuilder resultado = new StringBuilder();
+        CsvSerializer.formatearDecimal(resultado, valor);
+        assertEquals(String.format(Locale.ROOT, "%.2f", valor), resultado.toString(), "Valor: " + valor);
+    }
+}
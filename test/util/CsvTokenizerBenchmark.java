@@ -0,0 +1,131 @@
+package util;
+
+import model.Auto;
+import model.Camion;
+import model.Moto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Comparación de rendimiento entre el parser anterior (String.split) y
+ * CsvTokenizer sobre las mismas líneas.
+ *
+ * No es una prueba unitaria: se ejecuta a mano con
+ * java -cp ... util.CsvTokenizerBenchmark [cantidadLineas]
+ */
+public class CsvTokenizerBenchmark {
+
+    private static final long CALENTAMIENTO_NANOS = 3_000_000_000L;
+    private static final int RONDAS_MEDICION = 10;
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<String> lineas = generarLineas(cantidad);
+
+        // Calentamiento por tiempo, para que el JIT compile ambos caminos
+        long finCalentamiento = System.nanoTime() + CALENTAMIENTO_NANOS;
+        while (System.nanoTime() < finCalentamiento) {
+            medirSplit(lineas);
+            medirTokenizer(lineas);
+        }
+
+        long mejorSplit = Long.MAX_VALUE;
+        long mejorTokenizer = Long.MAX_VALUE;
+        for (int i = 0; i < RONDAS_MEDICION; i++) {
+            mejorSplit = Math.min(mejorSplit, medirSplit(lineas));
+            mejorTokenizer = Math.min(mejorTokenizer, medirTokenizer(lineas));
+        }
+
+        System.out.printf("Líneas: %d%n", lineas.size());
+        System.out.printf("split     : %6.1f ns/línea%n", (double) mejorSplit / lineas.size());
+        System.out.printf("tokenizer : %6.1f ns/línea%n", (double) mejorTokenizer / lineas.size());
+        System.out.printf("Mejora    : %.2fx%n", (double) mejorSplit / mejorTokenizer);
+    }
+
+    private static long medirSplit(List<String> lineas) {
+        long inicio = System.nanoTime();
+        double suma = 0;
+        for (String linea : lineas) {
+            suma += parsearConSplit(linea);
+        }
+        long duracion = System.nanoTime() - inicio;
+        evitarEliminacion(suma);
+        return duracion;
+    }
+
+    private static long medirTokenizer(List<String> lineas) {
+        long inicio = System.nanoTime();
+        double suma = 0;
+        for (String linea : lineas) {
+            suma += parsearConTokenizer(linea);
+        }
+        long duracion = System.nanoTime() - inicio;
+        evitarEliminacion(suma);
+        return duracion;
+    }
+
+    /**
+     * Parser anterior, tal como estaba en Auto/Moto/Camion.fromCSV.
+     * El tipo se deduce del ID como en generarLineas().
+     */
+    private static double parsearConSplit(String linea) {
+        String[] datos = linea.trim().split(",");
+        int id = Integer.parseInt(datos[0].trim());
+        switch (id % 3) {
+            case 0:
+                return new Auto(id, datos[1].trim(), datos[2].trim(),
+                        Integer.parseInt(datos[3].trim()), Double.parseDouble(datos[4].trim()), datos[5].trim(),
+                        Integer.parseInt(datos[6].trim()), datos[7].trim(),
+                        Boolean.parseBoolean(datos[8].trim())).getPrecio();
+            case 1:
+                return new Moto(id, datos[1].trim(), datos[2].trim(),
+                        Integer.parseInt(datos[3].trim()), Double.parseDouble(datos[4].trim()), datos[5].trim(),
+                        Integer.parseInt(datos[6].trim()), Boolean.parseBoolean(datos[7].trim())).getPrecio();
+            default:
+                return new Camion(id, datos[1].trim(), datos[2].trim(),
+                        Integer.parseInt(datos[3].trim()), Double.parseDouble(datos[4].trim()), datos[5].trim(),
+                        Double.parseDouble(datos[6].trim()), Integer.parseInt(datos[7].trim())).getPrecio();
+        }
+    }
+
+    private static double parsearConTokenizer(String linea) {
+        int id = new CsvTokenizer(linea).siguienteEntero();
+        switch (id % 3) {
+            case 0:
+                return Auto.fromCSV(linea).getPrecio();
+            case 1:
+                return Moto.fromCSV(linea).getPrecio();
+            default:
+                return Camion.fromCSV(linea).getPrecio();
+        }
+    }
+
+    private static List<String> generarLineas(int cantidad) {
+        Random random = new Random(42);
+        String[] marcas = {"Toyota", "Honda", "Ford", "Volvo", "Yamaha", "Scania"};
+        List<String> lineas = new ArrayList<>(cantidad);
+
+        for (int i = 1; i <= cantidad; i++) {
+            String marca = marcas[random.nextInt(marcas.length)];
+            int anio = 1990 + random.nextInt(35);
+            String precio = (1000 + random.nextInt(500_000)) + "." + (10 + random.nextInt(90));
+            switch (i % 3) {
+                case 0 -> lineas.add(i + "," + marca + ",Modelo" + i + "," + anio + "," + precio
+                        + ",Rojo,4,Manual," + random.nextBoolean());
+                case 1 -> lineas.add(i + "," + marca + ",Modelo" + i + "," + anio + "," + precio
+                        + ",Negro," + (125 + random.nextInt(1000)) + "," + random.nextBoolean());
+                default -> lineas.add(i + "," + marca + ",Modelo" + i + "," + anio + "," + precio
+                        + ",Blanco," + (5 + random.nextInt(40)) + ".5," + (2 + random.nextInt(4)));
+            }
+        }
+        return lineas;
+    }
+
+    private static void evitarEliminacion(double valor) {
+        if (valor == 42.4242) {
+            System.out.println(valor);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package util;
+
+import model.Auto;
+import model.Camion;
+import model.Moto;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CsvTokenizer
+ *
+ * Verifica que el cursor interprete los campos igual que el parser anterior
+ * (String.split + trim + Integer/Double/Boolean.parse*)
+ */
+class CsvTokenizerTest {
+
+    @Test
+    @DisplayName("Test DECIMALES - Mismo resultado que Double.parseDouble")
+    void testSiguienteDouble_SameAsParseDouble() {
+        // Arrange
+        String[] valores = {
+            "0", "-0.0", "15000.00", "0.1", "2000000.50", "+3.25", "007.010", ".5", "5.",
+            "123456789012345678", "0.30000000000000004", "1e5", "1.5E-3", "NaN", "-Infinity",
+            "9007199254740993", "1.7976931348623157E308", "4.9e-324", "0x1p3", "2.5d"
+        };
+
+        for (String valor : valores) {
+            // Act
+            double resultado = new CsvTokenizer(" " + valor + " ,x").siguienteDouble();
+
+            // Assert
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(valor)),
+                    Double.doubleToLongBits(resultado), "Valor: " + valor);
+        }
+    }
+
+    @Test
+    @DisplayName("Test ENTEROS - Mismo resultado y errores que Integer.parseInt")
+    void testSiguienteEntero_SameAsParseInt() {
+        // Arrange
+        String[] validos = {"0", "42", "-7", "+8", "2147483647", "-2147483648", "000123"};
+        String[] invalidos = {"", "-", "2147483648", "12a", "1.0", "99999999999"};
+
+        // Act & Assert
+        for (String valor : validos) {
+            assertEquals(Integer.parseInt(valor), new CsvTokenizer(valor).siguienteEntero(), "Valor: " + valor);
+        }
+        for (String valor : invalidos) {
+            assertThrows(NumberFormatException.class,
+                    () -> new CsvTokenizer(valor + ",1").siguienteEntero(), "Valor: " + valor);
+        }
+    }
+
+    @Test
+    @DisplayName("Test CAMPOS - Conteo y recorte igual que split(\",\")")
+    void testContarCampos_SameAsSplit() {
+        // Arrange
+        String[] lineas = {"a,b,c", "a,,c", "a,b,,", ",,,", "", "  uno , dos ,tres  ", "a,b, ,"};
+
+        for (String linea : lineas) {
+            CsvTokenizer campos = new CsvTokenizer(linea);
+            String[] esperado = linea.trim().split(",");
+
+            // Act & Assert
+            assertEquals(esperado.length, campos.contarCampos(), "Línea: " + linea);
+            for (String campo : esperado) {
+                assertEquals(campo.trim(), campos.siguienteTexto(), "Línea: " + linea);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test BOOLEANOS - Mismo resultado que Boolean.parseBoolean")
+    void testSiguienteBoolean_SameAsParseBoolean() {
+        // Arrange
+        String[] valores = {"true", "TRUE", "True", "false", "si", "", "truee", "1"};
+
+        // Act & Assert
+        for (String valor : valores) {
+            assertEquals(Boolean.parseBoolean(valor), new CsvTokenizer(valor).siguienteBoolean(), "Valor: " + valor);
+        }
+    }
+
+    @Test
+    @DisplayName("Test FROM CSV - Los modelos se reconstruyen igual, incluida la coma decimal")
+    void testFromCSV_ParsesAllTypes() {
+        // Act
+        Auto auto = Auto.fromCSV(" 1, Toyota ,Corolla,2020,2000000,50,Rojo,4,Automática,true ");
+        Moto moto = Moto.fromCSV("2,Honda,CBR,2021,8500.75,Negro,600,TRUE");
+        Camion camion = Camion.fromCSV("3,Volvo,FH16,2019,120000.00,Blanco,25.5,3");
+
+        // Assert
+        assertEquals("Toyota", auto.getMarca());
+        assertEquals(2000000.50, auto.getPrecio());
+        assertEquals("Rojo", auto.getColor());
+        assertTrue(auto.isEsSedan());
+        assertEquals(8500.75, moto.getPrecio());
+        assertTrue(moto.isTieneCarenado());
+        assertEquals(25.5, camion.getCapacidadCarga());
+        assertEquals(3, camion.getNumeroEjes());
+        assertThrows(IllegalArgumentException.class, () -> Auto.fromCSV("1,Toyota,Corolla"));
+        assertThrows(NumberFormatException.class, () -> Moto.fromCSV("x,Honda,CBR,2021,1,Negro,600,true"));
+    }
+
+    @Test
+    @DisplayName("Test VERSION - El campo de versión final no se confunde con la coma decimal")
+    void testQuitarVersion_TrailingVersionField() {
+        // Act
+        Auto conComa = Auto.fromCSV("1,Toyota,Corolla,2020,2000000,50,Rojo,4,Automática,true,v7");
+        Camion camion = Camion.fromCSV("3,Volvo,FH16,2019,120000.00,Blanco,25.5,3 , v12");
+        Moto sinVersion = Moto.fromCSV("2,Honda,CBR,2021,8500.75,Negro,600,true");
+
+        // Assert
+        assertEquals(7, conComa.getVersion());
+        assertEquals(2000000.50, conComa.getPrecio());
+        assertTrue(conComa.isEsSedan());
+        assertEquals(12, camion.getVersion());
+        assertEquals(3, camion.getNumeroEjes());
+        assertEquals(0, sinVersion.getVersion());
+        assertEquals(12, Camion.fromCSV(camion.toCSV()).getVersion());
+        assertEquals("2,Honda,CBR,2021,8500.75,Negro,600,true", sinVersion.toCSV());
+    }
+}
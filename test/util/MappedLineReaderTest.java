@@ -0,0 +1,96 @@
+package util;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para MappedLineReader
+ *
+ * Verifica que el recorrido por ventanas entregue las mismas líneas que
+ * leerArchivo, incluso con líneas cortadas entre ventanas
+ */
+class MappedLineReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test VENTANAS - Las líneas cortadas entre ventanas se entregan completas")
+    void testRecorrer_LinesAcrossWindows() throws IOException {
+        // Arrange
+        Path ruta = tempDir.resolve("autos.csv");
+        Files.writeString(ruta, "1,Toyota,Corolla\r\n\n  2,Citroën,C4  \n3,Fiat,Uno", StandardCharsets.UTF_8);
+
+        // Act - ventana de 20 bytes: ninguna línea entra dos veces en la misma ventana
+        List<String> lineas = recorrer(ruta, 20);
+
+        // Assert
+        assertEquals(List.of("1,Toyota,Corolla", "2,Citroën,C4", "3,Fiat,Uno"), lineas);
+    }
+
+    @Test
+    @DisplayName("Test MAPEO - Un archivo grande mapeado en varias ventanas")
+    void testRecorrer_LargeMappedFile() throws IOException {
+        // Arrange - más de 1 MB para que se mapee en lugar de leerse de una vez
+        Path ruta = tempDir.resolve("motos.csv");
+        List<String> esperadas = new ArrayList<>();
+        for (int i = 1; i <= 40_000; i++) {
+            esperadas.add(i + ",Honda,CBR" + i + ",2020,8500.00,Negro,600,true");
+        }
+        Files.write(ruta, esperadas, StandardCharsets.UTF_8);
+
+        // Act
+        List<String> lineas = recorrer(ruta, 64 * 1024);
+
+        // Assert
+        assertTrue(Files.size(ruta) > 1024 * 1024);
+        assertEquals(esperadas, lineas);
+    }
+
+    @Test
+    @DisplayName("Test LÍNEA LARGA - Una línea que no entra en la ventana produce un error")
+    void testRecorrer_LineLongerThanWindow() throws IOException {
+        // Arrange
+        Path ruta = tempDir.resolve("camiones.csv");
+        Files.writeString(ruta, "1,Volvo,FH16,2020,150000.00,Blanco,25.00,4\n2,Scania\n");
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> recorrer(ruta, 10));
+    }
+
+    @Test
+    @DisplayName("Test SIN MAPEO - Las lecturas posicionales entregan las mismas líneas")
+    void testRecorrer_WithoutMapping() throws IOException {
+        // Arrange - más de 1 MB y una línea más larga que el buffer inicial de lectura
+        Path ruta = tempDir.resolve("autos.csv");
+        List<String> esperadas = new ArrayList<>();
+        for (int i = 1; i <= 40_000; i++) {
+            esperadas.add(i + ",Toyota,Corolla" + i + ",2020,25000.00,Rojo,4,Manual,true");
+        }
+        esperadas.add("40001,Toyota," + "X".repeat(3 * 1024 * 1024) + ",2020,25000.00,Rojo,4,Manual,true");
+        Files.write(ruta, esperadas, StandardCharsets.UTF_8);
+
+        // Act
+        List<String> lineas = new ArrayList<>();
+        new MappedLineReader(MappedLineReader.VENTANA_DEFECTO, false)
+                .recorrer(ruta, linea -> lineas.add(linea.toString()));
+
+        // Assert
+        assertEquals(esperadas, lineas);
+    }
+
+    private static List<String> recorrer(Path ruta, long ventana) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        new MappedLineReader(ventana).recorrer(ruta, linea -> lineas.add(linea.toString()));
+        return lineas;
+    }
+}
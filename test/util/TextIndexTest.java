@@ -0,0 +1,51 @@
+package util;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para TextIndex
+ */
+class TextIndexTest {
+
+    private TextIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new TextIndex();
+        indice.agregar(3, "Toyota");
+        indice.agregar(1, "TOYOTA");
+        indice.agregar(2, "Honda");
+        indice.agregar(4, "Tesla");
+        indice.agregar(5, "To");
+    }
+
+    @Test
+    @DisplayName("Test BUSCAR - Exacto, prefijo y subcadena sin distinguir mayúsculas")
+    void testBuscar_ExactPrefixAndSubstring() {
+        // Act & Assert
+        assertEquals(List.of(1, 3), List.copyOf(indice.buscarExacto("toyota")));
+        assertEquals(List.of(1, 3, 5), List.copyOf(indice.buscarPrefijo("TO")));
+        assertEquals(List.of(1, 3), List.copyOf(indice.buscarContiene("yot")));
+        assertEquals(List.of(1, 2, 3, 5), List.copyOf(indice.buscarContiene("o")));
+        assertEquals(List.of(4), List.copyOf(indice.buscarContiene("ESLA")));
+        assertTrue(indice.buscarContiene("toyotas").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test QUITAR - Al quitar el último ID desaparece el término")
+    void testQuitar_RemovesTermWhenEmpty() {
+        // Act
+        indice.quitar(1, "Toyota");
+        indice.quitar(3, "toyota");
+        indice.quitar(2, "Fiat"); // no indexado: no hace nada
+
+        // Assert
+        assertTrue(indice.buscarContiene("yot").isEmpty());
+        assertEquals(List.of(2), List.copyOf(indice.buscarContiene("hon")));
+        assertEquals(3, indice.cantidadTerminos());
+    }
+}
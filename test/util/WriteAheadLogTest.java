@@ -0,0 +1,84 @@
+package util;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para WriteAheadLog
+ *
+ * Verifica que las mutaciones sin confirmar sobrevivan a un cierre inesperado
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test PENDIENTES - Las entradas sin confirmar se recuperan al reabrir")
+    void testPendientes_AfterReopen() throws IOException {
+        // Arrange
+        Path ruta = tempDir.resolve("prueba.wal");
+        WriteAheadLog wal = WriteAheadLog.abrir(ruta);
+        long primera = wal.registrar("U\tautos\t1,Toyota");
+        long segunda = wal.registrar("D\tautos\t2");
+        wal.confirmar(primera);
+
+        // Act - simular un reinicio
+        wal.cerrar();
+        SortedMap<Long, String> pendientes = WriteAheadLog.abrir(ruta).pendientes();
+
+        // Assert
+        assertEquals(1, pendientes.size());
+        assertEquals("D\tautos\t2", pendientes.get(segunda));
+    }
+
+    @Test
+    @DisplayName("Test PENDIENTES - Se descarta una línea final incompleta")
+    void testPendientes_IgnoresTornTail() throws IOException {
+        // Arrange
+        Path ruta = tempDir.resolve("incompleto.wal");
+        WriteAheadLog wal = WriteAheadLog.abrir(ruta);
+        wal.registrar("U\tmotos\t3,Yamaha");
+        wal.cerrar();
+        Files.write(ruta, "R\t2\t123\tU\tmo".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        // Act
+        WriteAheadLog reabierto = WriteAheadLog.abrir(ruta);
+        long siguiente = reabierto.registrar("D\tmotos\t3");
+
+        // Assert
+        assertEquals(1, reabierto.pendientes().size());
+        assertEquals(2, siguiente);
+        reabierto.cerrar();
+        assertEquals(2, WriteAheadLog.abrir(ruta).pendientes().size());
+    }
+
+    @Test
+    @DisplayName("Test PROCESOS - Un WAL abierto no se puede tomar para recuperarlo")
+    void testAbrirSiLibre_OnlyWhenNotInUse() throws IOException {
+        // Arrange
+        Path ruta = tempDir.resolve("otro-proceso.wal");
+        WriteAheadLog enUso = WriteAheadLog.abrir(ruta);
+        long secuencia = enUso.registrar("D\tautos\t7");
+
+        // Act & Assert - mientras su dueño lo tiene abierto
+        assertNull(WriteAheadLog.abrirSiLibre(ruta));
+
+        // Act & Assert - cuando el dueño terminó
+        enUso.cerrar();
+        WriteAheadLog libre = WriteAheadLog.abrirSiLibre(ruta);
+        assertNotNull(libre);
+        assertEquals("D\tautos\t7", libre.pendientes().get(secuencia));
+        libre.eliminar();
+        assertFalse(Files.exists(ruta));
+    }
+}